@@ -0,0 +1,32 @@
+package org.opengoofy.assault.messageservice.api.dto;
+
+import lombok.Data;
+
+import java.util.Date;
+
+/**
+ * 批量发送活动创建入参实体
+ */
+@Data
+public class MessageCampaignCreateRequestDTO {
+    
+    /**
+     * 消息批量发送ID
+     */
+    private String msgBatchId;
+    
+    /**
+     * 目标每秒投递数，为空时根据投递窗口与暂存消息数计算
+     */
+    private Integer targetTps;
+    
+    /**
+     * 投递窗口开始时间，为空时立即开始投递
+     */
+    private Date windowStartTime;
+    
+    /**
+     * 投递窗口结束时间，未声明目标每秒投递数时必填
+     */
+    private Date windowEndTime;
+}
@@ -0,0 +1,63 @@
+package org.opengoofy.assault.messageservice.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * 批量发送活动进度出参实体
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MessageCampaignProgressResponseDTO {
+    
+    /**
+     * 消息批量发送ID
+     */
+    private String msgBatchId;
+    
+    /**
+     * 目标每秒投递数
+     */
+    private Integer targetTps;
+    
+    /**
+     * 投递窗口开始时间
+     */
+    private Date windowStartTime;
+    
+    /**
+     * 投递窗口结束时间
+     */
+    private Date windowEndTime;
+    
+    /**
+     * 已接收进入暂存队列的消息数
+     */
+    private Long acceptedCount;
+    
+    /**
+     * 暂存队列中等待投递以及已弹出尚未确认投递的消息数
+     */
+    private Long stagedCount;
+    
+    /**
+     * 已从暂存队列投递到发送通道的消息数
+     */
+    private Long releasedCount;
+    
+    /**
+     * 发送成功数
+     */
+    private Long successCount;
+    
+    /**
+     * 发送失败数
+     */
+    private Long failCount;
+}
@@ -0,0 +1,20 @@
+package org.opengoofy.assault.messageservice.api.dto;
+
+import lombok.Data;
+
+/**
+ * 消息撤回入参实体
+ */
+@Data
+public class MessageCancelRequestDTO {
+    
+    /**
+     * 消息ID，为空时撤回整个批次
+     */
+    private String msgId;
+    
+    /**
+     * 消息批量发送ID，与消息ID同时传入时只撤回该消息
+     */
+    private String msgBatchId;
+}
@@ -0,0 +1,37 @@
+package org.opengoofy.assault.messageservice.api.dto;
+
+import lombok.Data;
+
+import java.util.Date;
+
+/**
+ * 消息分页查询入参实体
+ */
+@Data
+public class MessagePageQueryRequestDTO {
+    
+    /**
+     * 接收者
+     */
+    private String receiver;
+    
+    /**
+     * 发送开始时间
+     */
+    private Date sendStartTime;
+    
+    /**
+     * 发送结束时间
+     */
+    private Date sendEndTime;
+    
+    /**
+     * 分页游标，取上一页返回的 nextCursor，为空时查询第一页
+     */
+    private String cursor;
+    
+    /**
+     * 每页条数，不超过配置的上限
+     */
+    private Integer pageSize;
+}
@@ -0,0 +1,26 @@
+package org.opengoofy.assault.messageservice.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 消息分页查询返回实体
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessagePageQueryResponseDTO {
+    
+    /**
+     * 当前页消息，按创建时间、消息ID升序
+     */
+    private List<MessageQueryResponseDTO> records;
+    
+    /**
+     * 下一页游标，为空时没有更多数据
+     */
+    private String nextCursor;
+}
@@ -2,6 +2,7 @@ package org.opengoofy.assault.messageservice.api.dto;
 
 import lombok.Data;
 
+import java.util.Date;
 import java.util.List;
 
 /**
@@ -39,4 +40,14 @@ public class MessageSendRequestDTO {
      * 客户端配置 MQ 回调
      */
     private MQCallbackDTO mqCallback;
+    
+    /**
+     * 消息批量发送ID，已声明投递速率的批次进入暂存队列按速率匀速投递
+     */
+    private String msgBatchId;
+    
+    /**
+     * 定时发送时间，为空或早于当前时间时立即发送
+     */
+    private Date sendAt;
 }
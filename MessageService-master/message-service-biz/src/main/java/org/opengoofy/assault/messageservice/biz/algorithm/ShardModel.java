@@ -2,12 +2,14 @@ package org.opengoofy.assault.messageservice.biz.algorithm;
 
 import cn.hutool.core.date.DateTime;
 import cn.hutool.core.date.DateUtil;
-import com.google.common.collect.Sets;
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.Calendar;
+import java.util.Collection;
 import java.util.Date;
+import java.util.LinkedHashSet;
 import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * 计算分片表地址
@@ -17,6 +19,8 @@ public class ShardModel {
     
     public static final String SEND_MSG_SHARD_TABLE = "%s_%d_m%d";  //格式化字符串，用于表示分片表的地址
 
+    private static final Pattern SHARD_SUFFIX_PATTERN = Pattern.compile("_(\\d{4})_m(\\d{1,2})$");  //分片表名中的年月后缀
+
     /**
      * 根据表名和日期生成分片表的地址
      * @param table 表名
@@ -31,33 +35,43 @@ public class ShardModel {
 
     /**
      * 计算在指定时间范围内的分片表地址
+     * <p>
+     * 按年月序号从起始月份逐月遍历到结束月份，跨年时年份随序号进位，起止日期在同一月份时只返回一张表
      * @param tableName 表名
      * @param start 起始日期
      * @param end 结束日期
-     * @return 时间范围内的分片表地址集合
+     * @return 时间范围内的分片表地址集合，按月份升序
      */
     public static Set<String> calculateRange(String tableName, Date start, Date end) {  //计算在指定时间范围内的分片表地址
-        int year = DateUtil.year(start); // 获取起始日期的年份
-        Set<String> result = Sets.newHashSet(); // 创建一个用于存储结果的集合
-        Calendar calendar = Calendar.getInstance(); // 获取当前时间的 Calendar 实例，并将其设置为起始日期
-        calendar.setTime(start);
-
-        while (calendar.getTime().before(end)) { // 在起始日期之前的每个月循环
-            int month = calendar.get(Calendar.MONTH); // 获取当前月份
-            result.add(String.format(SEND_MSG_SHARD_TABLE, tableName, year, month + 1)); // 将表名、年份和月份填充到分片表的格式化字符串中，并将结果添加到结果集合中
-            if (month == 11) {  // 如果当前月份是 11（即 12 月），则年份加1
-                year += 1;
-            }
-            calendar.add(Calendar.MONTH, 1);   // 将日期增加一个月
+        int startMonth = DateUtil.year(start) * 12 + DateUtil.month(start);
+        int endMonth = DateUtil.year(end) * 12 + DateUtil.month(end);
+        Set<String> result = new LinkedHashSet<>(Math.max(1, endMonth - startMonth + 1));
+        for (int month = startMonth; month <= endMonth; month++) {
+            result.add(String.format(SEND_MSG_SHARD_TABLE, tableName, month / 12, month % 12 + 1));
         }
-        Calendar endCalendar = Calendar.getInstance(); // 创建一个 Calendar 实例，并将其设置为结束日期
-        endCalendar.setTime(end);
-
-        //上面的循环中处理的是开始日期和结束日期不在同一个月，通过循环处理每一个月份的情况，将每个月份对应的分片表地址都添加到集合中。
+        return result;
+    }
 
-        if (calendar.get(Calendar.MONTH) == endCalendar.get(Calendar.MONTH)) { // 如果起始日期的月份与结束日期的月份相同
-            int month = calendar.get(Calendar.MONTH);   // 获取当前月份
-            result.add(String.format(tableName + "_%d_m%d", year, month + 1));   // 将表名、年份和月份填充到格式化字符串中，并将结果添加到结果集合中
+    /**
+     * 按表名中的年月过滤分片表，边界为空时不限制该侧
+     * @param tables 分片表名集合
+     * @param start 起始日期，可为空
+     * @param end 结束日期，可为空
+     * @return 年月落在范围内的分片表名集合
+     */
+    public static Set<String> filterRange(Collection<String> tables, Date start, Date end) {
+        int startMonth = start == null ? Integer.MIN_VALUE : DateUtil.year(start) * 12 + DateUtil.month(start);
+        int endMonth = end == null ? Integer.MAX_VALUE : DateUtil.year(end) * 12 + DateUtil.month(end);
+        Set<String> result = new LinkedHashSet<>();
+        for (String each : tables) {
+            Matcher matcher = SHARD_SUFFIX_PATTERN.matcher(each);
+            if (!matcher.find()) {
+                continue;
+            }
+            int month = Integer.parseInt(matcher.group(1)) * 12 + Integer.parseInt(matcher.group(2)) - 1;
+            if (month >= startMonth && month <= endMonth) {
+                result.add(each);
+            }
         }
         return result;
     }
@@ -83,11 +83,16 @@ public final class SnowflakeDateShardingAlgorithm implements ComplexKeysSharding
         } else {
             // 根据范围进行分片
             Range<Comparable<?>> sendTimeRange = columnNameAndRangeValuesMap.get(sendTime);
-            if (sendTimeRange != null) {
+            if (sendTimeRange != null && sendTimeRange.hasLowerBound() && sendTimeRange.hasUpperBound()) {
 
                 // 根据范围计算实际表名集合
                 Set<String> actualTables = ShardModel.calculateRange(logicTableName, (Date) sendTimeRange.lowerEndpoint(), (Date) sendTimeRange.upperEndpoint());
                 result.addAll(actualTables);
+            } else if (sendTimeRange != null) {
+                // 只有一侧边界的范围，按表名中的年月过滤可用的表
+                Date start = sendTimeRange.hasLowerBound() ? (Date) sendTimeRange.lowerEndpoint() : null;
+                Date end = sendTimeRange.hasUpperBound() ? (Date) sendTimeRange.upperEndpoint() : null;
+                result.addAll(ShardModel.filterRange((Collection<String>) availableTargetNames, start, end));
             } else {
                 // 没有指定分片值或范围，返回所有可用的目标表名
                 result.addAll(availableTargetNames);
@@ -0,0 +1,49 @@
+package org.opengoofy.assault.messageservice.biz.algorithm;
+
+import org.opengoofy.assault.framework.starter.distributedid.SnowflakeIdUtil;
+
+import java.util.Date;
+
+/**
+ * 按时间计算雪花ID边界
+ * <p>
+ * 雪花ID高位为相对起始时间的毫秒数，起始时间与时间戳位移量通过 {@link SnowflakeIdUtil#parseSnowflakeId} 解析推导，与ID生成器配置保持一致
+ */
+public final class SnowflakeIdRange {
+    
+    /**
+     * 雪花ID起始时间
+     */
+    private static final long EPOCH = SnowflakeIdUtil.parseSnowflakeId(0L).getTimestamp();
+    
+    /**
+     * 时间戳左移位数
+     */
+    private static final int TIMESTAMP_SHIFT = timestampShift();
+    
+    private SnowflakeIdRange() {
+    }
+    
+    /**
+     * 指定时间生成的最小雪花ID
+     */
+    public static long minId(Date date) {
+        return Math.max(0L, date.getTime() - EPOCH) << TIMESTAMP_SHIFT;
+    }
+    
+    /**
+     * 指定时间生成的最大雪花ID
+     */
+    public static long maxId(Date date) {
+        return minId(date) | ((1L << TIMESTAMP_SHIFT) - 1);
+    }
+    
+    private static int timestampShift() {
+        for (int shift = 1; shift < 63; shift++) {
+            if (SnowflakeIdUtil.parseSnowflakeId(1L << shift).getTimestamp() - EPOCH == 1L) {
+                return shift;
+            }
+        }
+        throw new IllegalStateException("无法解析雪花ID时间戳位移量");
+    }
+}
@@ -15,6 +15,136 @@ public class MessageCacheConstants {
      */
     public static final String MESSAGE_TEMPLATE_PARAM_CACHE_PREFIX_KEY = "template:message_template_param_";
     
+    /**
+     * 邮件模板参数缓存前缀 Key，值为模板参数列表的 JSON 字符串，与 {@link #MESSAGE_TEMPLATE_PARAM_CACHE_PREFIX_KEY} 的值类型不同，不可共用
+     */
+    public static final String MAIL_TEMPLATE_PARAM_CACHE_PREFIX_KEY = "template:mail_template_param_";
+    
+    /**
+     * 消息模板参数占位符 Key 集合缓存前缀 Key
+     */
+    public static final String MESSAGE_TEMPLATE_PARAM_KEY_CACHE_PREFIX_KEY = "template:message_template_param_key_";
+    
+    /**
+     * 渠道商账号配置缓存前缀 Key
+     */
+    public static final String CHANNEL_BUSINESS_CACHE_PREFIX_KEY = "channel:channel_business_";
+    
+    /**
+     * 渠道商签名配置缓存前缀 Key
+     */
+    public static final String CHANNEL_RELATION_CACHE_PREFIX_KEY = "channel:channel_relation_";
+    
+    /**
+     * 腾讯云短信发送流水号与消息ID映射缓存前缀 Key，多号码合并请求的回执通过流水号关联消息
+     */
+    public static final String TENCENT_SMS_SERIAL_CACHE_PREFIX_KEY = "receipt:tencent_serial_";
+    
+    /**
+     * 消息发送消费幂等前缀 Key
+     */
+    public static final String MESSAGE_SEND_IDEMPOTENT_PREFIX_KEY = "idempotent:message_send_";
+    
+    /**
+     * 消息发送消费幂等 Key 过期时间（两小时），单位毫秒
+     */
+    public static final long MESSAGE_SEND_IDEMPOTENT_TIMOUT = 7200000L;
+    
+    /**
+     * 已撤回的消息批量发送ID有序集合 Key，分值为撤回标识过期时间
+     */
+    public static final String MESSAGE_CANCEL_BATCH_KEY = "cancel:message_cancel_batch";
+    
+    /**
+     * 按批次存放已撤回消息ID的集合前缀 Key
+     */
+    public static final String MESSAGE_CANCEL_MSG_PREFIX_KEY = "cancel:message_cancel_msg_";
+    
+    /**
+     * 存在已撤回消息ID的批次集合 Key，用于全量加载撤回标识
+     */
+    public static final String MESSAGE_CANCEL_MSG_INDEX_KEY = "cancel:message_cancel_msg_index";
+    
+    /**
+     * 撤回日志列表 Key，各实例按偏移量增量同步，只保留最近的若干条
+     */
+    public static final String MESSAGE_CANCEL_LOG_KEY = "cancel:message_cancel_log";
+    
+    /**
+     * 撤回日志基准偏移量 Key，记录从撤回日志头部累计裁剪的条数
+     */
+    public static final String MESSAGE_CANCEL_LOG_BASE_KEY = "cancel:message_cancel_log_base";
+    
+    /**
+     * 批量发送活动配置前缀 Key
+     */
+    public static final String MESSAGE_CAMPAIGN_PREFIX_KEY = "campaign:message_campaign_";
+    
+    /**
+     * 批量发送活动暂存队列前缀 Key
+     */
+    public static final String MESSAGE_CAMPAIGN_STAGING_PREFIX_KEY = "campaign:message_campaign_staging_";
+    
+    /**
+     * 批量发送活动在途消息有序集合前缀 Key，分值为投递租约到期时间
+     */
+    public static final String MESSAGE_CAMPAIGN_INFLIGHT_PREFIX_KEY = "campaign:message_campaign_inflight_";
+    
+    /**
+     * 批量发送活动令牌桶前缀 Key
+     */
+    public static final String MESSAGE_CAMPAIGN_BUCKET_PREFIX_KEY = "campaign:message_campaign_bucket_";
+    
+    /**
+     * 批量发送活动进度前缀 Key
+     */
+    public static final String MESSAGE_CAMPAIGN_PROGRESS_PREFIX_KEY = "campaign:message_campaign_progress_";
+    
+    /**
+     * 暂存队列非空的批量发送活动集合 Key
+     */
+    public static final String MESSAGE_CAMPAIGN_ACTIVE_KEY = "campaign:message_campaign_active";
+    
+    /**
+     * 待重试短信回执的下次重试时间有序集合 Key
+     */
+    public static final String MESSAGE_RECEIPT_RETRY_KEY = "receipt:message_receipt_retry";
+    
+    /**
+     * 待重试短信回执的首次暂存时间有序集合 Key，用于统计重试积压时长
+     */
+    public static final String MESSAGE_RECEIPT_RETRY_PARKED_KEY = "receipt:message_receipt_retry_parked";
+    
+    /**
+     * 待重试短信回执内容哈希 Key
+     */
+    public static final String MESSAGE_RECEIPT_RETRY_PAYLOAD_KEY = "receipt:message_receipt_retry_payload";
+    
+    /**
+     * 发送记录尚未保存的短信回执前缀 Key，保存发送记录时直接写入回执状态
+     */
+    public static final String MESSAGE_RECEIPT_PENDING_PREFIX_KEY = "receipt:message_receipt_pending_";
+    
+    /**
+     * 短信回执拉取租约前缀 Key，按渠道商与拉取分区区分，同一分区同一时间只由一个实例拉取
+     */
+    public static final String MESSAGE_RECEIPT_PULL_LEASE_PREFIX_KEY = "receipt:message_receipt_pull_lease_";
+    
+    /**
+     * 接收者消息索引前缀 Key，按接收者哈希记录最近的消息ID，分值为消息创建时间
+     */
+    public static final String MESSAGE_RECEIVER_INDEX_PREFIX_KEY = "receiver:message_receiver_index_";
+    
+    /**
+     * 接收者月份索引前缀 Key，按接收者哈希记录包含该接收者消息的月份
+     */
+    public static final String MESSAGE_RECEIVER_MONTH_PREFIX_KEY = "receiver:message_receiver_month_";
+    
+    /**
+     * 短信发送流水号映射过期时间（三天），单位毫秒
+     */
+    public static final long SMS_SERIAL_CACHE_TIMOUT = 259200000L;
+    
     /**
      * 默认过期时间（一月），单位毫秒
      */
@@ -22,4 +22,19 @@ public class MessageConstants {
      * 短信消息模板
      */
     public static final String SMS_MESSAGE_KEY = "SMS_MESSAGE_";
+    
+    /**
+     * 阿里云渠道商标识
+     */
+    public static final String ALI_VENDOR = "ALI";
+    
+    /**
+     * 腾讯云渠道商标识
+     */
+    public static final String TENCENT_VENDOR = "TENCENT";
+    
+    /**
+     * 微信渠道商标识
+     */
+    public static final String WECHAT_VENDOR = "WECHAT";
 }
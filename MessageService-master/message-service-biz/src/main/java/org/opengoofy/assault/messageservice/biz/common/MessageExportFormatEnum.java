@@ -0,0 +1,36 @@
+package org.opengoofy.assault.messageservice.biz.common;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.opengoofy.assault.framework.starter.convention.exception.ClientException;
+
+/**
+ * 消息导出格式枚举
+ */
+@Getter
+@RequiredArgsConstructor
+public enum MessageExportFormatEnum {
+    
+    /**
+     * 每行一个 JSON 对象
+     */
+    NDJSON("application/x-ndjson", "ndjson"),
+    
+    /**
+     * 逗号分隔，首行为表头
+     */
+    CSV("text/csv", "csv");
+    
+    private final String contentType;
+    
+    private final String extension;
+    
+    public static MessageExportFormatEnum of(String format) {
+        for (MessageExportFormatEnum each : values()) {
+            if (each.extension.equalsIgnoreCase(format)) {
+                return each;
+            }
+        }
+        throw new ClientException("不支持的导出格式：" + format);
+    }
+}
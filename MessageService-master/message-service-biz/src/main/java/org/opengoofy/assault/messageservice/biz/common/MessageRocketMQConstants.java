@@ -26,7 +26,47 @@ public class MessageRocketMQConstants {
     public static final String SMS_MESSAGE_VERIFICATION_SEND_CG = "common_message-service_sms-verification-message-send_cg";
     
     /**
-     * 其它消息发送 TAG
+     * 短信通知消息发送 TAG
+     */
+    public static final String SMS_MESSAGE_INFORM_SEND_TAG = "common_message-service_sms-inform-message-send_tag";
+    
+    /**
+     * 短信通知消息发送 CG
+     */
+    public static final String SMS_MESSAGE_INFORM_SEND_CG = "common_message-service_sms-inform-message-send_cg";
+    
+    /**
+     * 短信营销消息发送 TAG
+     */
+    public static final String SMS_MESSAGE_MARKETING_SEND_TAG = "common_message-service_sms-marketing-message-send_tag";
+    
+    /**
+     * 短信营销消息发送 CG
+     */
+    public static final String SMS_MESSAGE_MARKETING_SEND_CG = "common_message-service_sms-marketing-message-send_cg";
+    
+    /**
+     * 微信模板消息发送 TAG
+     */
+    public static final String WECHAT_MESSAGE_SEND_TAG = "common_message-service_wechat-message-send_tag";
+    
+    /**
+     * 微信模板消息发送 CG
+     */
+    public static final String WECHAT_MESSAGE_SEND_CG = "common_message-service_wechat-message-send_cg";
+    
+    /**
+     * 邮件消息发送 TAG
+     */
+    public static final String MAIL_MESSAGE_SEND_TAG = "common_message-service_mail-message-send_tag";
+    
+    /**
+     * 邮件消息发送 CG
+     */
+    public static final String MAIL_MESSAGE_SEND_CG = "common_message-service_mail-message-send_cg";
+    
+    /**
+     * 其它消息发送 TAG，按消息类型拆分通道前的统一 TAG，保留用于消费升级前已投递的消息
      */
     public static final String OTHER_MESSAGE_SEND_TAG = "common_message-service_other-message-send_tag";
     
@@ -45,6 +85,16 @@ public class MessageRocketMQConstants {
      */
     public static final String COMMON_MESSAGE_SAVE_CG = "common_message-service_common-message-save_cg";
     
+    /**
+     * 短信回执推送 TAG
+     */
+    public static final String SMS_MESSAGE_RECEIPT_TAG = "common_message-service_sms-message-receipt_tag";
+    
+    /**
+     * 短信回执推送 CG
+     */
+    public static final String SMS_MESSAGE_RECEIPT_CG = "common_message-service_sms-message-receipt_cg";
+    
     /**
      * 异步回调消息发送结果 TAG 模版
      */
@@ -0,0 +1,34 @@
+package org.opengoofy.assault.messageservice.biz.common;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 定时消息状态枚举
+ */
+@RequiredArgsConstructor
+public enum MessageScheduleStatusEnum {
+    
+    /**
+     * 等待加载
+     */
+    WAITING(0),
+    
+    /**
+     * 已加载到实例时间轮，等待到期投递
+     */
+    LOADED(1),
+    
+    /**
+     * 已投递到消息发送通道，近期定时消息投递为 RocketMQ 延时消息后即为该状态
+     */
+    DISPATCHED(2),
+    
+    /**
+     * 已取消
+     */
+    CANCELED(3);
+    
+    @Getter
+    private final int code;
+}
@@ -0,0 +1,62 @@
+package org.opengoofy.assault.messageservice.biz.common;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * 消息发送通道枚举
+ * <p>
+ * 每种消息类型独占一个 TAG、消费者组以及发送线程池，营销消息大量堆积时不会影响验证码、通知等事务类消息的发送时延
+ */
+@RequiredArgsConstructor
+public enum MessageSendLaneEnum {
+    
+    /**
+     * 短信验证码通道
+     */
+    VERIFICATION(MessageTypeEnum.SMS_VERIFICATION_MESSAGE.getType(), MessageRocketMQConstants.SMS_MESSAGE_VERIFICATION_SEND_TAG),
+    
+    /**
+     * 短信通知通道
+     */
+    INFORM(MessageTypeEnum.SMS_INFORM_MESSAGE.getType(), MessageRocketMQConstants.SMS_MESSAGE_INFORM_SEND_TAG),
+    
+    /**
+     * 短信营销通道
+     */
+    MARKETING(MessageTypeEnum.SMS_MARKETING_MESSAGE.getType(), MessageRocketMQConstants.SMS_MESSAGE_MARKETING_SEND_TAG),
+    
+    /**
+     * 微信模板消息通道
+     */
+    WECHAT(MessageTypeEnum.WE_CHART_MESSAGE.getType(), MessageRocketMQConstants.WECHAT_MESSAGE_SEND_TAG),
+    
+    /**
+     * 邮件通道
+     */
+    MAIL(MessageTypeEnum.MAIL_MESSAGE.getType(), MessageRocketMQConstants.MAIL_MESSAGE_SEND_TAG),
+    
+    /**
+     * 其它消息通道，仅用于消费拆分通道前已投递的消息
+     */
+    OTHER(null, MessageRocketMQConstants.OTHER_MESSAGE_SEND_TAG);
+    
+    @Getter
+    private final Integer msgType;
+    
+    @Getter
+    private final String tag;
+    
+    /**
+     * 根据消息类型获取发送通道，未知类型走其它消息通道
+     */
+    public static MessageSendLaneEnum getByMsgType(Integer msgType) {
+        return Arrays.stream(MessageSendLaneEnum.values())
+                .filter(each -> each.msgType != null && Objects.equals(each.msgType, msgType))
+                .findFirst()
+                .orElse(OTHER);
+    }
+}
@@ -27,7 +27,17 @@ public enum MessageSendStatusEnum {
     /**
      * 提交失败，短信独有状态
      */
-    SUBMIT_FAIL(3);
+    SUBMIT_FAIL(3),
+    
+    /**
+     * 已过期，消息在队列中等待超过消息类型有效期，未调用三方平台直接丢弃
+     */
+    EXPIRED(4),
+    
+    /**
+     * 已撤回，消息在调用三方平台前被撤回
+     */
+    CANCELED(5);
     
     @Getter
     private final int code;
@@ -0,0 +1,89 @@
+package org.opengoofy.assault.messageservice.biz.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 邮件发送渠道配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "message.mail")
+public class MailChannelConfig {
+    
+    /**
+     * SMTP 服务地址
+     */
+    private String host;
+    
+    /**
+     * SMTP 服务端口
+     */
+    private Integer port = 465;
+    
+    /**
+     * 认证用户名
+     */
+    private String username;
+    
+    /**
+     * 认证密码或授权码
+     */
+    private String password;
+    
+    /**
+     * 发件人地址，为空时使用认证用户名
+     */
+    private String from;
+    
+    /**
+     * 是否开启 SSL
+     */
+    private Boolean sslEnabled = true;
+    
+    /**
+     * 是否开启 STARTTLS
+     */
+    private Boolean starttlsEnabled = false;
+    
+    /**
+     * 已认证 SMTP 连接数
+     */
+    private Integer poolSize = 8;
+    
+    /**
+     * 单个连接一次连续投递的最大邮件数
+     */
+    private Integer pipelineSize = 20;
+    
+    /**
+     * 单个连接累计投递多少封邮件后重建连接，避免服务端单连接投递上限
+     */
+    private Integer maxMessagesPerConnection = 500;
+    
+    /**
+     * 连接空闲多久后关闭，单位毫秒
+     */
+    private Long idleTimeoutMillis = 60000L;
+    
+    /**
+     * 待投递队列容量
+     */
+    private Integer queueCapacity = 10000;
+    
+    /**
+     * 建立连接超时时间，单位毫秒
+     */
+    private Integer connectTimeoutMillis = 3000;
+    
+    /**
+     * 读写超时时间，单位毫秒
+     */
+    private Integer readTimeoutMillis = 5000;
+    
+    /**
+     * 单封邮件从提交到投递完成的最大等待时间，单位毫秒
+     */
+    private Long sendTimeoutMillis = 30000L;
+}
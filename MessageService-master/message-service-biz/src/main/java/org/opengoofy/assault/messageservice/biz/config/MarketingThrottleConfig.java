@@ -0,0 +1,83 @@
+package org.opengoofy.assault.messageservice.biz.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.opengoofy.assault.messageservice.biz.common.MessageConstants.ALI_VENDOR;
+import static org.opengoofy.assault.messageservice.biz.common.MessageConstants.TENCENT_VENDOR;
+
+/**
+ * 营销消息自动限流配置
+ * <p>
+ * 验证码通道任一指标超过高水位即视为服务等级下降，所有指标回落到低水位以下才视为恢复，两者之间保持当前限流状态
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "message.throttle.marketing")
+public class MarketingThrottleConfig {
+    
+    /**
+     * 是否开启营销消息自动限流
+     */
+    private Boolean enabled = true;
+    
+    /**
+     * 检查间隔，单位毫秒
+     */
+    private Long checkIntervalMillis = 1000L;
+    
+    /**
+     * 验证码通道消费堆积高水位
+     */
+    private Long verificationLagHigh = 2000L;
+    
+    /**
+     * 验证码通道消费堆积低水位
+     */
+    private Long verificationLagLow = 200L;
+    
+    /**
+     * 验证码消息从存储到开始消费的等待时间高水位，单位毫秒
+     */
+    private Long verificationDelayHighMillis = 5000L;
+    
+    /**
+     * 验证码消息从存储到开始消费的等待时间低水位，单位毫秒
+     */
+    private Long verificationDelayLowMillis = 1000L;
+    
+    /**
+     * 与验证码共用的渠道商
+     */
+    private List<String> vendors = new ArrayList<>(Arrays.asList(ALI_VENDOR, TENCENT_VENDOR));
+    
+    /**
+     * 渠道商调用耗时高水位，单位毫秒
+     */
+    private Long vendorLatencyHighMillis = 2000L;
+    
+    /**
+     * 渠道商调用耗时低水位，单位毫秒
+     */
+    private Long vendorLatencyLowMillis = 800L;
+    
+    /**
+     * 收缩时营销发送线程池保留的线程比例
+     */
+    private Double shrinkRatio = 0.25D;
+    
+    /**
+     * 收缩后仍连续多少次检查处于服务等级下降状态时暂停营销消费
+     */
+    private Integer pauseAfterChecks = 5;
+    
+    /**
+     * 连续多少次检查处于恢复状态时解除一级限流
+     */
+    private Integer resumeAfterChecks = 3;
+}
@@ -0,0 +1,44 @@
+package org.opengoofy.assault.messageservice.biz.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 批量发送活动匀速投递配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "message.campaign")
+public class MessageCampaignConfig {
+    
+    /**
+     * 暂存队列投递间隔，单位毫秒
+     */
+    private Long dispatchIntervalMillis = 100L;
+    
+    /**
+     * 单个活动每秒投递数上限，按投递窗口计算的速率以及投递窗口结束后的剩余消息均不超过该值
+     */
+    private Integer maxTps = 2000;
+    
+    /**
+     * 令牌桶容量对应的秒数，容量 = 每秒投递数 * 该值，用于吸收投递间隔抖动
+     */
+    private Double burstSeconds = 1.0D;
+    
+    /**
+     * 活动配置与进度的保留时间，单位毫秒；暂存超过该时间仍未投递的消息按已过期处理，触发失败回调并保存过期状态的发送记录
+     */
+    private Long campaignTimeoutMillis = 604800000L;
+    
+    /**
+     * 从暂存队列弹出的消息的投递租约时间，投递实例在租约内未确认投递成功时，消息由任一实例放回暂存队列重新投递，单位毫秒
+     */
+    private Long inflightLeaseMillis = 60000L;
+    
+    /**
+     * 本地缓存活动配置的时间，单位毫秒
+     */
+    private Long definitionCacheMillis = 5000L;
+}
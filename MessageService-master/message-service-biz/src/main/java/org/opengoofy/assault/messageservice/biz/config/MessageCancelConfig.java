@@ -0,0 +1,44 @@
+package org.opengoofy.assault.messageservice.biz.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 消息撤回配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "message.cancel")
+public class MessageCancelConfig {
+    
+    /**
+     * 增量同步撤回日志的间隔，单位毫秒，决定撤回在集群内生效的最大延迟
+     */
+    private Long syncIntervalMillis = 1000L;
+    
+    /**
+     * 全量重建本地撤回标识的间隔，单位毫秒，用于剔除 Redis 中已过期的撤回标识
+     */
+    private Long rebuildIntervalMillis = 600000L;
+    
+    /**
+     * 撤回日志保留条数，超出后从头部裁剪，同步落后超过该条数的实例改为全量重建
+     */
+    private Long maxLogSize = 100000L;
+    
+    /**
+     * 撤回标识保留时间，单位毫秒，需覆盖批量发送活动暂存时间
+     */
+    private Long tombstoneTimeoutMillis = 604800000L;
+    
+    /**
+     * 本地布隆过滤器每一代预期写入的撤回消息数
+     */
+    private Long bloomExpectedInsertions = 1000000L;
+    
+    /**
+     * 本地布隆过滤器误判率，误判只会多一次 Redis 查询
+     */
+    private Double bloomFalseProbability = 0.001D;
+}
@@ -0,0 +1,52 @@
+package org.opengoofy.assault.messageservice.biz.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 消息发送消费配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "message.consume")
+public class MessageConsumeConfig {
+    
+    /**
+     * 是否在消息发送完成后再确认消费
+     * <p>
+     * 开启后消费线程数与发送线程池最大线程数一致，消费线程阻塞等待发送完成，线程池饱和时由 RocketMQ 停止拉取形成背压，
+     * 消息堆积在 Broker 而不是应用内存中，消费堆积量即可真实反映发送负载；关闭后消息提交到线程池即确认消费
+     */
+    private Boolean ackAfterSend = true;
+    
+    /**
+     * 单个队列本地缓存消息数上限，超过后暂停拉取
+     */
+    private Integer pullThresholdForQueue = 64;
+    
+    /**
+     * 等待单条消息发送完成的最大时间，超过后不再阻塞消费线程，单位毫秒
+     */
+    private Long sendTimeoutMillis = 60000L;
+    
+    /**
+     * 是否开启批量消费，开启后每次消费多条消息，模板配置与幂等标识均批量读取，消息在发送线程池内并发发送
+     */
+    private Boolean batchEnabled = false;
+    
+    /**
+     * 批量消费时单次消费的最大消息数
+     */
+    private Integer batchSize = 32;
+    
+    /**
+     * 本地幂等布隆过滤器每一代的最大预期写入数，实际取值不超过 spring.redis.bloom-filter.expected-insertions
+     */
+    private Long dedupeLocalMaxInsertions = 2000000L;
+    
+    /**
+     * 幂等抢占合并写入 Redis 的单次管道最大命令数
+     */
+    private Integer dedupePipelineMaxSize = 256;
+}
@@ -0,0 +1,35 @@
+package org.opengoofy.assault.messageservice.biz.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 消息查询配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "message.query")
+public class MessageQueryConfig {
+    
+    /**
+     * 消息发送时间晚于创建时间的最大间隔，按发送时间查询时据此推导创建时间下限以裁剪分片表；
+     * 应不短于营销活动超时时间，超过该间隔发送的长期定时消息通过定时消息表补充查询，单位毫秒
+     */
+    private Long sendDelayMaxMillis = 604800000L;
+    
+    /**
+     * 分页查询默认每页条数
+     */
+    private Integer defaultPageSize = 20;
+    
+    /**
+     * 分页查询每页条数上限
+     */
+    private Integer maxPageSize = 200;
+    
+    /**
+     * 最早分片表的起始时间，格式 yyyy-MM-dd HH:mm:ss，未指定发送时间范围的分页查询与导出从该时间所在分片表开始扫描
+     */
+    private String earliestCreateTime = "2023-01-01 00:00:00";
+}
@@ -0,0 +1,19 @@
+package org.opengoofy.assault.messageservice.biz.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 待保存短信回执配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "message.receipt.pending")
+public class MessageReceiptPendingConfig {
+    
+    /**
+     * 回执暂存时间，需大于回执重试队列的最长重试时间，单位毫秒
+     */
+    private Long ttlMillis = 1800000L;
+}
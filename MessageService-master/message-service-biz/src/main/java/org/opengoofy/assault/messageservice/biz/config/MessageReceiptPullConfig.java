@@ -0,0 +1,50 @@
+package org.opengoofy.assault.messageservice.biz.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 短信回执拉取配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "message.receipt.pull")
+public class MessageReceiptPullConfig {
+    
+    /**
+     * 未配置拉取分区的渠道商使用的默认分区
+     */
+    public static final String DEFAULT_PARTITION = "default";
+    
+    /**
+     * 拉取租约时间，持有实例在每批回执拉取后与更新后各续期一次，需大于单批拉取耗时与单批更新耗时中的较大者，
+     * 实例异常退出后租约到期由其它实例接管，单位毫秒
+     */
+    private Long leaseMillis = 30000L;
+    
+    /**
+     * 单次拉取任务最长执行时间，超过后释放租约，由下一次任务重新竞争，单位毫秒
+     */
+    private Long maxRunMillis = 300000L;
+    
+    /**
+     * 渠道商与拉取分区，分区一般为渠道商账号或渠道ID，回执量大的渠道商按分区拆分到多个实例并行拉取
+     * <p>
+     * 只有按分区过滤回执的拉取执行器才能配置分区，分区取值需与执行器识别的渠道ID一致
+     */
+    private Map<String, List<String>> partitions = new HashMap<>();
+    
+    /**
+     * 渠道商的拉取分区，未配置时只有默认分区
+     */
+    public List<String> partitionsOf(String vendor) {
+        List<String> result = partitions.get(vendor);
+        return result == null || result.isEmpty() ? Collections.singletonList(DEFAULT_PARTITION) : result;
+    }
+}
@@ -0,0 +1,51 @@
+package org.opengoofy.assault.messageservice.biz.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 短信回执推送配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "message.receipt.push")
+public class MessageReceiptPushConfig {
+    
+    /**
+     * 单个回执推送事件包含的最大回执数，渠道商单次推送超过时拆分为多个事件
+     */
+    private Integer eventBatchSize = 500;
+    
+    /**
+     * 回执消费者单次消费的最大消息数，同一次消费的回执合并更新
+     */
+    private Integer consumeBatchSize = 32;
+    
+    /**
+     * 各渠道商推送请求校验配置，Key 为渠道商标识（ALI、TENCENT）；未配置令牌与来源 IP 白名单的渠道商拒绝所有推送
+     */
+    private Map<String, Verification> verifications = new HashMap<>();
+    
+    /**
+     * 推送请求校验配置，令牌与来源 IP 白名单均配置时需同时满足
+     */
+    @Data
+    public static class Verification {
+        
+        /**
+         * 共享令牌，配置在渠道商控制台的回调地址参数 token 中，也可通过请求头 X-Receipt-Token 传递
+         */
+        private String token;
+        
+        /**
+         * 来源 IP 白名单，支持单个 IP 或 CIDR 网段；按连接的远端地址判断，不读取可被伪造的转发请求头
+         */
+        private List<String> allowedIps = new ArrayList<>();
+    }
+}
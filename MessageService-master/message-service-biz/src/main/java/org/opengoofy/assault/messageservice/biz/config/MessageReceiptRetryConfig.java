@@ -0,0 +1,44 @@
+package org.opengoofy.assault.messageservice.biz.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 短信回执重试配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "message.receipt.retry")
+public class MessageReceiptRetryConfig {
+    
+    /**
+     * 重试队列容量，队列已满时新的待重试回执被丢弃
+     */
+    private Long maxSize = 1000000L;
+    
+    /**
+     * 最大重试次数，超过后丢弃回执
+     */
+    private Integer maxAttempts = 8;
+    
+    /**
+     * 首次重试延迟，之后每次翻倍，单位毫秒
+     */
+    private Long baseDelayMillis = 2000L;
+    
+    /**
+     * 重试延迟上限，单位毫秒
+     */
+    private Long maxDelayMillis = 300000L;
+    
+    /**
+     * 单次抢占的到期回执数
+     */
+    private Integer batchSize = 500;
+    
+    /**
+     * 抢占租约时间，实例在租约内未处理完成时回执重新可见，单位毫秒
+     */
+    private Long leaseMillis = 60000L;
+}
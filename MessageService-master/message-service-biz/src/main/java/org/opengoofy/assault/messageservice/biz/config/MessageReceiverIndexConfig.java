@@ -0,0 +1,36 @@
+package org.opengoofy.assault.messageservice.biz.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 接收者消息索引配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "message.receiver-index")
+public class MessageReceiverIndexConfig {
+    
+    /**
+     * 是否维护接收者索引，关闭后不再写入索引，只按接收者查询时扫描所有分片表
+     */
+    private Boolean enabled = true;
+    
+    /**
+     * 索引覆盖的起始时间，格式 yyyy-MM-dd HH:mm:ss，没有默认值，必须在上线时设置；未设置时只写入索引，查询仍扫描所有分片表。
+     * 应设置为所有实例都已开始写入索引的时间，或历史记录回填完成后回填覆盖的最早时间；此前创建的消息不在索引中，按接收者查询时扫描此前的分片表，
+     * 设置得早于实际写入时间会导致之间保存的记录按接收者查询不到
+     */
+    private String since;
+    
+    /**
+     * 每个接收者索引保留的最近消息ID数，超出部分只保留所在月份
+     */
+    private Integer maxMsgIds = 200;
+    
+    /**
+     * 索引过期时间，接收者每次有新消息时续期；应不短于发送记录分片表的保留时间，过期接收者更早的消息需扫描分片表查询，单位毫秒
+     */
+    private Long ttlMillis = 126144000000L;
+}
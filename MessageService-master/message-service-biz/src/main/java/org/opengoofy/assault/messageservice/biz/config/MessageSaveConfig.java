@@ -0,0 +1,44 @@
+package org.opengoofy.assault.messageservice.biz.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 消息发送记录保存配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "message.save")
+public class MessageSaveConfig {
+    
+    /**
+     * 是否开启分组提交，开启后保存消费者批量消费，发送记录按分片表分组后多行插入，分组提交后才确认消费
+     */
+    private Boolean groupCommitEnabled = true;
+    
+    /**
+     * 保存消费者单次消费的最大消息数
+     */
+    private Integer consumeBatchSize = 32;
+    
+    /**
+     * 单个分片表分组达到该记录数时立即提交
+     */
+    private Integer flushBatchSize = 500;
+    
+    /**
+     * 分组中最早的记录等待超过该时间后提交，单位毫秒
+     */
+    private Long flushIntervalMillis = 50L;
+    
+    /**
+     * 分组提交线程数，不同分片表的分组并行提交
+     */
+    private Integer flushThreads = 4;
+    
+    /**
+     * 消费线程等待分组提交的最大时间，超时后消息稍后重新投递，单位毫秒
+     */
+    private Long commitTimeoutMillis = 30000L;
+}
@@ -0,0 +1,69 @@
+package org.opengoofy.assault.messageservice.biz.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 定时消息发送配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "message.schedule")
+public class MessageScheduleConfig {
+    
+    /**
+     * 距离发送时间不超过该值的定时消息使用 RocketMQ 延时消息投递，超过后持久化由时间轮调度，单位毫秒，最大不超过两小时
+     */
+    private Long nearTermMaxMillis = 1800000L;
+    
+    /**
+     * 距离发送时间不超过该值时视为立即发送，消费时提前到达的消息也按该值判断是否需要再次延时，单位毫秒
+     */
+    private Long toleranceMillis = 1000L;
+    
+    /**
+     * 时间轮最底层每格时间跨度，单位毫秒
+     */
+    private Long tickMillis = 1000L;
+    
+    /**
+     * 时间轮每层格数
+     */
+    private Integer wheelSize = 60;
+    
+    /**
+     * 加载未来多长时间内到期的定时消息到时间轮，单位毫秒
+     */
+    private Long lookaheadMillis = 600000L;
+    
+    /**
+     * 加载即将到期定时消息的间隔，单位毫秒
+     */
+    private Long loadIntervalMillis = 10000L;
+    
+    /**
+     * 每次从数据库加载的定时消息数
+     */
+    private Integer loadBatchSize = 1000;
+    
+    /**
+     * 单实例时间轮内最多保留的定时消息数，超过后暂停加载
+     */
+    private Integer maxLoadedTasks = 200000;
+    
+    /**
+     * 到期消息每秒最大投递数，同一时刻到期的大量消息按该速率均匀投递
+     */
+    private Integer dispatchRatePerSecond = 2000;
+    
+    /**
+     * 到期消息每次查询、投递的批量大小
+     */
+    private Integer dispatchBatchSize = 200;
+    
+    /**
+     * 已加载但超过发送时间该值仍未投递的定时消息，视为加载实例已下线，由其它实例重新加载，单位毫秒
+     */
+    private Long leaseTimeoutMillis = 300000L;
+}
@@ -0,0 +1,84 @@
+package org.opengoofy.assault.messageservice.biz.config;
+
+import lombok.Data;
+import org.opengoofy.assault.messageservice.biz.common.MessageSendLaneEnum;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 消息发送通道配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "message.lane")
+public class MessageSendLaneConfig {
+    
+    /**
+     * 所有发送通道的总并发数
+     */
+    private Integer totalConcurrency = 200;
+    
+    /**
+     * 各发送通道的并发权重，通道初始并发数 = 总并发数 * 通道权重 / 权重之和；未配置的通道权重为 1
+     * <p>
+     * 线程池仍由 Hippo4j 管理，服务端存在线程池配置时以服务端为准
+     */
+    private Map<MessageSendLaneEnum, Integer> shares = defaultShares();
+    
+    /**
+     * 各发送通道消息有效期，单位毫秒；消息从接收到开始发送的时间超过有效期后不再调用三方平台，未配置的通道消息不过期
+     * <p>
+     * 验证码默认 5 分钟，堆积时用户早已放弃等待的验证码直接丢弃，避免浪费渠道额度并拖慢新验证码的发送
+     */
+    private Map<MessageSendLaneEnum, Long> ttlMillis = defaultTtlMillis();
+    
+    /**
+     * 判断消息是否已超过所属消息类型的有效期
+     *
+     * @param msgType    消息类型
+     * @param acceptTime 消息接收时间戳，为空时视为未过期
+     */
+    public boolean isExpired(Integer msgType, Long acceptTime) {
+        if (acceptTime == null) {
+            return false;
+        }
+        Long ttl = ttlMillis.get(MessageSendLaneEnum.getByMsgType(msgType));
+        return ttl != null && ttl > 0 && System.currentTimeMillis() - acceptTime > ttl;
+    }
+    
+    /**
+     * 计算发送通道的初始并发数
+     */
+    public int concurrencyOf(MessageSendLaneEnum lane) {
+        int totalShares = 0;
+        for (MessageSendLaneEnum each : MessageSendLaneEnum.values()) {
+            totalShares += shareOf(each);
+        }
+        return Math.max(1, totalConcurrency * shareOf(lane) / totalShares);
+    }
+    
+    private int shareOf(MessageSendLaneEnum lane) {
+        Integer share = shares.get(lane);
+        return share == null || share <= 0 ? 1 : share;
+    }
+    
+    private static Map<MessageSendLaneEnum, Long> defaultTtlMillis() {
+        Map<MessageSendLaneEnum, Long> defaultTtlMillis = new EnumMap<>(MessageSendLaneEnum.class);
+        defaultTtlMillis.put(MessageSendLaneEnum.VERIFICATION, 300000L);
+        return defaultTtlMillis;
+    }
+    
+    private static Map<MessageSendLaneEnum, Integer> defaultShares() {
+        Map<MessageSendLaneEnum, Integer> defaultShares = new EnumMap<>(MessageSendLaneEnum.class);
+        defaultShares.put(MessageSendLaneEnum.VERIFICATION, 30);
+        defaultShares.put(MessageSendLaneEnum.INFORM, 25);
+        defaultShares.put(MessageSendLaneEnum.MARKETING, 20);
+        defaultShares.put(MessageSendLaneEnum.WECHAT, 10);
+        defaultShares.put(MessageSendLaneEnum.MAIL, 10);
+        defaultShares.put(MessageSendLaneEnum.OTHER, 5);
+        return defaultShares;
+    }
+}
@@ -0,0 +1,98 @@
+package org.opengoofy.assault.messageservice.biz.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 线程池自动扩缩容配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "message.autoscale")
+public class PoolAutoscaleConfig {
+    
+    /**
+     * 回执拉取线程池名称
+     */
+    public static final String RECEIPT_POOL = "RECEIPT";
+    
+    /**
+     * 是否开启线程池自动扩缩容
+     */
+    private Boolean enabled = true;
+    
+    /**
+     * 检查间隔，单位毫秒
+     */
+    private Long intervalMillis = 5000L;
+    
+    /**
+     * 扩容阈值，活跃线程数 / 最大线程数达到该比例且存在堆积时扩容
+     */
+    private Double scaleUpSaturation = 0.8D;
+    
+    /**
+     * 缩容阈值，活跃线程数 / 最大线程数低于该比例且没有堆积时缩容
+     */
+    private Double scaleDownSaturation = 0.3D;
+    
+    /**
+     * 消费堆积超过该值视为存在堆积
+     */
+    private Long lagThreshold = 100L;
+    
+    /**
+     * 单条消息发送耗时超过该值时不再扩容，瓶颈在渠道商，增加线程只会加重渠道商压力，单位毫秒
+     */
+    private Long vendorLatencyHighMillis = 3000L;
+    
+    /**
+     * 单次扩容倍数
+     */
+    private Double scaleUpFactor = 1.5D;
+    
+    /**
+     * 单次缩容倍数
+     */
+    private Double scaleDownFactor = 0.75D;
+    
+    /**
+     * 连续多少次检查满足缩容条件才缩容，避免流量短暂回落时频繁缩容
+     */
+    private Integer scaleDownAfterChecks = 3;
+    
+    /**
+     * 未单独配置的线程池默认大小范围
+     */
+    private Bounds defaultBounds = new Bounds();
+    
+    /**
+     * 各线程池大小范围，Key 为消息发送通道名称或 {@link #RECEIPT_POOL}
+     */
+    private Map<String, Bounds> pools = new HashMap<>();
+    
+    /**
+     * 获取线程池大小范围
+     */
+    public Bounds boundsOf(String pool) {
+        return pools.getOrDefault(pool, defaultBounds);
+    }
+    
+    @Data
+    public static class Bounds {
+        
+        /**
+         * 最小线程数
+         */
+        private Integer minSize = 2;
+        
+        /**
+         * 最大线程数
+         */
+        private Integer maxSize = 200;
+    }
+}
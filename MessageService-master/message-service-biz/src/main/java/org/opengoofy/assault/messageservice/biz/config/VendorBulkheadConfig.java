@@ -0,0 +1,76 @@
+package org.opengoofy.assault.messageservice.biz.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 三方渠道商舱壁隔离配置
+ * <p>
+ * 每个渠道商拥有独立的 HTTP 连接池、超时时间以及最大并发调用数，避免某个渠道商响应变慢时拖垮其它渠道商
+ * <p>
+ * 连接池与预热配置只对通过舱壁 HTTP 客户端调用的渠道商生效，目前为 ALI（轻量短信客户端）与 WECHAT（Feign 客户端）；
+ * TENCENT 使用 SDK 自带的 HTTP 客户端，只有超时时间与并发配置生效
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "message.vendor.bulkhead")
+public class VendorBulkheadConfig {
+    
+    /**
+     * 渠道商舱壁配置集合，Key 为渠道商标识，比如：ALI、TENCENT、WECHAT
+     */
+    private Map<String, Bulkhead> vendors = new HashMap<>();
+    
+    /**
+     * 空闲连接检测间隔，单位毫秒
+     */
+    private Long idleCheckIntervalMillis = 30000L;
+    
+    @Data
+    public static class Bulkhead {
+        
+        /**
+         * 连接池最大空闲连接数，只对使用舱壁 HTTP 客户端的渠道商生效
+         */
+        private Integer maxIdleConnections = 32;
+        
+        /**
+         * 空闲连接保活时间，单位毫秒，只对使用舱壁 HTTP 客户端的渠道商生效
+         */
+        private Long keepAliveMillis = 300000L;
+        
+        /**
+         * 建立连接超时时间，单位毫秒
+         */
+        private Integer connectTimeoutMillis = 3000;
+        
+        /**
+         * 读取超时时间，单位毫秒
+         */
+        private Integer readTimeoutMillis = 5000;
+        
+        /**
+         * 最大并发调用数
+         */
+        private Integer maxConcurrentCalls = 64;
+        
+        /**
+         * 获取并发许可最大等待时间，单位毫秒，超过后快速失败并由上层切换渠道
+         */
+        private Long maxWaitMillis = 200L;
+        
+        /**
+         * 连接预热地址，为空则不预热，只对使用舱壁 HTTP 客户端的渠道商生效，预热异步进行，不阻塞应用启动
+         */
+        private String warmupUrl;
+        
+        /**
+         * 预热建立的连接数
+         */
+        private Integer warmupConnections = 4;
+    }
+}
@@ -0,0 +1,55 @@
+package org.opengoofy.assault.messageservice.biz.dao.entity;
+
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+import org.opengoofy.assault.framework.starter.database.BaseDO;
+
+import java.util.Date;
+
+/**
+ * 定时消息实体
+ */
+@Data
+@TableName("message_schedule")
+public class MessageScheduleDO extends BaseDO {
+    
+    /**
+     * id
+     */
+    private Long id;
+    
+    /**
+     * 消息发送id
+     */
+    private String msgId;
+    
+    /**
+     * 模板类型 0：短信-验证码 1：短信-通知 2：短信-营销 3：微信模板消息 4：邮箱 5...
+     */
+    private Integer msgType;
+    
+    /**
+     * 投递的消息发送通道 Tag
+     */
+    private String tag;
+    
+    /**
+     * 定时发送时间
+     */
+    private Date sendAt;
+    
+    /**
+     * 消息发送事件 JSON
+     */
+    private String payload;
+    
+    /**
+     * 定时消息状态: 0：等待加载 1：已加载 2：已投递 3：已取消
+     */
+    private Integer status;
+    
+    /**
+     * 加载该定时消息的实例标识
+     */
+    private String loadOwner;
+}
@@ -0,0 +1,30 @@
+package org.opengoofy.assault.messageservice.biz.dao.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
+import org.opengoofy.assault.messageservice.biz.dao.entity.MessageScheduleDO;
+
+import java.util.List;
+
+/**
+ * 定时消息持久层
+ */
+public interface MessageScheduleMapper extends BaseMapper<MessageScheduleDO> {
+    
+    /**
+     * 批量抢占等待加载的定时消息，只有仍为等待加载状态的记录会被当前实例抢占
+     *
+     * @param ids       定时消息 id 集合
+     * @param loadOwner 加载实例标识
+     * @return 抢占成功的记录数
+     */
+    @Update({
+            "<script>",
+            "update message_schedule set status = 1, load_owner = #{loadOwner}, update_time = now()",
+            "where del_flag = '0' and status = 0 and id in",
+            "<foreach collection='ids' item='item' open='(' separator=',' close=')'>#{item}</foreach>",
+            "</script>"
+    })
+    int claim(@Param("ids") List<Long> ids, @Param("loadOwner") String loadOwner);
+}
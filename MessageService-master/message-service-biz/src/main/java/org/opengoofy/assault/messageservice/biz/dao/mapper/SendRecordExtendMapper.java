@@ -1,10 +1,27 @@
 package org.opengoofy.assault.messageservice.biz.dao.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Param;
 import org.opengoofy.assault.messageservice.biz.dao.entity.SendRecordExtendDO;
 
+import java.util.List;
+
 /**
  * 消息发送记录参数持久层
  */
 public interface SendRecordExtendMapper extends BaseMapper<SendRecordExtendDO> {
+    
+    /**
+     * 多行插入消息发送参数记录，调用方需保证所有记录的创建时间落在同一分片表，主键、创建时间由调用方填充
+     */
+    @Insert({
+            "<script>",
+            "insert into send_record_extend (id, msg_id, msg_param, create_time, update_time, del_flag) values",
+            "<foreach collection='list' item='item' separator=','>",
+            "(#{item.id}, #{item.msgId}, #{item.msgParam}, #{item.createTime}, #{item.createTime}, '0')",
+            "</foreach>",
+            "</script>"
+    })
+    int insertBatch(@Param("list") List<SendRecordExtendDO> list);
 }
@@ -1,11 +1,18 @@
 package org.opengoofy.assault.messageservice.biz.dao.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.session.ResultHandler;
 import org.opengoofy.assault.messageservice.biz.dao.entity.SendRecordDO;
+import org.opengoofy.assault.messageservice.biz.dto.SendRecordScanDTO;
 import org.opengoofy.assault.messageservice.biz.job.receipt.MessageReceiptDTO;
 
+import java.util.Date;
 import java.util.List;
 
 /**
@@ -13,16 +20,90 @@ import java.util.List;
  */
 public interface SendRecordMapper extends BaseMapper<SendRecordDO> {
     
+    /**
+     * 单张分片表按创建时间、消息ID升序扫描的查询语句
+     */
+    String SCAN_SQL = "select * from ${scan.table} where del_flag = '0'"
+            + "<if test='scan.receiver != null'> and receiver = #{scan.receiver}</if>"
+            + "<if test='scan.sendStartTime != null and scan.sendEndTime != null'> and send_time between #{scan.sendStartTime} and #{scan.sendEndTime}</if>"
+            + " and (create_time between #{scan.createTimeMin} and #{scan.createTimeMax}"
+            + "<if test='scan.msgIds != null and scan.msgIds.size() > 0'> or msg_id in <foreach collection='scan.msgIds' item='item' open='(' separator=',' close=')'>#{item}</foreach></if>)"
+            + "<if test='scan.cursorCreateTime != null'> and (create_time &gt; #{scan.cursorCreateTime} or (create_time = #{scan.cursorCreateTime} and msg_id &gt; #{scan.cursorMsgId}))</if>"
+            + " order by create_time, msg_id";
+    
     /**
      * 批量更新短信状态
+     * <p>
+     * 单条 UPDATE 语句按消息ID索引定位整批记录，各字段通过 CASE 按消息ID取值，回执未携带发送者时保留原发送渠道，接收者不一致的记录不更新；
+     * 调用方需控制单批回执数，避免语句过长
      */
     @Update({
             "<script>",
-            "<foreach collection='list' item= 'item' index ='index' separator=';'>",
-            "update ${table} set status = #{item.status}, sender = #{item.sender}, receipt_time = #{item.receiveTime}, update_time = now()",
-            "where del_flag = '0' and receiver = #{item.receiver} and msg_id = #{item.msgId}",
+            "update ${table} set",
+            "status = case msg_id <foreach collection='list' item='item'>when #{item.msgId} then #{item.status} </foreach>end,",
+            "sender = case msg_id <foreach collection='list' item='item'>when #{item.msgId} then ifnull(#{item.sender}, sender) </foreach>end,",
+            "receipt_time = case msg_id <foreach collection='list' item='item'>when #{item.msgId} then #{item.receiptTime} </foreach>end,",
+            "update_time = now()",
+            "where msg_id in <foreach collection='list' item='item' open='(' separator=',' close=')'>#{item.msgId}</foreach>",
+            "and del_flag = '0'",
+            "and receiver = case msg_id <foreach collection='list' item='item'>when #{item.msgId} then #{item.receiver} </foreach>end",
+            "</script>"
+    })
+    int batchUpdate(@Param("list") List<MessageReceiptDTO> list, @Param("table") String table);
+    
+    /**
+     * 多行插入消息发送记录，调用方需保证所有记录的创建时间落在同一分片表，主键、创建时间由调用方填充
+     */
+    @Insert({
+            "<script>",
+            "insert into send_record (id, msg_id, msg_batch_id, template_id, msg_type, source_id, sender, receiver, cc, billing_count,",
+            "status, fail_info, send_time, receipt_time, create_time, update_time, del_flag) values",
+            "<foreach collection='list' item='item' separator=','>",
+            "(#{item.id}, #{item.msgId}, #{item.msgBatchId}, #{item.templateId}, #{item.msgType}, #{item.sourceId}, #{item.sender}, #{item.receiver}, #{item.cc}, #{item.billingCount},",
+            "#{item.status}, #{item.failInfo}, #{item.sendTime}, #{item.receiptTime}, #{item.createTime}, #{item.createTime}, '0')",
             "</foreach>",
             "</script>"
     })
-    void batchUpdate(@Param("list") List<MessageReceiptDTO> list, @Param("table") String table);
+    int insertBatch(@Param("list") List<SendRecordDO> list);
+    
+    /**
+     * 查询已存在的消息ID，调用方需保证所有消息ID落在同一分片表
+     */
+    @Select({
+            "<script>",
+            "select msg_id from send_record where msg_id in",
+            "<foreach collection='msgIds' item='item' open='(' separator=',' close=')'>#{item}</foreach>",
+            "</script>"
+    })
+    List<String> selectExistingMsgIds(@Param("msgIds") List<String> msgIds);
+    
+    /**
+     * 在指定分片表中按接收者查询消息发送记录，接收者为空时不限制接收者，消息ID集合不为空时只查询这些消息，调用方需保证消息ID落在该分片表
+     */
+    @Select({
+            "<script>",
+            "select * from ${table} where del_flag = '0'",
+            "<if test='receiver != null'>and receiver = #{receiver}</if>",
+            "<if test='msgIds != null'>and msg_id in <foreach collection='msgIds' item='item' open='(' separator=',' close=')'>#{item}</foreach></if>",
+            "<if test='sendStartTime != null and sendEndTime != null'>and send_time between #{sendStartTime} and #{sendEndTime}</if>",
+            "</script>"
+    })
+    List<SendRecordDO> selectByReceiver(@Param("table") String table,
+                                        @Param("receiver") String receiver,
+                                        @Param("msgIds") List<String> msgIds,
+                                        @Param("sendStartTime") Date sendStartTime,
+                                        @Param("sendEndTime") Date sendEndTime);
+    
+    /**
+     * 按扫描条件查询单张分片表中游标之后的一页记录
+     */
+    @Select({"<script>", SCAN_SQL, " limit #{limit}", "</script>"})
+    List<SendRecordDO> selectScanPage(@Param("scan") SendRecordScanDTO scan, @Param("limit") int limit);
+    
+    /**
+     * 按扫描条件流式读取单张分片表，MySQL 驱动逐行返回结果，内存占用与结果集大小无关；读取期间占用一个数据库连接
+     */
+    @Select({"<script>", SCAN_SQL, "</script>"})
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    void scan(@Param("scan") SendRecordScanDTO scan, ResultHandler<SendRecordDO> handler);
 }
@@ -28,4 +28,14 @@ public class MessagePlatformSendResponseDTO {
      * 三方平台返回错误信息
      */
     private String errMsg;
+    
+    /**
+     * 三方平台发送流水号，用于关联回执
+     */
+    private String bizId;
+    
+    /**
+     * 三方平台计费条数，短信消息专属
+     */
+    private Integer billingCount;
 }
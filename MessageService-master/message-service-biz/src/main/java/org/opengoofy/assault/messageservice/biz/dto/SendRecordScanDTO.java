@@ -0,0 +1,58 @@
+package org.opengoofy.assault.messageservice.biz.dto;
+
+import lombok.Data;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 单张发送记录分片表的扫描条件，按创建时间、消息ID升序扫描
+ */
+@Data
+public class SendRecordScanDTO {
+    
+    /**
+     * 实际分片表名
+     */
+    private String table;
+    
+    /**
+     * 接收者，为空时不限制
+     */
+    private String receiver;
+    
+    /**
+     * 发送开始时间，与发送结束时间同时不为空时限制发送时间
+     */
+    private Date sendStartTime;
+    
+    /**
+     * 发送结束时间
+     */
+    private Date sendEndTime;
+    
+    /**
+     * 创建时间下限
+     */
+    private Date createTimeMin;
+    
+    /**
+     * 创建时间上限
+     */
+    private Date createTimeMax;
+    
+    /**
+     * 创建时间不在范围内、需额外包含的消息ID，如长期定时消息
+     */
+    private List<String> msgIds;
+    
+    /**
+     * 游标位置的创建时间，只扫描位于游标之后的记录
+     */
+    private Date cursorCreateTime;
+    
+    /**
+     * 游标位置的消息ID
+     */
+    private String cursorMsgId;
+}
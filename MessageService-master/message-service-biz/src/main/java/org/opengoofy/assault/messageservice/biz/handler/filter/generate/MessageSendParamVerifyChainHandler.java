@@ -2,6 +2,7 @@ package org.opengoofy.assault.messageservice.biz.handler.filter.generate;
 
 import cn.hutool.core.collection.ListUtil;
 import cn.hutool.core.lang.Validator;
+import cn.hutool.core.util.StrUtil;
 import lombok.RequiredArgsConstructor;
 import org.opengoofy.assault.framework.starter.convention.exception.ClientException;
 import org.opengoofy.assault.messageservice.api.dto.MessageSendRequestDTO;
@@ -9,6 +10,7 @@ import org.opengoofy.assault.messageservice.biz.common.MessageTypeEnum;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
+import java.util.Objects;
 
 /**
  * 消息发送判断参数是否正确
@@ -37,6 +39,12 @@ public class MessageSendParamVerifyChainHandler implements MessageSendChainFilte
                 throw new ClientException("手机号不合法");
             }
         }
+        // 检查邮箱是否合法，多个收件人以英文逗号分隔
+        if (Objects.equals(requestParam.getMsgType(), MessageTypeEnum.MAIL_MESSAGE.getType())) {
+            if (StrUtil.split(requestParam.getReceiver(), ',').stream().anyMatch(each -> !Validator.isEmail(each))) {
+                throw new ClientException("邮箱不合法");
+            }
+        }
     }
 
     /**
@@ -1,23 +1,33 @@
 package org.opengoofy.assault.messageservice.biz.handler.send;
 
+import cn.hutool.core.util.StrUtil;
 import com.alibaba.fastjson2.JSON;
-import com.aliyun.dysmsapi20170525.Client;
-import com.aliyun.dysmsapi20170525.models.SendSmsRequest;
-import com.aliyun.dysmsapi20170525.models.SendSmsResponse;
-import com.aliyun.dysmsapi20170525.models.SendSmsResponseBody;
-import com.aliyun.teaopenapi.models.Config;
-import com.aliyun.teautil.models.RuntimeOptions;
-import lombok.SneakyThrows;
+import com.alibaba.fastjson2.JSONObject;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.opengoofy.assault.messageservice.api.dto.MessageSendRequestDTO;
+import org.opengoofy.assault.messageservice.biz.dao.entity.ChannelBusinessDO;
+import org.opengoofy.assault.messageservice.biz.dao.entity.ChannelRelationDO;
+import org.opengoofy.assault.messageservice.biz.dao.entity.TemplateConfigDO;
 import org.opengoofy.assault.messageservice.biz.dto.MessagePlatformSendResponseDTO;
+import org.opengoofy.assault.messageservice.biz.handler.send.ali.AliSmsClient;
+import org.opengoofy.assault.messageservice.biz.handler.send.ali.AliSmsSendResult;
 import org.opengoofy.assault.messageservice.biz.handler.send.base.AbstractMessageSendService;
+import org.opengoofy.assault.messageservice.biz.handler.send.base.ChannelConfigLoader;
 import org.opengoofy.assault.messageservice.biz.handler.send.base.MessageSendService;
+import org.opengoofy.assault.messageservice.biz.handler.send.bulkhead.VendorBulkhead;
+import org.opengoofy.assault.messageservice.biz.handler.send.bulkhead.VendorBulkheadRegistry;
 import org.opengoofy.assault.messageservice.biz.mq.event.MessageSendEvent;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
-import java.util.Objects;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
+import static org.opengoofy.assault.messageservice.biz.common.MessageConstants.ALI_VENDOR;
 import static org.opengoofy.assault.messageservice.biz.common.MessageConstants.SMS_MESSAGE_KEY;
 
 /**
@@ -25,55 +35,105 @@ import static org.opengoofy.assault.messageservice.biz.common.MessageConstants.S
  */
 @Slf4j
 @Component
+@ConditionalOnProperty(prefix = "message.simulator", name = "enabled", havingValue = "false", matchIfMissing = true)
+@RequiredArgsConstructor
 public class AliSmsMessageSendHandler extends AbstractMessageSendService implements MessageSendService {
     
     /**
-     * 调用阿里云发送短信成功返回标识
+     * 默认接入地址
      */
-    private final static String RETURN_SUCCESS_FLAG = "OK";
+    private final static String DEFAULT_ENDPOINT = "https://dysmsapi.aliyuncs.com/";
+    
+    /**
+     * 默认地域
+     */
+    private final static String DEFAULT_REGION = "cn-hangzhou";
+    
+    /**
+     * 短信客户端闲置淘汰时间，单位分钟
+     */
+    private final static long CLIENT_EXPIRE_AFTER_ACCESS_MINUTES = 30L;
+    
+    private final ChannelConfigLoader channelConfigLoader;
+    private final VendorBulkheadRegistry vendorBulkheadRegistry;
+    
+    /**
+     * 按渠道商账号复用阿里云短信客户端，账号密钥变更后旧客户端不再被访问，闲置超时后淘汰
+     */
+    private final Cache<String, AliSmsClient> smsClientCache = CacheBuilder.newBuilder()
+            .expireAfterAccess(CLIENT_EXPIRE_AFTER_ACCESS_MINUTES, TimeUnit.MINUTES)
+            .build();
     
     @Override
     public String mark() {
         return SMS_MESSAGE_KEY + "ALI";
     }
     
-    @SneakyThrows
+    @Override
     public MessagePlatformSendResponseDTO executeResp(MessageSendEvent messageSendEvent) {
         // 获取消息发送请求的信息
         MessageSendRequestDTO messageSendRequest = messageSendEvent.getMessageSendRequest();
-
-        // 配置阿里云短信客户端信息
-        Config config = new Config()
-                .setAccessKeyId("xxx")
-                .setAccessKeySecret("xxx")
-                .setEndpoint("");
-        Client client = new Client(config);
-
-        // 构造短信发送请求
-        SendSmsRequest sendSmsRequest = new SendSmsRequest()
-                .setOutId(messageSendEvent.getMsgId())// 设置外部流水号
-                .setPhoneNumbers(messageSendRequest.getReceiver())// 设置接收短信的手机号
-                .setTemplateCode("xxx")// 设置短信模板Code
-                .setTemplateParam("xxx") // 设置短信模板参数
-                .setSignName("xxx");  // 设置短信签名
-        SendSmsResponse sendSmsResponse;
-        MessagePlatformSendResponseDTO responseDTO = null;
         try {
-            // 发送短信
-            sendSmsResponse = client.sendSmsWithOptions(sendSmsRequest, new RuntimeOptions());
-            SendSmsResponseBody body = sendSmsResponse.getBody();
-            // 判断短信发送是否成功
-            if (!Objects.equals(body.getCode(), RETURN_SUCCESS_FLAG)) {
-                // 构造短信发送响应
-                responseDTO = MessagePlatformSendResponseDTO.builder().code(body.getCode()).errMsg(body.getMessage()).success(false).build();
-            }
+            // 加载渠道商账号、签名以及模板配置
+            String channelId = messageSendEvent.getCurrentSendChannel();
+            ChannelBusinessDO channelBusiness = channelConfigLoader.getChannelBusiness(channelId);
+            ChannelRelationDO channelRelation = channelConfigLoader.getChannelRelation(messageSendRequest.getSourceId(), channelId);
+            TemplateConfigDO messageTemplate = channelConfigLoader.getTemplate(messageSendRequest.getTemplateId());
+            String templateParam = buildTemplateParam(messageSendRequest);
+            
+            // 发送短信，在阿里云渠道商舱壁内执行，避免占用其它渠道商资源
+            VendorBulkhead bulkhead = vendorBulkheadRegistry.get(ALI_VENDOR);
+            AliSmsClient smsClient = getSmsClient(channelBusiness, bulkhead);
+            AliSmsSendResult sendResult = bulkhead.execute(() -> smsClient.sendSms(
+                    messageSendRequest.getReceiver(),
+                    channelRelation.getSign(),
+                    messageTemplate.getChannelTemplateId(),
+                    templateParam,
+                    messageSendEvent.getMsgId()
+            ));
+            return MessagePlatformSendResponseDTO.builder()
+                    .success(sendResult.isSuccess())
+                    .code(sendResult.getCode())
+                    .errMsg(sendResult.isSuccess() ? null : sendResult.getMessage())
+                    .bizId(sendResult.getBizId())
+                    .build();
         } catch (Throwable ex) {
             // 捕获发送短信过程中的异常
             log.error("阿里云短信调用失败，入参：{}，错误信息：{}", JSON.toJSONString(messageSendEvent), ex.getMessage());
-            // 构造短信发送响应
-            responseDTO = MessagePlatformSendResponseDTO.builder().code("-1").errMsg(ex.getMessage()).success(false).build();
+            return MessagePlatformSendResponseDTO.builder().code("-1").errMsg(ex.getMessage()).success(false).build();
+        }
+    }
+    
+    /**
+     * 按模板占位符顺序将参数集合组装为阿里云模板参数 JSON
+     */
+    private String buildTemplateParam(MessageSendRequestDTO messageSendRequest) {
+        List<String> paramList = messageSendRequest.getParamList();
+        if (paramList == null || paramList.isEmpty()) {
+            return null;
         }
-        // 返回短信发送响应
-        return responseDTO;
+        List<String> paramKeys = channelConfigLoader.listTemplateParamKeys(messageSendRequest.getTemplateId());
+        JSONObject templateParam = new JSONObject();
+        for (int i = 0; i < paramKeys.size() && i < paramList.size(); i++) {
+            templateParam.put(paramKeys.get(i), paramList.get(i));
+        }
+        return templateParam.toJSONString();
+    }
+    
+    /**
+     * 获取渠道商账号对应的短信客户端，HTTP 连接池使用阿里云渠道商舱壁独享的客户端，客户端淘汰不影响共享连接池
+     */
+    private AliSmsClient getSmsClient(ChannelBusinessDO channelBusiness, VendorBulkhead bulkhead) throws ExecutionException {
+        JSONObject extend = StrUtil.isBlank(channelBusiness.getExtend()) ? new JSONObject() : JSON.parseObject(channelBusiness.getExtend());
+        String endpoint = StrUtil.blankToDefault(extend.getString("endpoint"), DEFAULT_ENDPOINT);
+        String region = StrUtil.blankToDefault(extend.getString("region"), DEFAULT_REGION);
+        String clientKey = StrUtil.join("_", channelBusiness.getChannelId(), channelBusiness.getAccessKey(), channelBusiness.getAccessKeySecret().hashCode(), region, endpoint);
+        return smsClientCache.get(clientKey, () -> new AliSmsClient(
+                channelBusiness.getAccessKey(),
+                channelBusiness.getAccessKeySecret(),
+                region,
+                endpoint,
+                bulkhead.getHttpClient()
+        ));
     }
 }
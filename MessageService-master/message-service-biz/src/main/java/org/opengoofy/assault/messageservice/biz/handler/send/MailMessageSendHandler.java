@@ -0,0 +1,126 @@
+package org.opengoofy.assault.messageservice.biz.handler.send;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.http.HtmlUtil;
+import com.alibaba.fastjson2.JSON;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.opengoofy.assault.framework.starter.cache.DistributedCache;
+import org.opengoofy.assault.messageservice.api.dto.MessageSendRequestDTO;
+import org.opengoofy.assault.messageservice.biz.config.MailChannelConfig;
+import org.opengoofy.assault.messageservice.biz.dao.entity.TemplateConfigDO;
+import org.opengoofy.assault.messageservice.biz.dao.entity.TemplateConfigParamDO;
+import org.opengoofy.assault.messageservice.biz.dao.mapper.TemplateConfigMapper;
+import org.opengoofy.assault.messageservice.biz.dao.mapper.TemplateConfigParamMapper;
+import org.opengoofy.assault.messageservice.biz.dto.MessagePlatformSendResponseDTO;
+import org.opengoofy.assault.messageservice.biz.handler.send.base.AbstractMessageSendService;
+import org.opengoofy.assault.messageservice.biz.handler.send.base.MessageSendService;
+import org.opengoofy.assault.messageservice.biz.handler.send.mail.PooledSmtpMailSender;
+import org.opengoofy.assault.messageservice.biz.mq.event.MessageSendEvent;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Component;
+
+import javax.mail.internet.MimeMessage;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.opengoofy.assault.messageservice.biz.common.MessageCacheConstants.DEFAULT_CACHE_TIMOUT;
+import static org.opengoofy.assault.messageservice.biz.common.MessageCacheConstants.MAIL_TEMPLATE_PARAM_CACHE_PREFIX_KEY;
+import static org.opengoofy.assault.messageservice.biz.common.MessageCacheConstants.MESSAGE_TEMPLATE_CACHE_PREFIX_KEY;
+import static org.opengoofy.assault.messageservice.biz.common.MessageTypeEnum.MAIL_MESSAGE;
+
+/**
+ * 邮件消息发送组件
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "message.simulator", name = "enabled", havingValue = "false", matchIfMissing = true)
+@RequiredArgsConstructor
+public class MailMessageSendHandler extends AbstractMessageSendService implements MessageSendService {
+    
+    /**
+     * 模板占位符格式，比如：${orderNo}
+     */
+    private static final String PLACEHOLDER_TEMPLATE = "${%s}";
+    
+    private final PooledSmtpMailSender pooledSmtpMailSender;
+    private final MailChannelConfig mailChannelConfig;
+    private final DistributedCache distributedCache;
+    private final TemplateConfigMapper templateConfigMapper;
+    private final TemplateConfigParamMapper templateConfigParamMapper;
+    
+    @Override
+    public String mark() {
+        return MAIL_MESSAGE.getPlatform();
+    }
+    
+    @Override
+    public MessagePlatformSendResponseDTO executeResp(MessageSendEvent messageSendEvent) {
+        MessageSendRequestDTO messageSendRequest = messageSendEvent.getMessageSendRequest();
+        try {
+            // 从缓存中获取消息模板配置
+            String templateId = messageSendRequest.getTemplateId();
+            TemplateConfigDO messageTemplate = distributedCache.safeGet(
+                    MESSAGE_TEMPLATE_CACHE_PREFIX_KEY + templateId,
+                    TemplateConfigDO.class,
+                    () -> templateConfigMapper.selectOne(
+                            Wrappers.lambdaQuery(TemplateConfigDO.class).eq(TemplateConfigDO::getTemplateId, templateId)
+                    ),
+                    new Long(DEFAULT_CACHE_TIMOUT)
+            );
+            
+            // 从缓存中获取邮件模板参数配置，以 JSON 字符串缓存，避免集合反序列化后元素类型丢失
+            String messageTemplateParamsJson = distributedCache.safeGet(
+                    MAIL_TEMPLATE_PARAM_CACHE_PREFIX_KEY + templateId,
+                    String.class,
+                    () -> JSON.toJSONString(templateConfigParamMapper.selectList(
+                            Wrappers.lambdaQuery(TemplateConfigParamDO.class)
+                                    .eq(TemplateConfigParamDO::getTemplateId, templateId)
+                                    .orderByAsc(TemplateConfigParamDO::getRankPlaceholder)
+                    )),
+                    new Long(DEFAULT_CACHE_TIMOUT)
+            );
+            List<TemplateConfigParamDO> messageTemplateParams = JSON.parseArray(messageTemplateParamsJson, TemplateConfigParamDO.class);
+            
+            // 渲染邮件内容并构建邮件
+            String content = render(messageTemplate.getTemplateText(), messageTemplateParams, messageSendRequest.getParamList());
+            MimeMessage mimeMessage = new MimeMessage(pooledSmtpMailSender.getSession());
+            MimeMessageHelper messageHelper = new MimeMessageHelper(mimeMessage, StandardCharsets.UTF_8.name());
+            messageHelper.setFrom(StrUtil.blankToDefault(mailChannelConfig.getFrom(), mailChannelConfig.getUsername()));
+            messageHelper.setTo(StrUtil.splitToArray(messageSendRequest.getReceiver(), ','));
+            messageHelper.setSubject(messageTemplate.getTemplateName());
+            messageHelper.setText(content, true);
+            
+            // 提交到已认证 SMTP 连接池中投递，并等待投递结果
+            pooledSmtpMailSender.submit(mimeMessage).get(mailChannelConfig.getSendTimeoutMillis(), TimeUnit.MILLISECONDS);
+            return MessagePlatformSendResponseDTO.builder().success(true).build();
+        } catch (Throwable ex) {
+            log.error("邮件发送失败，消息ID：{}，接收者：{}", messageSendEvent.getMsgId(), messageSendRequest.getReceiver(), ex);
+            return MessagePlatformSendResponseDTO.builder().code("-1").errMsg(ex.getMessage()).success(false).build();
+        }
+    }
+    
+    /**
+     * 渲染模板内容，配置了模板参数时按参数顺序替换 ${keyPlaceholder}，否则按顺序替换 {}
+     * <p>
+     * 模板正文按 HTML 发送，参数来自调用方，替换前先做 HTML 转义，避免参数中的标签注入邮件正文
+     */
+    private String render(String templateText, List<TemplateConfigParamDO> messageTemplateParams, List<String> paramList) {
+        if (CollUtil.isEmpty(paramList)) {
+            return templateText;
+        }
+        String[] escapedParams = paramList.stream().map(HtmlUtil::escape).toArray(String[]::new);
+        if (CollUtil.isEmpty(messageTemplateParams)) {
+            return StrUtil.format(templateText, escapedParams);
+        }
+        String content = templateText;
+        for (int i = 0; i < messageTemplateParams.size() && i < escapedParams.length; i++) {
+            content = StrUtil.replace(content, String.format(PLACEHOLDER_TEMPLATE, messageTemplateParams.get(i).getKeyPlaceholder()), escapedParams[i]);
+        }
+        return content;
+    }
+}
@@ -1,22 +1,95 @@
 package org.opengoofy.assault.messageservice.biz.handler.send;
 
-import com.alibaba.fastjson.JSON;
-import lombok.SneakyThrows;
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.StrUtil;
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONObject;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.tencentcloudapi.common.Credential;
+import com.tencentcloudapi.common.profile.ClientProfile;
+import com.tencentcloudapi.common.profile.HttpProfile;
+import com.tencentcloudapi.sms.v20210111.SmsClient;
+import com.tencentcloudapi.sms.v20210111.models.SendSmsRequest;
+import com.tencentcloudapi.sms.v20210111.models.SendSmsResponse;
+import com.tencentcloudapi.sms.v20210111.models.SendStatus;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.opengoofy.assault.messageservice.api.dto.MessageSendRequestDTO;
+import org.opengoofy.assault.messageservice.biz.config.VendorBulkheadConfig;
+import org.opengoofy.assault.messageservice.biz.dao.entity.ChannelBusinessDO;
+import org.opengoofy.assault.messageservice.biz.dao.entity.ChannelRelationDO;
+import org.opengoofy.assault.messageservice.biz.dao.entity.TemplateConfigDO;
 import org.opengoofy.assault.messageservice.biz.dto.MessagePlatformSendResponseDTO;
 import org.opengoofy.assault.messageservice.biz.handler.send.base.AbstractMessageSendService;
+import org.opengoofy.assault.messageservice.biz.handler.send.base.ChannelConfigLoader;
+import org.opengoofy.assault.messageservice.biz.handler.send.base.MessageBatchSendService;
 import org.opengoofy.assault.messageservice.biz.handler.send.base.MessageSendService;
+import org.opengoofy.assault.messageservice.biz.handler.send.bulkhead.VendorBulkheadRegistry;
+import org.opengoofy.assault.messageservice.biz.handler.send.tencent.TencentSmsSerialNoStore;
 import org.opengoofy.assault.messageservice.biz.mq.event.MessageSendEvent;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
 import static org.opengoofy.assault.messageservice.biz.common.MessageConstants.SMS_MESSAGE_KEY;
+import static org.opengoofy.assault.messageservice.biz.common.MessageConstants.TENCENT_VENDOR;
 
 /**
  * 腾讯云短信发送组件
+ * <p>
+ * 引用自腾讯云官方网址 https://cloud.tencent.com/document/product/382/55981
+ * <p>
+ * 批量消费时渠道、来源、模板以及参数相同的短信由消费者合并为一次多号码请求，单次请求最多 200 个号码
  */
 @Slf4j
 @Component
-public class TencentSmsMessageSendHandler extends AbstractMessageSendService implements MessageSendService {
+@ConditionalOnProperty(prefix = "message.simulator", name = "enabled", havingValue = "false", matchIfMissing = true)
+@RequiredArgsConstructor
+public class TencentSmsMessageSendHandler extends AbstractMessageSendService implements MessageSendService, MessageBatchSendService {
+    
+    /**
+     * 调用腾讯云发送短信成功返回标识
+     */
+    private final static String RETURN_SUCCESS_FLAG = "Ok";
+    
+    /**
+     * 单次请求最多包含的手机号数量
+     */
+    private final static int MAX_PHONE_NUMBERS_PER_REQUEST = 200;
+    
+    /**
+     * 短信客户端闲置淘汰时间，单位分钟
+     */
+    private final static long CLIENT_EXPIRE_AFTER_ACCESS_MINUTES = 30L;
+    
+    /**
+     * 默认地域
+     */
+    private final static String DEFAULT_REGION = "ap-guangzhou";
+    
+    /**
+     * 中国大陆手机号 E.164 前缀
+     */
+    private final static String CHINA_MAINLAND_PREFIX = "+86";
+    
+    private final ChannelConfigLoader channelConfigLoader;
+    private final VendorBulkheadRegistry vendorBulkheadRegistry;
+    private final TencentSmsSerialNoStore tencentSmsSerialNoStore;
+    
+    /**
+     * 按渠道商账号复用腾讯云短信客户端，同一账号下的请求复用同一个 HTTP 连接池；账号密钥变更后旧客户端不再被访问，闲置超时后淘汰
+     */
+    private final Cache<String, SmsClient> smsClientCache = CacheBuilder.newBuilder()
+            .expireAfterAccess(CLIENT_EXPIRE_AFTER_ACCESS_MINUTES, TimeUnit.MINUTES)
+            .build();
     
     @Override
     public String mark() {
@@ -24,10 +97,100 @@ public class TencentSmsMessageSendHandler extends AbstractMessageSendService imp
     }
     
     @Override
-    @SneakyThrows
+    public int maxBatchSize() {
+        return MAX_PHONE_NUMBERS_PER_REQUEST;
+    }
+    
+    @Override
     public MessagePlatformSendResponseDTO executeResp(MessageSendEvent messageSendEvent) {
-        // 这里直接模拟调用失败
-        log.error("腾讯云短信调用失败，入参：{}", JSON.toJSONString(messageSendEvent));
-        return MessagePlatformSendResponseDTO.builder().success(false).build();
+        return executeBatchResp(Collections.singletonList(messageSendEvent)).get(messageSendEvent.getMsgId());
+    }
+    
+    /**
+     * 发送一次相同内容的多号码请求，并按手机号将每个号码的发送结果映射回消息ID
+     * <p>
+     * 单号码请求通过 SessionContext 携带消息ID，回执中 ext 原样返回；多号码请求缓存流水号与消息ID映射，回执按 sid 关联
+     */
+    @Override
+    public Map<String, MessagePlatformSendResponseDTO> executeBatchResp(List<MessageSendEvent> messageSendEvents) {
+        Map<String, MessagePlatformSendResponseDTO> result = new HashMap<>(messageSendEvents.size());
+        MessageSendEvent first = messageSendEvents.get(0);
+        MessageSendRequestDTO messageSendRequest = first.getMessageSendRequest();
+        try {
+            // 加载渠道商账号、签名以及模板配置
+            String channelId = first.getCurrentSendChannel();
+            ChannelBusinessDO channelBusiness = channelConfigLoader.getChannelBusiness(channelId);
+            ChannelRelationDO channelRelation = channelConfigLoader.getChannelRelation(messageSendRequest.getSourceId(), channelId);
+            TemplateConfigDO messageTemplate = channelConfigLoader.getTemplate(messageSendRequest.getTemplateId());
+            JSONObject extend = StrUtil.isBlank(channelBusiness.getExtend()) ? new JSONObject() : JSON.parseObject(channelBusiness.getExtend());
+            
+            // 构造短信发送请求
+            Map<String, MessageSendEvent> phoneNumberMap = new LinkedHashMap<>(messageSendEvents.size());
+            messageSendEvents.forEach(each -> phoneNumberMap.put(toE164(each.getMessageSendRequest().getReceiver()), each));
+            SendSmsRequest sendSmsRequest = new SendSmsRequest();
+            sendSmsRequest.setSmsSdkAppId(extend.getString("sdkAppId"));
+            sendSmsRequest.setSignName(channelRelation.getSign());
+            sendSmsRequest.setTemplateId(messageTemplate.getChannelTemplateId());
+            sendSmsRequest.setTemplateParamSet(CollUtil.isEmpty(messageSendRequest.getParamList()) ? new String[0] : messageSendRequest.getParamList().toArray(new String[0]));
+            sendSmsRequest.setPhoneNumberSet(phoneNumberMap.keySet().toArray(new String[0]));
+            if (messageSendEvents.size() == 1) {
+                sendSmsRequest.setSessionContext(first.getMsgId());
+            }
+            SmsClient smsClient = getSmsClient(channelBusiness, StrUtil.blankToDefault(extend.getString("region"), DEFAULT_REGION));
+            SendSmsResponse sendSmsResponse = vendorBulkheadRegistry.get(TENCENT_VENDOR).execute(() -> smsClient.SendSms(sendSmsRequest));
+            
+            // 按手机号将发送结果映射回消息ID
+            SendStatus[] sendStatusSet = sendSmsResponse.getSendStatusSet() == null ? new SendStatus[0] : sendSmsResponse.getSendStatusSet();
+            Map<String, String> serialNoMsgIds = new HashMap<>(sendStatusSet.length);
+            for (SendStatus sendStatus : sendStatusSet) {
+                MessageSendEvent messageSendEvent = phoneNumberMap.get(sendStatus.getPhoneNumber());
+                if (messageSendEvent == null) {
+                    continue;
+                }
+                boolean success = RETURN_SUCCESS_FLAG.equals(sendStatus.getCode());
+                result.put(messageSendEvent.getMsgId(), MessagePlatformSendResponseDTO.builder()
+                        .success(success)
+                        .code(sendStatus.getCode())
+                        .errMsg(success ? null : sendStatus.getMessage())
+                        .bizId(sendStatus.getSerialNo())
+                        .billingCount(sendStatus.getFee() == null ? null : sendStatus.getFee().intValue())
+                        .build());
+                if (success && StrUtil.isNotBlank(sendStatus.getSerialNo())) {
+                    serialNoMsgIds.put(sendStatus.getSerialNo(), messageSendEvent.getMsgId());
+                }
+            }
+            if (messageSendEvents.size() > 1) {
+                tencentSmsSerialNoStore.save(serialNoMsgIds);
+            }
+        } catch (Throwable ex) {
+            log.error("腾讯云短信调用失败，消息数量：{}，首条入参：{}", messageSendEvents.size(), JSON.toJSONString(first), ex);
+            messageSendEvents.forEach(each -> result.put(each.getMsgId(), MessagePlatformSendResponseDTO.builder().code("-1").errMsg(ex.getMessage()).success(false).build()));
+        }
+        // 腾讯云未返回发送状态的号码按失败处理
+        messageSendEvents.forEach(each -> result.putIfAbsent(each.getMsgId(), MessagePlatformSendResponseDTO.builder().code("-1").errMsg("腾讯云未返回该号码发送状态").success(false).build()));
+        return result;
+    }
+    
+    /**
+     * 获取渠道商账号对应的短信客户端，账号密钥变更后自动创建新客户端，旧客户端闲置超时后淘汰
+     */
+    private SmsClient getSmsClient(ChannelBusinessDO channelBusiness, String region) throws ExecutionException {
+        String clientKey = StrUtil.join("_", channelBusiness.getChannelId(), channelBusiness.getAccessKey(), channelBusiness.getAccessKeySecret().hashCode(), region);
+        return smsClientCache.get(clientKey, () -> {
+            VendorBulkheadConfig.Bulkhead bulkheadConfig = vendorBulkheadRegistry.get(TENCENT_VENDOR).getConfig();
+            HttpProfile httpProfile = new HttpProfile();
+            httpProfile.setReqMethod(HttpProfile.REQ_POST);
+            // 腾讯云 SDK 超时时间单位为秒
+            httpProfile.setConnTimeout(Math.max(1, bulkheadConfig.getConnectTimeoutMillis() / 1000));
+            httpProfile.setReadTimeout(Math.max(1, bulkheadConfig.getReadTimeoutMillis() / 1000));
+            httpProfile.setWriteTimeout(Math.max(1, bulkheadConfig.getReadTimeoutMillis() / 1000));
+            ClientProfile clientProfile = new ClientProfile();
+            clientProfile.setHttpProfile(httpProfile);
+            return new SmsClient(new Credential(channelBusiness.getAccessKey(), channelBusiness.getAccessKeySecret()), region, clientProfile);
+        });
+    }
+    
+    private String toE164(String receiver) {
+        return StrUtil.startWith(receiver, "+") ? receiver : CHINA_MAINLAND_PREFIX + receiver;
     }
 }
@@ -13,10 +13,12 @@ import org.opengoofy.assault.messageservice.biz.dao.mapper.TemplateConfigParamMa
 import org.opengoofy.assault.messageservice.biz.dto.MessagePlatformSendResponseDTO;
 import org.opengoofy.assault.messageservice.biz.handler.send.base.AbstractMessageSendService;
 import org.opengoofy.assault.messageservice.biz.handler.send.base.MessageSendService;
+import org.opengoofy.assault.messageservice.biz.handler.send.bulkhead.VendorBulkheadRegistry;
 import org.opengoofy.assault.messageservice.biz.mq.event.MessageSendEvent;
 import org.opengoofy.assault.messageservice.biz.remote.WeChatTemplateMessageSendRemoteService;
 import org.opengoofy.assault.messageservice.biz.remote.dto.WeChatTemplateMessageRemoteReqDTO;
 import org.opengoofy.assault.messageservice.biz.remote.dto.WeChatTemplateMessageRemoteRespDTO;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 import java.util.HashMap;
@@ -26,6 +28,7 @@ import java.util.Map;
 import static org.opengoofy.assault.messageservice.biz.common.MessageCacheConstants.DEFAULT_CACHE_TIMOUT;
 import static org.opengoofy.assault.messageservice.biz.common.MessageCacheConstants.MESSAGE_TEMPLATE_CACHE_PREFIX_KEY;
 import static org.opengoofy.assault.messageservice.biz.common.MessageCacheConstants.MESSAGE_TEMPLATE_PARAM_CACHE_PREFIX_KEY;
+import static org.opengoofy.assault.messageservice.biz.common.MessageConstants.WECHAT_VENDOR;
 import static org.opengoofy.assault.messageservice.biz.common.MessageTypeEnum.WE_CHART_MESSAGE;
 
 /**
@@ -33,6 +36,7 @@ import static org.opengoofy.assault.messageservice.biz.common.MessageTypeEnum.WE
  */
 @Slf4j
 @Component
+@ConditionalOnProperty(prefix = "message.simulator", name = "enabled", havingValue = "false", matchIfMissing = true)
 @RequiredArgsConstructor
 public class WeChatTemplateMessageSendHandler extends AbstractMessageSendService implements MessageSendService {
     
@@ -40,6 +44,7 @@ public class WeChatTemplateMessageSendHandler extends AbstractMessageSendService
     private final DistributedCache distributedCache;
     private final TemplateConfigMapper templateConfigMapper;
     private final TemplateConfigParamMapper templateConfigParamMapper;
+    private final VendorBulkheadRegistry vendorBulkheadRegistry;
     
     @Override
     public String mark() {
@@ -105,7 +110,8 @@ public class WeChatTemplateMessageSendHandler extends AbstractMessageSendService
         // 调用微信模板消息发送远程服务
         WeChatTemplateMessageRemoteRespDTO remoteResultData;
         try {
-            remoteResultData = weChatTemplateMessageSendRemoteService.sendMessage(accessToken, remoteRequestParam);
+            // 在微信渠道商舱壁内执行，微信响应变慢时不会影响短信渠道商
+            remoteResultData = vendorBulkheadRegistry.get(WECHAT_VENDOR).execute(() -> weChatTemplateMessageSendRemoteService.sendMessage(accessToken, remoteRequestParam));
             // 调用三方服务，因为不确定三方抛出的异常是什么，一定要用 Throwable 捕获
         } catch (Throwable ex) {
             remoteResultData = WeChatTemplateMessageRemoteRespDTO.buildError();
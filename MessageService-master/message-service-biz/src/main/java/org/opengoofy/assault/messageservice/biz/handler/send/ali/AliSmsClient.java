@@ -0,0 +1,224 @@
+package org.opengoofy.assault.messageservice.biz.handler.send.ali;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Base64;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 轻量阿里云短信客户端
+ * <p>
+ * 直接按 RPC 风格签名机制构造 SendSms 请求，不经过 Tea SDK 的通用请求模型：
+ * HMAC 密钥只初始化一次，请求体在线程复用的缓冲区中拼接，响应只流式解析 Code、Message、BizId 三个字段
+ * <p>
+ * 引用自阿里云官方网址 https://help.aliyun.com/document_detail/315526.html
+ */
+public class AliSmsClient {
+    
+    private static final String HMAC_SHA1 = "HmacSHA1";
+    
+    private static final MediaType FORM_MEDIA_TYPE = MediaType.parse("application/x-www-form-urlencoded");
+    
+    private static final DateTimeFormatter TIMESTAMP_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss'Z'").withZone(ZoneOffset.UTC);
+    
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+    
+    /**
+     * 每个线程复用的请求参数缓冲区，[0] 为规范化请求字符串，[1] 为待签名字符串
+     */
+    private static final ThreadLocal<StringBuilder[]> BUFFERS = ThreadLocal.withInitial(() -> new StringBuilder[]{new StringBuilder(512), new StringBuilder(768)});
+    
+    private final String accessKeyId;
+    
+    private final String regionId;
+    
+    private final String endpoint;
+    
+    private final OkHttpClient httpClient;
+    
+    private final SecretKeySpec signingKey;
+    
+    /**
+     * Mac 非线程安全，每个线程持有一个已使用签名密钥初始化的实例
+     */
+    private final ThreadLocal<Mac> macHolder;
+    
+    public AliSmsClient(String accessKeyId, String accessKeySecret, String regionId, String endpoint, OkHttpClient httpClient) {
+        this.accessKeyId = accessKeyId;
+        this.regionId = regionId;
+        this.endpoint = endpoint;
+        this.httpClient = httpClient;
+        this.signingKey = new SecretKeySpec((accessKeySecret + "&").getBytes(StandardCharsets.UTF_8), HMAC_SHA1);
+        this.macHolder = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(HMAC_SHA1);
+                mac.init(signingKey);
+                return mac;
+            } catch (GeneralSecurityException ex) {
+                throw new IllegalStateException(ex);
+            }
+        });
+    }
+    
+    /**
+     * 发送短信
+     *
+     * @param phoneNumbers  接收短信的手机号，多个以英文逗号分隔
+     * @param signName      短信签名
+     * @param templateCode  短信模板 Code
+     * @param templateParam 短信模板参数 JSON
+     * @param outId         外部流水号
+     * @return 发送结果
+     */
+    public AliSmsSendResult sendSms(String phoneNumbers, String signName, String templateCode, String templateParam, String outId) throws IOException {
+        String requestBody = buildSignedRequestBody(phoneNumbers, signName, templateCode, templateParam, outId, Instant.now());
+        Request request = new Request.Builder()
+                .url(endpoint)
+                .post(RequestBody.create(FORM_MEDIA_TYPE, requestBody))
+                .build();
+        try (Response response = httpClient.newCall(request).execute()) {
+            ResponseBody body = response.body();
+            if (body == null) {
+                return new AliSmsSendResult(String.valueOf(response.code()), "阿里云短信响应为空", null);
+            }
+            AliSmsSendResult result = parseResponse(body.byteStream());
+            if (result.getCode() == null) {
+                result.setCode(String.valueOf(response.code()));
+            }
+            return result;
+        }
+    }
+    
+    /**
+     * 构造已签名的表单请求体
+     * <p>
+     * 参数名已按字典序固定排列，无需每次排序；签名算法：Base64(HMAC-SHA1(AccessKeySecret + "&", "POST&%2F&" + percentEncode(规范化请求字符串)))
+     */
+    public String buildSignedRequestBody(String phoneNumbers, String signName, String templateCode, String templateParam, String outId, Instant timestamp) {
+        StringBuilder[] buffers = BUFFERS.get();
+        StringBuilder canonicalized = buffers[0];
+        canonicalized.setLength(0);
+        appendParam(canonicalized, "AccessKeyId", accessKeyId);
+        appendParam(canonicalized, "Action", "SendSms");
+        appendParam(canonicalized, "Format", "JSON");
+        if (outId != null) {
+            appendParam(canonicalized, "OutId", outId);
+        }
+        appendParam(canonicalized, "PhoneNumbers", phoneNumbers);
+        appendParam(canonicalized, "RegionId", regionId);
+        appendParam(canonicalized, "SignName", signName);
+        appendParam(canonicalized, "SignatureMethod", "HMAC-SHA1");
+        appendParam(canonicalized, "SignatureNonce", Long.toHexString(ThreadLocalRandom.current().nextLong()) + Long.toHexString(System.nanoTime()));
+        appendParam(canonicalized, "SignatureVersion", "1.0");
+        appendParam(canonicalized, "TemplateCode", templateCode);
+        if (templateParam != null) {
+            appendParam(canonicalized, "TemplateParam", templateParam);
+        }
+        appendParam(canonicalized, "Timestamp", TIMESTAMP_FORMATTER.format(timestamp));
+        appendParam(canonicalized, "Version", "2017-05-25");
+        
+        StringBuilder stringToSign = buffers[1];
+        stringToSign.setLength(0);
+        stringToSign.append("POST&%2F&");
+        percentEncode(stringToSign, canonicalized);
+        byte[] signature = macHolder.get().doFinal(stringToSign.toString().getBytes(StandardCharsets.UTF_8));
+        
+        canonicalized.append("&Signature=");
+        percentEncode(canonicalized, Base64.getEncoder().encodeToString(signature));
+        return canonicalized.toString();
+    }
+    
+    /**
+     * 流式解析响应，只读取顶层 Code、Message、BizId 字段，其余字段直接跳过
+     */
+    public static AliSmsSendResult parseResponse(InputStream inputStream) throws IOException {
+        AliSmsSendResult result = new AliSmsSendResult();
+        try (JsonParser parser = JSON_FACTORY.createParser(inputStream)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return result;
+            }
+            int remaining = 3;
+            while (remaining > 0 && parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.getCurrentName();
+                JsonToken valueToken = parser.nextToken();
+                switch (fieldName) {
+                    case "Code":
+                        result.setCode(parser.getValueAsString());
+                        remaining--;
+                        break;
+                    case "Message":
+                        result.setMessage(parser.getValueAsString());
+                        remaining--;
+                        break;
+                    case "BizId":
+                        result.setBizId(parser.getValueAsString());
+                        remaining--;
+                        break;
+                    default:
+                        if (valueToken == JsonToken.START_OBJECT || valueToken == JsonToken.START_ARRAY) {
+                            parser.skipChildren();
+                        }
+                }
+            }
+        }
+        return result;
+    }
+    
+    private static void appendParam(StringBuilder builder, String key, String value) {
+        if (builder.length() > 0) {
+            builder.append('&');
+        }
+        builder.append(key).append('=');
+        percentEncode(builder, value);
+    }
+    
+    /**
+     * 按 RFC 3986 进行百分号编码，直接写入目标缓冲区，避免 URLEncoder 的中间字符串以及 +、*、%7E 替换
+     */
+    private static void percentEncode(StringBuilder target, CharSequence value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '-' || c == '_' || c == '.' || c == '~') {
+                target.append(c);
+            } else if (c < 0x80) {
+                appendEncodedByte(target, c);
+            } else if (c < 0x800) {
+                appendEncodedByte(target, 0xC0 | (c >> 6));
+                appendEncodedByte(target, 0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                appendEncodedByte(target, 0xF0 | (codePoint >> 18));
+                appendEncodedByte(target, 0x80 | ((codePoint >> 12) & 0x3F));
+                appendEncodedByte(target, 0x80 | ((codePoint >> 6) & 0x3F));
+                appendEncodedByte(target, 0x80 | (codePoint & 0x3F));
+            } else {
+                appendEncodedByte(target, 0xE0 | (c >> 12));
+                appendEncodedByte(target, 0x80 | ((c >> 6) & 0x3F));
+                appendEncodedByte(target, 0x80 | (c & 0x3F));
+            }
+        }
+    }
+    
+    private static void appendEncodedByte(StringBuilder target, int b) {
+        target.append('%').append(HEX_DIGITS[(b >> 4) & 0x0F]).append(HEX_DIGITS[b & 0x0F]);
+    }
+}
@@ -0,0 +1,40 @@
+package org.opengoofy.assault.messageservice.biz.handler.send.ali;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Objects;
+
+/**
+ * 阿里云短信发送结果，只保留业务需要的字段
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AliSmsSendResult {
+    
+    /**
+     * 调用阿里云发送短信成功返回标识
+     */
+    private static final String RETURN_SUCCESS_FLAG = "OK";
+    
+    /**
+     * 请求状态码
+     */
+    private String code;
+    
+    /**
+     * 状态码描述
+     */
+    private String message;
+    
+    /**
+     * 发送回执 ID
+     */
+    private String bizId;
+    
+    public boolean isSuccess() {
+        return Objects.equals(code, RETURN_SUCCESS_FLAG);
+    }
+}
@@ -0,0 +1,172 @@
+package org.opengoofy.assault.messageservice.biz.handler.send.base;
+
+import com.alibaba.fastjson2.JSON;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import lombok.RequiredArgsConstructor;
+import org.opengoofy.assault.framework.starter.cache.DistributedCache;
+import org.opengoofy.assault.messageservice.biz.dao.entity.ChannelBusinessDO;
+import org.opengoofy.assault.messageservice.biz.dao.entity.ChannelRelationDO;
+import org.opengoofy.assault.messageservice.biz.dao.entity.TemplateConfigDO;
+import org.opengoofy.assault.messageservice.biz.dao.entity.TemplateConfigParamDO;
+import org.opengoofy.assault.messageservice.biz.dao.mapper.ChannelBusinessMapper;
+import org.opengoofy.assault.messageservice.biz.dao.mapper.ChannelRelationMapper;
+import org.opengoofy.assault.messageservice.biz.dao.mapper.TemplateConfigMapper;
+import org.opengoofy.assault.messageservice.biz.dao.mapper.TemplateConfigParamMapper;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.opengoofy.assault.messageservice.biz.common.MessageCacheConstants.CHANNEL_BUSINESS_CACHE_PREFIX_KEY;
+import static org.opengoofy.assault.messageservice.biz.common.MessageCacheConstants.CHANNEL_RELATION_CACHE_PREFIX_KEY;
+import static org.opengoofy.assault.messageservice.biz.common.MessageCacheConstants.DEFAULT_CACHE_TIMOUT;
+import static org.opengoofy.assault.messageservice.biz.common.MessageCacheConstants.MESSAGE_TEMPLATE_CACHE_PREFIX_KEY;
+import static org.opengoofy.assault.messageservice.biz.common.MessageCacheConstants.MESSAGE_TEMPLATE_PARAM_KEY_CACHE_PREFIX_KEY;
+
+/**
+ * 三方渠道发送配置加载器，包括：渠道商账号、签名以及消息模板
+ */
+@Component
+@RequiredArgsConstructor
+public class ChannelConfigLoader {
+    
+    private final DistributedCache distributedCache;
+    private final ChannelBusinessMapper channelBusinessMapper;
+    private final ChannelRelationMapper channelRelationMapper;
+    private final TemplateConfigMapper templateConfigMapper;
+    private final TemplateConfigParamMapper templateConfigParamMapper;
+    
+    /**
+     * 获取渠道商账号配置
+     *
+     * @param channelId 自定义三方平台渠道id
+     * @return 渠道商账号配置
+     */
+    public ChannelBusinessDO getChannelBusiness(String channelId) {
+        return distributedCache.safeGet(
+                CHANNEL_BUSINESS_CACHE_PREFIX_KEY + channelId,
+                ChannelBusinessDO.class,
+                () -> channelBusinessMapper.selectOne(
+                        Wrappers.lambdaQuery(ChannelBusinessDO.class).eq(ChannelBusinessDO::getChannelId, channelId)
+                ),
+                new Long(DEFAULT_CACHE_TIMOUT)
+        );
+    }
+    
+    /**
+     * 获取来源在渠道商下的签名配置
+     *
+     * @param sourceId  来源ID
+     * @param channelId 自定义三方平台渠道id
+     * @return 签名配置
+     */
+    public ChannelRelationDO getChannelRelation(String sourceId, String channelId) {
+        return distributedCache.safeGet(
+                CHANNEL_RELATION_CACHE_PREFIX_KEY + sourceId + "_" + channelId,
+                ChannelRelationDO.class,
+                () -> channelRelationMapper.selectOne(
+                        Wrappers.lambdaQuery(ChannelRelationDO.class)
+                                .eq(ChannelRelationDO::getSourceId, sourceId)
+                                .eq(ChannelRelationDO::getChannelId, channelId)
+                ),
+                new Long(DEFAULT_CACHE_TIMOUT)
+        );
+    }
+    
+    /**
+     * 获取消息模板配置
+     *
+     * @param templateId 模板ID
+     * @return 消息模板配置
+     */
+    public TemplateConfigDO getTemplate(String templateId) {
+        return distributedCache.safeGet(
+                MESSAGE_TEMPLATE_CACHE_PREFIX_KEY + templateId,
+                TemplateConfigDO.class,
+                () -> templateConfigMapper.selectOne(
+                        Wrappers.lambdaQuery(TemplateConfigDO.class).eq(TemplateConfigDO::getTemplateId, templateId)
+                ),
+                new Long(DEFAULT_CACHE_TIMOUT)
+        );
+    }
+    
+    /**
+     * 批量获取消息模板配置，缓存通过一次 MGET 读取，未命中的模板一次查询数据库后以管道批量回写缓存
+     *
+     * @param templateIds 模板ID集合，不能包含重复元素
+     * @return 模板ID与消息模板配置映射，不存在的模板不包含在结果中
+     */
+    public Map<String, TemplateConfigDO> listTemplates(Collection<String> templateIds) {
+        Map<String, TemplateConfigDO> result = new HashMap<>(templateIds.size() * 2);
+        if (templateIds.isEmpty()) {
+            return result;
+        }
+        List<String> templateIdList = new ArrayList<>(templateIds);
+        List<String> cacheKeys = new ArrayList<>(templateIdList.size());
+        templateIdList.forEach(each -> cacheKeys.add(MESSAGE_TEMPLATE_CACHE_PREFIX_KEY + each));
+        StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+        List<String> cacheValues = stringRedisTemplate.opsForValue().multiGet(cacheKeys);
+        List<String> missTemplateIds = new ArrayList<>();
+        for (int i = 0; i < templateIdList.size(); i++) {
+            String cacheValue = cacheValues == null ? null : cacheValues.get(i);
+            if (cacheValue == null) {
+                missTemplateIds.add(templateIdList.get(i));
+            } else {
+                result.put(templateIdList.get(i), JSON.parseObject(cacheValue, TemplateConfigDO.class));
+            }
+        }
+        if (missTemplateIds.isEmpty()) {
+            return result;
+        }
+        List<TemplateConfigDO> missTemplates = templateConfigMapper.selectList(
+                Wrappers.lambdaQuery(TemplateConfigDO.class).in(TemplateConfigDO::getTemplateId, missTemplateIds)
+        );
+        if (missTemplates.isEmpty()) {
+            return result;
+        }
+        missTemplates.forEach(each -> result.put(each.getTemplateId(), each));
+        stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> redisOperations = (RedisOperations<String, String>) operations;
+                missTemplates.forEach(each -> redisOperations.opsForValue().set(
+                        MESSAGE_TEMPLATE_CACHE_PREFIX_KEY + each.getTemplateId(),
+                        JSON.toJSONString(each),
+                        DEFAULT_CACHE_TIMOUT,
+                        TimeUnit.MILLISECONDS
+                ));
+                return null;
+            }
+        });
+        return result;
+    }
+    
+    /**
+     * 获取消息模板参数占位符 Key 集合，按占位符序号排序，与发送请求中的参数集合一一对应
+     *
+     * @param templateId 模板ID
+     * @return 占位符 Key 集合
+     */
+    public List<String> listTemplateParamKeys(String templateId) {
+        return distributedCache.safeGet(
+                MESSAGE_TEMPLATE_PARAM_KEY_CACHE_PREFIX_KEY + templateId,
+                List.class,
+                () -> templateConfigParamMapper.selectList(
+                        Wrappers.lambdaQuery(TemplateConfigParamDO.class)
+                                .eq(TemplateConfigParamDO::getTemplateId, templateId)
+                                .orderByAsc(TemplateConfigParamDO::getRankPlaceholder)
+                ).stream().map(TemplateConfigParamDO::getKeyPlaceholder).collect(Collectors.toList()),
+                new Long(DEFAULT_CACHE_TIMOUT)
+        );
+    }
+}
@@ -0,0 +1,26 @@
+package org.opengoofy.assault.messageservice.biz.handler.send.base;
+
+import org.opengoofy.assault.messageservice.biz.dto.MessagePlatformSendResponseDTO;
+import org.opengoofy.assault.messageservice.biz.mq.event.MessageSendEvent;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 多号码合并发送接口，渠道商支持一次请求向多个号码发送相同内容时实现
+ */
+public interface MessageBatchSendService {
+    
+    /**
+     * 单次请求最多包含的号码数
+     */
+    int maxBatchSize();
+    
+    /**
+     * 合并发送渠道、来源、模板以及模板参数均相同的消息，调用方需保证接收者不重复且数量不超过 {@link #maxBatchSize()}
+     *
+     * @param messageSendEvents 消息发送事件集合
+     * @return Key 为消息ID，Value 为该消息的发送结果
+     */
+    Map<String, MessagePlatformSendResponseDTO> executeBatchResp(List<MessageSendEvent> messageSendEvents);
+}
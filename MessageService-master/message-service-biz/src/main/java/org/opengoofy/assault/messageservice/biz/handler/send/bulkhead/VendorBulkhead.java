@@ -0,0 +1,201 @@
+package org.opengoofy.assault.messageservice.biz.handler.send.bulkhead;
+
+import cn.hutool.core.util.StrUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.opengoofy.assault.framework.starter.convention.exception.ServiceException;
+import org.opengoofy.assault.messageservice.biz.config.VendorBulkheadConfig;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 三方渠道商舱壁
+ * <p>
+ * 每个渠道商独占一个 HTTP 连接池和并发许可，渠道商之间互不影响
+ */
+@Slf4j
+public class VendorBulkhead {
+    
+    /**
+     * 最近调用耗时移动平均的平滑系数
+     */
+    private static final double EWMA_ALPHA = 0.1D;
+    
+    /**
+     * 超过该时间没有调用时最近耗时不再有参考意义，单位毫秒
+     */
+    private static final long RECENT_IDLE_MILLIS = 10000L;
+    
+    @Getter
+    private final String vendor;
+    
+    @Getter
+    private final VendorBulkheadConfig.Bulkhead config;
+    
+    /**
+     * 渠道商独享 HTTP 客户端，连接池、调度器均不与其它渠道商共享
+     */
+    @Getter
+    private final OkHttpClient httpClient;
+    
+    private final ConnectionPool connectionPool;
+    
+    private final Semaphore semaphore;
+    
+    private final Timer queueTimer;
+    
+    private final Timer callTimer;
+    
+    private final Counter rejectedCounter;
+    
+    /**
+     * 最近一次业务调用时间
+     */
+    private final AtomicLong lastCallTime = new AtomicLong(System.currentTimeMillis());
+    
+    /**
+     * 是否正在预热，避免上一轮预热未完成时重复发起
+     */
+    private final AtomicBoolean warming = new AtomicBoolean();
+    
+    /**
+     * 最近调用耗时指数加权移动平均值，单位毫秒，并发更新时允许丢失个别样本
+     */
+    private volatile double recentLatencyMillis;
+    
+    public VendorBulkhead(String vendor, VendorBulkheadConfig.Bulkhead config, MeterRegistry meterRegistry) {
+        this.vendor = vendor;
+        this.config = config;
+        this.connectionPool = new ConnectionPool(config.getMaxIdleConnections(), config.getKeepAliveMillis(), TimeUnit.MILLISECONDS);
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(config.getMaxConcurrentCalls());
+        dispatcher.setMaxRequestsPerHost(config.getMaxConcurrentCalls());
+        this.httpClient = new OkHttpClient.Builder()
+                .connectionPool(connectionPool)
+                .dispatcher(dispatcher)
+                .connectTimeout(config.getConnectTimeoutMillis(), TimeUnit.MILLISECONDS)
+                .readTimeout(config.getReadTimeoutMillis(), TimeUnit.MILLISECONDS)
+                .writeTimeout(config.getReadTimeoutMillis(), TimeUnit.MILLISECONDS)
+                .build();
+        this.semaphore = new Semaphore(config.getMaxConcurrentCalls());
+        Tags tags = Tags.of("vendor", vendor);
+        Gauge.builder("message.vendor.bulkhead.connections", connectionPool, ConnectionPool::connectionCount)
+                .tags(tags).tag("state", "total").register(meterRegistry);
+        Gauge.builder("message.vendor.bulkhead.connections", connectionPool, ConnectionPool::idleConnectionCount)
+                .tags(tags).tag("state", "idle").register(meterRegistry);
+        Gauge.builder("message.vendor.bulkhead.calls", semaphore, each -> config.getMaxConcurrentCalls() - each.availablePermits())
+                .tags(tags).tag("state", "active").register(meterRegistry);
+        Gauge.builder("message.vendor.bulkhead.calls", semaphore, Semaphore::availablePermits)
+                .tags(tags).tag("state", "available").register(meterRegistry);
+        this.queueTimer = Timer.builder("message.vendor.bulkhead.queue.time").tags(tags).register(meterRegistry);
+        this.callTimer = Timer.builder("message.vendor.call.latency").tags(tags).register(meterRegistry);
+        this.rejectedCounter = Counter.builder("message.vendor.bulkhead.rejected").tags(tags).register(meterRegistry);
+    }
+    
+    /**
+     * 在舱壁内执行三方调用，获取不到并发许可时快速失败，由上层决定是否切换渠道
+     *
+     * @param call 三方调用逻辑
+     * @param <T>  三方调用返回值范型
+     * @return 三方调用返回值
+     */
+    public <T> T execute(Callable<T> call) throws Exception {
+        long waitStart = System.nanoTime();
+        boolean acquired = semaphore.tryAcquire(config.getMaxWaitMillis(), TimeUnit.MILLISECONDS);
+        queueTimer.record(System.nanoTime() - waitStart, TimeUnit.NANOSECONDS);
+        if (!acquired) {
+            rejectedCounter.increment();
+            throw new ServiceException(String.format("[%s] 渠道商并发调用已满，等待 %dms 未获取到执行许可", vendor, config.getMaxWaitMillis()));
+        }
+        long callStart = System.nanoTime();
+        try {
+            return call.call();
+        } finally {
+            long elapsedNanos = System.nanoTime() - callStart;
+            callTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+            recentLatencyMillis += EWMA_ALPHA * (elapsedNanos / 1000000D - recentLatencyMillis);
+            lastCallTime.set(System.currentTimeMillis());
+            semaphore.release();
+        }
+    }
+    
+    /**
+     * 渠道商调用平均耗时，单位毫秒
+     */
+    public double meanLatencyMillis() {
+        return callTimer.mean(TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * 渠道商最近调用耗时，指数加权移动平均，单位毫秒；超过 {@link #RECENT_IDLE_MILLIS} 没有调用时视为 0
+     */
+    public double recentLatencyMillis() {
+        return System.currentTimeMillis() - lastCallTime.get() > RECENT_IDLE_MILLIS ? 0D : recentLatencyMillis;
+    }
+    
+    /**
+     * 是否需要重新预热：未在预热中，距离上次业务调用超过空闲阈值，且连接池中连接数不足预热数量
+     */
+    public boolean needWarmup(long idleThresholdMillis) {
+        return StrUtil.isNotBlank(config.getWarmupUrl())
+                && !warming.get()
+                && System.currentTimeMillis() - lastCallTime.get() >= idleThresholdMillis
+                && connectionPool.connectionCount() < config.getWarmupConnections();
+    }
+    
+    /**
+     * 连接预热，异步并发发起 HEAD 请求，让连接池提前持有已完成 TCP & TLS 握手的连接，调用方无需等待预热完成
+     */
+    public void warmup() {
+        if (StrUtil.isBlank(config.getWarmupUrl())) {
+            return;
+        }
+        Request request = new Request.Builder().url(config.getWarmupUrl()).head().build();
+        int connections = Math.min(config.getWarmupConnections(), config.getMaxIdleConnections());
+        if (connections <= 0 || !warming.compareAndSet(false, true)) {
+            return;
+        }
+        AtomicInteger remaining = new AtomicInteger(connections);
+        for (int i = 0; i < connections; i++) {
+            httpClient.newCall(request).enqueue(new Callback() {
+                
+                @Override
+                public void onFailure(Call call, IOException ex) {
+                    log.warn("[{}] 渠道商连接预热失败：{}", vendor, ex.getMessage());
+                    complete();
+                }
+                
+                @Override
+                public void onResponse(Call call, Response response) {
+                    response.close();
+                    complete();
+                }
+                
+                private void complete() {
+                    if (remaining.decrementAndGet() == 0) {
+                        warming.set(false);
+                        log.info("[{}] 渠道商连接预热完成，当前连接数：{}", vendor, connectionPool.connectionCount());
+                    }
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package org.opengoofy.assault.messageservice.biz.handler.send.bulkhead;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.opengoofy.assault.messageservice.biz.config.VendorBulkheadConfig;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 三方渠道商舱壁注册器
+ * <p>
+ * 应用启动时创建并异步预热各渠道商舱壁，运行期定时检测空闲渠道商并重新预热
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class VendorBulkheadRegistry implements InitializingBean, ApplicationRunner {
+    
+    private final VendorBulkheadConfig vendorBulkheadConfig;
+    private final MeterRegistry meterRegistry;
+    
+    private final Map<String, VendorBulkhead> vendorBulkheadMap = new ConcurrentHashMap<>();
+    
+    /**
+     * 根据渠道商标识获取舱壁，未配置的渠道商使用默认配置
+     *
+     * @param vendor 渠道商标识
+     * @return 渠道商舱壁
+     */
+    public VendorBulkhead get(String vendor) {
+        return vendorBulkheadMap.computeIfAbsent(vendor, each -> new VendorBulkhead(each, new VendorBulkheadConfig.Bulkhead(), meterRegistry));
+    }
+    
+    /**
+     * 获取全部渠道商舱壁
+     */
+    public Collection<VendorBulkhead> listBulkheads() {
+        return vendorBulkheadMap.values();
+    }
+    
+    @Override
+    public void afterPropertiesSet() {
+        vendorBulkheadConfig.getVendors().forEach((vendor, config) -> vendorBulkheadMap.put(vendor, new VendorBulkhead(vendor, config, meterRegistry)));
+    }
+    
+    @Override
+    public void run(ApplicationArguments args) {
+        vendorBulkheadMap.values().forEach(VendorBulkhead::warmup);
+    }
+    
+    /**
+     * 渠道商长时间空闲后，连接池中的连接会因保活到期被回收，这里提前重新预热，避免流量恢复时集中建连
+     */
+    @Scheduled(initialDelayString = "${message.vendor.bulkhead.idle-check-interval-millis:30000}", fixedDelayString = "${message.vendor.bulkhead.idle-check-interval-millis:30000}")
+    public void rewarmIdleVendors() {
+        vendorBulkheadMap.values().stream()
+                .filter(each -> each.needWarmup(vendorBulkheadConfig.getIdleCheckIntervalMillis()))
+                .forEach(VendorBulkhead::warmup);
+    }
+}
@@ -0,0 +1,195 @@
+package org.opengoofy.assault.messageservice.biz.handler.send.mail;
+
+import cn.hutool.core.util.StrUtil;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.opengoofy.assault.framework.starter.convention.exception.ServiceException;
+import org.opengoofy.assault.messageservice.biz.config.MailChannelConfig;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Component;
+
+import javax.mail.MessagingException;
+import javax.mail.SendFailedException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import javax.mail.internet.MimeMessage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于已认证 SMTP 连接池的邮件发送器
+ * <p>
+ * 每个连接由一个投递线程独占，线程从待投递队列中一次取出多封邮件，在同一个已认证连接上连续投递，
+ * 避免每封邮件都经历 TCP、TLS 握手以及 AUTH 认证
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PooledSmtpMailSender implements InitializingBean, DisposableBean {
+    
+    private final MailChannelConfig mailChannelConfig;
+    
+    @Getter
+    private Session session;
+    
+    private BlockingQueue<MailDeliveryTask> deliveryQueue;
+    
+    private final List<Thread> connectionThreads = new ArrayList<>();
+    
+    private volatile boolean running = true;
+    
+    /**
+     * 提交邮件到待投递队列
+     *
+     * @param message 邮件
+     * @return 投递结果
+     */
+    public CompletableFuture<Void> submit(MimeMessage message) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        if (!deliveryQueue.offer(new MailDeliveryTask(message, future))) {
+            future.completeExceptionally(new ServiceException("邮件待投递队列已满"));
+        }
+        return future;
+    }
+    
+    @Override
+    public void afterPropertiesSet() {
+        Properties properties = new Properties();
+        properties.put("mail.transport.protocol", "smtp");
+        properties.put("mail.smtp.host", StrUtil.nullToEmpty(mailChannelConfig.getHost()));
+        properties.put("mail.smtp.port", String.valueOf(mailChannelConfig.getPort()));
+        properties.put("mail.smtp.auth", "true");
+        properties.put("mail.smtp.ssl.enable", String.valueOf(mailChannelConfig.getSslEnabled()));
+        properties.put("mail.smtp.starttls.enable", String.valueOf(mailChannelConfig.getStarttlsEnabled()));
+        properties.put("mail.smtp.connectiontimeout", String.valueOf(mailChannelConfig.getConnectTimeoutMillis()));
+        properties.put("mail.smtp.timeout", String.valueOf(mailChannelConfig.getReadTimeoutMillis()));
+        properties.put("mail.smtp.writetimeout", String.valueOf(mailChannelConfig.getReadTimeoutMillis()));
+        session = Session.getInstance(properties);
+        deliveryQueue = new ArrayBlockingQueue<>(mailChannelConfig.getQueueCapacity());
+        for (int i = 0; i < mailChannelConfig.getPoolSize(); i++) {
+            Thread connectionThread = new Thread(new SmtpConnectionWorker(), "mail-smtp-connection-" + i);
+            connectionThread.setDaemon(true);
+            connectionThread.start();
+            connectionThreads.add(connectionThread);
+        }
+    }
+    
+    @Override
+    public void destroy() {
+        running = false;
+        connectionThreads.forEach(Thread::interrupt);
+        List<MailDeliveryTask> remainTasks = new ArrayList<>();
+        deliveryQueue.drainTo(remainTasks);
+        remainTasks.forEach(each -> each.getFuture().completeExceptionally(new ServiceException("应用关闭，邮件未投递")));
+    }
+    
+    @Data
+    @AllArgsConstructor
+    static class MailDeliveryTask {
+        
+        private MimeMessage message;
+        
+        private CompletableFuture<Void> future;
+    }
+    
+    /**
+     * 独占一个已认证 SMTP 连接的投递线程
+     */
+    private class SmtpConnectionWorker implements Runnable {
+        
+        private Transport transport;
+        
+        /**
+         * 当前连接已投递邮件数
+         */
+        private int sentCount;
+        
+        @Override
+        public void run() {
+            List<MailDeliveryTask> pipeline = new ArrayList<>(mailChannelConfig.getPipelineSize());
+            while (running) {
+                try {
+                    MailDeliveryTask first = deliveryQueue.poll(mailChannelConfig.getIdleTimeoutMillis(), TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        // 连接空闲超时，主动关闭，下次有邮件时再重新建立
+                        closeQuietly();
+                        continue;
+                    }
+                    pipeline.add(first);
+                    deliveryQueue.drainTo(pipeline, mailChannelConfig.getPipelineSize() - 1);
+                    pipeline.forEach(this::deliver);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } finally {
+                    pipeline.clear();
+                }
+            }
+            closeQuietly();
+        }
+        
+        private void deliver(MailDeliveryTask task) {
+            MimeMessage message = task.getMessage();
+            try {
+                sendOnConnection(message);
+                task.getFuture().complete(null);
+            } catch (MessagingException ex) {
+                if (ex instanceof SendFailedException && isConnected()) {
+                    // 收件人地址被服务端拒绝，连接本身可用，无需重建
+                    task.getFuture().completeExceptionally(ex);
+                    return;
+                }
+                // 连接可能已被服务端关闭，已关闭的连接读到 EOF 时同样抛出 SendFailedException，重建连接后重试一次
+                closeQuietly();
+                try {
+                    sendOnConnection(message);
+                    task.getFuture().complete(null);
+                } catch (Throwable retryEx) {
+                    closeQuietly();
+                    task.getFuture().completeExceptionally(retryEx);
+                }
+            } catch (Throwable ex) {
+                task.getFuture().completeExceptionally(ex);
+            }
+        }
+        
+        private void sendOnConnection(MimeMessage message) throws MessagingException {
+            if (transport == null || sentCount >= mailChannelConfig.getMaxMessagesPerConnection()) {
+                closeQuietly();
+                transport = session.getTransport();
+                transport.connect(mailChannelConfig.getHost(), mailChannelConfig.getPort(), mailChannelConfig.getUsername(), mailChannelConfig.getPassword());
+            }
+            transport.sendMessage(message, message.getAllRecipients());
+            sentCount++;
+        }
+        
+        private boolean isConnected() {
+            try {
+                return transport != null && transport.isConnected();
+            } catch (Throwable ex) {
+                return false;
+            }
+        }
+        
+        private void closeQuietly() {
+            if (transport != null) {
+                try {
+                    transport.close();
+                } catch (Throwable ex) {
+                    log.warn("关闭 SMTP 连接失败：{}", ex.getMessage());
+                }
+            }
+            transport = null;
+            sentCount = 0;
+        }
+    }
+}
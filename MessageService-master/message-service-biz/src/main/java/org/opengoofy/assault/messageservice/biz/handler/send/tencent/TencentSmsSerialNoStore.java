@@ -0,0 +1,82 @@
+package org.opengoofy.assault.messageservice.biz.handler.send.tencent;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.opengoofy.assault.framework.starter.cache.DistributedCache;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.opengoofy.assault.messageservice.biz.common.MessageCacheConstants.SMS_SERIAL_CACHE_TIMOUT;
+import static org.opengoofy.assault.messageservice.biz.common.MessageCacheConstants.TENCENT_SMS_SERIAL_CACHE_PREFIX_KEY;
+
+/**
+ * 腾讯云短信流水号与消息ID映射存储
+ * <p>
+ * 多号码合并请求只能携带一个 SessionContext，回执中的 ext 无法区分消息，发送成功后缓存每个号码的流水号与消息ID映射，回执按 sid 关联消息
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TencentSmsSerialNoStore {
+    
+    private final DistributedCache distributedCache;
+    
+    /**
+     * 通过 Redis Pipeline 一次性缓存流水号与消息ID映射，缓存失败只影响回执关联，不影响发送结果
+     *
+     * @param serialNoMsgIds Key 为流水号，Value 为消息ID
+     */
+    public void save(Map<String, String> serialNoMsgIds) {
+        if (serialNoMsgIds.isEmpty()) {
+            return;
+        }
+        try {
+            StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+            stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+                
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    RedisOperations<String, String> redisOperations = (RedisOperations<String, String>) operations;
+                    serialNoMsgIds.forEach((serialNo, msgId) -> redisOperations.opsForValue()
+                            .set(TENCENT_SMS_SERIAL_CACHE_PREFIX_KEY + serialNo, msgId, SMS_SERIAL_CACHE_TIMOUT, TimeUnit.MILLISECONDS));
+                    return null;
+                }
+            });
+        } catch (Throwable ex) {
+            log.error("缓存腾讯云短信流水号映射失败，流水号数量：{}", serialNoMsgIds.size(), ex);
+        }
+    }
+    
+    /**
+     * 一次 MGET 查询流水号对应的消息ID，映射已过期的流水号不在返回结果中
+     *
+     * @param serialNos 流水号集合
+     * @return Key 为流水号，Value 为消息ID
+     */
+    public Map<String, String> resolve(Collection<String> serialNos) {
+        Map<String, String> result = new HashMap<>(serialNos.size());
+        if (serialNos.isEmpty()) {
+            return result;
+        }
+        List<String> serialNoList = new ArrayList<>(serialNos);
+        StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+        List<String> msgIds = stringRedisTemplate.opsForValue().multiGet(serialNoList.stream().map(each -> TENCENT_SMS_SERIAL_CACHE_PREFIX_KEY + each).collect(Collectors.toList()));
+        for (int i = 0; msgIds != null && i < serialNoList.size(); i++) {
+            if (msgIds.get(i) != null) {
+                result.put(serialNoList.get(i), msgIds.get(i));
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,146 @@
+package org.opengoofy.assault.messageservice.biz.index;
+
+import cn.hutool.core.date.DateUtil;
+import cn.hutool.core.util.StrUtil;
+import com.google.common.hash.Hashing;
+import lombok.RequiredArgsConstructor;
+import org.opengoofy.assault.framework.starter.cache.DistributedCache;
+import org.opengoofy.assault.messageservice.biz.config.MessageReceiverIndexConfig;
+import org.opengoofy.assault.messageservice.biz.dao.entity.SendRecordDO;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import static org.opengoofy.assault.messageservice.biz.common.MessageCacheConstants.MESSAGE_RECEIVER_INDEX_PREFIX_KEY;
+import static org.opengoofy.assault.messageservice.biz.common.MessageCacheConstants.MESSAGE_RECEIVER_MONTH_PREFIX_KEY;
+
+/**
+ * 接收者消息索引
+ * <p>
+ * 按接收者哈希维护两个 Key：最近消息ID有序集合，分值为消息创建时间，超过上限时淘汰最早的消息ID；以及包含该接收者消息的月份集合。
+ * Key 中只有接收者哈希，不保存明文号码；哈希冲突只会多查询几条记录，查询时仍按接收者过滤
+ */
+@Component
+@RequiredArgsConstructor
+public class MessageReceiverIndex {
+    
+    private final DistributedCache distributedCache;
+    private final MessageReceiverIndexConfig messageReceiverIndexConfig;
+    
+    /**
+     * 索引是否可用于查询：索引已开启且已设置覆盖起始时间
+     */
+    public boolean isQueryable() {
+        return messageReceiverIndexConfig.getEnabled() && StrUtil.isNotBlank(messageReceiverIndexConfig.getSince());
+    }
+    
+    /**
+     * 记录发送记录所属接收者的消息ID与月份，需在发送记录插入前调用，保证已保存的记录一定能通过索引查到
+     *
+     * @param records 发送记录，创建时间已填充
+     */
+    public void add(List<SendRecordDO> records) {
+        if (records.isEmpty() || !messageReceiverIndexConfig.getEnabled()) {
+            return;
+        }
+        StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+        long maxMsgIds = messageReceiverIndexConfig.getMaxMsgIds();
+        long ttlMillis = messageReceiverIndexConfig.getTtlMillis();
+        stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> redisOperations = (RedisOperations<String, String>) operations;
+                Set<String> receiverHashes = new LinkedHashSet<>();
+                for (SendRecordDO each : records) {
+                    String receiverHash = hash(each.getReceiver());
+                    receiverHashes.add(receiverHash);
+                    redisOperations.opsForZSet().add(MESSAGE_RECEIVER_INDEX_PREFIX_KEY + receiverHash, each.getMsgId(), each.getCreateTime().getTime());
+                    redisOperations.opsForSet().add(MESSAGE_RECEIVER_MONTH_PREFIX_KEY + receiverHash, String.valueOf(month(each.getCreateTime())));
+                }
+                for (String each : receiverHashes) {
+                    redisOperations.opsForZSet().removeRange(MESSAGE_RECEIVER_INDEX_PREFIX_KEY + each, 0, -(maxMsgIds + 1));
+                    redisOperations.expire(MESSAGE_RECEIVER_INDEX_PREFIX_KEY + each, ttlMillis, TimeUnit.MILLISECONDS);
+                    redisOperations.expire(MESSAGE_RECEIVER_MONTH_PREFIX_KEY + each, ttlMillis, TimeUnit.MILLISECONDS);
+                }
+                return null;
+            }
+        });
+    }
+    
+    /**
+     * 查询接收者的索引
+     *
+     * @param receiver      接收者
+     * @param createTimeMax 消息创建时间上限，为空时不限制
+     * @return 索引查询结果
+     */
+    @SuppressWarnings("unchecked")
+    public MessageReceiverIndexLookup lookup(String receiver, Date createTimeMax) {
+        StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+        String receiverHash = hash(receiver);
+        String indexKey = MESSAGE_RECEIVER_INDEX_PREFIX_KEY + receiverHash;
+        double maxScore = createTimeMax == null ? Double.POSITIVE_INFINITY : createTimeMax.getTime();
+        List<Object> results = stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            
+            @Override
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> redisOperations = (RedisOperations<String, String>) operations;
+                redisOperations.opsForZSet().rangeByScore(indexKey, Double.NEGATIVE_INFINITY, maxScore);
+                redisOperations.opsForZSet().rangeWithScores(indexKey, 0, 0);
+                redisOperations.opsForZSet().zCard(indexKey);
+                redisOperations.opsForSet().members(MESSAGE_RECEIVER_MONTH_PREFIX_KEY + receiverHash);
+                return null;
+            }
+        });
+        Set<String> msgIds = (Set<String>) results.get(0);
+        Set<ZSetOperations.TypedTuple<String>> oldest = (Set<ZSetOperations.TypedTuple<String>>) results.get(1);
+        Long size = (Long) results.get(2);
+        Set<String> months = (Set<String>) results.get(3);
+        MessageReceiverIndexLookup result = new MessageReceiverIndexLookup();
+        result.setMsgIds(msgIds == null ? new ArrayList<>() : new ArrayList<>(msgIds));
+        result.setCoverageStart(coverageStart());
+        Set<Integer> scanMonths = new TreeSet<>();
+        // 有序集合已达到上限时最早消息所在月份及之前的月份可能有被淘汰的消息ID，这些月份按接收者扫描分片表
+        if (size != null && size >= messageReceiverIndexConfig.getMaxMsgIds() && oldest != null && !oldest.isEmpty() && months != null) {
+            Double oldestScore = oldest.iterator().next().getScore();
+            int oldestMonth = month(new Date(oldestScore == null ? 0L : oldestScore.longValue()));
+            months.stream().map(Integer::valueOf).filter(each -> each <= oldestMonth).forEach(scanMonths::add);
+        }
+        result.setScanMonths(scanMonths);
+        return result;
+    }
+    
+    /**
+     * 索引覆盖的最早消息创建时间：索引开始维护时间与索引过期时间两者中较晚的一个，
+     * 接收者索引过期说明该接收者在过期时间内没有新消息，更早的消息需要扫描分片表
+     */
+    private Date coverageStart() {
+        Date since = DateUtil.parse(messageReceiverIndexConfig.getSince());
+        Date ttlStart = new Date(System.currentTimeMillis() - messageReceiverIndexConfig.getTtlMillis());
+        return since.after(ttlStart) ? since : ttlStart;
+    }
+    
+    /**
+     * 月份编号，格式 yyyyMM
+     */
+    public static int month(Date date) {
+        return DateUtil.year(date) * 100 + DateUtil.month(date) + 1;
+    }
+    
+    private static String hash(String receiver) {
+        return Long.toHexString(Hashing.murmur3_128().hashString(receiver, StandardCharsets.UTF_8).asLong());
+    }
+}
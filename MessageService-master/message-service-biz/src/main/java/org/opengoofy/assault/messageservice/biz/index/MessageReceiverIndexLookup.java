@@ -0,0 +1,29 @@
+package org.opengoofy.assault.messageservice.biz.index;
+
+import lombok.Data;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 接收者消息索引查询结果
+ */
+@Data
+public class MessageReceiverIndexLookup {
+    
+    /**
+     * 索引中创建时间不晚于查询上限的消息ID
+     */
+    private List<String> msgIds;
+    
+    /**
+     * 可能有消息ID已被淘汰、需要按接收者扫描的月份，格式 yyyyMM
+     */
+    private Set<Integer> scanMonths;
+    
+    /**
+     * 索引覆盖的最早消息创建时间，此前创建的消息不在索引中
+     */
+    private Date coverageStart;
+}
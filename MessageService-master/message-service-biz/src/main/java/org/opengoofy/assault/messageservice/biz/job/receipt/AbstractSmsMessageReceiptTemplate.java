@@ -1,151 +1,115 @@
 package org.opengoofy.assault.messageservice.biz.job.receipt;
 
 import cn.hutool.core.collection.CollUtil;
-import cn.hutool.core.date.DateUtil;
-import cn.hutool.core.util.ObjectUtil;
-import com.alibaba.fastjson.JSON;
-import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
-import com.baomidou.mybatisplus.core.toolkit.Wrappers;
-import lombok.AllArgsConstructor;
-import lombok.Data;
+import cn.hutool.core.net.NetUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
-import org.opengoofy.assault.messageservice.biz.algorithm.ShardModel;
-import org.opengoofy.assault.messageservice.biz.dao.entity.SendRecordDO;
-import org.opengoofy.assault.messageservice.biz.dao.mapper.SendRecordMapper;
-import org.springframework.beans.factory.DisposableBean;
+import org.opengoofy.assault.messageservice.biz.config.MessageReceiptPullConfig;
+import org.springframework.beans.factory.annotation.Value;
 
 import javax.annotation.Resource;
-import java.util.ArrayList;
-import java.util.Date;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.locks.ReentrantLock;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 抽象短信回执拉取模板
+ * <p>
+ * 渠道商回执按分区拉取，每个分区由 Redis 租约保证同一时间只有一个实例拉取，任意实例触发任务都不会重复拉取同一分区；
+ * 每批回执共续期两次租约：拉取完成、更新前续期一次，更新完成后再续期一次，更新耗时不会占用下一批的租约时间；
+ * 续期失败说明租约已过期并被其它实例接管，已拉取的回执更新完成后立即停止拉取
  */
 @Slf4j
-public abstract class AbstractSmsMessageReceiptTemplate implements DisposableBean {
+public abstract class AbstractSmsMessageReceiptTemplate {
     
     @Resource
     private ThreadPoolExecutor messageReceiptExecutor;
     
     @Resource
-    private SendRecordMapper sendRecordMapper;
+    private MessageReceiptUpdater messageReceiptUpdater;
     
-    private final String TABLE_NAME = "send_record";
+    @Resource
+    private MessageReceiptPullLease messageReceiptPullLease;
+    
+    @Resource
+    private MessageReceiptPullConfig messageReceiptPullConfig;
     
-    private final ReentrantLock reentrantLock = new ReentrantLock();
+    @Resource
+    private MeterRegistry meterRegistry;
+    
+    @Value("${server.port:8080}")
+    private int serverPort;
     
     /**
-     * 用于存储未更新回执消息集合
+     * 渠道商标识，用于区分拉取租约与指标
      */
-    private final List<MessageReceiptRetry> listReceipts = new ArrayList<>();
+    protected abstract String vendor();
     
     /**
-     * 获取一批手机号回执
+     * 获取指定分区的一批手机号回执
+     * <p>
+     * 实现类必须只拉取该分区（渠道商账号或渠道ID）的回执，不识别分区时只能在未配置分区的情况下使用，
+     * 否则每个分区都会拉取全量回执，多个实例并行拉取时重复消费
+     *
+     * @param partition 拉取分区，未配置分区时为 {@link MessageReceiptPullConfig#DEFAULT_PARTITION}，此时拉取整个渠道商的回执
      */
-    protected abstract List<MessageReceiptDTO> listReceipt();
+    protected abstract List<MessageReceiptDTO> listReceipt(String partition);
     
     /**
      * 三方返回字段转换为标准字段
      */
     protected abstract List<MessageReceiptDTO> convert(List<?> originalList);
     
-    @Data
-    @AllArgsConstructor
-    static class MessageReceiptRetry {
-        
-        private Integer retryNum;
-        
-        private List<MessageReceiptDTO> messageReceipts;
+    public void execute() {
+        for (String each : messageReceiptPullConfig.partitionsOf(vendor())) {
+            messageReceiptExecutor.execute(() -> pull(each));
+        }
     }
     
-    public void execute() {
-        messageReceiptExecutor.execute(() -> {
-            retryFailMessage();
-            while (true) {
+    private void pull(String partition) {
+        String vendor = vendor();
+        String owner = NetUtil.getLocalhostStr() + ":" + serverPort + ":" + UUID.randomUUID();
+        if (!messageReceiptPullLease.tryAcquire(vendor, partition, owner)) {
+            log.info("短信回执分区正由其它任务拉取，渠道商：{}，分区：{}", vendor, partition);
+            return;
+        }
+        Counter receiptCounter = Counter.builder("message.receipt.pull.receipts").tag("vendor", vendor).tag("partition", partition).register(meterRegistry);
+        Timer batchTimer = Timer.builder("message.receipt.pull.batch").tag("vendor", vendor).tag("partition", partition).register(meterRegistry);
+        long start = System.currentTimeMillis();
+        long deadline = start + messageReceiptPullConfig.getMaxRunMillis();
+        long pulled = 0L;
+        int batches = 0;
+        try {
+            while (System.currentTimeMillis() < deadline) {
+                long batchStart = System.nanoTime();
                 // 调用具体实现类获取短信回执记录
-                List<MessageReceiptDTO> listReceipt = listReceipt();
+                List<MessageReceiptDTO> listReceipt = listReceipt(partition);
                 if (CollUtil.isEmpty(listReceipt)) {
                     break;
                 }
-                /**
-                 * 4、取出回执 list 中的 msgId 集合
-                 * 5、查询数据库中这些回执集合对应的 count
-                 * 6、比对数据库 count 和回执集合 size：不相等则放入常量回执中
-                 */
-                long count = selectCount(listReceipt);
-                if (ObjectUtil.notEqual(listReceipt.size(), count)) {
-                    listReceipts.add(new MessageReceiptRetry(0, listReceipt));
-                    continue;
+                // 更新前续期，拉取耗时与更新耗时分别计入各自的租约时间
+                boolean leaseHeld = messageReceiptPullLease.renew(vendor, partition, owner);
+                // 按消息ID定位分片表更新回执状态，发送记录尚未保存的回执暂存并放入重试队列；租约已失效时已拉取的回执仍需更新，回执更新可重复执行
+                messageReceiptUpdater.apply(listReceipt);
+                batchTimer.record(System.nanoTime() - batchStart, TimeUnit.NANOSECONDS);
+                receiptCounter.increment(listReceipt.size());
+                pulled += listReceipt.size();
+                batches++;
+                if (!leaseHeld || !messageReceiptPullLease.renew(vendor, partition, owner)) {
+                    log.warn("短信回执拉取租约已失效，停止拉取，渠道商：{}，分区：{}", vendor, partition);
+                    return;
                 }
-                Date receiveTime = listReceipt.get(0).getReceiptTime();
-                Set<String> set = ShardModel.calculateRange(TABLE_NAME, DateUtil.offsetDay(receiveTime != null ? receiveTime : new Date(), -5), new Date());
-                set.forEach(each -> sendRecordMapper.batchUpdate(listReceipt, each));
             }
-        });
-    }
-    
-    /**
-     * 避免回执更新时 send_record 表中没有及时存储短信记录
-     * 1、先从常量中取出未处理回执 list
-     * 2、判断重试次数是否大于 3 次，大于 3 次直接 remove，小于 3 次，批量更新数据库回执信息
-     * 3、判断是否全部修改成功，即 size 是否相等，size 相等，直接 remove，不相等，重试次数加 1
-     */
-    private void retryFailMessage() {
-        if (CollUtil.isNotEmpty(listReceipts)) {
-            boolean tryLock = reentrantLock.tryLock();
-            if (!tryLock) {
-                // 获取不到锁，说明已经有一个线程在执行，跳过即可
-                return;
-            }
-            try {
-                Iterator<MessageReceiptRetry> iterator = listReceipts.iterator();
-                while (iterator.hasNext()) {
-                    MessageReceiptRetry receiptRetry = iterator.next();
-                    if (receiptRetry.getRetryNum() > 3) {
-                        log.warn("短信回执信息重试3次仍未找到发送记录，已清空该批次回执：{}", receiptRetry.getMessageReceipts());
-                        iterator.remove();
-                        continue;
-                    }
-                    List<MessageReceiptDTO> messageReceipts = receiptRetry.getMessageReceipts();
-                    Set<String> set = ShardModel.calculateRange(TABLE_NAME, DateUtil.offsetDay(messageReceipts.get(0).getReceiptTime(), -1), DateUtil.offsetDay(messageReceipts.get(0).getReceiptTime(), 1));
-                    set.forEach(each -> sendRecordMapper.batchUpdate(messageReceipts, each));
-                    // 判断条数是否已全部修改，已修改 remove 记录
-                    long count = selectCount(messageReceipts);
-                    if (ObjectUtil.equal(messageReceipts.size(), count)) {
-                        iterator.remove();
-                    } else {
-                        receiptRetry.setRetryNum(receiptRetry.getRetryNum() + 1);
-                    }
-                }
-            } finally {
-                reentrantLock.unlock();
-            }
-        }
-    }
-    
-    /**
-     * 查询数据库中存在的记录数
-     */
-    private Long selectCount(List<MessageReceiptDTO> listReceipt) {
-        Date receiveTime = listReceipt.get(0).getReceiptTime();
-        List<String> sendMsgIds = listReceipt.stream().map(each -> each.getMsgId()).collect(Collectors.toList());
-        LambdaQueryWrapper<SendRecordDO> queryWrapper = Wrappers.lambdaQuery(SendRecordDO.class)
-                .in(SendRecordDO::getMsgId, sendMsgIds)
-                .between(SendRecordDO::getCreateTime, DateUtil.offsetDay(receiveTime != null ? receiveTime : new Date(), -5), new Date());
-        return sendRecordMapper.selectCount(queryWrapper);
-    }
-    
-    @Override
-    public void destroy() {
-        retryFailMessage();
-        if (CollUtil.isNotEmpty(listReceipts)) {
-            log.warn("短信回执部分状态未更新：{}", JSON.toJSONString(listReceipts));
+        } catch (Throwable ex) {
+            log.error("短信回执拉取失败，渠道商：{}，分区：{}", vendor, partition, ex);
+        } finally {
+            messageReceiptPullLease.release(vendor, partition, owner);
+            long elapsedMillis = Math.max(1L, System.currentTimeMillis() - start);
+            log.info("短信回执拉取结束，渠道商：{}，分区：{}，批次数：{}，回执数：{}，耗时：{}ms，速率：{}条/秒",
+                    vendor, partition, batches, pulled, elapsedMillis, pulled * 1000L / elapsedMillis);
         }
     }
 }
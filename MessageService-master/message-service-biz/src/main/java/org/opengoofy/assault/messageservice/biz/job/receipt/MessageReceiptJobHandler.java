@@ -19,6 +19,8 @@ public class MessageReceiptJobHandler {
     
     /**
      * 执行定时任务，此处为了避免多部署个 XXL-Job，以 HTTP 请求代替（正常还是定时任务比如 XXL-Job 执行流程）
+     * <p>
+     * 各渠道商分区由拉取租约保证只有一个实例拉取，请求可以发往任意实例，也可以由多个实例同时触发
      */
     @GetMapping("/api/message-service/job/message-receipt")
     public Result<Void> execute() {
@@ -0,0 +1,114 @@
+package org.opengoofy.assault.messageservice.biz.job.receipt;
+
+import com.alibaba.fastjson2.JSON;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.opengoofy.assault.framework.starter.cache.DistributedCache;
+import org.opengoofy.assault.messageservice.biz.config.MessageReceiptPendingConfig;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.opengoofy.assault.messageservice.biz.common.MessageCacheConstants.MESSAGE_RECEIPT_PENDING_PREFIX_KEY;
+
+/**
+ * 待保存短信回执暂存
+ * <p>
+ * 回执先于发送记录到达时按消息ID暂存在 Redis 中并设置较短的过期时间，消息保存消费者插入发送记录前批量读取，
+ * 直接以回执状态插入，回执不再需要额外的 UPDATE；暂存与保存并发时由 {@link MessageReceiptRetryQueue} 兜底更新
+ */
+@Component
+@RequiredArgsConstructor
+public class MessageReceiptPendingStore implements InitializingBean {
+    
+    private final DistributedCache distributedCache;
+    private final MessageReceiptPendingConfig messageReceiptPendingConfig;
+    private final MeterRegistry meterRegistry;
+    
+    private Counter appliedCounter;
+    
+    @Override
+    public void afterPropertiesSet() {
+        appliedCounter = Counter.builder("message.receipt.pending.applied").register(meterRegistry);
+    }
+    
+    /**
+     * 暂存发送记录尚未保存的回执，同一消息ID的新回执覆盖旧回执
+     *
+     * @param receipts 回执集合
+     */
+    public void park(List<MessageReceiptDTO> receipts) {
+        StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+        long ttlMillis = messageReceiptPendingConfig.getTtlMillis();
+        stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> redisOperations = (RedisOperations<String, String>) operations;
+                for (MessageReceiptDTO each : receipts) {
+                    redisOperations.opsForValue().set(MESSAGE_RECEIPT_PENDING_PREFIX_KEY + each.getMsgId(), JSON.toJSONString(each), ttlMillis, TimeUnit.MILLISECONDS);
+                }
+                return null;
+            }
+        });
+    }
+    
+    /**
+     * 批量读取暂存的回执
+     *
+     * @param msgIds 消息ID集合
+     * @return 消息ID与暂存回执，没有暂存回执的消息ID不包含在内
+     */
+    public Map<String, MessageReceiptDTO> get(List<String> msgIds) {
+        Map<String, MessageReceiptDTO> result = new HashMap<>();
+        if (msgIds.isEmpty()) {
+            return result;
+        }
+        StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+        List<String> values = stringRedisTemplate.opsForValue().multiGet(msgIds.stream().map(each -> MESSAGE_RECEIPT_PENDING_PREFIX_KEY + each).collect(Collectors.toList()));
+        if (values == null) {
+            return result;
+        }
+        for (int i = 0; i < msgIds.size(); i++) {
+            String value = values.get(i);
+            if (value != null) {
+                result.put(msgIds.get(i), JSON.parseObject(value, MessageReceiptDTO.class));
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * 回执已随发送记录插入，删除暂存回执
+     *
+     * @param msgIds 消息ID集合
+     */
+    public void markApplied(Collection<String> msgIds) {
+        remove(msgIds);
+        appliedCounter.increment(msgIds.size());
+    }
+    
+    /**
+     * 删除暂存回执
+     *
+     * @param msgIds 消息ID集合
+     */
+    public void remove(Collection<String> msgIds) {
+        if (msgIds.isEmpty()) {
+            return;
+        }
+        StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+        stringRedisTemplate.delete(msgIds.stream().map(each -> MESSAGE_RECEIPT_PENDING_PREFIX_KEY + each).collect(Collectors.toList()));
+    }
+}
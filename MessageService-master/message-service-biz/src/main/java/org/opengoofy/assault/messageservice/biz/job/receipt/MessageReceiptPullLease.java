@@ -0,0 +1,84 @@
+package org.opengoofy.assault.messageservice.biz.job.receipt;
+
+import lombok.RequiredArgsConstructor;
+import org.opengoofy.assault.framework.starter.cache.DistributedCache;
+import org.opengoofy.assault.messageservice.biz.config.MessageReceiptPullConfig;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.opengoofy.assault.messageservice.biz.common.MessageCacheConstants.MESSAGE_RECEIPT_PULL_LEASE_PREFIX_KEY;
+
+/**
+ * 短信回执拉取租约
+ * <p>
+ * 每个渠道商拉取分区一个租约 Key，值为持有者标识；持有者标识包含实例与本次任务，同一实例重复触发同一分区的拉取也不会并行执行
+ */
+@Component
+@RequiredArgsConstructor
+public class MessageReceiptPullLease implements InitializingBean {
+    
+    private static final String LUA_RENEW_SCRIPT_SOURCE_PATH = "lua/receiptPullLeaseRenew.lua";
+    
+    private static final String LUA_RELEASE_SCRIPT_SOURCE_PATH = "lua/receiptPullLeaseRelease.lua";
+    
+    private final DistributedCache distributedCache;
+    private final MessageReceiptPullConfig messageReceiptPullConfig;
+    
+    private DefaultRedisScript<Long> renewScript;
+    
+    private DefaultRedisScript<Long> releaseScript;
+    
+    @Override
+    public void afterPropertiesSet() {
+        renewScript = new DefaultRedisScript<>();
+        renewScript.setScriptSource(new ResourceScriptSource(new ClassPathResource(LUA_RENEW_SCRIPT_SOURCE_PATH)));
+        renewScript.setResultType(Long.class);
+        releaseScript = new DefaultRedisScript<>();
+        releaseScript.setScriptSource(new ResourceScriptSource(new ClassPathResource(LUA_RELEASE_SCRIPT_SOURCE_PATH)));
+        releaseScript.setResultType(Long.class);
+    }
+    
+    /**
+     * 尝试取得分区租约
+     *
+     * @param vendor    渠道商
+     * @param partition 拉取分区
+     * @param owner     持有者标识
+     * @return 是否取得租约
+     */
+    public boolean tryAcquire(String vendor, String partition, String owner) {
+        StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+        Boolean acquired = stringRedisTemplate.opsForValue().setIfAbsent(leaseKey(vendor, partition), owner, messageReceiptPullConfig.getLeaseMillis(), TimeUnit.MILLISECONDS);
+        return Boolean.TRUE.equals(acquired);
+    }
+    
+    /**
+     * 续期分区租约
+     *
+     * @return 租约是否仍由该持有者持有
+     */
+    public boolean renew(String vendor, String partition, String owner) {
+        StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+        Long renewed = stringRedisTemplate.execute(renewScript, Collections.singletonList(leaseKey(vendor, partition)), owner, String.valueOf(messageReceiptPullConfig.getLeaseMillis()));
+        return Long.valueOf(1L).equals(renewed);
+    }
+    
+    /**
+     * 释放分区租约，租约已被其它实例取得时不做处理
+     */
+    public void release(String vendor, String partition, String owner) {
+        StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+        stringRedisTemplate.execute(releaseScript, Collections.singletonList(leaseKey(vendor, partition)), owner);
+    }
+    
+    private static String leaseKey(String vendor, String partition) {
+        return MESSAGE_RECEIPT_PULL_LEASE_PREFIX_KEY + vendor + "_" + partition;
+    }
+}
@@ -0,0 +1,24 @@
+package org.opengoofy.assault.messageservice.biz.job.receipt;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 待重试的短信回执
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessageReceiptRetryEntry {
+    
+    /**
+     * 短信回执
+     */
+    private MessageReceiptDTO receipt;
+    
+    /**
+     * 已重试次数
+     */
+    private Integer attempt;
+}
@@ -0,0 +1,245 @@
+package org.opengoofy.assault.messageservice.biz.job.receipt;
+
+import com.alibaba.fastjson2.JSON;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.opengoofy.assault.framework.starter.cache.DistributedCache;
+import org.opengoofy.assault.messageservice.biz.config.MessageReceiptRetryConfig;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.opengoofy.assault.messageservice.biz.common.MessageCacheConstants.MESSAGE_RECEIPT_RETRY_KEY;
+import static org.opengoofy.assault.messageservice.biz.common.MessageCacheConstants.MESSAGE_RECEIPT_RETRY_PARKED_KEY;
+import static org.opengoofy.assault.messageservice.biz.common.MessageCacheConstants.MESSAGE_RECEIPT_RETRY_PAYLOAD_KEY;
+
+/**
+ * 短信回执重试队列
+ * <p>
+ * 发送记录尚未保存时到达的回执暂存在 Redis 有序集合中，分值为下次重试时间，实例重启不会丢失；
+ * 各实例定时通过 Lua 脚本抢占到期回执，已在保存发送记录时写入的回执直接移出队列，发送记录已存在的回执更新状态后移出队列，
+ * 仍不存在的按指数退避重新排期，超过最大重试次数后丢弃；回执内容已丢失的成员在抢占时直接移出队列
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MessageReceiptRetryQueue implements InitializingBean {
+    
+    private static final String LUA_PARK_SCRIPT_SOURCE_PATH = "lua/receiptRetryPark.lua";
+    
+    private static final String LUA_CLAIM_SCRIPT_SOURCE_PATH = "lua/receiptRetryClaim.lua";
+    
+    private final DistributedCache distributedCache;
+    private final MessageReceiptRetryConfig messageReceiptRetryConfig;
+    private final MessageReceiptShardRouter messageReceiptShardRouter;
+    private final MessageReceiptPendingStore messageReceiptPendingStore;
+    private final MeterRegistry meterRegistry;
+    
+    private DefaultRedisScript<List> parkScript;
+    
+    private DefaultRedisScript<List> claimScript;
+    
+    private final AtomicLong depth = new AtomicLong();
+    
+    private final AtomicLong oldestAgeMillis = new AtomicLong();
+    
+    private Counter parkedCounter;
+    
+    private Counter rejectedCounter;
+    
+    private Counter appliedCounter;
+    
+    private Counter droppedCounter;
+    
+    private Counter orphanedCounter;
+    
+    @Override
+    public void afterPropertiesSet() {
+        parkScript = new DefaultRedisScript<>();
+        parkScript.setScriptSource(new ResourceScriptSource(new ClassPathResource(LUA_PARK_SCRIPT_SOURCE_PATH)));
+        parkScript.setResultType(List.class);
+        claimScript = new DefaultRedisScript<>();
+        claimScript.setScriptSource(new ResourceScriptSource(new ClassPathResource(LUA_CLAIM_SCRIPT_SOURCE_PATH)));
+        claimScript.setResultType(List.class);
+        Gauge.builder("message.receipt.retry.depth", depth, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("message.receipt.retry.oldest.age", oldestAgeMillis, AtomicLong::get).baseUnit("milliseconds").register(meterRegistry);
+        parkedCounter = Counter.builder("message.receipt.retry.parked").register(meterRegistry);
+        rejectedCounter = Counter.builder("message.receipt.retry.rejected").register(meterRegistry);
+        appliedCounter = Counter.builder("message.receipt.retry.applied").register(meterRegistry);
+        droppedCounter = Counter.builder("message.receipt.retry.dropped").register(meterRegistry);
+        orphanedCounter = Counter.builder("message.receipt.retry.orphaned").register(meterRegistry);
+    }
+    
+    /**
+     * 暂存发送记录尚未保存的回执，首次重试在基础延迟后进行；整批回执通过一次 Lua 脚本调用暂存
+     *
+     * @param receipts 待重试回执
+     */
+    @SuppressWarnings("unchecked")
+    public void park(List<MessageReceiptDTO> receipts) {
+        List<MessageReceiptDTO> parkingReceipts = new ArrayList<>(receipts.size());
+        for (MessageReceiptDTO each : receipts) {
+            if (MessageReceiptShardRouter.actualTable(each.getMsgId()) == null) {
+                log.warn("短信回执消息ID无法解析，已忽略：{}", each);
+                continue;
+            }
+            parkingReceipts.add(each);
+        }
+        if (parkingReceipts.isEmpty()) {
+            return;
+        }
+        StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+        long now = System.currentTimeMillis();
+        List<String> args = new ArrayList<>(3 + parkingReceipts.size() * 2);
+        args.add(String.valueOf(now + messageReceiptRetryConfig.getBaseDelayMillis()));
+        args.add(String.valueOf(now));
+        args.add(String.valueOf(messageReceiptRetryConfig.getMaxSize()));
+        for (MessageReceiptDTO each : parkingReceipts) {
+            args.add(each.getMsgId());
+            args.add(JSON.toJSONString(new MessageReceiptRetryEntry(each, 0)));
+        }
+        List<Object> results = stringRedisTemplate.execute(parkScript,
+                Arrays.asList(MESSAGE_RECEIPT_RETRY_KEY, MESSAGE_RECEIPT_RETRY_PARKED_KEY, MESSAGE_RECEIPT_RETRY_PAYLOAD_KEY),
+                args.toArray());
+        for (int i = 0; i < parkingReceipts.size(); i++) {
+            if (results != null && i < results.size() && Long.valueOf(1L).equals(results.get(i))) {
+                parkedCounter.increment();
+            } else {
+                rejectedCounter.increment();
+                log.warn("短信回执重试队列已满，丢弃回执：{}", parkingReceipts.get(i));
+            }
+        }
+    }
+    
+    /**
+     * 定时抢占到期回执并重试，每次最多处理一批，处理完整批后立即继续抢占下一批
+     */
+    @Scheduled(initialDelayString = "${message.receipt.retry.interval-millis:1000}", fixedDelayString = "${message.receipt.retry.interval-millis:1000}")
+    public void retry() {
+        try {
+            StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+            int batchSize = messageReceiptRetryConfig.getBatchSize();
+            int claimed;
+            do {
+                claimed = retryBatch(stringRedisTemplate, batchSize);
+            } while (claimed >= batchSize);
+            refreshMetrics(stringRedisTemplate);
+        } catch (Throwable ex) {
+            log.error("短信回执重试执行失败", ex);
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private int retryBatch(StringRedisTemplate stringRedisTemplate, int batchSize) {
+        long now = System.currentTimeMillis();
+        List<Object> claimResult = stringRedisTemplate.execute(claimScript,
+                Arrays.asList(MESSAGE_RECEIPT_RETRY_KEY, MESSAGE_RECEIPT_RETRY_PAYLOAD_KEY, MESSAGE_RECEIPT_RETRY_PARKED_KEY),
+                String.valueOf(now),
+                String.valueOf(now + messageReceiptRetryConfig.getLeaseMillis()),
+                String.valueOf(batchSize));
+        if (claimResult == null || claimResult.isEmpty()) {
+            return 0;
+        }
+        // 首个元素为抢占数量，回执内容已不存在的成员已由脚本移出队列
+        int claimed = ((Long) claimResult.get(0)).intValue();
+        List<MessageReceiptRetryEntry> entries = claimResult.subList(1, claimResult.size()).stream()
+                .map(each -> JSON.parseObject(each.toString(), MessageReceiptRetryEntry.class))
+                .collect(Collectors.toList());
+        if (entries.size() < claimed) {
+            orphanedCounter.increment(claimed - entries.size());
+            log.warn("短信回执重试队列中 {} 条回执内容已不存在，已移出队列", claimed - entries.size());
+        }
+        if (entries.isEmpty()) {
+            return claimed;
+        }
+        List<String> completedMsgIds = new ArrayList<>(entries.size());
+        List<MessageReceiptRetryEntry> pendingEntries = new ArrayList<>();
+        // 暂存回执已不存在的消息已在保存发送记录时写入回执状态，无需再查询数据库
+        Set<String> pendingMsgIds = messageReceiptPendingStore.get(
+                entries.stream().map(each -> each.getReceipt().getMsgId()).collect(Collectors.toList())).keySet();
+        Set<String> existingMsgIds = messageReceiptShardRouter.selectExistingMsgIds(entries.stream()
+                .filter(each -> pendingMsgIds.contains(each.getReceipt().getMsgId()))
+                .map(MessageReceiptRetryEntry::getReceipt)
+                .collect(Collectors.toList()));
+        List<MessageReceiptDTO> applyingReceipts = new ArrayList<>(existingMsgIds.size());
+        for (MessageReceiptRetryEntry each : entries) {
+            String msgId = each.getReceipt().getMsgId();
+            if (!pendingMsgIds.contains(msgId)) {
+                completedMsgIds.add(msgId);
+            } else if (existingMsgIds.contains(msgId)) {
+                applyingReceipts.add(each.getReceipt());
+                completedMsgIds.add(msgId);
+            } else if (each.getAttempt() + 1 >= messageReceiptRetryConfig.getMaxAttempts()) {
+                log.warn("短信回执重试{}次仍未找到发送记录，已丢弃：{}", each.getAttempt() + 1, each.getReceipt());
+                completedMsgIds.add(msgId);
+                droppedCounter.increment();
+            } else {
+                pendingEntries.add(each);
+            }
+        }
+        if (!applyingReceipts.isEmpty()) {
+            messageReceiptShardRouter.update(applyingReceipts);
+            appliedCounter.increment(applyingReceipts.size());
+        }
+        messageReceiptPendingStore.remove(completedMsgIds);
+        stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            
+            @Override
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> redisOperations = (RedisOperations<String, String>) operations;
+                if (!completedMsgIds.isEmpty()) {
+                    Object[] members = completedMsgIds.toArray();
+                    redisOperations.opsForZSet().remove(MESSAGE_RECEIPT_RETRY_KEY, members);
+                    redisOperations.opsForZSet().remove(MESSAGE_RECEIPT_RETRY_PARKED_KEY, members);
+                    redisOperations.opsForHash().delete(MESSAGE_RECEIPT_RETRY_PAYLOAD_KEY, members);
+                }
+                for (MessageReceiptRetryEntry each : pendingEntries) {
+                    int attempt = each.getAttempt() + 1;
+                    each.setAttempt(attempt);
+                    redisOperations.opsForHash().put(MESSAGE_RECEIPT_RETRY_PAYLOAD_KEY, each.getReceipt().getMsgId(), JSON.toJSONString(each));
+                    redisOperations.opsForZSet().add(MESSAGE_RECEIPT_RETRY_KEY, each.getReceipt().getMsgId(), now + backoffMillis(attempt));
+                }
+                return null;
+            }
+        });
+        return claimed;
+    }
+    
+    /**
+     * 第 attempt 次重试后的退避时间，基础延迟每次翻倍，不超过延迟上限
+     */
+    private long backoffMillis(int attempt) {
+        long baseDelayMillis = messageReceiptRetryConfig.getBaseDelayMillis();
+        long maxDelayMillis = messageReceiptRetryConfig.getMaxDelayMillis();
+        return attempt >= Long.numberOfLeadingZeros(baseDelayMillis) - 1 ? maxDelayMillis : Math.min(baseDelayMillis << attempt, maxDelayMillis);
+    }
+    
+    private void refreshMetrics(StringRedisTemplate stringRedisTemplate) {
+        Long size = stringRedisTemplate.opsForZSet().zCard(MESSAGE_RECEIPT_RETRY_KEY);
+        depth.set(size == null ? 0L : size);
+        Set<ZSetOperations.TypedTuple<String>> oldest = stringRedisTemplate.opsForZSet().rangeWithScores(MESSAGE_RECEIPT_RETRY_PARKED_KEY, 0, 0);
+        if (oldest == null || oldest.isEmpty()) {
+            oldestAgeMillis.set(0L);
+            return;
+        }
+        Double parkedTime = oldest.iterator().next().getScore();
+        oldestAgeMillis.set(parkedTime == null ? 0L : System.currentTimeMillis() - parkedTime.longValue());
+    }
+}
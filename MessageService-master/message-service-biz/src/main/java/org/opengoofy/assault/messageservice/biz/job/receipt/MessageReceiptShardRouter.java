@@ -0,0 +1,105 @@
+package org.opengoofy.assault.messageservice.biz.job.receipt;
+
+import com.google.common.collect.Lists;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.opengoofy.assault.framework.starter.distributedid.SnowflakeIdUtil;
+import org.opengoofy.assault.messageservice.biz.algorithm.ShardModel;
+import org.opengoofy.assault.messageservice.biz.dao.mapper.SendRecordMapper;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 短信回执分片路由
+ * <p>
+ * 消息ID为雪花ID，发送记录创建时间取自其中的时间戳，按时间戳即可定位发送记录所在的分片表，与 {@link org.opengoofy.assault.messageservice.biz.algorithm.SnowflakeDateShardingAlgorithm} 按消息ID路由一致；
+ * 回执按分片表拆分后只在各自的分片表中查询、更新，不再对时间范围内的所有分片表执行整批语句
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MessageReceiptShardRouter {
+    
+    private static final String TABLE_NAME = "send_record";
+    
+    /**
+     * 单条批量更新语句包含的最大回执数
+     */
+    private static final int UPDATE_CHUNK_SIZE = 1000;
+    
+    private final SendRecordMapper sendRecordMapper;
+    
+    /**
+     * 按分片表拆分回执，消息ID不是雪花ID的回执无法定位发送记录，直接忽略
+     *
+     * @param receipts 回执集合
+     * @return 分片表名与该表中的回执集合
+     */
+    public static Map<String, List<MessageReceiptDTO>> partition(List<MessageReceiptDTO> receipts) {
+        Map<String, List<MessageReceiptDTO>> result = new LinkedHashMap<>();
+        for (MessageReceiptDTO each : receipts) {
+            String actualTable = actualTable(each.getMsgId());
+            if (actualTable == null) {
+                log.warn("短信回执消息ID无法解析，已忽略：{}", each);
+                continue;
+            }
+            result.computeIfAbsent(actualTable, key -> new ArrayList<>()).add(each);
+        }
+        return result;
+    }
+    
+    /**
+     * 消息ID对应的发送记录分片表
+     *
+     * @param msgId 消息ID
+     * @return 分片表名，消息ID不是雪花ID时返回 null
+     */
+    public static String actualTable(String msgId) {
+        long snowflakeId;
+        try {
+            snowflakeId = Long.parseLong(msgId);
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+        return ShardModel.quarterlyModel(TABLE_NAME, new Date(SnowflakeIdUtil.parseSnowflakeId(snowflakeId).getTimestamp()));
+    }
+    
+    /**
+     * 查询回执对应的发送记录在数据库中存在的消息ID，每个分片表只查询一次
+     *
+     * @param receipts 回执集合
+     * @return 发送记录已存在的消息ID
+     */
+    public Set<String> selectExistingMsgIds(List<MessageReceiptDTO> receipts) {
+        Set<String> result = new HashSet<>(receipts.size());
+        for (List<MessageReceiptDTO> each : partition(receipts).values()) {
+            List<String> msgIds = each.stream().map(MessageReceiptDTO::getMsgId).collect(Collectors.toList());
+            result.addAll(sendRecordMapper.selectExistingMsgIds(msgIds));
+        }
+        return result;
+    }
+    
+    /**
+     * 更新回执状态，每个分片表只更新属于该表的回执，每个分片表的回执按批次大小拆分为单条批量更新语句
+     *
+     * @param receipts 回执集合
+     * @return 更新的记录数
+     */
+    public int update(List<MessageReceiptDTO> receipts) {
+        int updated = 0;
+        for (Map.Entry<String, List<MessageReceiptDTO>> entry : partition(receipts).entrySet()) {
+            for (List<MessageReceiptDTO> each : Lists.partition(entry.getValue(), UPDATE_CHUNK_SIZE)) {
+                updated += sendRecordMapper.batchUpdate(each, entry.getKey());
+            }
+        }
+        return updated;
+    }
+}
@@ -0,0 +1,55 @@
+package org.opengoofy.assault.messageservice.biz.job.receipt;
+
+import cn.hutool.core.collection.CollUtil;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 短信回执状态更新器，拉取与推送的回执统一由此写入发送记录
+ */
+@Component
+@RequiredArgsConstructor
+public class MessageReceiptUpdater {
+    
+    private final MessageReceiptShardRouter messageReceiptShardRouter;
+    private final MessageReceiptPendingStore messageReceiptPendingStore;
+    private final MessageReceiptRetryQueue messageReceiptRetryQueue;
+    
+    /**
+     * 更新一批回执状态
+     * <p>
+     * 1、按消息ID定位分片表直接更新回执状态，更新条数与回执数一致时说明发送记录均已保存
+     * 2、条数不一致时查询已存在发送记录的消息ID，对已存在的回执重新更新一次：发送记录可能在第一次更新之后、查询之前才保存，
+     * 不重新更新这部分回执会既未写入也未暂存；回执状态更新可重复执行
+     * 3、发送记录尚未保存的回执暂存，由消息保存消费者插入时直接写入回执状态，
+     * 同时放入重试队列，暂存与保存并发导致回执未写入时由 {@link MessageReceiptRetryQueue} 兜底更新
+     *
+     * @param receipts 回执集合
+     */
+    public void apply(List<MessageReceiptDTO> receipts) {
+        if (CollUtil.isEmpty(receipts)) {
+            return;
+        }
+        int updated = messageReceiptShardRouter.update(receipts);
+        if (updated == receipts.size()) {
+            return;
+        }
+        Set<String> existingMsgIds = messageReceiptShardRouter.selectExistingMsgIds(receipts);
+        Map<Boolean, List<MessageReceiptDTO>> partitionedReceipts = receipts.stream()
+                .collect(Collectors.partitioningBy(each -> existingMsgIds.contains(each.getMsgId())));
+        List<MessageReceiptDTO> existingReceipts = partitionedReceipts.get(Boolean.TRUE);
+        if (CollUtil.isNotEmpty(existingReceipts)) {
+            messageReceiptShardRouter.update(existingReceipts);
+        }
+        List<MessageReceiptDTO> pendingReceipts = partitionedReceipts.get(Boolean.FALSE);
+        if (CollUtil.isNotEmpty(pendingReceipts)) {
+            messageReceiptPendingStore.park(pendingReceipts);
+            messageReceiptRetryQueue.park(pendingReceipts);
+        }
+    }
+}
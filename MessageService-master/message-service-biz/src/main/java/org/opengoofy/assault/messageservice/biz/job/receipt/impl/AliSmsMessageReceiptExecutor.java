@@ -7,6 +7,8 @@ import org.springframework.stereotype.Component;
 
 import java.util.List;
 
+import static org.opengoofy.assault.messageservice.biz.common.MessageConstants.ALI_VENDOR;
+
 /**
  * 阿里短信回执拉取执行器
  * <p>
@@ -18,7 +20,12 @@ import java.util.List;
 public class AliSmsMessageReceiptExecutor extends AbstractSmsMessageReceiptTemplate {
     
     @Override
-    protected List<MessageReceiptDTO> listReceipt() {
+    protected String vendor() {
+        return ALI_VENDOR;
+    }
+    
+    @Override
+    protected List<MessageReceiptDTO> listReceipt(String partition) {
         return null;
     }
     
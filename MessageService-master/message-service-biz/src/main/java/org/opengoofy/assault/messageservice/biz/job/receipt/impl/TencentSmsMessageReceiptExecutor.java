@@ -7,6 +7,8 @@ import org.springframework.stereotype.Component;
 
 import java.util.List;
 
+import static org.opengoofy.assault.messageservice.biz.common.MessageConstants.TENCENT_VENDOR;
+
 /**
  * 腾讯短信回执拉取执行器
  * <p>
@@ -17,7 +19,12 @@ import java.util.List;
 public class TencentSmsMessageReceiptExecutor extends AbstractSmsMessageReceiptTemplate {
     
     @Override
-    protected List<MessageReceiptDTO> listReceipt() {
+    protected String vendor() {
+        return TENCENT_VENDOR;
+    }
+    
+    @Override
+    protected List<MessageReceiptDTO> listReceipt(String partition) {
         return null;
     }
     
@@ -0,0 +1,269 @@
+package org.opengoofy.assault.messageservice.biz.mq.campaign;
+
+import com.alibaba.fastjson2.JSON;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.opengoofy.assault.framework.starter.cache.DistributedCache;
+import org.opengoofy.assault.messageservice.api.dto.MessageCampaignCreateRequestDTO;
+import org.opengoofy.assault.messageservice.biz.common.MessageSendLaneEnum;
+import org.opengoofy.assault.messageservice.biz.config.MessageCampaignConfig;
+import org.opengoofy.assault.messageservice.biz.mq.cancel.MessageCancelTombstoneStore;
+import org.opengoofy.assault.messageservice.biz.mq.event.MessageSendEvent;
+import org.opengoofy.assault.messageservice.biz.mq.produce.MessageCommonSendProduce;
+import org.opengoofy.assault.messageservice.biz.service.MessageCampaignService;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.opengoofy.assault.messageservice.biz.common.MessageCacheConstants.MESSAGE_CAMPAIGN_ACTIVE_KEY;
+import static org.opengoofy.assault.messageservice.biz.common.MessageCacheConstants.MESSAGE_CAMPAIGN_INFLIGHT_PREFIX_KEY;
+import static org.opengoofy.assault.messageservice.biz.common.MessageCacheConstants.MESSAGE_CAMPAIGN_PROGRESS_PREFIX_KEY;
+import static org.opengoofy.assault.messageservice.biz.common.MessageCacheConstants.MESSAGE_CAMPAIGN_STAGING_PREFIX_KEY;
+import static org.opengoofy.assault.messageservice.biz.common.MessageRocketMQConstants.MESSAGE_COMMON_TOPIC;
+import static org.opengoofy.assault.messageservice.biz.service.MessageCampaignServiceImpl.PROGRESS_RELEASED;
+
+/**
+ * 批量发送活动匀速投递器
+ * <p>
+ * 每个投递间隔遍历暂存队列非空的活动，按活动速率从 Redis 令牌桶申请令牌，获得多少令牌就从暂存队列弹出多少条消息投递到对应发送通道；
+ * 未声明目标每秒投递数的活动按剩余暂存消息数与投递窗口剩余时间计算速率，所有速率不超过配置上限，渠道商不会再因瞬时流量触发限流
+ * <p>
+ * 弹出的消息通过 Lua 脚本原子登记到在途有序集合，投递成功后才移出；投递失败的消息放回暂存队列队首，
+ * 投递实例宕机或租约到期仍未确认的消息由任一实例放回暂存队列，消息至少投递一次，重复投递由消费端幂等处理。
+ * 暂存超过活动保留时间的消息带上已到期的过期时间投递，由消费端按已过期处理，触发失败回调并保存发送记录
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MessageCampaignDispatcher implements InitializingBean, DisposableBean {
+    
+    private static final String LUA_DEACTIVATE_SCRIPT_SOURCE_PATH = "lua/campaignDeactivate.lua";
+    
+    private static final String LUA_CLAIM_SCRIPT_SOURCE_PATH = "lua/campaignClaim.lua";
+    
+    private static final String LUA_REQUEUE_SCRIPT_SOURCE_PATH = "lua/campaignRequeue.lua";
+    
+    /**
+     * 回收租约到期在途消息的间隔，单位毫秒
+     */
+    private static final long RECLAIM_INTERVAL_MILLIS = 1000L;
+    
+    /**
+     * 单次回收的在途消息数上限
+     */
+    private static final int RECLAIM_BATCH_SIZE = 1000;
+    
+    private final DistributedCache distributedCache;
+    private final MessageCampaignConfig messageCampaignConfig;
+    private final MessageCampaignService messageCampaignService;
+    private final MessageCampaignTokenBucket messageCampaignTokenBucket;
+    private final MessageCancelTombstoneStore messageCancelTombstoneStore;
+    private final MessageCommonSendProduce messageCommonSendProduce;
+    private final MeterRegistry meterRegistry;
+    
+    private DefaultRedisScript<Long> deactivateScript;
+    
+    private DefaultRedisScript<List> claimScript;
+    
+    private DefaultRedisScript<Long> requeueScript;
+    
+    private long lastReclaimMillis;
+    
+    private Thread dispatchThread;
+    
+    private volatile boolean running;
+    
+    private Counter releasedCounter;
+    
+    private Counter requeuedCounter;
+    
+    private Counter expiredCounter;
+    
+    @Override
+    public void afterPropertiesSet() {
+        deactivateScript = new DefaultRedisScript<>();
+        deactivateScript.setScriptSource(new ResourceScriptSource(new ClassPathResource(LUA_DEACTIVATE_SCRIPT_SOURCE_PATH)));
+        deactivateScript.setResultType(Long.class);
+        claimScript = new DefaultRedisScript<>();
+        claimScript.setScriptSource(new ResourceScriptSource(new ClassPathResource(LUA_CLAIM_SCRIPT_SOURCE_PATH)));
+        claimScript.setResultType(List.class);
+        requeueScript = new DefaultRedisScript<>();
+        requeueScript.setScriptSource(new ResourceScriptSource(new ClassPathResource(LUA_REQUEUE_SCRIPT_SOURCE_PATH)));
+        requeueScript.setResultType(Long.class);
+        releasedCounter = Counter.builder("message.campaign.released").register(meterRegistry);
+        requeuedCounter = Counter.builder("message.campaign.requeued").register(meterRegistry);
+        expiredCounter = Counter.builder("message.campaign.expired").register(meterRegistry);
+        running = true;
+        dispatchThread = new Thread(this::dispatchLoop, "message-campaign-dispatch");
+        dispatchThread.setDaemon(true);
+        dispatchThread.start();
+    }
+    
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        dispatchThread.interrupt();
+        dispatchThread.join(TimeUnit.SECONDS.toMillis(5));
+    }
+    
+    private void dispatchLoop() {
+        long intervalMillis = messageCampaignConfig.getDispatchIntervalMillis();
+        while (running) {
+            long start = System.currentTimeMillis();
+            try {
+                StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+                Set<String> activeCampaigns = stringRedisTemplate.opsForSet().members(MESSAGE_CAMPAIGN_ACTIVE_KEY);
+                if (activeCampaigns != null) {
+                    // 启动后首轮即回收，之前宕机实例遗留的在途消息在租约到期后重新投递
+                    boolean reclaim = start - lastReclaimMillis >= RECLAIM_INTERVAL_MILLIS;
+                    for (String each : activeCampaigns) {
+                        if (reclaim) {
+                            reclaim(stringRedisTemplate, each, start);
+                        }
+                        dispatch(stringRedisTemplate, each, start, intervalMillis);
+                    }
+                    lastReclaimMillis = reclaim ? start : lastReclaimMillis;
+                }
+            } catch (Throwable ex) {
+                log.error("批量发送活动投递失败", ex);
+            }
+            long pauseMillis = intervalMillis - (System.currentTimeMillis() - start);
+            if (pauseMillis > 0) {
+                try {
+                    Thread.sleep(pauseMillis);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+    
+    private void dispatch(StringRedisTemplate stringRedisTemplate, String msgBatchId, long now, long intervalMillis) {
+        MessageCampaignCreateRequestDTO campaign = messageCampaignService.getCampaign(msgBatchId);
+        if (campaign != null && campaign.getWindowStartTime() != null && campaign.getWindowStartTime().getTime() > now) {
+            return;
+        }
+        String stagingKey = MESSAGE_CAMPAIGN_STAGING_PREFIX_KEY + msgBatchId;
+        String inflightKey = MESSAGE_CAMPAIGN_INFLIGHT_PREFIX_KEY + msgBatchId;
+        int tps = effectiveTps(stringRedisTemplate, campaign, stagingKey, now);
+        int requested = (int) Math.max(1L, (long) Math.ceil(tps * intervalMillis / 1000D));
+        long granted = messageCampaignTokenBucket.acquire(msgBatchId, tps, requested);
+        if (granted <= 0) {
+            return;
+        }
+        long leaseDeadline = System.currentTimeMillis() + messageCampaignConfig.getInflightLeaseMillis();
+        List<String> payloads = claim(stringRedisTemplate, stagingKey, inflightKey, (int) granted, leaseDeadline);
+        if (payloads.isEmpty()) {
+            stringRedisTemplate.execute(deactivateScript, Arrays.asList(stagingKey, MESSAGE_CAMPAIGN_ACTIVE_KEY, inflightKey), msgBatchId);
+            return;
+        }
+        List<String> releasedPayloads = new ArrayList<>(payloads.size());
+        List<String> failedPayloads = new ArrayList<>();
+        int expired = 0;
+        for (String each : payloads) {
+            long currentTime = System.currentTimeMillis();
+            if (!failedPayloads.isEmpty() || currentTime >= leaseDeadline) {
+                // 投递失败或租约即将被其他实例回收时，剩余消息放回暂存队列，避免乱序与重复投递
+                failedPayloads.add(each);
+                continue;
+            }
+            MessageSendEvent messageSendEvent = JSON.parseObject(each, MessageSendEvent.class);
+            if (messageSendEvent.getAcceptTime() != null && currentTime - messageSendEvent.getAcceptTime() > messageCampaignConfig.getCampaignTimeoutMillis()) {
+                // 暂存超过活动保留时间，投递后由消费端按已过期处理，保留原接收时间用于记录等待时长
+                messageSendEvent.setExpireTime(currentTime);
+                expired++;
+            } else {
+                // 暂存等待属于计划内等待，从投递时开始计算消息有效期
+                messageSendEvent.setAcceptTime(currentTime);
+            }
+            String tag = MessageSendLaneEnum.getByMsgType(messageSendEvent.getMessageSendRequest().getMsgType()).getTag();
+            if (messageCommonSendProduce.send(messageSendEvent, MESSAGE_COMMON_TOPIC, messageSendEvent.getMsgId(), tag, 0)) {
+                releasedPayloads.add(each);
+            } else {
+                failedPayloads.add(each);
+            }
+        }
+        if (!releasedPayloads.isEmpty()) {
+            stringRedisTemplate.opsForZSet().remove(inflightKey, releasedPayloads.toArray());
+            stringRedisTemplate.opsForHash().increment(MESSAGE_CAMPAIGN_PROGRESS_PREFIX_KEY + msgBatchId, PROGRESS_RELEASED, releasedPayloads.size());
+            releasedCounter.increment(releasedPayloads.size());
+        }
+        if (expired > 0) {
+            expiredCounter.increment(expired);
+            log.warn("批量发送活动消息暂存超过保留时间，按已过期处理，消息批量发送ID：{}，条数：{}", msgBatchId, expired);
+        }
+        if (!failedPayloads.isEmpty()) {
+            // 投递失败放回队首，下次获得令牌时重新投递
+            requeue(stringRedisTemplate, stagingKey, inflightKey, failedPayloads);
+        }
+    }
+    
+    /**
+     * 将租约到期仍未确认投递的在途消息放回暂存队列
+     */
+    private void reclaim(StringRedisTemplate stringRedisTemplate, String msgBatchId, long now) {
+        String inflightKey = MESSAGE_CAMPAIGN_INFLIGHT_PREFIX_KEY + msgBatchId;
+        Set<String> expiredPayloads = stringRedisTemplate.opsForZSet().rangeByScore(inflightKey, 0, now, 0, RECLAIM_BATCH_SIZE);
+        if (expiredPayloads == null || expiredPayloads.isEmpty()) {
+            return;
+        }
+        long requeued = requeue(stringRedisTemplate, MESSAGE_CAMPAIGN_STAGING_PREFIX_KEY + msgBatchId, inflightKey, new ArrayList<>(expiredPayloads));
+        if (requeued > 0) {
+            log.warn("批量发送活动在途消息租约到期，已放回暂存队列，消息批量发送ID：{}，条数：{}", msgBatchId, requeued);
+        }
+    }
+    
+    private long requeue(StringRedisTemplate stringRedisTemplate, String stagingKey, String inflightKey, List<String> payloads) {
+        Long requeued = stringRedisTemplate.execute(requeueScript, Arrays.asList(stagingKey, inflightKey), payloads.toArray());
+        long result = requeued == null ? 0L : requeued;
+        requeuedCounter.increment(result);
+        return result;
+    }
+    
+    /**
+     * 计算活动当前投递速率：声明了目标每秒投递数时直接使用；否则按剩余暂存消息在投递窗口剩余时间内均匀投递；
+     * 活动配置已过期、投递窗口已结束或批次已撤回时按速率上限投递剩余消息，已撤回的消息由消费者直接丢弃
+     */
+    private int effectiveTps(StringRedisTemplate stringRedisTemplate, MessageCampaignCreateRequestDTO campaign, String stagingKey, long now) {
+        int maxTps = messageCampaignConfig.getMaxTps();
+        if (campaign == null || messageCancelTombstoneStore.isBatchCanceled(campaign.getMsgBatchId())) {
+            return maxTps;
+        }
+        if (campaign.getTargetTps() != null) {
+            return Math.min(campaign.getTargetTps(), maxTps);
+        }
+        double remainingSeconds = (campaign.getWindowEndTime().getTime() - now) / 1000D;
+        if (remainingSeconds <= 1D) {
+            return maxTps;
+        }
+        Long stagedCount = stringRedisTemplate.opsForList().size(stagingKey);
+        long tps = (long) Math.ceil((stagedCount == null ? 0L : stagedCount) / remainingSeconds);
+        return (int) Math.max(1L, Math.min(tps, maxTps));
+    }
+    
+    @SuppressWarnings("unchecked")
+    private List<String> claim(StringRedisTemplate stringRedisTemplate, String stagingKey, String inflightKey, int count, long leaseDeadline) {
+        List<Object> results = stringRedisTemplate.execute(claimScript, Arrays.asList(stagingKey, inflightKey),
+                String.valueOf(count), String.valueOf(leaseDeadline));
+        if (results == null || results.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> payloads = new ArrayList<>(results.size());
+        results.forEach(each -> payloads.add(each.toString()));
+        return payloads;
+    }
+}
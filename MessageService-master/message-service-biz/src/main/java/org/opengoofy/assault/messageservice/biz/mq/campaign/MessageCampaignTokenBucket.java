@@ -0,0 +1,62 @@
+package org.opengoofy.assault.messageservice.biz.mq.campaign;
+
+import lombok.RequiredArgsConstructor;
+import org.opengoofy.assault.framework.starter.cache.DistributedCache;
+import org.opengoofy.assault.messageservice.biz.config.MessageCampaignConfig;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+
+import static org.opengoofy.assault.messageservice.biz.common.MessageCacheConstants.MESSAGE_CAMPAIGN_BUCKET_PREFIX_KEY;
+
+/**
+ * 批量发送活动令牌桶
+ * <p>
+ * 令牌桶状态保存在 Redis 中并通过 Lua 脚本原子补充、扣减，多个实例同时投递同一活动时总速率仍不超过活动速率
+ */
+@Component
+@RequiredArgsConstructor
+public class MessageCampaignTokenBucket implements InitializingBean {
+    
+    private static final String LUA_TOKEN_BUCKET_SCRIPT_SOURCE_PATH = "lua/campaignTokenBucket.lua";
+    
+    private final DistributedCache distributedCache;
+    private final MessageCampaignConfig messageCampaignConfig;
+    
+    private DefaultRedisScript<Long> tokenBucketScript;
+    
+    @Override
+    public void afterPropertiesSet() {
+        tokenBucketScript = new DefaultRedisScript<>();
+        tokenBucketScript.setScriptSource(new ResourceScriptSource(new ClassPathResource(LUA_TOKEN_BUCKET_SCRIPT_SOURCE_PATH)));
+        tokenBucketScript.setResultType(Long.class);
+    }
+    
+    /**
+     * 申请令牌
+     *
+     * @param msgBatchId 消息批量发送ID
+     * @param tps        每秒补充令牌数
+     * @param requested  申请令牌数
+     * @return 实际获得的令牌数
+     */
+    public long acquire(String msgBatchId, int tps, int requested) {
+        long capacity = Math.max(1L, (long) Math.ceil(tps * messageCampaignConfig.getBurstSeconds()));
+        StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+        Long granted = stringRedisTemplate.execute(
+                tokenBucketScript,
+                Collections.singletonList(MESSAGE_CAMPAIGN_BUCKET_PREFIX_KEY + msgBatchId),
+                String.valueOf(tps),
+                String.valueOf(capacity),
+                String.valueOf(System.currentTimeMillis()),
+                String.valueOf(requested),
+                String.valueOf(messageCampaignConfig.getCampaignTimeoutMillis())
+        );
+        return granted == null ? 0L : granted;
+    }
+}
@@ -0,0 +1,291 @@
+package org.opengoofy.assault.messageservice.biz.mq.cancel;
+
+import cn.hutool.core.util.StrUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.opengoofy.assault.framework.starter.cache.DistributedCache;
+import org.opengoofy.assault.messageservice.biz.config.MessageCancelConfig;
+import org.opengoofy.assault.messageservice.biz.mq.event.MessageSendEvent;
+import org.opengoofy.assault.messageservice.biz.mq.idempotent.RotatingBloomFilter;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.opengoofy.assault.messageservice.biz.common.MessageCacheConstants.MESSAGE_CANCEL_BATCH_KEY;
+import static org.opengoofy.assault.messageservice.biz.common.MessageCacheConstants.MESSAGE_CANCEL_LOG_BASE_KEY;
+import static org.opengoofy.assault.messageservice.biz.common.MessageCacheConstants.MESSAGE_CANCEL_LOG_KEY;
+import static org.opengoofy.assault.messageservice.biz.common.MessageCacheConstants.MESSAGE_CANCEL_MSG_INDEX_KEY;
+import static org.opengoofy.assault.messageservice.biz.common.MessageCacheConstants.MESSAGE_CANCEL_MSG_PREFIX_KEY;
+
+/**
+ * 消息撤回标识存储
+ * <p>
+ * Redis 中按批次撤回只写入一条批次标识，按消息撤回写入消息所属批次的集合，同时追加撤回日志；
+ * 每个实例在本地缓存已撤回的批次以及已撤回消息ID的布隆过滤器，定时按偏移量增量同步撤回日志，
+ * 消费时只在本地判断，只有布隆过滤器命中时才查询 Redis 确认，撤回在同步间隔内对整个集群生效
+ * <p>
+ * 撤回日志只保留最近的若干条，偏移量为包含已裁剪条数的绝对偏移量，实例落后于裁剪位置时改为全量重建
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MessageCancelTombstoneStore implements InitializingBean {
+    
+    /**
+     * 未指定批次的消息撤回标识所在集合
+     */
+    private static final String SINGLE_BATCH_KEY = "single";
+    
+    private static final String BATCH_LOG_PREFIX = "B:";
+    
+    private static final String MSG_LOG_PREFIX = "M:";
+    
+    private static final String LUA_LOG_SYNC_SCRIPT_SOURCE_PATH = "lua/cancelLogSync.lua";
+    
+    /**
+     * 单次增量同步读取的最大日志条数
+     */
+    private static final int SYNC_BATCH_SIZE = 10000;
+    
+    private final DistributedCache distributedCache;
+    private final MessageCancelConfig messageCancelConfig;
+    private final MeterRegistry meterRegistry;
+    
+    /**
+     * 已撤回的消息批量发送ID与撤回标识过期时间
+     */
+    private final Map<String, Long> canceledBatches = new ConcurrentHashMap<>();
+    
+    private volatile RotatingBloomFilter canceledMsgFilter;
+    
+    private DefaultRedisScript<List> logSyncScript;
+    
+    /**
+     * 已同步的撤回日志绝对偏移量
+     */
+    private volatile long logOffset;
+    
+    private volatile long lastRebuildTime;
+    
+    private Counter canceledCounter;
+    
+    @Override
+    public void afterPropertiesSet() {
+        canceledCounter = Counter.builder("message.cancel.hit").register(meterRegistry);
+        logSyncScript = new DefaultRedisScript<>();
+        logSyncScript.setScriptSource(new ResourceScriptSource(new ClassPathResource(LUA_LOG_SYNC_SCRIPT_SOURCE_PATH)));
+        logSyncScript.setResultType(List.class);
+        rebuild();
+    }
+    
+    /**
+     * 撤回整个批次的消息，批次规模不影响写入量
+     *
+     * @param msgBatchId 消息批量发送ID
+     */
+    public void cancelBatch(String msgBatchId) {
+        long now = System.currentTimeMillis();
+        long timeoutMillis = messageCancelConfig.getTombstoneTimeoutMillis();
+        StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+        stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> redisOperations = (RedisOperations<String, String>) operations;
+                redisOperations.opsForZSet().add(MESSAGE_CANCEL_BATCH_KEY, msgBatchId, now + timeoutMillis);
+                redisOperations.opsForZSet().removeRangeByScore(MESSAGE_CANCEL_BATCH_KEY, 0D, now);
+                redisOperations.opsForList().rightPush(MESSAGE_CANCEL_LOG_KEY, BATCH_LOG_PREFIX + msgBatchId);
+                return null;
+            }
+        });
+        canceledBatches.put(msgBatchId, now + timeoutMillis);
+    }
+    
+    /**
+     * 撤回单条消息
+     *
+     * @param msgId         消息ID
+     * @param msgBatchId    消息批量发送ID，可以为空
+     * @param timeoutMillis 撤回标识保留时间，单位毫秒，不小于配置的保留时间
+     */
+    public void cancelMessage(String msgId, String msgBatchId, long timeoutMillis) {
+        String batchKey = batchKey(msgBatchId);
+        String msgKey = MESSAGE_CANCEL_MSG_PREFIX_KEY + batchKey;
+        long msgTimeoutMillis = Math.max(timeoutMillis, messageCancelConfig.getTombstoneTimeoutMillis());
+        StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+        stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> redisOperations = (RedisOperations<String, String>) operations;
+                redisOperations.opsForSet().add(msgKey, msgId);
+                redisOperations.opsForSet().add(MESSAGE_CANCEL_MSG_INDEX_KEY, batchKey);
+                redisOperations.opsForList().rightPush(MESSAGE_CANCEL_LOG_KEY, MSG_LOG_PREFIX + msgId);
+                return null;
+            }
+        });
+        // 同一批次集合内的撤回标识共用过期时间，只延长不缩短
+        Long currentTimeoutMillis = stringRedisTemplate.getExpire(msgKey, TimeUnit.MILLISECONDS);
+        if (currentTimeoutMillis == null || currentTimeoutMillis < msgTimeoutMillis) {
+            stringRedisTemplate.expire(msgKey, msgTimeoutMillis, TimeUnit.MILLISECONDS);
+            stringRedisTemplate.expire(MESSAGE_CANCEL_MSG_INDEX_KEY, msgTimeoutMillis, TimeUnit.MILLISECONDS);
+        }
+        canceledMsgFilter.put(msgId);
+    }
+    
+    /**
+     * 消息是否已撤回，批次判断与布隆过滤器判断均在本地完成
+     *
+     * @param messageSendEvent 消息发送事件
+     * @return 是否已撤回
+     */
+    public boolean isCanceled(MessageSendEvent messageSendEvent) {
+        String msgBatchId = messageSendEvent.getMessageSendRequest().getMsgBatchId();
+        if (isBatchCanceled(msgBatchId)) {
+            canceledCounter.increment();
+            return true;
+        }
+        String msgId = messageSendEvent.getMsgId();
+        if (!canceledMsgFilter.mightContain(msgId)) {
+            return false;
+        }
+        // 布隆过滤器存在误判，命中时到消息所属批次以及未指定批次的集合中确认
+        StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+        boolean canceled = Boolean.TRUE.equals(stringRedisTemplate.opsForSet().isMember(MESSAGE_CANCEL_MSG_PREFIX_KEY + batchKey(msgBatchId), msgId))
+                || (StrUtil.isNotBlank(msgBatchId) && Boolean.TRUE.equals(stringRedisTemplate.opsForSet().isMember(MESSAGE_CANCEL_MSG_PREFIX_KEY + SINGLE_BATCH_KEY, msgId)));
+        if (canceled) {
+            canceledCounter.increment();
+        }
+        return canceled;
+    }
+    
+    /**
+     * 消息批次是否已撤回
+     *
+     * @param msgBatchId 消息批量发送ID
+     * @return 是否已撤回
+     */
+    public boolean isBatchCanceled(String msgBatchId) {
+        if (StrUtil.isBlank(msgBatchId)) {
+            return false;
+        }
+        Long expireTime = canceledBatches.get(msgBatchId);
+        return expireTime != null && expireTime > System.currentTimeMillis();
+    }
+    
+    /**
+     * 增量同步其它实例写入的撤回日志，未同步的日志已被裁剪、撤回日志被重置或到达全量重建间隔时全量加载
+     */
+    @Scheduled(initialDelayString = "${message.cancel.sync-interval-millis:1000}", fixedDelayString = "${message.cancel.sync-interval-millis:1000}")
+    public synchronized void sync() {
+        try {
+            if (System.currentTimeMillis() - lastRebuildTime >= messageCancelConfig.getRebuildIntervalMillis()) {
+                rebuild();
+                return;
+            }
+            StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+            List<String> result = readLog(stringRedisTemplate, logOffset);
+            long base = Long.parseLong(result.get(0));
+            long size = Long.parseLong(result.get(1));
+            if (logOffset < base || logOffset > base + size) {
+                // 未同步的日志已被裁剪，或撤回日志被重置，增量同步无法保证完整，改为全量加载
+                rebuild();
+                return;
+            }
+            List<String> entries = result.subList(2, result.size());
+            if (entries.isEmpty()) {
+                return;
+            }
+            boolean batchCanceled = false;
+            for (String each : entries) {
+                if (each.startsWith(MSG_LOG_PREFIX)) {
+                    canceledMsgFilter.put(each.substring(MSG_LOG_PREFIX.length()));
+                } else if (each.startsWith(BATCH_LOG_PREFIX)) {
+                    batchCanceled = true;
+                }
+            }
+            if (batchCanceled) {
+                loadBatches(stringRedisTemplate);
+            }
+            logOffset += entries.size();
+        } catch (Throwable ex) {
+            log.error("同步消息撤回标识失败", ex);
+        }
+    }
+    
+    /**
+     * 全量加载撤回标识，先记录撤回日志偏移量再加载，加载期间写入的撤回会在下次增量同步时重复写入本地，结果不受影响
+     */
+    private synchronized void rebuild() {
+        StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+        List<String> position = readLog(stringRedisTemplate, -1L);
+        RotatingBloomFilter bloomFilter = new RotatingBloomFilter(
+                messageCancelConfig.getBloomExpectedInsertions(),
+                messageCancelConfig.getBloomFalseProbability(),
+                messageCancelConfig.getTombstoneTimeoutMillis()
+        );
+        Set<String> batchKeys = stringRedisTemplate.opsForSet().members(MESSAGE_CANCEL_MSG_INDEX_KEY);
+        int canceledMsgCount = 0;
+        if (batchKeys != null) {
+            for (String each : batchKeys) {
+                Set<String> msgIds = stringRedisTemplate.opsForSet().members(MESSAGE_CANCEL_MSG_PREFIX_KEY + each);
+                if (msgIds == null || msgIds.isEmpty()) {
+                    // 批次集合已过期，从索引中移除
+                    stringRedisTemplate.opsForSet().remove(MESSAGE_CANCEL_MSG_INDEX_KEY, each);
+                    continue;
+                }
+                msgIds.forEach(bloomFilter::put);
+                canceledMsgCount += msgIds.size();
+            }
+        }
+        canceledMsgFilter = bloomFilter;
+        loadBatches(stringRedisTemplate);
+        logOffset = Long.parseLong(position.get(0)) + Long.parseLong(position.get(1));
+        lastRebuildTime = System.currentTimeMillis();
+        log.info("消息撤回标识加载完成，已撤回批次数：{}，已撤回消息数：{}", canceledBatches.size(), canceledMsgCount);
+    }
+    
+    /**
+     * 裁剪撤回日志并从绝对偏移量开始读取，返回基准偏移量、日志条数以及读取到的日志
+     */
+    @SuppressWarnings("unchecked")
+    private List<String> readLog(StringRedisTemplate stringRedisTemplate, long offset) {
+        return (List<String>) stringRedisTemplate.execute(logSyncScript,
+                Arrays.asList(MESSAGE_CANCEL_LOG_KEY, MESSAGE_CANCEL_LOG_BASE_KEY),
+                String.valueOf(offset),
+                String.valueOf(messageCancelConfig.getMaxLogSize()),
+                String.valueOf(SYNC_BATCH_SIZE));
+    }
+    
+    private void loadBatches(StringRedisTemplate stringRedisTemplate) {
+        long now = System.currentTimeMillis();
+        Set<ZSetOperations.TypedTuple<String>> batches = stringRedisTemplate.opsForZSet().rangeByScoreWithScores(MESSAGE_CANCEL_BATCH_KEY, now, Double.MAX_VALUE);
+        if (batches == null) {
+            return;
+        }
+        batches.forEach(each -> canceledBatches.put(each.getValue(), each.getScore().longValue()));
+        canceledBatches.values().removeIf(expireTime -> expireTime <= now);
+    }
+    
+    private static String batchKey(String msgBatchId) {
+        return StrUtil.isBlank(msgBatchId) ? SINGLE_BATCH_KEY : msgBatchId;
+    }
+}
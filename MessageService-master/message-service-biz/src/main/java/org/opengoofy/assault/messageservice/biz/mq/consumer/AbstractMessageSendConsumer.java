@@ -1,31 +1,72 @@
 package org.opengoofy.assault.messageservice.biz.mq.consumer;
 
+import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.util.StrUtil;
 import com.alibaba.fastjson.JSON;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.client.consumer.DefaultMQPushConsumer;
+import org.apache.rocketmq.client.consumer.listener.ConsumeConcurrentlyStatus;
+import org.apache.rocketmq.client.consumer.listener.MessageListenerConcurrently;
+import org.apache.rocketmq.common.message.MessageExt;
+import org.apache.rocketmq.spring.core.RocketMQListener;
+import org.apache.rocketmq.spring.core.RocketMQPushConsumerLifecycleListener;
 import org.opengoofy.assault.framework.starter.cache.DistributedCache;
+import org.opengoofy.assault.framework.starter.convention.exception.ServiceException;
 import org.opengoofy.assault.messageservice.api.dto.MQCallBackTransferDTO;
 import org.opengoofy.assault.messageservice.api.dto.MQCallbackDTO;
+import org.opengoofy.assault.messageservice.api.dto.MessageSendRequestDTO;
 import org.opengoofy.assault.messageservice.biz.base.message.MessageWrapper;
 import org.opengoofy.assault.messageservice.biz.common.MessageRocketMQConstants;
+import org.opengoofy.assault.messageservice.biz.common.MessageSendLaneEnum;
+import org.opengoofy.assault.messageservice.biz.common.MessageSendStatusEnum;
+import org.opengoofy.assault.messageservice.biz.config.MessageConsumeConfig;
+import org.opengoofy.assault.messageservice.biz.config.MessageScheduleConfig;
+import org.opengoofy.assault.messageservice.biz.config.MessageSendLaneConfig;
+import org.opengoofy.assault.messageservice.biz.config.PoolAutoscaleConfig;
 import org.opengoofy.assault.messageservice.biz.dao.entity.TemplateConfigDO;
 import org.opengoofy.assault.messageservice.biz.dao.mapper.TemplateConfigMapper;
 import org.opengoofy.assault.messageservice.biz.dto.MessagePlatformSendResponseDTO;
 import org.opengoofy.assault.messageservice.biz.handler.select.MessageSendChannelSelector;
+import org.opengoofy.assault.messageservice.biz.handler.send.base.ChannelConfigLoader;
+import org.opengoofy.assault.messageservice.biz.handler.send.base.MessageBatchSendService;
 import org.opengoofy.assault.messageservice.biz.handler.send.base.MessageSendService;
+import org.opengoofy.assault.messageservice.biz.mq.cancel.MessageCancelTombstoneStore;
 import org.opengoofy.assault.messageservice.biz.mq.event.MessageSaveEvent;
 import org.opengoofy.assault.messageservice.biz.mq.event.MessageSendEvent;
+import org.opengoofy.assault.messageservice.biz.mq.idempotent.MessageConsumeClaimStatusEnum;
+import org.opengoofy.assault.messageservice.biz.mq.idempotent.MessageSendIdempotentHandler;
+import org.opengoofy.assault.messageservice.biz.mq.lane.MessageSendLaneMonitor;
+import org.opengoofy.assault.messageservice.biz.mq.lane.ThreadPoolResizeSupport;
 import org.opengoofy.assault.messageservice.biz.mq.produce.MessageCommonSendProduce;
+import org.opengoofy.assault.messageservice.biz.mq.schedule.RocketMQDelayLevelSupport;
+import org.opengoofy.assault.messageservice.biz.service.MessageCampaignService;
 
 import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import static org.opengoofy.assault.messageservice.biz.common.MessageCacheConstants.DEFAULT_CACHE_TIMOUT;
 import static org.opengoofy.assault.messageservice.biz.common.MessageCacheConstants.MESSAGE_TEMPLATE_CACHE_PREFIX_KEY;
+import static org.opengoofy.assault.messageservice.biz.common.MessageConstants.SMS_MESSAGE_CHANNELS;
 import static org.opengoofy.assault.messageservice.biz.common.MessageRocketMQConstants.CALLBACK_MESSAGE_SEND_TAG_TEMPLATE;
 import static org.opengoofy.assault.messageservice.biz.common.MessageRocketMQConstants.MESSAGE_CALLBACK_TOPIC;
+import static org.opengoofy.assault.messageservice.biz.common.MessageRocketMQConstants.MESSAGE_COMMON_TOPIC;
 
 /**
  * 消息发送消费者抽象
@@ -39,7 +80,17 @@ import static org.opengoofy.assault.messageservice.biz.common.MessageRocketMQCon
  * 该类将消息发送的通用逻辑进行封装，提高了代码的复用性和可维护性。
  */
 @Slf4j
-public abstract class AbstractMessageSendConsumer {
+public abstract class AbstractMessageSendConsumer implements RocketMQListener<MessageSendEvent>, RocketMQPushConsumerLifecycleListener {
+    
+    /**
+     * 消息过期丢弃时的响应码
+     */
+    private static final String MESSAGE_EXPIRED_CODE = "EXPIRED";
+    
+    /**
+     * 消息撤回丢弃时的响应码
+     */
+    private static final String MESSAGE_CANCELED_CODE = "CANCELED";
     
     @Resource
     private MessageCommonSendProduce messageCommonSendProduce;
@@ -49,7 +100,466 @@ public abstract class AbstractMessageSendConsumer {
     private DistributedCache distributedCache;
     @Resource
     private TemplateConfigMapper templateConfigMapper;
-
+    @Resource
+    private MessageConsumeConfig messageConsumeConfig;
+    @Resource
+    private MessageSendLaneMonitor messageSendLaneMonitor;
+    @Resource
+    private ChannelConfigLoader channelConfigLoader;
+    @Resource
+    private MessageSendIdempotentHandler messageSendIdempotentHandler;
+    @Resource
+    private MessageSendLaneConfig messageSendLaneConfig;
+    @Resource
+    private PoolAutoscaleConfig poolAutoscaleConfig;
+    @Resource
+    private MessageScheduleConfig messageScheduleConfig;
+    @Resource
+    private MessageCampaignService messageCampaignService;
+    @Resource
+    private MessageCancelTombstoneStore messageCancelTombstoneStore;
+    
+    private volatile DefaultMQPushConsumer pushConsumer;
+    
+    /**
+     * 消息发送线程池，由具体消费者提供
+     */
+    protected abstract ThreadPoolExecutor consumeExecutor();
+    
+    /**
+     * 消费者对应的消息发送通道
+     */
+    public abstract MessageSendLaneEnum lane();
+    
+    /**
+     * 发送完成后确认消费模式下，消费线程数与发送线程池最大线程数保持一致
+     * <p>
+     * RocketMQ 消费线程池使用无界队列，只有核心线程会被创建，所以最小、最大消费线程数需要同时设置
+     */
+    @Override
+    public void prepareStart(DefaultMQPushConsumer consumer) {
+        pushConsumer = consumer;
+        messageSendLaneMonitor.register(lane(), consumer, consumeExecutor());
+        if (messageConsumeConfig.getBatchEnabled()) {
+            enableBatchConsume(consumer);
+        }
+        if (!messageConsumeConfig.getAckAfterSend()) {
+            return;
+        }
+        int concurrency = consumeThreads(consumeExecutor().getMaximumPoolSize());
+        int maxConcurrency = Math.max(concurrency, consumeThreads(poolAutoscaleConfig.boundsOf(lane().name()).getMaxSize()));
+        consumer.setConsumeThreadMin(concurrency);
+        // 无界队列下实际线程数只由核心线程数决定，最大线程数仅作为运行期调整核心线程数的上限，RocketMQ 要求调整值严格小于该上限
+        consumer.setConsumeThreadMax(maxConcurrency + 1);
+        consumer.setPullThresholdForQueue(Math.max(messageConsumeConfig.getPullThresholdForQueue(), messageConsumeConfig.getBatchSize()));
+    }
+    
+    /**
+     * 运行期调整通道并发数，发送线程池与消费线程数同步调整
+     *
+     * @param poolSize 发送线程池核心、最大线程数
+     */
+    public void resizeConcurrency(int poolSize) {
+        ThreadPoolResizeSupport.resize(consumeExecutor(), poolSize, poolSize);
+        DefaultMQPushConsumer consumer = pushConsumer;
+        if (messageConsumeConfig.getAckAfterSend() && consumer != null) {
+            consumer.getDefaultMQPushConsumerImpl().getConsumeMessageService().updateCorePoolSize(consumeThreads(poolSize));
+        }
+    }
+    
+    /**
+     * 发送完成后确认消费模式下发送线程池大小对应的消费线程数；
+     * 批量消费时每个消费线程一次向发送线程池提交一批消息，消费线程数按批量大小折算，保证同时提交的任务数不超过发送线程池容量
+     */
+    private int consumeThreads(int poolSize) {
+        return messageConsumeConfig.getBatchEnabled() ? Math.max(1, poolSize / messageConsumeConfig.getBatchSize()) : poolSize;
+    }
+    
+    /**
+     * 替换 RocketMQ Starter 注册的单条消息监听器为批量监听器，批量消费时 {@link RocketMQListener#onMessage} 不再被调用
+     */
+    private void enableBatchConsume(DefaultMQPushConsumer consumer) {
+        int batchSize = messageConsumeConfig.getBatchSize();
+        consumer.setConsumeMessageBatchMaxSize(batchSize);
+        consumer.setPullBatchSize(Math.max(consumer.getPullBatchSize(), batchSize));
+        consumer.setMessageListener((MessageListenerConcurrently) (messageExts, context) -> consumeBatch(messageExts));
+    }
+    
+    /**
+     * 批量消费消息发送事件
+     * <p>
+     * 幂等标识通过一次管道往返批量抢占，已撤回、已过期的消息直接丢弃，消息模板通过一次 MGET 批量读取；
+     * 选中支持多号码合并发送渠道的短信按渠道、来源、模板以及参数分组，每组按渠道商上限拆分为多号码请求，其余消息逐条并发提交到发送线程池；
+     * 存在其它线程正在消费或线程池拒绝的消息时整批稍后重新投递，已完成的消息在重新投递时根据幂等标识跳过
+     *
+     * @param messageExts RocketMQ 消息集合
+     * @return 消费结果
+     */
+    protected ConsumeConcurrentlyStatus consumeBatch(List<MessageExt> messageExts) {
+        List<MessageSendEvent> messageSendEvents = new ArrayList<>(messageExts.size());
+        boolean reconsumeLater = false;
+        for (MessageExt each : messageExts) {
+            MessageSendEvent messageSendEvent;
+            try {
+                messageSendEvent = JSON.parseObject(each.getBody(), MessageSendEvent.class);
+            } catch (Throwable ex) {
+                log.error("消息发送事件解析失败，RocketMQ 消息ID：{}", each.getMsgId(), ex);
+                continue;
+            }
+            try {
+                if (!deferSchedule(messageSendEvent)) {
+                    messageSendEvents.add(messageSendEvent);
+                }
+            } catch (ServiceException ex) {
+                log.error(ex.getMessage());
+                reconsumeLater = true;
+            }
+        }
+        List<MessageConsumeClaimStatusEnum> claimStatuses = messageSendIdempotentHandler.batchClaim(msgIds(messageSendEvents));
+        List<MessageSendEvent> claimedEvents = new ArrayList<>(messageSendEvents.size());
+        Set<String> templateIds = new HashSet<>();
+        List<String> discardedMsgIds = new ArrayList<>();
+        for (int i = 0; i < messageSendEvents.size(); i++) {
+            MessageConsumeClaimStatusEnum claimStatus = claimStatuses.get(i);
+            if (claimStatus == MessageConsumeClaimStatusEnum.CLAIMED) {
+                MessageSendEvent messageSendEvent = messageSendEvents.get(i);
+                if (messageCancelTombstoneStore.isCanceled(messageSendEvent)) {
+                    cancel(messageSendEvent);
+                    discardedMsgIds.add(messageSendEvent.getMsgId());
+                    continue;
+                }
+                if (isExpired(messageSendEvent)) {
+                    expire(messageSendEvent);
+                    discardedMsgIds.add(messageSendEvent.getMsgId());
+                    continue;
+                }
+                claimedEvents.add(messageSendEvent);
+                templateIds.add(messageSendEvent.getMessageSendRequest().getTemplateId());
+            } else if (claimStatus == MessageConsumeClaimStatusEnum.CONSUMING) {
+                reconsumeLater = true;
+            }
+        }
+        messageSendIdempotentHandler.batchMarkConsumed(discardedMsgIds);
+        if (claimedEvents.isEmpty()) {
+            return reconsumeLater ? ConsumeConcurrentlyStatus.RECONSUME_LATER : ConsumeConcurrentlyStatus.CONSUME_SUCCESS;
+        }
+        
+        Map<String, TemplateConfigDO> templateMap;
+        try {
+            templateMap = channelConfigLoader.listTemplates(templateIds);
+        } catch (Throwable ex) {
+            log.error("批量加载消息模板失败，等待重新投递", ex);
+            messageSendIdempotentHandler.batchRelease(msgIds(claimedEvents));
+            return ConsumeConcurrentlyStatus.RECONSUME_LATER;
+        }
+        
+        ThreadPoolExecutor executor = consumeExecutor();
+        List<String> submittedMsgIds = new ArrayList<>(claimedEvents.size());
+        List<String> rejectedMsgIds = new ArrayList<>();
+        List<Future<?>> futures = new ArrayList<>(claimedEvents.size());
+        List<String> futureMsgIds = new ArrayList<>(claimedEvents.size());
+        Map<String, List<MessageSendEvent>> mergeGroups = new LinkedHashMap<>();
+        Map<String, MessageBatchSendService> mergeServices = new HashMap<>();
+        for (MessageSendEvent each : claimedEvents) {
+            TemplateConfigDO template = templateMap.get(each.getMessageSendRequest().getTemplateId());
+            MessageBatchSendService messageBatchSendService = selectBatchSendService(each, template);
+            if (messageBatchSendService == null) {
+                List<MessageSendEvent> single = Collections.singletonList(each);
+                submit(executor, single, () -> timedSendMessage(each, template), futures, futureMsgIds, submittedMsgIds, rejectedMsgIds);
+                continue;
+            }
+            String mergeKey = buildMergeKey(each);
+            mergeGroups.computeIfAbsent(mergeKey, key -> new ArrayList<>()).add(each);
+            mergeServices.putIfAbsent(mergeKey, messageBatchSendService);
+        }
+        mergeGroups.forEach((mergeKey, group) -> {
+            MessageBatchSendService messageBatchSendService = mergeServices.get(mergeKey);
+            for (List<MessageSendEvent> each : splitMergeRequests(group, messageBatchSendService.maxBatchSize())) {
+                submit(executor, each, () -> timedSendMergedMessages(each, messageBatchSendService), futures, futureMsgIds, submittedMsgIds, rejectedMsgIds);
+            }
+        });
+        if (messageConsumeConfig.getAckAfterSend()) {
+            awaitBatch(futures, futureMsgIds);
+        }
+        messageSendIdempotentHandler.batchMarkConsumed(submittedMsgIds);
+        if (!rejectedMsgIds.isEmpty()) {
+            log.warn("消息发送线程池已饱和，{} 条消息等待重新投递", rejectedMsgIds.size());
+            messageSendIdempotentHandler.batchRelease(rejectedMsgIds);
+            reconsumeLater = true;
+        }
+        return reconsumeLater ? ConsumeConcurrentlyStatus.RECONSUME_LATER : ConsumeConcurrentlyStatus.CONSUME_SUCCESS;
+    }
+    
+    /**
+     * 等待一批消息发送完成，所有消息共用一个发送超时时间
+     */
+    private void awaitBatch(List<Future<?>> futures, List<String> msgIds) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(messageConsumeConfig.getSendTimeoutMillis());
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                futures.get(i).get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException ex) {
+                // 发送仍在执行，重新投递会导致重复发送，这里只释放消费线程
+                log.warn("等待消息发送完成超时，消息ID：{}", msgIds.get(i));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException ex) {
+                log.error("消息发送任务执行失败，消息ID：{}", msgIds.get(i), ex.getCause());
+            }
+        }
+    }
+    
+    /**
+     * 提交一个发送任务，合并发送的任务包含多条消息，线程池拒绝时任务内所有消息等待重新投递
+     */
+    private void submit(ThreadPoolExecutor executor, List<MessageSendEvent> messageSendEvents, Runnable task,
+                        List<Future<?>> futures, List<String> futureMsgIds, List<String> submittedMsgIds, List<String> rejectedMsgIds) {
+        List<String> msgIds = msgIds(messageSendEvents);
+        try {
+            futures.add(executor.submit(task));
+            futureMsgIds.add(String.join(",", msgIds));
+            submittedMsgIds.addAll(msgIds);
+        } catch (RejectedExecutionException ex) {
+            rejectedMsgIds.addAll(msgIds);
+        }
+    }
+    
+    /**
+     * 预先为短信消息选择发送渠道，渠道商支持多号码合并发送时返回对应的合并发送服务，否则返回空，由单条发送流程重新选择渠道
+     */
+    private MessageBatchSendService selectBatchSendService(MessageSendEvent messageSendEvent, TemplateConfigDO template) {
+        if (template == null || !SMS_MESSAGE_CHANNELS.contains(messageSendEvent.getMessageSendRequest().getMsgType())) {
+            return null;
+        }
+        try {
+            messageSendEvent.setSmsOptionalChannels(StrUtil.split(template.getChannelIds(), ","));
+            MessageSendService messageSendService = messageSendChannelSelector.select(messageSendEvent);
+            return messageSendService instanceof MessageBatchSendService ? (MessageBatchSendService) messageSendService : null;
+        } catch (Throwable ex) {
+            log.warn("预选短信发送渠道失败，按单条消息发送，消息ID：{}", messageSendEvent.getMsgId(), ex);
+            return null;
+        }
+    }
+    
+    /**
+     * 合并发送标识：渠道 + 来源 + 模板 + 模板参数，标识相同的消息发送内容相同
+     */
+    private static String buildMergeKey(MessageSendEvent messageSendEvent) {
+        MessageSendRequestDTO messageSendRequest = messageSendEvent.getMessageSendRequest();
+        return StrUtil.join("|",
+                messageSendEvent.getCurrentSendChannel(),
+                messageSendRequest.getSourceId(),
+                messageSendRequest.getTemplateId(),
+                JSON.toJSONString(messageSendRequest.getParamList()));
+    }
+    
+    /**
+     * 拆分为多个合并请求：单请求号码数不超过渠道商上限，且同一请求内接收者不重复，否则无法将结果映射回消息
+     */
+    private static List<List<MessageSendEvent>> splitMergeRequests(List<MessageSendEvent> mergeGroup, int maxBatchSize) {
+        List<List<MessageSendEvent>> requests = new ArrayList<>();
+        List<Set<String>> requestReceivers = new ArrayList<>();
+        for (MessageSendEvent each : mergeGroup) {
+            String receiver = each.getMessageSendRequest().getReceiver();
+            int idx = 0;
+            while (idx < requests.size()
+                    && (requests.get(idx).size() >= maxBatchSize || requestReceivers.get(idx).contains(receiver))) {
+                idx++;
+            }
+            if (idx == requests.size()) {
+                requests.add(new ArrayList<>());
+                requestReceivers.add(new HashSet<>());
+            }
+            requests.get(idx).add(each);
+            requestReceivers.get(idx).add(receiver);
+        }
+        return requests;
+    }
+    
+    private static List<String> msgIds(List<MessageSendEvent> messageSendEvents) {
+        List<String> msgIds = new ArrayList<>(messageSendEvents.size());
+        messageSendEvents.forEach(each -> msgIds.add(each.getMsgId()));
+        return msgIds;
+    }
+    
+    /**
+     * 消费消息发送事件
+     * <p>
+     * 先按消息ID抢占消费权，重复投递的消息直接跳过，已撤回、已过期的消息直接丢弃；
+     * 发送完成后确认消费模式下，消费线程阻塞等待发送完成后再返回，RocketMQ 才会提交消费位点；
+     * 线程池拒绝时释放消费权并抛出异常，消息由 RocketMQ 稍后重新投递，不会在应用内存中丢失
+     *
+     * @param messageSendEvent 消息发送事件
+     */
+    protected void consume(MessageSendEvent messageSendEvent) {
+        if (deferSchedule(messageSendEvent)) {
+            return;
+        }
+        String msgId = messageSendEvent.getMsgId();
+        MessageConsumeClaimStatusEnum claimStatus = messageSendIdempotentHandler.claim(msgId);
+        if (claimStatus == MessageConsumeClaimStatusEnum.CONSUMED) {
+            log.info("消息已消费，跳过重复投递，消息ID：{}", msgId);
+            return;
+        }
+        if (claimStatus == MessageConsumeClaimStatusEnum.CONSUMING) {
+            throw new ServiceException(String.format("消息正在消费中，等待重新投递，消息ID：%s", msgId));
+        }
+        if (messageCancelTombstoneStore.isCanceled(messageSendEvent)) {
+            // 撤回消息不加载模板也不占用发送线程池，在消费线程内直接丢弃
+            cancel(messageSendEvent);
+            messageSendIdempotentHandler.markConsumed(msgId);
+            return;
+        }
+        if (isExpired(messageSendEvent)) {
+            // 过期消息不占用发送线程池，在消费线程内直接丢弃
+            expire(messageSendEvent);
+            messageSendIdempotentHandler.markConsumed(msgId);
+            return;
+        }
+        ThreadPoolExecutor executor = consumeExecutor();
+        Future<?> future;
+        try {
+            future = executor.submit(() -> timedSendMessage(messageSendEvent));
+        } catch (RejectedExecutionException ex) {
+            messageSendIdempotentHandler.batchRelease(Collections.singletonList(msgId));
+            throw new ServiceException(String.format("消息发送线程池已饱和，等待重新投递，消息ID：%s", msgId));
+        }
+        try {
+            if (messageConsumeConfig.getAckAfterSend()) {
+                future.get(messageConsumeConfig.getSendTimeoutMillis(), TimeUnit.MILLISECONDS);
+            }
+        } catch (TimeoutException ex) {
+            // 发送仍在执行，重新投递会导致重复发送，这里只释放消费线程
+            log.warn("等待消息发送完成超时，消息ID：{}", msgId);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ServiceException(String.format("等待消息发送完成被中断，消息ID：%s", msgId));
+        } catch (ExecutionException ex) {
+            log.error("消息发送任务执行失败，消息ID：{}", msgId, ex.getCause());
+        } finally {
+            // 消息已提交到发送线程池，无论是否等待到发送结果，重新投递时都不再发送
+            messageSendIdempotentHandler.markConsumed(msgId);
+        }
+    }
+    
+    /**
+     * 处理定时消息：RocketMQ 延时级别固定，消息可能早于定时发送时间到达，按剩余时间再次延时投递到当前通道；
+     * 已撤回的定时消息不再延时，继续由消费流程按撤回丢弃
+     *
+     * @param messageSendEvent 消息发送事件
+     * @return 消息是否已被再次延时，无需继续发送
+     */
+    private boolean deferSchedule(MessageSendEvent messageSendEvent) {
+        Date sendAt = messageSendEvent.getMessageSendRequest().getSendAt();
+        if (sendAt == null || messageCancelTombstoneStore.isCanceled(messageSendEvent)) {
+            return false;
+        }
+        String msgId = messageSendEvent.getMsgId();
+        long remainingMillis = sendAt.getTime() - System.currentTimeMillis();
+        int delayLevel = RocketMQDelayLevelSupport.floorLevel(remainingMillis);
+        if (remainingMillis <= messageScheduleConfig.getToleranceMillis() || delayLevel == 0) {
+            return false;
+        }
+        if (!messageCommonSendProduce.send(messageSendEvent, MESSAGE_COMMON_TOPIC, msgId, lane().getTag(), delayLevel)) {
+            throw new ServiceException(String.format("定时消息再次延时投递失败，等待重新投递，消息ID：%s", msgId));
+        }
+        return true;
+    }
+    
+    private boolean isExpired(MessageSendEvent messageSendEvent) {
+        if (messageSendEvent.getExpireTime() != null) {
+            return System.currentTimeMillis() >= messageSendEvent.getExpireTime();
+        }
+        return messageSendLaneConfig.isExpired(messageSendEvent.getMessageSendRequest().getMsgType(), messageSendEvent.getAcceptTime());
+    }
+    
+    /**
+     * 丢弃已过期的消息，不加载模板也不调用三方平台，只触发失败回调并保存过期状态的发送记录
+     *
+     * @param messageSendEvent 已过期的消息发送事件
+     */
+    private void expire(MessageSendEvent messageSendEvent) {
+        long waitMillis = System.currentTimeMillis() - messageSendEvent.getAcceptTime();
+        log.warn("消息等待发送时间超过有效期，直接丢弃，消息ID：{}，等待时间：{}ms", messageSendEvent.getMsgId(), waitMillis);
+        MessagePlatformSendResponseDTO sendResponse = MessagePlatformSendResponseDTO.builder()
+                .success(false)
+                .code(MESSAGE_EXPIRED_CODE)
+                .errMsg(String.format("消息已过期，等待发送时间：%dms", waitMillis))
+                .build();
+        mqAsyncCallback(messageSendEvent, sendResponse);
+        messageCampaignService.recordResult(messageSendEvent, false);
+        mqAsyncSendSaveMessage(messageSendEvent, sendResponse, MessageSendStatusEnum.EXPIRED);
+    }
+    
+    /**
+     * 丢弃已撤回的消息，不加载模板也不调用三方平台，只触发失败回调并保存已撤回状态的发送记录
+     *
+     * @param messageSendEvent 已撤回的消息发送事件
+     */
+    private void cancel(MessageSendEvent messageSendEvent) {
+        log.info("消息已撤回，直接丢弃，消息ID：{}", messageSendEvent.getMsgId());
+        MessagePlatformSendResponseDTO sendResponse = MessagePlatformSendResponseDTO.builder()
+                .success(false)
+                .code(MESSAGE_CANCELED_CODE)
+                .errMsg("消息已撤回")
+                .build();
+        mqAsyncCallback(messageSendEvent, sendResponse);
+        messageCampaignService.recordResult(messageSendEvent, false);
+        mqAsyncSendSaveMessage(messageSendEvent, sendResponse, MessageSendStatusEnum.CANCELED);
+    }
+    
+    private void timedSendMessage(MessageSendEvent messageSendEvent) {
+        timedSendMessage(messageSendEvent, null);
+    }
+    
+    private void timedSendMessage(MessageSendEvent messageSendEvent, TemplateConfigDO template) {
+        long start = System.nanoTime();
+        try {
+            sendMessage(messageSendEvent, template);
+        } finally {
+            messageSendLaneMonitor.recordSend(lane(), System.nanoTime() - start);
+        }
+    }
+    
+    private void timedSendMergedMessages(List<MessageSendEvent> messageSendEvents, MessageBatchSendService messageBatchSendService) {
+        long start = System.nanoTime();
+        try {
+            sendMergedMessages(messageSendEvents, messageBatchSendService);
+        } finally {
+            long elapsedNanos = System.nanoTime() - start;
+            messageSendEvents.forEach(each -> messageSendLaneMonitor.recordSend(lane(), elapsedNanos));
+        }
+    }
+    
+    /**
+     * 通过一次多号码请求发送相同内容的消息，发送渠道已在合并前选定
+     * <p>
+     * 与单条发送一致，发送失败且仍有备选渠道的消息切换渠道单独重试，随后每条消息分别回调、记录活动结果并保存发送记录
+     *
+     * @param messageSendEvents       发送内容相同且接收者不重复的消息发送事件集合
+     * @param messageBatchSendService 合并发送服务
+     */
+    protected void sendMergedMessages(List<MessageSendEvent> messageSendEvents, MessageBatchSendService messageBatchSendService) {
+        Map<String, MessagePlatformSendResponseDTO> sendResponses = Collections.emptyMap();
+        try {
+            sendResponses = messageBatchSendService.executeBatchResp(messageSendEvents);
+        } catch (Throwable ex) {
+            log.error("合并发送消息流程执行失败，消息ID：{}", msgIds(messageSendEvents), ex);
+        }
+        for (MessageSendEvent each : messageSendEvents) {
+            MessagePlatformSendResponseDTO sendResponse = sendResponses.get(each.getMsgId());
+            if ((sendResponse == null || !Boolean.TRUE.equals(sendResponse.getSuccess())) && CollUtil.isNotEmpty(each.getSmsOptionalChannels())) {
+                try {
+                    sendResponse = messageSendChannelSelector.select(each).send(each);
+                } catch (Throwable ex) {
+                    log.error("发送消息流程执行失败，消息入参：{}", JSON.toJSONString(each), ex);
+                }
+            }
+            completeSend(each, sendResponse);
+        }
+    }
+    
 
     /**
      * 消息发送入口方法
@@ -58,11 +568,21 @@ public abstract class AbstractMessageSendConsumer {
      * @param messageSendEvent 包含要发送的消息的信息的事件对象
      */
     public void sendMessage(MessageSendEvent messageSendEvent) {
+        sendMessage(messageSendEvent, null);
+    }
+    
+    /**
+     * 使用已加载的消息模板发送消息，模板为空时从缓存中获取
+     *
+     * @param messageSendEvent 包含要发送的消息的信息的事件对象
+     * @param template         已批量加载的消息模板
+     */
+    protected void sendMessage(MessageSendEvent messageSendEvent, TemplateConfigDO template) {
         MessagePlatformSendResponseDTO sendResponse = null;
         String templateId = messageSendEvent.getMessageSendRequest().getTemplateId();
         try {
             //从缓存中获取短信模版匹配信息
-            TemplateConfigDO smsMessageTemplates = distributedCache.safeGet(
+            TemplateConfigDO smsMessageTemplates = template != null ? template : distributedCache.safeGet(
                     MESSAGE_TEMPLATE_CACHE_PREFIX_KEY + templateId,
                     TemplateConfigDO.class,
                     () -> {
@@ -86,12 +606,24 @@ public abstract class AbstractMessageSendConsumer {
         } catch (Throwable ex) {
             log.error("发送消息流程执行失败，消息入参：{}", JSON.toJSONString(messageSendEvent), ex);
         }
+        completeSend(messageSendEvent, sendResponse);
+    }
+    
+    /**
+     * 消息发送完成后回调客户端、记录活动结果并保存发送记录
+     *
+     * @param messageSendEvent 发送消息的事件对象
+     * @param sendResponse     消息发送的结果，发送流程异常时为空
+     */
+    private void completeSend(MessageSendEvent messageSendEvent, MessagePlatformSendResponseDTO sendResponse) {
         // 通过 MQ 触发客户端消息发送结果回调
         mqAsyncCallback(messageSendEvent, sendResponse);
+        // 批量发送活动消息记录发送结果，用于查询活动进度
+        messageCampaignService.recordResult(messageSendEvent, sendResponse != null && Boolean.TRUE.equals(sendResponse.getSuccess()));
         // 消息发送后，保存发送结果到数据库。为什么还要发一个 MQ？
         // 1. 这样可以提高短信发送的吞吐量，使验证码短信更快让用户接到
         // 2. 减轻数据库操作压力，因为当前流程是通过线程池执行的，并发压力较大
-        mqAsyncSendSaveMessage(messageSendEvent, sendResponse);
+        mqAsyncSendSaveMessage(messageSendEvent, sendResponse, null);
     }
 
 
@@ -116,7 +648,7 @@ public abstract class AbstractMessageSendConsumer {
             String mqCallBackTypes = mqCallback.getType().toLowerCase();
 
             //判断是否执行失败
-            boolean executeFail = sendResponse == null || sendResponse.getSuccess();
+            boolean executeFail = sendResponse == null || !Boolean.TRUE.equals(sendResponse.getSuccess());
 
             //判断是否满足回调条件（根据回调类型和消息发送结果判断）
             boolean mqCallBackSendFlag = (Objects.equals(mqCallBackTypes, "all")
@@ -150,8 +682,9 @@ public abstract class AbstractMessageSendConsumer {
      *
      * @param messageSendEvent 发送消息的事件对象
      * @param sendResponse 消息发送的结果
+     * @param discardStatus 消息未发送直接丢弃时的状态，过期或撤回，正常发送时为空
      */
-    private void mqAsyncSendSaveMessage(MessageSendEvent messageSendEvent, MessagePlatformSendResponseDTO sendResponse) {
+    private void mqAsyncSendSaveMessage(MessageSendEvent messageSendEvent, MessagePlatformSendResponseDTO sendResponse, MessageSendStatusEnum discardStatus) {
         try {
             //构建保存消息发送结果的事件对象
             MessageSaveEvent messageSaveEvent = MessageSaveEvent.builder()
@@ -159,6 +692,8 @@ public abstract class AbstractMessageSendConsumer {
                     .messageSendRequest(messageSendEvent.getMessageSendRequest())
                     .msgId(messageSendEvent.getMsgId())
                     .currentSendChannel(messageSendEvent.getCurrentSendChannel())
+                    .expired(discardStatus == MessageSendStatusEnum.EXPIRED)
+                    .canceled(discardStatus == MessageSendStatusEnum.CANCELED)
                     .build();
 
             //将保存消息发送结果的事件对象发送到消息队列
@@ -3,25 +3,47 @@ package org.opengoofy.assault.messageservice.biz.mq.consumer;
 import com.alibaba.fastjson2.JSON;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.client.consumer.DefaultMQPushConsumer;
+import org.apache.rocketmq.client.consumer.listener.ConsumeConcurrentlyStatus;
+import org.apache.rocketmq.client.consumer.listener.MessageListenerConcurrently;
+import org.apache.rocketmq.common.message.MessageExt;
 import org.apache.rocketmq.spring.annotation.RocketMQMessageListener;
 import org.apache.rocketmq.spring.core.RocketMQListener;
+import org.apache.rocketmq.spring.core.RocketMQPushConsumerLifecycleListener;
 import org.opengoofy.assault.framework.starter.common.toolkit.BeanUtil;
+import org.opengoofy.assault.framework.starter.distributedid.SnowflakeIdUtil;
 import org.opengoofy.assault.framework.starter.idempotent.annotation.Idempotent;
 import org.opengoofy.assault.framework.starter.idempotent.enums.IdempotentSceneEnum;
 import org.opengoofy.assault.framework.starter.idempotent.enums.IdempotentTypeEnum;
 import org.opengoofy.assault.messageservice.api.dto.MessageSendRequestDTO;
+import org.opengoofy.assault.messageservice.biz.algorithm.ShardModel;
 import org.opengoofy.assault.messageservice.biz.common.MessageRocketMQConstants;
 import org.opengoofy.assault.messageservice.biz.common.MessageSendStatusEnum;
+import org.opengoofy.assault.messageservice.biz.config.MessageSaveConfig;
 import org.opengoofy.assault.messageservice.biz.dao.entity.SendRecordDO;
 import org.opengoofy.assault.messageservice.biz.dao.entity.SendRecordExtendDO;
 import org.opengoofy.assault.messageservice.biz.dao.mapper.SendRecordExtendMapper;
 import org.opengoofy.assault.messageservice.biz.dao.mapper.SendRecordMapper;
 import org.opengoofy.assault.messageservice.biz.dto.MessagePlatformSendResponseDTO;
+import org.opengoofy.assault.messageservice.biz.index.MessageReceiverIndex;
+import org.opengoofy.assault.messageservice.biz.job.receipt.MessageReceiptDTO;
+import org.opengoofy.assault.messageservice.biz.job.receipt.MessageReceiptPendingStore;
 import org.opengoofy.assault.messageservice.biz.mq.event.MessageSaveEvent;
+import org.opengoofy.assault.messageservice.biz.mq.save.SendRecordGroupCommitWriter;
+import org.opengoofy.assault.messageservice.biz.mq.save.SendRecordRow;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
 
 import static org.opengoofy.assault.messageservice.biz.common.MessageConstants.SMS_MESSAGE_CHANNELS;
 
@@ -29,6 +51,9 @@ import static org.opengoofy.assault.messageservice.biz.common.MessageConstants.S
  * 公共消息保存消费者，包括：短信、微信、企业微信、邮箱等
  *
  * RocketMQ消息消费者的处理方法，用于处理消息发送成功后的保存操作
+ * <p>
+ * 开启分组提交时替换为批量监听器，记录交给 {@link SendRecordGroupCommitWriter} 按分片表分组多行插入，分组提交后才确认消费；
+ * 关闭时按原方式逐条在事务内插入
  */
 @Slf4j
 @Component
@@ -44,10 +69,70 @@ import static org.opengoofy.assault.messageservice.biz.common.MessageConstants.S
  *
  * @param messageSaveEvent 消息保存事件对象
  */
-public class CommonMessageSaveConsumer implements RocketMQListener<MessageSaveEvent> {
+public class CommonMessageSaveConsumer implements RocketMQListener<MessageSaveEvent>, RocketMQPushConsumerLifecycleListener {
+    
+    /**
+     * 发送记录逻辑表名
+     */
+    private static final String SEND_RECORD_TABLE = "send_record";
     
     private final SendRecordMapper sendRecordMapper;
     private final SendRecordExtendMapper sendRecordExtendMapper;
+    private final SendRecordGroupCommitWriter sendRecordGroupCommitWriter;
+    private final MessageSaveConfig messageSaveConfig;
+    private final MessageReceiptPendingStore messageReceiptPendingStore;
+    private final MessageReceiverIndex messageReceiverIndex;
+    
+    /**
+     * 开启分组提交时替换 RocketMQ Starter 注册的单条消息监听器为批量监听器，{@link #onMessage} 不再被调用
+     */
+    @Override
+    public void prepareStart(DefaultMQPushConsumer consumer) {
+        if (!messageSaveConfig.getGroupCommitEnabled()) {
+            return;
+        }
+        int batchSize = messageSaveConfig.getConsumeBatchSize();
+        consumer.setConsumeMessageBatchMaxSize(batchSize);
+        consumer.setPullBatchSize(Math.max(consumer.getPullBatchSize(), batchSize));
+        consumer.setMessageListener((MessageListenerConcurrently) (messageExts, context) -> consumeBatch(messageExts));
+    }
+    
+    /**
+     * 批量保存消息发送记录，等待所有记录所在分组提交后再确认消费，提交失败或超时时整批稍后重新投递，
+     * 已提交的记录在重新投递时按消息ID跳过
+     *
+     * @param messageExts RocketMQ 消息集合
+     * @return 消费结果
+     */
+    private ConsumeConcurrentlyStatus consumeBatch(List<MessageExt> messageExts) {
+        List<SendRecordRow> rows = new ArrayList<>(messageExts.size());
+        for (MessageExt each : messageExts) {
+            try {
+                rows.add(toRow(JSON.parseObject(each.getBody(), MessageSaveEvent.class)));
+            } catch (Throwable ex) {
+                log.error("消息保存事件解析失败，RocketMQ 消息ID：{}", each.getMsgId(), ex);
+            }
+        }
+        List<String> receiptAppliedMsgIds = applyPendingReceipts(rows);
+        try {
+            // 先写接收者索引再插入记录，已保存的记录一定能按接收者查到
+            messageReceiverIndex.add(rows.stream().map(SendRecordRow::getSendRecord).collect(Collectors.toList()));
+        } catch (Throwable ex) {
+            log.error("接收者消息索引写入失败，{} 条消息等待重新投递", rows.size(), ex);
+            return ConsumeConcurrentlyStatus.RECONSUME_LATER;
+        }
+        try {
+            sendRecordGroupCommitWriter.submit(rows).get(messageSaveConfig.getCommitTimeoutMillis(), TimeUnit.MILLISECONDS);
+            removePendingReceipts(receiptAppliedMsgIds);
+            return ConsumeConcurrentlyStatus.CONSUME_SUCCESS;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return ConsumeConcurrentlyStatus.RECONSUME_LATER;
+        } catch (ExecutionException | TimeoutException ex) {
+            log.error("消息发送记录分组提交失败，{} 条消息等待重新投递", rows.size(), ex);
+            return ConsumeConcurrentlyStatus.RECONSUME_LATER;
+        }
+    }
     
     @Idempotent(
             uniqueKeyPrefix = "common_message_save:", // 幂等性键的前缀
@@ -60,34 +145,13 @@ public class CommonMessageSaveConsumer implements RocketMQListener<MessageSaveEv
     @Override
     public void onMessage(MessageSaveEvent messageSaveEvent) {
         try {
-            // 获取消息发送请求对象
-            MessageSendRequestDTO messageSendRequest = messageSaveEvent.getMessageSendRequest();
-
-            //获取消息发送平台的响应对象
-            MessagePlatformSendResponseDTO platformSendResponse = messageSaveEvent.getMessagePlatformSendResponse();
-
-            // 组装短信发送记录持久层实体 & 短信参数持久层实体
-            // 转换消息发送请求对象为发送记录实体
-            SendRecordDO sendRecordDO = BeanUtil.convert(messageSendRequest, SendRecordDO.class);
-            sendRecordDO.setSender(messageSaveEvent.getCurrentSendChannel()); // 设置消息发送渠道
-            sendRecordDO.setMsgId(messageSaveEvent.getMsgId()); // 设置消息ID
-            SendRecordExtendDO sendRecordExtendDO = SendRecordExtendDO.builder()
-                    .msgId(messageSaveEvent.getMsgId())
-                    .msgParam(messageSendRequest.getParamList().toString())
-                    .build();  // 构建消息参数的扩展信息实体
-            // 调用失败，记录调用三方平台失败信息
-            if (platformSendResponse != null && !platformSendResponse.getSuccess()) {
-                int failStatus = SMS_MESSAGE_CHANNELS.contains(messageSendRequest.getMsgType()) ? MessageSendStatusEnum.SUBMIT_FAIL.getCode() : MessageSendStatusEnum.SEND_FAIL.getCode();
-                sendRecordDO.setStatus(failStatus);// 设置发送状态为失败
-                sendRecordDO.setFailInfo(JSON.toJSONString(platformSendResponse)); // 记录失败信息
-            } else {
-                int successStatus = SMS_MESSAGE_CHANNELS.contains(messageSendRequest.getMsgType()) ? MessageSendStatusEnum.SEND_PROGRESS.getCode() : MessageSendStatusEnum.SEND_SUCCESS.getCode();
-                sendRecordDO.setStatus(successStatus);// 设置发送状态为成功
-            }
-            sendRecordDO.setSendTime(new Date());  // 设置发送时间
+            SendRecordRow row = toRow(messageSaveEvent);
+            List<String> receiptAppliedMsgIds = applyPendingReceipts(Collections.singletonList(row));
+            messageReceiverIndex.add(Collections.singletonList(row.getSendRecord()));
             try {
-                sendRecordMapper.insert(sendRecordDO);  // 将发送记录实体插入数据库
-                sendRecordExtendMapper.insert(sendRecordExtendDO);  // 将消息参数的扩展信息实体插入数据库
+                sendRecordMapper.insert(row.getSendRecord());  // 将发送记录实体插入数据库
+                sendRecordExtendMapper.insert(row.getSendRecordExtend());  // 将消息参数的扩展信息实体插入数据库
+                removePendingReceipts(receiptAppliedMsgIds);
             } catch (Exception ex) {
                 log.error("保存消息发送&参数记录错误，错误信息：{}", ex.getMessage());
             }
@@ -95,4 +159,102 @@ public class CommonMessageSaveConsumer implements RocketMQListener<MessageSaveEv
             log.error("消息入库流程执行失败", ex);
         }
     }
+    
+    /**
+     * 读取先于发送记录到达的暂存回执，接收者一致且消息已提交渠道商时以回执状态插入，回执不再需要额外的 UPDATE；
+     * 读取暂存回执失败时按原状态插入，回执由重试队列兜底更新
+     *
+     * @param rows 待保存的记录
+     * @return 已写入回执状态的消息ID
+     */
+    private List<String> applyPendingReceipts(List<SendRecordRow> rows) {
+        List<String> appliedMsgIds = new ArrayList<>();
+        Map<String, MessageReceiptDTO> pendingReceipts;
+        try {
+            pendingReceipts = messageReceiptPendingStore.get(rows.stream().map(each -> each.getSendRecord().getMsgId()).collect(Collectors.toList()));
+        } catch (Throwable ex) {
+            log.error("读取暂存短信回执失败", ex);
+            return appliedMsgIds;
+        }
+        for (SendRecordRow each : rows) {
+            SendRecordDO sendRecordDO = each.getSendRecord();
+            MessageReceiptDTO receipt = pendingReceipts.get(sendRecordDO.getMsgId());
+            if (receipt == null
+                    || !Objects.equals(sendRecordDO.getStatus(), MessageSendStatusEnum.SEND_PROGRESS.getCode())
+                    || !Objects.equals(sendRecordDO.getReceiver(), receipt.getReceiver())) {
+                continue;
+            }
+            sendRecordDO.setStatus(receipt.getStatus());
+            if (receipt.getSender() != null) {
+                sendRecordDO.setSender(receipt.getSender());
+            }
+            sendRecordDO.setReceiptTime(receipt.getReceiptTime());
+            appliedMsgIds.add(sendRecordDO.getMsgId());
+        }
+        return appliedMsgIds;
+    }
+    
+    /**
+     * 发送记录插入后删除已写入的暂存回执，删除失败时暂存回执过期后自动清理
+     */
+    private void removePendingReceipts(List<String> receiptAppliedMsgIds) {
+        try {
+            messageReceiptPendingStore.markApplied(receiptAppliedMsgIds);
+        } catch (Throwable ex) {
+            log.error("删除暂存短信回执失败", ex);
+        }
+    }
+    
+    /**
+     * 组装消息发送记录与参数记录
+     * <p>
+     * 创建时间取消息ID中的雪花时间戳，保证按创建时间写入与按消息ID查询路由到同一分片表，重复投递时分片表也不变
+     *
+     * @param messageSaveEvent 消息保存事件对象
+     * @return 待保存的记录
+     */
+    private SendRecordRow toRow(MessageSaveEvent messageSaveEvent) {
+        // 获取消息发送请求对象
+        MessageSendRequestDTO messageSendRequest = messageSaveEvent.getMessageSendRequest();
+
+        //获取消息发送平台的响应对象
+        MessagePlatformSendResponseDTO platformSendResponse = messageSaveEvent.getMessagePlatformSendResponse();
+
+        // 组装短信发送记录持久层实体 & 短信参数持久层实体
+        // 转换消息发送请求对象为发送记录实体
+        SendRecordDO sendRecordDO = BeanUtil.convert(messageSendRequest, SendRecordDO.class);
+        sendRecordDO.setSender(messageSaveEvent.getCurrentSendChannel()); // 设置消息发送渠道
+        sendRecordDO.setMsgId(messageSaveEvent.getMsgId()); // 设置消息ID
+        SendRecordExtendDO sendRecordExtendDO = SendRecordExtendDO.builder()
+                .msgId(messageSaveEvent.getMsgId())
+                .msgParam(messageSendRequest.getParamList().toString())
+                .build();  // 构建消息参数的扩展信息实体
+        // 消息过期丢弃，未调用三方平台
+        if (Boolean.TRUE.equals(messageSaveEvent.getExpired())) {
+            sendRecordDO.setStatus(MessageSendStatusEnum.EXPIRED.getCode());
+            sendRecordDO.setFailInfo(JSON.toJSONString(platformSendResponse));
+        } else if (Boolean.TRUE.equals(messageSaveEvent.getCanceled())) {
+            // 消息已撤回，未调用三方平台
+            sendRecordDO.setStatus(MessageSendStatusEnum.CANCELED.getCode());
+            sendRecordDO.setFailInfo(JSON.toJSONString(platformSendResponse));
+        } else if (platformSendResponse != null && !platformSendResponse.getSuccess()) {
+            // 调用失败，记录调用三方平台失败信息
+            int failStatus = SMS_MESSAGE_CHANNELS.contains(messageSendRequest.getMsgType()) ? MessageSendStatusEnum.SUBMIT_FAIL.getCode() : MessageSendStatusEnum.SEND_FAIL.getCode();
+            sendRecordDO.setStatus(failStatus);// 设置发送状态为失败
+            sendRecordDO.setFailInfo(JSON.toJSONString(platformSendResponse)); // 记录失败信息
+        } else {
+            int successStatus = SMS_MESSAGE_CHANNELS.contains(messageSendRequest.getMsgType()) ? MessageSendStatusEnum.SEND_PROGRESS.getCode() : MessageSendStatusEnum.SEND_SUCCESS.getCode();
+            sendRecordDO.setStatus(successStatus);// 设置发送状态为成功
+        }
+        if (platformSendResponse != null && platformSendResponse.getBillingCount() != null) {
+            sendRecordDO.setBillingCount(platformSendResponse.getBillingCount()); // 记录三方平台计费条数
+        }
+        sendRecordDO.setSendTime(new Date());  // 设置发送时间
+        Date createTime = new Date(SnowflakeIdUtil.parseSnowflakeId(Long.parseLong(messageSaveEvent.getMsgId())).getTimestamp());
+        sendRecordDO.setId(SnowflakeIdUtil.nextId());
+        sendRecordDO.setCreateTime(createTime);
+        sendRecordExtendDO.setId(SnowflakeIdUtil.nextId());
+        sendRecordExtendDO.setCreateTime(createTime);
+        return new SendRecordRow(ShardModel.quarterlyModel(SEND_RECORD_TABLE, createTime), sendRecordDO, sendRecordExtendDO);
+    }
 }
@@ -0,0 +1,74 @@
+package org.opengoofy.assault.messageservice.biz.mq.consumer;
+
+import com.alibaba.fastjson2.JSON;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.client.consumer.DefaultMQPushConsumer;
+import org.apache.rocketmq.client.consumer.listener.ConsumeConcurrentlyStatus;
+import org.apache.rocketmq.client.consumer.listener.MessageListenerConcurrently;
+import org.apache.rocketmq.common.message.MessageExt;
+import org.apache.rocketmq.spring.annotation.RocketMQMessageListener;
+import org.apache.rocketmq.spring.core.RocketMQListener;
+import org.apache.rocketmq.spring.core.RocketMQPushConsumerLifecycleListener;
+import org.opengoofy.assault.messageservice.biz.common.MessageRocketMQConstants;
+import org.opengoofy.assault.messageservice.biz.config.MessageReceiptPushConfig;
+import org.opengoofy.assault.messageservice.biz.job.receipt.MessageReceiptDTO;
+import org.opengoofy.assault.messageservice.biz.job.receipt.MessageReceiptUpdater;
+import org.opengoofy.assault.messageservice.biz.mq.event.MessageReceiptEvent;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 短信回执推送消费者
+ * <p>
+ * 替换为批量监听器，一次消费的多个推送事件合并后由 {@link MessageReceiptUpdater} 按分片表批量更新，更新失败时整批稍后重新投递
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@RocketMQMessageListener(
+        topic = MessageRocketMQConstants.MESSAGE_COMMON_TOPIC,
+        selectorExpression = MessageRocketMQConstants.SMS_MESSAGE_RECEIPT_TAG,
+        consumerGroup = MessageRocketMQConstants.SMS_MESSAGE_RECEIPT_CG
+)
+public class MessageReceiptConsumer implements RocketMQListener<MessageReceiptEvent>, RocketMQPushConsumerLifecycleListener {
+    
+    private final MessageReceiptUpdater messageReceiptUpdater;
+    private final MessageReceiptPushConfig messageReceiptPushConfig;
+    
+    @Override
+    public void prepareStart(DefaultMQPushConsumer consumer) {
+        int batchSize = messageReceiptPushConfig.getConsumeBatchSize();
+        consumer.setConsumeMessageBatchMaxSize(batchSize);
+        consumer.setPullBatchSize(Math.max(consumer.getPullBatchSize(), batchSize));
+        consumer.setMessageListener((MessageListenerConcurrently) (messageExts, context) -> consumeBatch(messageExts));
+    }
+    
+    private ConsumeConcurrentlyStatus consumeBatch(List<MessageExt> messageExts) {
+        List<MessageReceiptDTO> receipts = new ArrayList<>();
+        for (MessageExt each : messageExts) {
+            try {
+                receipts.addAll(JSON.parseObject(each.getBody(), MessageReceiptEvent.class).getReceipts());
+            } catch (Throwable ex) {
+                log.error("短信回执推送事件解析失败，RocketMQ 消息ID：{}", each.getMsgId(), ex);
+            }
+        }
+        try {
+            messageReceiptUpdater.apply(receipts);
+            return ConsumeConcurrentlyStatus.CONSUME_SUCCESS;
+        } catch (Throwable ex) {
+            log.error("短信回执推送更新失败，{} 条回执等待重新投递", receipts.size(), ex);
+            return ConsumeConcurrentlyStatus.RECONSUME_LATER;
+        }
+    }
+    
+    /**
+     * 批量监听器替换后不再被调用
+     */
+    @Override
+    public void onMessage(MessageReceiptEvent messageReceiptEvent) {
+        messageReceiptUpdater.apply(messageReceiptEvent.getReceipts());
+    }
+}
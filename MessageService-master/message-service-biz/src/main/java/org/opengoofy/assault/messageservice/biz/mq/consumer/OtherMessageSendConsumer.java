@@ -4,20 +4,18 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.rocketmq.spring.annotation.RocketMQMessageListener;
 import org.apache.rocketmq.spring.core.RocketMQListener;
-import org.opengoofy.assault.framework.starter.idempotent.annotation.Idempotent;
-import org.opengoofy.assault.framework.starter.idempotent.enums.IdempotentSceneEnum;
-import org.opengoofy.assault.framework.starter.idempotent.enums.IdempotentTypeEnum;
 import org.opengoofy.assault.messageservice.biz.common.MessageRocketMQConstants;
+import org.opengoofy.assault.messageservice.biz.common.MessageSendLaneEnum;
 import org.opengoofy.assault.messageservice.biz.mq.event.MessageSendEvent;
 import org.springframework.stereotype.Component;
 
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
 
 /**
  * 其它消息发送消费者
  *该类是处理其它类型消息发送的消息消费者
+ * <p>
+ * 各消息类型已拆分为独立的发送通道，该消费者仅用于消费拆分前已投递到其它消息 TAG 的消息
  */
 @Slf4j
 @Component
@@ -34,21 +32,24 @@ public class OtherMessageSendConsumer extends AbstractMessageSendConsumer implem
 
 
     /**
-     * 消息处理方法，当有其它类型消息到来时，将消息交给线程池异步处理。
-     * 方法上使用了@Idempotent注解，确保消息的幂等性。
+     * 消息处理方法，当有其它类型消息到来时，将消息交给线程池处理，并等待发送完成。
+     * 消息幂等由 {@link AbstractMessageSendConsumer#consume} 按消息ID保证。
      *
      * @param messageSendEvent 待处理的消息事件对象
      */
-    @Idempotent(
-            uniqueKeyPrefix = "other_message_send:",
-            key = "#messageSendEvent.msgId+'_'+#messageSendEvent.hashCode()",
-            type = IdempotentTypeEnum.SPEL,
-            scene = IdempotentSceneEnum.MQ,
-            keyTimeout = 7200L
-    )
     @Override
     public void onMessage(MessageSendEvent messageSendEvent) {
-        //将消息处理任务交给线程池异步处理
-        otherMessageConsumeDynamicExecutor.execute(() -> sendMessage(messageSendEvent));
+        //将消息处理任务交给线程池处理，发送完成后再确认消费
+        consume(messageSendEvent);
+    }
+    
+    @Override
+    protected ThreadPoolExecutor consumeExecutor() {
+        return otherMessageConsumeDynamicExecutor;
+    }
+    
+    @Override
+    public MessageSendLaneEnum lane() {
+        return MessageSendLaneEnum.OTHER;
     }
 }
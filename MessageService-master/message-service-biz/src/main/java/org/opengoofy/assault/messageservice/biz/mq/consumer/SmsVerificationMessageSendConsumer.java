@@ -4,10 +4,8 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.rocketmq.spring.annotation.RocketMQMessageListener;
 import org.apache.rocketmq.spring.core.RocketMQListener;
-import org.opengoofy.assault.framework.starter.idempotent.annotation.Idempotent;
-import org.opengoofy.assault.framework.starter.idempotent.enums.IdempotentSceneEnum;
-import org.opengoofy.assault.framework.starter.idempotent.enums.IdempotentTypeEnum;
 import org.opengoofy.assault.messageservice.biz.common.MessageRocketMQConstants;
+import org.opengoofy.assault.messageservice.biz.common.MessageSendLaneEnum;
 import org.opengoofy.assault.messageservice.biz.mq.event.MessageSendEvent;
 import org.springframework.stereotype.Component;
 
@@ -31,21 +29,24 @@ public class SmsVerificationMessageSendConsumer extends AbstractMessageSendConsu
     private final ThreadPoolExecutor smsVerificationMessageConsumeDynamicExecutor;
 
     /**
-     * 消息处理方法，当有短信验证码类型消息到来时，将消息交给线程池异步处理。
-     * 方法上使用了@Idempotent注解，确保消息的幂等性。
+     * 消息处理方法，当有短信验证码类型消息到来时，将消息交给线程池处理，并等待发送完成。
+     * 消息幂等由 {@link AbstractMessageSendConsumer#consume} 按消息ID保证。
      *
      * @param messageSendEvent 待处理的消息事件对象
      */
-    @Idempotent(
-            uniqueKeyPrefix = "sms_verification_message_send:",
-            key = "#messageSendEvent.msgId+'_'+#messageSendEvent.hashCode()",
-            type = IdempotentTypeEnum.SPEL,
-            scene = IdempotentSceneEnum.MQ,
-            keyTimeout = 7200L
-    )
     @Override
     public void onMessage(MessageSendEvent messageSendEvent) {
-        // 将消息处理任务交给线程池异步处理
-        smsVerificationMessageConsumeDynamicExecutor.execute(() -> sendMessage(messageSendEvent));
+        // 将消息处理任务交给线程池处理，发送完成后再确认消费
+        consume(messageSendEvent);
+    }
+    
+    @Override
+    protected ThreadPoolExecutor consumeExecutor() {
+        return smsVerificationMessageConsumeDynamicExecutor;
+    }
+    
+    @Override
+    public MessageSendLaneEnum lane() {
+        return MessageSendLaneEnum.VERIFICATION;
     }
 }
@@ -0,0 +1,52 @@
+package org.opengoofy.assault.messageservice.biz.mq.consumer;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.spring.annotation.RocketMQMessageListener;
+import org.apache.rocketmq.spring.core.RocketMQListener;
+import org.opengoofy.assault.messageservice.biz.common.MessageRocketMQConstants;
+import org.opengoofy.assault.messageservice.biz.common.MessageSendLaneEnum;
+import org.opengoofy.assault.messageservice.biz.mq.event.MessageSendEvent;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 微信模板消息发送消费者
+ * 该类是处理微信模板类型消息发送的消息消费者
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@RocketMQMessageListener(
+        topic = MessageRocketMQConstants.MESSAGE_COMMON_TOPIC,
+        selectorExpression = MessageRocketMQConstants.WECHAT_MESSAGE_SEND_TAG,
+        consumerGroup = MessageRocketMQConstants.WECHAT_MESSAGE_SEND_CG
+)
+public class WeChatMessageSendConsumer extends AbstractMessageSendConsumer implements RocketMQListener<MessageSendEvent> {
+    
+    // 线程池，用于处理微信模板消息的消费
+    private final ThreadPoolExecutor weChatMessageConsumeDynamicExecutor;
+    
+    /**
+     * 消息处理方法，当有微信模板类型消息到来时，将消息交给线程池处理，并等待发送完成。
+     * 消息幂等由 {@link AbstractMessageSendConsumer#consume} 按消息ID保证。
+     *
+     * @param messageSendEvent 待处理的消息事件对象
+     */
+    @Override
+    public void onMessage(MessageSendEvent messageSendEvent) {
+        // 将消息处理任务交给线程池处理，发送完成后再确认消费
+        consume(messageSendEvent);
+    }
+    
+    @Override
+    protected ThreadPoolExecutor consumeExecutor() {
+        return weChatMessageConsumeDynamicExecutor;
+    }
+    
+    @Override
+    public MessageSendLaneEnum lane() {
+        return MessageSendLaneEnum.WECHAT;
+    }
+}
@@ -0,0 +1,29 @@
+package org.opengoofy.assault.messageservice.biz.mq.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.opengoofy.assault.messageservice.biz.job.receipt.MessageReceiptDTO;
+
+import java.util.List;
+
+/**
+ * 短信回执推送事件
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessageReceiptEvent {
+    
+    /**
+     * 推送回执的渠道商
+     */
+    private String vendor;
+    
+    /**
+     * 回执集合
+     */
+    private List<MessageReceiptDTO> receipts;
+}
@@ -35,4 +35,14 @@ public class MessageSaveEvent {
      * 消息实际发送三方平台响应实体
      */
     private MessagePlatformSendResponseDTO messagePlatformSendResponse;
+    
+    /**
+     * 消息是否因超过有效期被丢弃
+     */
+    private Boolean expired;
+    
+    /**
+     * 消息是否因撤回被丢弃
+     */
+    private Boolean canceled;
 }
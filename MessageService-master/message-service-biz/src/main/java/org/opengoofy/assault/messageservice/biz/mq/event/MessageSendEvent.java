@@ -27,6 +27,16 @@ public class MessageSendEvent {
      */
     private MessageSendRequestDTO messageSendRequest;
     
+    /**
+     * 消息接收时间戳，单位毫秒，用于判断消息是否已过期
+     */
+    private Long acceptTime;
+    
+    /**
+     * 消息过期时间戳，单位毫秒，不为空时优先于发送通道有效期判断消息是否已过期
+     */
+    private Long expireTime;
+    
     /**
      * 短信发送可选择的渠道，短信消息专属
      */
@@ -0,0 +1,22 @@
+package org.opengoofy.assault.messageservice.biz.mq.idempotent;
+
+/**
+ * 消息消费幂等抢占结果枚举
+ */
+public enum MessageConsumeClaimStatusEnum {
+    
+    /**
+     * 抢占成功，可以消费
+     */
+    CLAIMED,
+    
+    /**
+     * 其它消费线程正在消费，需要稍后重试
+     */
+    CONSUMING,
+    
+    /**
+     * 已消费完成，直接跳过
+     */
+    CONSUMED
+}
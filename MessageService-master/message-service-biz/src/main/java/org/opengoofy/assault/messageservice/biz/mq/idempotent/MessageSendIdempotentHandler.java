@@ -0,0 +1,254 @@
+package org.opengoofy.assault.messageservice.biz.mq.idempotent;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.opengoofy.assault.framework.starter.cache.DistributedCache;
+import org.opengoofy.assault.framework.starter.convention.exception.ServiceException;
+import org.opengoofy.assault.messageservice.biz.config.MessageConsumeConfig;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.opengoofy.assault.messageservice.biz.common.MessageCacheConstants.MESSAGE_SEND_IDEMPOTENT_PREFIX_KEY;
+import static org.opengoofy.assault.messageservice.biz.common.MessageCacheConstants.MESSAGE_SEND_IDEMPOTENT_TIMOUT;
+
+/**
+ * 消息发送消费幂等处理器
+ * <p>
+ * 以消息ID为幂等标识，消费前 SETNX 写入消费中状态，消费完成后更新为已消费，Redis 为唯一判定依据：
+ * <ul>
+ *     <li>本地布隆过滤器记录本实例处理过的消息ID，可能命中时说明大概率为重复投递，直接同步查询 Redis 确认</li>
+ *     <li>一定未命中的消息由后台线程把并发到达的抢占请求合并为一次管道往返，已消费标记同样合并写入</li>
+ *     <li>批量消费时所有命令通过管道一次往返完成</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MessageSendIdempotentHandler implements InitializingBean, DisposableBean {
+    
+    /**
+     * 消费中状态
+     */
+    private static final String CONSUMING = "0";
+    
+    /**
+     * 已消费状态
+     */
+    private static final String CONSUMED = "1";
+    
+    /**
+     * 合并写入线程等待新请求的最长时间，单位毫秒
+     */
+    private static final long FLUSH_POLL_MILLIS = 50L;
+    
+    /**
+     * 等待合并写入结果的最长时间，单位毫秒
+     */
+    private static final long CLAIM_TIMEOUT_MILLIS = 5000L;
+    
+    private final DistributedCache distributedCache;
+    private final MessageConsumeConfig messageConsumeConfig;
+    
+    @Value("${spring.redis.bloom-filter.expected-insertions:100000000}")
+    private long bloomFilterExpectedInsertions;
+    
+    @Value("${spring.redis.bloom-filter.false-probability:0.03}")
+    private double bloomFilterFalseProbability;
+    
+    private final BlockingQueue<ClaimRequest> claimQueue = new LinkedBlockingQueue<>();
+    
+    private final BlockingQueue<String> consumedQueue = new LinkedBlockingQueue<>();
+    
+    private RotatingBloomFilter bloomFilter;
+    
+    private Thread flushThread;
+    
+    private volatile boolean running;
+    
+    @Override
+    public void afterPropertiesSet() {
+        // 误判率沿用 Redis 布隆过滤器配置，容量按本地内存上限截断；轮转周期与幂等 Key 过期时间一致
+        long expectedInsertions = Math.min(bloomFilterExpectedInsertions, messageConsumeConfig.getDedupeLocalMaxInsertions());
+        bloomFilter = new RotatingBloomFilter(expectedInsertions, bloomFilterFalseProbability, MESSAGE_SEND_IDEMPOTENT_TIMOUT);
+        running = true;
+        flushThread = new Thread(this::flushLoop, "message-send-idempotent-flush");
+        flushThread.setDaemon(true);
+        flushThread.start();
+    }
+    
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        flushThread.interrupt();
+        flushThread.join(TimeUnit.SECONDS.toMillis(5));
+    }
+    
+    /**
+     * 抢占消息消费权
+     *
+     * @param msgId 消息ID
+     * @return 抢占结果
+     */
+    public MessageConsumeClaimStatusEnum claim(String msgId) {
+        if (bloomFilter.mightContain(msgId)) {
+            return batchClaim(Collections.singletonList(msgId)).get(0);
+        }
+        ClaimRequest claimRequest = new ClaimRequest(msgId);
+        claimQueue.offer(claimRequest);
+        try {
+            return claimRequest.result.get(CLAIM_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            throw new ServiceException(String.format("等待消息幂等抢占结果超时，消息ID：%s", msgId));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ServiceException(String.format("等待消息幂等抢占结果被中断，消息ID：%s", msgId));
+        } catch (ExecutionException ex) {
+            throw new ServiceException(String.format("消息幂等抢占失败，消息ID：%s，错误信息：%s", msgId, ex.getCause().getMessage()));
+        }
+    }
+    
+    /**
+     * 标记消息已消费，由后台线程合并写入
+     *
+     * @param msgId 消息ID
+     */
+    public void markConsumed(String msgId) {
+        consumedQueue.offer(msgId);
+    }
+    
+    /**
+     * 批量抢占消息消费权
+     *
+     * @param msgIds 消息ID集合
+     * @return 与消息ID集合顺序一致的抢占结果
+     */
+    public List<MessageConsumeClaimStatusEnum> batchClaim(List<String> msgIds) {
+        return executePipelined(msgIds, Collections.emptyList());
+    }
+    
+    /**
+     * 批量标记消息已消费
+     *
+     * @param msgIds 消息ID集合
+     */
+    public void batchMarkConsumed(List<String> msgIds) {
+        if (msgIds.isEmpty()) {
+            return;
+        }
+        executePipelined(Collections.emptyList(), msgIds);
+    }
+    
+    /**
+     * 批量释放消息消费权，消息重新投递后可以再次消费
+     *
+     * @param msgIds 消息ID集合
+     */
+    public void batchRelease(List<String> msgIds) {
+        if (msgIds.isEmpty()) {
+            return;
+        }
+        List<String> keys = new ArrayList<>(msgIds.size());
+        msgIds.forEach(each -> keys.add(MESSAGE_SEND_IDEMPOTENT_PREFIX_KEY + each));
+        ((StringRedisTemplate) distributedCache.getInstance()).delete(keys);
+    }
+    
+    /**
+     * 在一次管道往返中抢占消费权并写入已消费标记
+     */
+    private List<MessageConsumeClaimStatusEnum> executePipelined(List<String> claimMsgIds, List<String> consumedMsgIds) {
+        List<MessageConsumeClaimStatusEnum> result = new ArrayList<>(claimMsgIds.size());
+        if (claimMsgIds.isEmpty() && consumedMsgIds.isEmpty()) {
+            return result;
+        }
+        StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+        List<Object> pipelinedResults = stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> redisOperations = (RedisOperations<String, String>) operations;
+                claimMsgIds.forEach(each -> {
+                    String key = MESSAGE_SEND_IDEMPOTENT_PREFIX_KEY + each;
+                    // 同一管道内先 SETNX 再 GET，抢占失败时无需再发起一次往返即可区分消费中与已消费
+                    redisOperations.opsForValue().setIfAbsent(key, CONSUMING, MESSAGE_SEND_IDEMPOTENT_TIMOUT, TimeUnit.MILLISECONDS);
+                    redisOperations.opsForValue().get(key);
+                });
+                consumedMsgIds.forEach(each -> redisOperations.opsForValue().set(MESSAGE_SEND_IDEMPOTENT_PREFIX_KEY + each, CONSUMED, MESSAGE_SEND_IDEMPOTENT_TIMOUT, TimeUnit.MILLISECONDS));
+                return null;
+            }
+        });
+        for (int i = 0; i < claimMsgIds.size(); i++) {
+            if (Boolean.TRUE.equals(pipelinedResults.get(i * 2))) {
+                result.add(MessageConsumeClaimStatusEnum.CLAIMED);
+            } else if (Objects.equals(pipelinedResults.get(i * 2 + 1), CONSUMED)) {
+                result.add(MessageConsumeClaimStatusEnum.CONSUMED);
+            } else {
+                result.add(MessageConsumeClaimStatusEnum.CONSUMING);
+            }
+            // 无论抢占结果如何，该消息都已在本实例出现过，再次投递时直接走同步确认
+            bloomFilter.put(claimMsgIds.get(i));
+        }
+        return result;
+    }
+    
+    /**
+     * 合并写入循环，每次把队列中积压的抢占请求与已消费标记放入同一个管道
+     */
+    private void flushLoop() {
+        int maxSize = messageConsumeConfig.getDedupePipelineMaxSize();
+        List<ClaimRequest> claimRequests = new ArrayList<>(maxSize);
+        List<String> consumedMsgIds = new ArrayList<>(maxSize);
+        while (running || !claimQueue.isEmpty() || !consumedQueue.isEmpty()) {
+            claimRequests.clear();
+            consumedMsgIds.clear();
+            try {
+                ClaimRequest first = claimQueue.poll(FLUSH_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    claimRequests.add(first);
+                    claimQueue.drainTo(claimRequests, maxSize - 1);
+                }
+            } catch (InterruptedException ignored) {
+                // 关闭时中断等待，继续写入剩余请求
+            }
+            consumedQueue.drainTo(consumedMsgIds, maxSize);
+            if (claimRequests.isEmpty() && consumedMsgIds.isEmpty()) {
+                continue;
+            }
+            List<String> claimMsgIds = new ArrayList<>(claimRequests.size());
+            claimRequests.forEach(each -> claimMsgIds.add(each.msgId));
+            try {
+                List<MessageConsumeClaimStatusEnum> claimStatuses = executePipelined(claimMsgIds, consumedMsgIds);
+                for (int i = 0; i < claimRequests.size(); i++) {
+                    claimRequests.get(i).result.complete(claimStatuses.get(i));
+                }
+            } catch (Throwable ex) {
+                log.error("消息幂等标识合并写入失败，抢占请求数：{}，已消费标记数：{}", claimRequests.size(), consumedMsgIds.size(), ex);
+                claimRequests.forEach(each -> each.result.completeExceptionally(ex));
+            }
+        }
+    }
+    
+    @RequiredArgsConstructor
+    private static class ClaimRequest {
+        
+        private final String msgId;
+        
+        private final CompletableFuture<MessageConsumeClaimStatusEnum> result = new CompletableFuture<>();
+    }
+}
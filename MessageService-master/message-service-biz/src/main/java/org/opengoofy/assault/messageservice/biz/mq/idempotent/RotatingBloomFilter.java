@@ -0,0 +1,128 @@
+package org.opengoofy.assault.messageservice.biz.mq.idempotent;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 本地轮转布隆过滤器
+ * <p>
+ * 同时保留当前、上一代两个过滤器，写入只进入当前代，查询同时检查两代；当前代写入数达到容量或存活时间超过轮转周期后整体轮转，
+ * 保证过滤器至少覆盖一个轮转周期内写入的元素，同时误判率不会随写入量无限增长
+ */
+public class RotatingBloomFilter {
+    
+    private final long expectedInsertions;
+    
+    private final long rotateIntervalMillis;
+    
+    private final int numBits;
+    
+    private final int numHashFunctions;
+    
+    private volatile Generation current;
+    
+    private volatile Generation previous;
+    
+    /**
+     * @param expectedInsertions   每一代过滤器预期写入数
+     * @param falseProbability     误判率
+     * @param rotateIntervalMillis 轮转周期，单位毫秒
+     */
+    public RotatingBloomFilter(long expectedInsertions, double falseProbability, long rotateIntervalMillis) {
+        this.expectedInsertions = expectedInsertions;
+        this.rotateIntervalMillis = rotateIntervalMillis;
+        long bits = (long) (-expectedInsertions * Math.log(falseProbability) / (Math.log(2) * Math.log(2)));
+        this.numBits = (int) Math.min(Math.max(bits, 64L), Integer.MAX_VALUE - 63L);
+        this.numHashFunctions = Math.max(1, (int) Math.round((double) numBits / expectedInsertions * Math.log(2)));
+        this.current = new Generation(numBits);
+        this.previous = new Generation(numBits);
+    }
+    
+    /**
+     * 判断元素是否可能存在，返回 false 时元素一定未写入过
+     */
+    public boolean mightContain(String value) {
+        long hash = hash(value);
+        return current.mightContain(hash) || previous.mightContain(hash);
+    }
+    
+    /**
+     * 写入元素
+     */
+    public void put(String value) {
+        rotateIfNecessary();
+        current.put(hash(value));
+    }
+    
+    private void rotateIfNecessary() {
+        Generation generation = current;
+        if (generation.insertions.get() < expectedInsertions && System.currentTimeMillis() - generation.createTime < rotateIntervalMillis) {
+            return;
+        }
+        synchronized (this) {
+            if (generation == current) {
+                previous = generation;
+                current = new Generation(numBits);
+            }
+        }
+    }
+    
+    /**
+     * FNV-1a 64 位哈希后再做一次 MurmurHash3 混淆，高低 32 位作为双重哈希的两个基础哈希值
+     */
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+    
+    private class Generation {
+        
+        private final AtomicLongArray bits;
+        
+        private final AtomicLong insertions = new AtomicLong();
+        
+        private final long createTime = System.currentTimeMillis();
+        
+        Generation(int numBits) {
+            this.bits = new AtomicLongArray((numBits + 63) >>> 6);
+        }
+        
+        boolean mightContain(long hash) {
+            int hash1 = (int) hash;
+            int hash2 = (int) (hash >>> 32);
+            for (int i = 1; i <= numHashFunctions; i++) {
+                int bitIndex = ((hash1 + i * hash2) & Integer.MAX_VALUE) % numBits;
+                if ((bits.get(bitIndex >>> 6) & (1L << bitIndex)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        void put(long hash) {
+            int hash1 = (int) hash;
+            int hash2 = (int) (hash >>> 32);
+            for (int i = 1; i <= numHashFunctions; i++) {
+                int bitIndex = ((hash1 + i * hash2) & Integer.MAX_VALUE) % numBits;
+                long mask = 1L << bitIndex;
+                long oldValue;
+                do {
+                    oldValue = bits.get(bitIndex >>> 6);
+                    if ((oldValue & mask) != 0) {
+                        break;
+                    }
+                } while (!bits.compareAndSet(bitIndex >>> 6, oldValue, oldValue | mask));
+            }
+            insertions.incrementAndGet();
+        }
+    }
+}
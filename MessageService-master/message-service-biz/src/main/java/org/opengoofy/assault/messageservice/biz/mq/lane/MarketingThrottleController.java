@@ -0,0 +1,144 @@
+package org.opengoofy.assault.messageservice.biz.mq.lane;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.client.consumer.DefaultMQPushConsumer;
+import org.opengoofy.assault.messageservice.biz.common.MessageSendLaneEnum;
+import org.opengoofy.assault.messageservice.biz.config.MarketingThrottleConfig;
+import org.opengoofy.assault.messageservice.biz.handler.send.bulkhead.VendorBulkhead;
+import org.opengoofy.assault.messageservice.biz.handler.send.bulkhead.VendorBulkheadRegistry;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 营销消息自动限流控制器
+ * <p>
+ * 营销短信与验证码共用渠道商及其 QPS 配额，验证码通道堆积、等待时间或共用渠道商耗时升高时，
+ * 先收缩营销发送线程池，持续未恢复再暂停营销消息消费；指标回落后逐级恢复，不需要人工介入
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MarketingThrottleController implements InitializingBean {
+    
+    private final MarketingThrottleConfig marketingThrottleConfig;
+    private final MessageSendLaneMonitor messageSendLaneMonitor;
+    private final VendorBulkheadRegistry vendorBulkheadRegistry;
+    private final MeterRegistry meterRegistry;
+    
+    private volatile MarketingThrottleLevelEnum level = MarketingThrottleLevelEnum.NORMAL;
+    
+    private int degradedChecks;
+    
+    private int recoveredChecks;
+    
+    /**
+     * 限流前营销发送线程池核心线程数，-1 代表当前未收缩
+     */
+    private int originalCorePoolSize = -1;
+    
+    private int originalMaximumPoolSize;
+    
+    @Override
+    public void afterPropertiesSet() {
+        Gauge.builder("message.throttle.marketing.level", this, each -> each.level.ordinal()).register(meterRegistry);
+    }
+    
+    /**
+     * 营销消息当前是否处于限流状态
+     */
+    public boolean isThrottled() {
+        return level != MarketingThrottleLevelEnum.NORMAL;
+    }
+    
+    @Scheduled(initialDelayString = "${message.throttle.marketing.check-interval-millis:1000}", fixedDelayString = "${message.throttle.marketing.check-interval-millis:1000}")
+    public synchronized void check() {
+        ThreadPoolExecutor executor = messageSendLaneMonitor.getExecutor(MessageSendLaneEnum.MARKETING);
+        DefaultMQPushConsumer consumer = messageSendLaneMonitor.getConsumer(MessageSendLaneEnum.MARKETING);
+        if (executor == null || consumer == null) {
+            return;
+        }
+        if (!marketingThrottleConfig.getEnabled()) {
+            if (level != MarketingThrottleLevelEnum.NORMAL) {
+                transition(MarketingThrottleLevelEnum.NORMAL, executor, consumer, "自动限流已关闭");
+            }
+            return;
+        }
+        long verificationLag = messageSendLaneMonitor.lag(MessageSendLaneEnum.VERIFICATION);
+        double verificationDelay = messageSendLaneMonitor.recentConsumeDelayMillis(MessageSendLaneEnum.VERIFICATION);
+        double vendorLatency = maxVendorLatencyMillis();
+        boolean degraded = verificationLag > marketingThrottleConfig.getVerificationLagHigh()
+                || verificationDelay > marketingThrottleConfig.getVerificationDelayHighMillis()
+                || vendorLatency > marketingThrottleConfig.getVendorLatencyHighMillis();
+        boolean recovered = verificationLag <= marketingThrottleConfig.getVerificationLagLow()
+                && verificationDelay <= marketingThrottleConfig.getVerificationDelayLowMillis()
+                && vendorLatency <= marketingThrottleConfig.getVendorLatencyLowMillis();
+        String reason = String.format("验证码堆积：%d，验证码等待时间：%.0fms，渠道商耗时：%.0fms", verificationLag, verificationDelay, vendorLatency);
+        if (degraded) {
+            recoveredChecks = 0;
+            degradedChecks++;
+            if (level == MarketingThrottleLevelEnum.NORMAL) {
+                transition(MarketingThrottleLevelEnum.SHRUNK, executor, consumer, reason);
+            } else if (level == MarketingThrottleLevelEnum.SHRUNK && degradedChecks >= marketingThrottleConfig.getPauseAfterChecks()) {
+                transition(MarketingThrottleLevelEnum.PAUSED, executor, consumer, reason);
+            }
+        } else if (recovered) {
+            degradedChecks = 0;
+            recoveredChecks++;
+            if (level != MarketingThrottleLevelEnum.NORMAL && recoveredChecks >= marketingThrottleConfig.getResumeAfterChecks()) {
+                transition(MarketingThrottleLevelEnum.values()[level.ordinal() - 1], executor, consumer, reason);
+            }
+        } else {
+            // 处于高低水位之间，保持当前限流级别
+            degradedChecks = 0;
+            recoveredChecks = 0;
+        }
+    }
+    
+    private double maxVendorLatencyMillis() {
+        double maxLatency = 0D;
+        for (VendorBulkhead each : vendorBulkheadRegistry.listBulkheads()) {
+            if (marketingThrottleConfig.getVendors().contains(each.getVendor())) {
+                maxLatency = Math.max(maxLatency, each.recentLatencyMillis());
+            }
+        }
+        return maxLatency;
+    }
+    
+    private void transition(MarketingThrottleLevelEnum target, ThreadPoolExecutor executor, DefaultMQPushConsumer consumer, String reason) {
+        log.warn("营销消息限流级别变更：{} -> {}，{}", level, target, reason);
+        switch (target) {
+            case NORMAL:
+                consumer.resume();
+                if (originalCorePoolSize >= 0) {
+                    ThreadPoolResizeSupport.resize(executor, originalCorePoolSize, originalMaximumPoolSize);
+                    originalCorePoolSize = -1;
+                }
+                break;
+            case SHRUNK:
+                consumer.resume();
+                if (originalCorePoolSize < 0) {
+                    originalCorePoolSize = executor.getCorePoolSize();
+                    originalMaximumPoolSize = executor.getMaximumPoolSize();
+                    int shrunkPoolSize = Math.max(1, (int) Math.ceil(originalMaximumPoolSize * marketingThrottleConfig.getShrinkRatio()));
+                    ThreadPoolResizeSupport.resize(executor, Math.min(originalCorePoolSize, shrunkPoolSize), shrunkPoolSize);
+                }
+                break;
+            case PAUSED:
+                // 暂停拉取，已拉取到本地的消息继续在收缩后的线程池中发送
+                consumer.suspend();
+                break;
+            default:
+        }
+        level = target;
+        degradedChecks = 0;
+        recoveredChecks = 0;
+        Counter.builder("message.throttle.marketing.transitions").tag("level", target.name()).register(meterRegistry).increment();
+    }
+}
@@ -0,0 +1,22 @@
+package org.opengoofy.assault.messageservice.biz.mq.lane;
+
+/**
+ * 营销消息限流级别枚举
+ */
+public enum MarketingThrottleLevelEnum {
+    
+    /**
+     * 正常发送
+     */
+    NORMAL,
+    
+    /**
+     * 收缩营销发送线程池
+     */
+    SHRUNK,
+    
+    /**
+     * 暂停营销消息消费
+     */
+    PAUSED
+}
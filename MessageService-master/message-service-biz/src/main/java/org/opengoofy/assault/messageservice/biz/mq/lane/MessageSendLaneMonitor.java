@@ -0,0 +1,192 @@
+package org.opengoofy.assault.messageservice.biz.mq.lane;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.apache.rocketmq.client.consumer.DefaultMQPushConsumer;
+import org.apache.rocketmq.client.hook.ConsumeMessageContext;
+import org.apache.rocketmq.client.hook.ConsumeMessageHook;
+import org.apache.rocketmq.client.impl.consumer.ProcessQueue;
+import org.apache.rocketmq.common.message.MessageExt;
+import org.opengoofy.assault.messageservice.biz.common.MessageSendLaneEnum;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 消息发送通道监控
+ * <p>
+ * 按通道统计消费堆积、消息从 Broker 存储到开始消费的等待时间以及发送耗时，用于观察各通道之间是否相互影响
+ */
+@Component
+@RequiredArgsConstructor
+public class MessageSendLaneMonitor {
+    
+    /**
+     * 最近耗时移动平均的平滑系数
+     */
+    private static final double EWMA_ALPHA = 0.1D;
+    
+    /**
+     * 超过该时间没有消费时最近等待时间不再有参考意义，单位毫秒
+     */
+    private static final long RECENT_IDLE_MILLIS = 10000L;
+    
+    private final MeterRegistry meterRegistry;
+    
+    private final Map<MessageSendLaneEnum, LaneMeters> laneMetersMap = new ConcurrentHashMap<>();
+    
+    /**
+     * 注册发送通道的消费者以及发送线程池
+     *
+     * @param lane     发送通道
+     * @param consumer 通道对应的 RocketMQ 消费者
+     * @param executor 通道对应的发送线程池
+     */
+    public void register(MessageSendLaneEnum lane, DefaultMQPushConsumer consumer, ThreadPoolExecutor executor) {
+        LaneMeters laneMeters = laneMeters(lane);
+        laneMeters.consumer = consumer;
+        laneMeters.executor = executor;
+        Tags tags = Tags.of("lane", lane.name());
+        // 消费堆积量为 Broker 最大位点与已拉取位点之差，随每次拉取更新
+        Gauge.builder("message.lane.lag", laneMeters, LaneMeters::lag).tags(tags).register(meterRegistry);
+        Gauge.builder("message.lane.cached.messages", laneMeters, LaneMeters::cachedMessageCount).tags(tags).register(meterRegistry);
+        Gauge.builder("message.lane.executor.active", executor, ThreadPoolExecutor::getActiveCount).tags(tags).register(meterRegistry);
+        Gauge.builder("message.lane.executor.queue", executor, each -> each.getQueue().size()).tags(tags).register(meterRegistry);
+        consumer.getDefaultMQPushConsumerImpl().registerConsumeMessageHook(new ConsumeMessageHook() {
+            
+            @Override
+            public String hookName() {
+                return "message-send-lane-" + lane.name();
+            }
+            
+            @Override
+            public void consumeMessageBefore(ConsumeMessageContext context) {
+                long now = System.currentTimeMillis();
+                for (MessageExt each : context.getMsgList()) {
+                    long delayMillis = Math.max(0L, now - each.getStoreTimestamp());
+                    laneMeters.consumeDelayTimer.record(delayMillis, TimeUnit.MILLISECONDS);
+                    laneMeters.recentConsumeDelayMillis += EWMA_ALPHA * (delayMillis - laneMeters.recentConsumeDelayMillis);
+                }
+                laneMeters.lastConsumeTime = now;
+            }
+            
+            @Override
+            public void consumeMessageAfter(ConsumeMessageContext context) {
+            }
+        });
+    }
+    
+    /**
+     * 记录单条消息的发送耗时
+     */
+    public void recordSend(MessageSendLaneEnum lane, long elapsedNanos) {
+        LaneMeters laneMeters = laneMeters(lane);
+        laneMeters.sendTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        laneMeters.recentSendLatencyMillis += EWMA_ALPHA * (elapsedNanos / 1000000D - laneMeters.recentSendLatencyMillis);
+    }
+    
+    /**
+     * 通道当前消费堆积量，通道未注册时返回 0
+     */
+    public long lag(MessageSendLaneEnum lane) {
+        LaneMeters laneMeters = laneMetersMap.get(lane);
+        return laneMeters == null ? 0L : laneMeters.lag();
+    }
+    
+    /**
+     * 通道消息从 Broker 存储到开始消费的最近等待时间，指数加权移动平均，单位毫秒；超过 {@link #RECENT_IDLE_MILLIS} 没有消费时视为 0
+     */
+    public double recentConsumeDelayMillis(MessageSendLaneEnum lane) {
+        LaneMeters laneMeters = laneMetersMap.get(lane);
+        if (laneMeters == null || System.currentTimeMillis() - laneMeters.lastConsumeTime > RECENT_IDLE_MILLIS) {
+            return 0D;
+        }
+        return laneMeters.recentConsumeDelayMillis;
+    }
+    
+    /**
+     * 通道单条消息最近发送耗时，指数加权移动平均，单位毫秒
+     */
+    public double recentSendLatencyMillis(MessageSendLaneEnum lane) {
+        LaneMeters laneMeters = laneMetersMap.get(lane);
+        return laneMeters == null ? 0D : laneMeters.recentSendLatencyMillis;
+    }
+    
+    /**
+     * 获取通道对应的 RocketMQ 消费者，通道未注册时返回空
+     */
+    public DefaultMQPushConsumer getConsumer(MessageSendLaneEnum lane) {
+        LaneMeters laneMeters = laneMetersMap.get(lane);
+        return laneMeters == null ? null : laneMeters.consumer;
+    }
+    
+    /**
+     * 获取通道对应的发送线程池，通道未注册时返回空
+     */
+    public ThreadPoolExecutor getExecutor(MessageSendLaneEnum lane) {
+        LaneMeters laneMeters = laneMetersMap.get(lane);
+        return laneMeters == null ? null : laneMeters.executor;
+    }
+    
+    private LaneMeters laneMeters(MessageSendLaneEnum lane) {
+        return laneMetersMap.computeIfAbsent(lane, each -> {
+            Tags tags = Tags.of("lane", each.name());
+            return new LaneMeters(
+                    Timer.builder("message.lane.consume.delay").tags(tags).register(meterRegistry),
+                    Timer.builder("message.lane.send.latency").tags(tags).register(meterRegistry)
+            );
+        });
+    }
+    
+    @RequiredArgsConstructor
+    private static class LaneMeters {
+        
+        private final Timer consumeDelayTimer;
+        
+        private final Timer sendTimer;
+        
+        private volatile DefaultMQPushConsumer consumer;
+        
+        private volatile ThreadPoolExecutor executor;
+        
+        /**
+         * 并发更新时允许丢失个别样本
+         */
+        private volatile double recentConsumeDelayMillis;
+        
+        private volatile double recentSendLatencyMillis;
+        
+        private volatile long lastConsumeTime;
+        
+        long lag() {
+            long lag = 0L;
+            for (ProcessQueue each : processQueues()) {
+                lag += each.getMsgAccCnt();
+            }
+            return lag;
+        }
+        
+        long cachedMessageCount() {
+            long count = 0L;
+            for (ProcessQueue each : processQueues()) {
+                count += each.getMsgCount().get();
+            }
+            return count;
+        }
+        
+        private Iterable<ProcessQueue> processQueues() {
+            DefaultMQPushConsumer current = consumer;
+            if (current == null || current.getDefaultMQPushConsumerImpl().getRebalanceImpl() == null) {
+                return Collections.emptyList();
+            }
+            return current.getDefaultMQPushConsumerImpl().getRebalanceImpl().getProcessQueueTable().values();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package org.opengoofy.assault.messageservice.biz.mq.lane;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.opengoofy.assault.messageservice.biz.common.MessageSendLaneEnum;
+import org.opengoofy.assault.messageservice.biz.config.PoolAutoscaleConfig;
+import org.opengoofy.assault.messageservice.biz.mq.consumer.AbstractMessageSendConsumer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.opengoofy.assault.messageservice.biz.config.PoolAutoscaleConfig.RECEIPT_POOL;
+
+/**
+ * 线程池自动扩缩容
+ * <p>
+ * 根据消费堆积、线程池队列长度、活跃线程饱和度以及发送耗时在配置范围内调整消息发送通道与回执拉取线程池大小：
+ * 存在堆积且线程接近饱和时扩容，发送耗时过高说明瓶颈在渠道商，此时不再扩容；连续多次空闲时缩容。
+ * 每次决策都记录为指标，调整直接作用于 Hippo4j 动态线程池实例，Hippo4j 服务端下发的配置仍会覆盖本地调整
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ThreadPoolAutoscaler {
+    
+    private final PoolAutoscaleConfig poolAutoscaleConfig;
+    private final MessageSendLaneMonitor messageSendLaneMonitor;
+    private final MarketingThrottleController marketingThrottleController;
+    private final List<AbstractMessageSendConsumer> messageSendConsumers;
+    private final ThreadPoolExecutor messageReceiptExecutor;
+    private final MeterRegistry meterRegistry;
+    
+    private final Map<String, Integer> idleChecksMap = new ConcurrentHashMap<>();
+    
+    private final Map<String, AtomicInteger> poolSizeMap = new ConcurrentHashMap<>();
+    
+    @Scheduled(initialDelayString = "${message.autoscale.interval-millis:5000}", fixedDelayString = "${message.autoscale.interval-millis:5000}")
+    public void autoscale() {
+        if (!poolAutoscaleConfig.getEnabled()) {
+            return;
+        }
+        for (AbstractMessageSendConsumer each : messageSendConsumers) {
+            MessageSendLaneEnum lane = each.lane();
+            // 营销通道限流期间线程池大小由限流控制器接管
+            if (lane == MessageSendLaneEnum.MARKETING && marketingThrottleController.isThrottled()) {
+                continue;
+            }
+            ThreadPoolExecutor executor = messageSendLaneMonitor.getExecutor(lane);
+            if (executor == null) {
+                continue;
+            }
+            int targetSize = decide(lane.name(), executor, messageSendLaneMonitor.lag(lane), messageSendLaneMonitor.recentSendLatencyMillis(lane));
+            if (targetSize != executor.getMaximumPoolSize()) {
+                each.resizeConcurrency(targetSize);
+            }
+        }
+        int receiptTargetSize = decide(RECEIPT_POOL, messageReceiptExecutor, 0L, 0D);
+        if (receiptTargetSize != messageReceiptExecutor.getMaximumPoolSize()) {
+            ThreadPoolResizeSupport.resize(messageReceiptExecutor, receiptTargetSize, receiptTargetSize);
+        }
+    }
+    
+    /**
+     * 计算线程池目标大小
+     *
+     * @param pool          线程池名称
+     * @param executor      线程池
+     * @param lag           消费堆积量
+     * @param latencyMillis 最近单条消息发送耗时
+     * @return 线程池目标大小
+     */
+    private int decide(String pool, ThreadPoolExecutor executor, long lag, double latencyMillis) {
+        PoolAutoscaleConfig.Bounds bounds = poolAutoscaleConfig.boundsOf(pool);
+        int currentSize = executor.getMaximumPoolSize();
+        double saturation = (double) executor.getActiveCount() / currentSize;
+        boolean backlog = lag > poolAutoscaleConfig.getLagThreshold() || !executor.getQueue().isEmpty();
+        int targetSize = currentSize;
+        String action = "HOLD";
+        if (backlog && saturation >= poolAutoscaleConfig.getScaleUpSaturation()) {
+            idleChecksMap.remove(pool);
+            if (latencyMillis > poolAutoscaleConfig.getVendorLatencyHighMillis()) {
+                action = "HOLD_VENDOR_BOUND";
+            } else {
+                targetSize = Math.max(currentSize + 1, (int) Math.ceil(currentSize * poolAutoscaleConfig.getScaleUpFactor()));
+                action = "UP";
+            }
+        } else if (!backlog && saturation < poolAutoscaleConfig.getScaleDownSaturation()) {
+            int idleChecks = idleChecksMap.merge(pool, 1, Integer::sum);
+            if (idleChecks >= poolAutoscaleConfig.getScaleDownAfterChecks()) {
+                idleChecksMap.remove(pool);
+                targetSize = (int) Math.floor(currentSize * poolAutoscaleConfig.getScaleDownFactor());
+                action = "DOWN";
+            }
+        } else {
+            idleChecksMap.remove(pool);
+        }
+        targetSize = Math.max(bounds.getMinSize(), Math.min(bounds.getMaxSize(), targetSize));
+        if (targetSize == currentSize && ("UP".equals(action) || "DOWN".equals(action))) {
+            action = "HOLD_AT_BOUND";
+        }
+        Counter.builder("message.autoscale.decisions").tag("pool", pool).tag("action", action).register(meterRegistry).increment();
+        poolSizeMap.computeIfAbsent(pool, each -> {
+            AtomicInteger poolSize = new AtomicInteger();
+            Gauge.builder("message.autoscale.pool.size", poolSize, AtomicInteger::get).tag("pool", each).register(meterRegistry);
+            return poolSize;
+        }).set(targetSize);
+        if (targetSize != currentSize) {
+            log.info("[{}] 线程池自动调整：{} -> {}，堆积：{}，队列长度：{}，饱和度：{}，发送耗时：{}ms",
+                    pool, currentSize, targetSize, lag, executor.getQueue().size(), String.format("%.2f", saturation), String.format("%.0f", latencyMillis));
+        }
+        return targetSize;
+    }
+}
@@ -0,0 +1,25 @@
+package org.opengoofy.assault.messageservice.biz.mq.lane;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 线程池运行期调整大小
+ */
+public final class ThreadPoolResizeSupport {
+    
+    private ThreadPoolResizeSupport() {
+    }
+    
+    /**
+     * 调整线程池大小，缩小时先调整核心线程数，扩大时先调整最大线程数，避免核心线程数大于最大线程数
+     */
+    public static void resize(ThreadPoolExecutor executor, int corePoolSize, int maximumPoolSize) {
+        if (maximumPoolSize >= executor.getMaximumPoolSize()) {
+            executor.setMaximumPoolSize(maximumPoolSize);
+            executor.setCorePoolSize(corePoolSize);
+        } else {
+            executor.setCorePoolSize(corePoolSize);
+            executor.setMaximumPoolSize(maximumPoolSize);
+        }
+    }
+}
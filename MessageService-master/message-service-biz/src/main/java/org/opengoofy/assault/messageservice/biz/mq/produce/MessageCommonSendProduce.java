@@ -65,6 +65,21 @@ public class MessageCommonSendProduce {
      * @param tag              消息的标签，用于消息的过滤和分类
      */
     public void send(Object messageSendEvent, String topic, String keys, String tag) {
+        send(messageSendEvent, topic, keys, tag, 0);
+    }
+
+    /**
+     * 延时消息发送，可以指定Topic
+     * 该方法用于将消息按 RocketMQ 延时级别发送到指定的Topic中。
+     *
+     * @param messageSendEvent 待发送的消息事件对象
+     * @param topic            指定的消息Topic
+     * @param keys             消息的唯一标识，如果为空则生成一个UUID作为标识
+     * @param tag              消息的标签，用于消息的过滤和分类
+     * @param delayLevel       RocketMQ 延时级别，0 代表不延时
+     * @return 是否发送成功
+     */
+    public boolean send(Object messageSendEvent, String topic, String keys, String tag, int delayLevel) {
         //如果key为空，生成一个uuid作为消息的唯一标识
         keys = StrUtil.isEmpty(keys) ? UUID.randomUUID().toString() : keys;
 
@@ -82,10 +97,12 @@ public class MessageCommonSendProduce {
                     .toString();
 
             // 同步发送消息，并获取发送结果
-            SendResult sendResult = rocketMQTemplate.syncSend(topicAndTag, message, 2000);
+            SendResult sendResult = rocketMQTemplate.syncSend(topicAndTag, message, 2000, delayLevel);
             log.info("消息发送结果：{}，消息ID：{}，消息Keys：{}", sendResult.getSendStatus(), sendResult.getMsgId(), keys);
+            return true;
         } catch (Throwable ex) {
             log.error("消息发送失败，消息体：{}", JSON.toJSONString(messageSendEvent), ex);
+            return false;
         }
     }
 }
@@ -0,0 +1,282 @@
+package org.opengoofy.assault.messageservice.biz.mq.save;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.opengoofy.assault.messageservice.biz.config.MessageSaveConfig;
+import org.opengoofy.assault.messageservice.biz.dao.entity.SendRecordDO;
+import org.opengoofy.assault.messageservice.biz.dao.entity.SendRecordExtendDO;
+import org.opengoofy.assault.messageservice.biz.dao.mapper.SendRecordExtendMapper;
+import org.opengoofy.assault.messageservice.biz.dao.mapper.SendRecordMapper;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * 消息发送记录分组提交写入器
+ * <p>
+ * 各消费线程提交的记录按实际分片表分组缓冲，分组记录数达到上限或等待超过提交间隔后，在一个事务内以多行 INSERT 写入发送记录与参数记录；
+ * 提交方拿到的 Future 在其所有记录所在分组全部提交后才完成，消费线程等待 Future 完成后再确认消费，持久性与逐条写入一致
+ * <p>
+ * 分组提交失败时改为逐条写入，只有写入失败记录所属的提交方失败；重试也无法成功的记录（主键冲突、字段超长等）与逐条写入时一样记录日志后跳过
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SendRecordGroupCommitWriter implements InitializingBean, DisposableBean {
+    
+    /**
+     * 提交线程等待就绪分组的最长时间，单位毫秒
+     */
+    private static final long POLL_MILLIS = 200L;
+    
+    private final SendRecordMapper sendRecordMapper;
+    private final SendRecordExtendMapper sendRecordExtendMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final MessageSaveConfig messageSaveConfig;
+    private final MeterRegistry meterRegistry;
+    
+    /**
+     * 分片表名与正在缓冲的分组，读写均需持有 {@code this} 锁
+     */
+    private final Map<String, PendingGroup> pendingGroups = new HashMap<>();
+    
+    private final BlockingQueue<PendingGroup> readyGroups = new LinkedBlockingQueue<>();
+    
+    private final List<Thread> flushThreads = new ArrayList<>();
+    
+    private Thread tickThread;
+    
+    private volatile boolean running;
+    
+    private DistributionSummary groupSizeSummary;
+    
+    private Counter duplicateCounter;
+    
+    private Counter skippedCounter;
+    
+    @Override
+    public void afterPropertiesSet() {
+        groupSizeSummary = DistributionSummary.builder("message.save.group.size").register(meterRegistry);
+        duplicateCounter = Counter.builder("message.save.duplicate").register(meterRegistry);
+        skippedCounter = Counter.builder("message.save.skipped").register(meterRegistry);
+        running = true;
+        tickThread = new Thread(this::tickLoop, "send-record-group-tick");
+        tickThread.setDaemon(true);
+        tickThread.start();
+        for (int i = 0; i < messageSaveConfig.getFlushThreads(); i++) {
+            Thread flushThread = new Thread(this::flushLoop, "send-record-group-flush-" + i);
+            flushThread.setDaemon(true);
+            flushThread.start();
+            flushThreads.add(flushThread);
+        }
+    }
+    
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        tickThread.interrupt();
+        tickThread.join(TimeUnit.SECONDS.toMillis(5));
+        synchronized (this) {
+            readyGroups.addAll(pendingGroups.values());
+            pendingGroups.clear();
+        }
+        // 提交线程在处理完剩余分组后退出，未完成的分组对应消息由 RocketMQ 重新投递
+        for (Thread each : flushThreads) {
+            each.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+    
+    /**
+     * 提交一批待保存的记录
+     *
+     * @param rows 待保存的记录
+     * @return 所有记录提交后完成的 Future，任一记录可重试的写入失败时异常完成
+     */
+    public CompletableFuture<Void> submit(List<SendRecordRow> rows) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        if (rows.isEmpty()) {
+            future.complete(null);
+            return future;
+        }
+        if (!running) {
+            future.completeExceptionally(new IllegalStateException("消息发送记录写入器已关闭"));
+            return future;
+        }
+        Ticket ticket = new Ticket(future, rows.size());
+        int flushBatchSize = messageSaveConfig.getFlushBatchSize();
+        synchronized (this) {
+            for (SendRecordRow each : rows) {
+                PendingGroup group = pendingGroups.computeIfAbsent(each.getActualTable(), PendingGroup::new);
+                group.rows.add(each);
+                group.tickets.add(ticket);
+                if (group.rows.size() >= flushBatchSize) {
+                    pendingGroups.remove(each.getActualTable());
+                    readyGroups.offer(group);
+                }
+            }
+        }
+        return future;
+    }
+    
+    private void tickLoop() {
+        long flushIntervalMillis = messageSaveConfig.getFlushIntervalMillis();
+        long tickMillis = Math.max(1L, flushIntervalMillis / 2);
+        while (running) {
+            try {
+                Thread.sleep(tickMillis);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            long now = System.currentTimeMillis();
+            synchronized (this) {
+                Iterator<PendingGroup> iterator = pendingGroups.values().iterator();
+                while (iterator.hasNext()) {
+                    PendingGroup group = iterator.next();
+                    if (now - group.createTime >= flushIntervalMillis) {
+                        iterator.remove();
+                        readyGroups.offer(group);
+                    }
+                }
+            }
+        }
+    }
+    
+    private void flushLoop() {
+        while (running || !readyGroups.isEmpty()) {
+            PendingGroup group;
+            try {
+                group = readyGroups.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (group == null) {
+                continue;
+            }
+            try {
+                commit(group.rows);
+                group.tickets.forEach(Ticket::commitOne);
+            } catch (Throwable ex) {
+                log.warn("消息发送记录分组提交失败，改为逐条写入，分片表：{}，记录数：{}，错误信息：{}", group.actualTable, group.rows.size(), ex.getMessage());
+                commitOneByOne(group);
+            }
+            groupSizeSummary.record(group.rows.size());
+        }
+    }
+    
+    /**
+     * 逐条写入分组记录，每条记录只影响其所属的提交方
+     */
+    private void commitOneByOne(PendingGroup group) {
+        for (int i = 0; i < group.rows.size(); i++) {
+            SendRecordRow row = group.rows.get(i);
+            Ticket ticket = group.tickets.get(i);
+            try {
+                commit(Collections.singletonList(row));
+                ticket.commitOne();
+            } catch (NonTransientDataAccessException ex) {
+                // 重新投递也无法写入，记录日志后跳过，避免整批消息反复重试直至进入死信队列
+                skippedCounter.increment();
+                log.error("保存消息发送&参数记录错误，已跳过，消息ID：{}，错误信息：{}", row.getSendRecord().getMsgId(), ex.getMessage());
+                ticket.commitOne();
+            } catch (Throwable ex) {
+                log.error("消息发送记录写入失败，消息ID：{}", row.getSendRecord().getMsgId(), ex);
+                ticket.fail(ex);
+            }
+        }
+    }
+    
+    /**
+     * 在一个事务内写入记录，已存在的消息ID跳过，重复投递的消息不会产生重复记录
+     */
+    private void commit(List<SendRecordRow> rows) {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<String> msgIds = rows.stream().map(each -> each.getSendRecord().getMsgId()).collect(Collectors.toList());
+            Set<String> existingMsgIds = new HashSet<>(sendRecordMapper.selectExistingMsgIds(msgIds));
+            Set<String> insertingMsgIds = new HashSet<>(msgIds.size());
+            List<SendRecordDO> sendRecords = new ArrayList<>(msgIds.size());
+            List<SendRecordExtendDO> sendRecordExtends = new ArrayList<>(msgIds.size());
+            for (SendRecordRow each : rows) {
+                String msgId = each.getSendRecord().getMsgId();
+                if (existingMsgIds.contains(msgId) || !insertingMsgIds.add(msgId)) {
+                    duplicateCounter.increment();
+                    continue;
+                }
+                sendRecords.add(each.getSendRecord());
+                sendRecordExtends.add(each.getSendRecordExtend());
+            }
+            if (sendRecords.isEmpty()) {
+                return;
+            }
+            sendRecordMapper.insertBatch(sendRecords);
+            sendRecordExtendMapper.insertBatch(sendRecordExtends);
+        });
+    }
+    
+    /**
+     * 同一分片表正在缓冲的记录
+     */
+    private static final class PendingGroup {
+        
+        private final String actualTable;
+        
+        private final long createTime = System.currentTimeMillis();
+        
+        private final List<SendRecordRow> rows = new ArrayList<>();
+        
+        /**
+         * 与记录一一对应的提交凭证
+         */
+        private final List<Ticket> tickets = new ArrayList<>();
+        
+        private PendingGroup(String actualTable) {
+            this.actualTable = actualTable;
+        }
+    }
+    
+    /**
+     * 一次提交对应的凭证，所有记录提交后完成 Future
+     */
+    private static final class Ticket {
+        
+        private final CompletableFuture<Void> future;
+        
+        private final AtomicInteger remaining;
+        
+        private Ticket(CompletableFuture<Void> future, int rowCount) {
+            this.future = future;
+            this.remaining = new AtomicInteger(rowCount);
+        }
+        
+        private void commitOne() {
+            if (remaining.decrementAndGet() == 0) {
+                future.complete(null);
+            }
+        }
+        
+        private void fail(Throwable ex) {
+            future.completeExceptionally(ex);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package org.opengoofy.assault.messageservice.biz.mq.save;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.opengoofy.assault.messageservice.biz.dao.entity.SendRecordDO;
+import org.opengoofy.assault.messageservice.biz.dao.entity.SendRecordExtendDO;
+
+/**
+ * 待保存的一条消息发送记录，发送记录与参数记录落在同一月份的分片表
+ */
+@Getter
+@AllArgsConstructor
+public class SendRecordRow {
+    
+    /**
+     * 发送记录实际分片表名，用于分组提交
+     */
+    private final String actualTable;
+    
+    /**
+     * 消息发送记录
+     */
+    private final SendRecordDO sendRecord;
+    
+    /**
+     * 消息发送参数记录
+     */
+    private final SendRecordExtendDO sendRecordExtend;
+}
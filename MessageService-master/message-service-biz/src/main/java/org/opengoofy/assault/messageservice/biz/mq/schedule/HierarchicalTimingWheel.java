@@ -0,0 +1,205 @@
+package org.opengoofy.assault.messageservice.biz.mq.schedule;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * 分层时间轮
+ * <p>
+ * 每层时间轮有固定格数，上一层每格跨度为下一层整轮跨度，超出当前层跨度的任务放入上一层，到期后降级重新放入下层；
+ * 只有非空的格子会进入延时队列，推进线程按格子到期时间阻塞等待，不需要按刻度空转，添加任务的时间复杂度为 O(1)
+ */
+public class HierarchicalTimingWheel {
+    
+    private final DelayQueue<Bucket> delayQueue = new DelayQueue<>();
+    
+    private final AtomicInteger taskCounter = new AtomicInteger();
+    
+    /**
+     * 添加任务时持有读锁，推进时钟时持有写锁，保证推进过程中降级的任务不会与新增任务放入已过期的格子
+     */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    private final Level rootLevel;
+    
+    /**
+     * @param tickMillis 最底层每格时间跨度，单位毫秒
+     * @param wheelSize  每层格数
+     * @param startMillis 时间轮起始时间，单位毫秒
+     */
+    public HierarchicalTimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        this.rootLevel = new Level(tickMillis, wheelSize, startMillis);
+    }
+    
+    /**
+     * 添加任务
+     *
+     * @param task 定时消息任务
+     * @return 任务已到期时返回 false，由调用方直接处理
+     */
+    public boolean add(MessageScheduleTask task) {
+        lock.readLock().lock();
+        try {
+            if (rootLevel.add(task)) {
+                taskCounter.incrementAndGet();
+                return true;
+            }
+            return false;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * 等待最近一个格子到期并推进时钟，到期任务交给处理器，未到期任务降级放入下层
+     *
+     * @param timeoutMillis   等待格子到期的最长时间，单位毫秒
+     * @param expiredConsumer 到期任务处理器
+     * @return 是否有格子到期
+     */
+    public boolean advance(long timeoutMillis, Consumer<MessageScheduleTask> expiredConsumer) throws InterruptedException {
+        Bucket bucket = delayQueue.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+        if (bucket == null) {
+            return false;
+        }
+        lock.writeLock().lock();
+        try {
+            while (bucket != null) {
+                rootLevel.advanceClock(bucket.getExpiration());
+                for (MessageScheduleTask each : bucket.flush()) {
+                    if (!rootLevel.add(each)) {
+                        taskCounter.decrementAndGet();
+                        expiredConsumer.accept(each);
+                    }
+                }
+                bucket = delayQueue.poll();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return true;
+    }
+    
+    /**
+     * 时间轮内未到期的任务数
+     */
+    public int size() {
+        return taskCounter.get();
+    }
+    
+    /**
+     * 单层时间轮
+     */
+    private class Level {
+        
+        private final long tickMillis;
+        
+        private final int wheelSize;
+        
+        private final long interval;
+        
+        private final Bucket[] buckets;
+        
+        /**
+         * 当前时间，总是 tickMillis 的整数倍
+         */
+        private long currentTime;
+        
+        private volatile Level overflowLevel;
+        
+        private Level(long tickMillis, int wheelSize, long startMillis) {
+            this.tickMillis = tickMillis;
+            this.wheelSize = wheelSize;
+            this.interval = tickMillis * wheelSize;
+            this.buckets = new Bucket[wheelSize];
+            for (int i = 0; i < wheelSize; i++) {
+                buckets[i] = new Bucket();
+            }
+            this.currentTime = startMillis - (startMillis % tickMillis);
+        }
+        
+        private boolean add(MessageScheduleTask task) {
+            long expiration = task.getSendAt();
+            if (expiration < currentTime + tickMillis) {
+                return false;
+            }
+            if (expiration < currentTime + interval) {
+                long virtualId = expiration / tickMillis;
+                Bucket bucket = buckets[(int) (virtualId % wheelSize)];
+                bucket.add(task);
+                // 格子被复用为新的到期时间时才重新放入延时队列
+                if (bucket.setExpiration(virtualId * tickMillis)) {
+                    delayQueue.offer(bucket);
+                }
+                return true;
+            }
+            return overflowLevel().add(task);
+        }
+        
+        private Level overflowLevel() {
+            if (overflowLevel == null) {
+                synchronized (this) {
+                    if (overflowLevel == null) {
+                        overflowLevel = new Level(interval, wheelSize, currentTime);
+                    }
+                }
+            }
+            return overflowLevel;
+        }
+        
+        private void advanceClock(long timeMillis) {
+            if (timeMillis >= currentTime + tickMillis) {
+                currentTime = timeMillis - (timeMillis % tickMillis);
+                if (overflowLevel != null) {
+                    overflowLevel.advanceClock(currentTime);
+                }
+            }
+        }
+    }
+    
+    /**
+     * 时间轮格子，同一格子内的任务到期时间相同
+     */
+    private static class Bucket implements Delayed {
+        
+        private final AtomicLong expiration = new AtomicLong(-1L);
+        
+        private final List<MessageScheduleTask> tasks = new ArrayList<>();
+        
+        private synchronized void add(MessageScheduleTask task) {
+            tasks.add(task);
+        }
+        
+        private synchronized List<MessageScheduleTask> flush() {
+            List<MessageScheduleTask> result = new ArrayList<>(tasks);
+            tasks.clear();
+            expiration.set(-1L);
+            return result;
+        }
+        
+        private boolean setExpiration(long expirationMillis) {
+            return expiration.getAndSet(expirationMillis) != expirationMillis;
+        }
+        
+        private long getExpiration() {
+            return expiration.get();
+        }
+        
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(Math.max(getExpiration() - System.currentTimeMillis(), 0L), TimeUnit.MILLISECONDS);
+        }
+        
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(getExpiration(), ((Bucket) other).getExpiration());
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package org.opengoofy.assault.messageservice.biz.mq.schedule;
+
+import cn.hutool.core.net.NetUtil;
+import com.alibaba.fastjson2.JSON;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.opengoofy.assault.messageservice.biz.common.MessageScheduleStatusEnum;
+import org.opengoofy.assault.messageservice.biz.config.MessageScheduleConfig;
+import org.opengoofy.assault.messageservice.biz.dao.entity.MessageScheduleDO;
+import org.opengoofy.assault.messageservice.biz.dao.mapper.MessageScheduleMapper;
+import org.opengoofy.assault.messageservice.biz.mq.event.MessageSendEvent;
+import org.opengoofy.assault.messageservice.biz.mq.produce.MessageCommonSendProduce;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.opengoofy.assault.messageservice.biz.common.MessageRocketMQConstants.MESSAGE_COMMON_TOPIC;
+
+/**
+ * 远期定时消息调度器
+ * <p>
+ * 定时从数据库抢占即将到期的定时消息加载到本实例时间轮，时间轮只保存消息ID与发送时间；
+ * 到期消息进入就绪队列，由投递线程按配置速率分批读取消息内容并投递到对应发送通道，同一时刻到期的大量消息被均匀摊开，不会形成流量尖峰；
+ * 加载状态与加载实例持久化在数据库中，实例重启后重置自身已加载的消息，实例下线后遗留的消息超过租约时间由其它实例重新加载，
+ * 极端情况下重复投递的消息由消费幂等过滤
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MessageScheduleDispatcher implements InitializingBean, DisposableBean {
+    
+    /**
+     * 推进时间轮、等待就绪消息的最长时间，单位毫秒
+     */
+    private static final long POLL_MILLIS = 200L;
+    
+    private final MessageScheduleConfig messageScheduleConfig;
+    private final MessageScheduleMapper messageScheduleMapper;
+    private final MessageCommonSendProduce messageCommonSendProduce;
+    private final MeterRegistry meterRegistry;
+    
+    @Value("${server.port:8080}")
+    private int serverPort;
+    
+    private final BlockingQueue<MessageScheduleTask> readyQueue = new LinkedBlockingQueue<>();
+    
+    private HierarchicalTimingWheel timingWheel;
+    
+    private String instanceId;
+    
+    private Thread advanceThread;
+    
+    private Thread dispatchThread;
+    
+    private volatile boolean running;
+    
+    private Counter dispatchedCounter;
+    
+    @Override
+    public void afterPropertiesSet() {
+        instanceId = NetUtil.getLocalhostStr() + ":" + serverPort;
+        timingWheel = new HierarchicalTimingWheel(messageScheduleConfig.getTickMillis(), messageScheduleConfig.getWheelSize(), System.currentTimeMillis());
+        // 重启前已加载但未投递的消息只存在于上一次运行的时间轮中，重置为等待加载
+        int released = messageScheduleMapper.update(null, Wrappers.lambdaUpdate(MessageScheduleDO.class)
+                .set(MessageScheduleDO::getStatus, MessageScheduleStatusEnum.WAITING.getCode())
+                .eq(MessageScheduleDO::getStatus, MessageScheduleStatusEnum.LOADED.getCode())
+                .eq(MessageScheduleDO::getLoadOwner, instanceId));
+        if (released > 0) {
+            log.info("重置实例重启前已加载的定时消息，实例：{}，消息数：{}", instanceId, released);
+        }
+        Gauge.builder("message.schedule.wheel.size", timingWheel, HierarchicalTimingWheel::size).register(meterRegistry);
+        Gauge.builder("message.schedule.ready.size", readyQueue, BlockingQueue::size).register(meterRegistry);
+        dispatchedCounter = Counter.builder("message.schedule.dispatched").register(meterRegistry);
+        running = true;
+        advanceThread = new Thread(this::advanceLoop, "message-schedule-timing-wheel");
+        advanceThread.setDaemon(true);
+        advanceThread.start();
+        dispatchThread = new Thread(this::dispatchLoop, "message-schedule-dispatch");
+        dispatchThread.setDaemon(true);
+        dispatchThread.start();
+    }
+    
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        advanceThread.interrupt();
+        dispatchThread.interrupt();
+        advanceThread.join(TimeUnit.SECONDS.toMillis(5));
+        dispatchThread.join(TimeUnit.SECONDS.toMillis(5));
+    }
+    
+    /**
+     * 抢占即将到期的定时消息并加载到时间轮
+     */
+    @Scheduled(initialDelayString = "${message.schedule.load-interval-millis:10000}", fixedDelayString = "${message.schedule.load-interval-millis:10000}")
+    public void load() {
+        long now = System.currentTimeMillis();
+        try {
+            reclaimExpiredLease(now);
+            int batchSize = messageScheduleConfig.getLoadBatchSize();
+            while (running && timingWheel.size() + readyQueue.size() < messageScheduleConfig.getMaxLoadedTasks()) {
+                List<MessageScheduleDO> candidates = messageScheduleMapper.selectList(Wrappers.lambdaQuery(MessageScheduleDO.class)
+                        .select(MessageScheduleDO::getId)
+                        .eq(MessageScheduleDO::getStatus, MessageScheduleStatusEnum.WAITING.getCode())
+                        .le(MessageScheduleDO::getSendAt, new Date(now + messageScheduleConfig.getLookaheadMillis()))
+                        .orderByAsc(MessageScheduleDO::getSendAt)
+                        .last("limit " + batchSize));
+                if (candidates.isEmpty()) {
+                    return;
+                }
+                List<Long> ids = candidates.stream().map(MessageScheduleDO::getId).collect(Collectors.toList());
+                if (messageScheduleMapper.claim(ids, instanceId) > 0) {
+                    List<MessageScheduleDO> claimed = messageScheduleMapper.selectList(Wrappers.lambdaQuery(MessageScheduleDO.class)
+                            .select(MessageScheduleDO::getId, MessageScheduleDO::getMsgId, MessageScheduleDO::getSendAt)
+                            .in(MessageScheduleDO::getId, ids)
+                            .eq(MessageScheduleDO::getStatus, MessageScheduleStatusEnum.LOADED.getCode())
+                            .eq(MessageScheduleDO::getLoadOwner, instanceId));
+                    for (MessageScheduleDO each : claimed) {
+                        MessageScheduleTask task = new MessageScheduleTask(each.getId(), each.getMsgId(), each.getSendAt().getTime());
+                        if (!timingWheel.add(task)) {
+                            readyQueue.offer(task);
+                        }
+                    }
+                }
+                if (candidates.size() < batchSize) {
+                    return;
+                }
+            }
+        } catch (Throwable ex) {
+            log.error("加载定时消息失败", ex);
+        }
+    }
+    
+    /**
+     * 超过发送时间加租约时间仍处于已加载状态的消息，说明加载实例已下线，重置为等待加载
+     */
+    private void reclaimExpiredLease(long now) {
+        int reclaimed = messageScheduleMapper.update(null, Wrappers.lambdaUpdate(MessageScheduleDO.class)
+                .set(MessageScheduleDO::getStatus, MessageScheduleStatusEnum.WAITING.getCode())
+                .eq(MessageScheduleDO::getStatus, MessageScheduleStatusEnum.LOADED.getCode())
+                .lt(MessageScheduleDO::getSendAt, new Date(now - messageScheduleConfig.getLeaseTimeoutMillis())));
+        if (reclaimed > 0) {
+            log.warn("重新加载租约超时的定时消息，消息数：{}", reclaimed);
+        }
+    }
+    
+    private void advanceLoop() {
+        while (running) {
+            try {
+                timingWheel.advance(POLL_MILLIS, readyQueue::offer);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Throwable ex) {
+                log.error("推进定时消息时间轮失败", ex);
+            }
+        }
+    }
+    
+    private void dispatchLoop() {
+        int batchSize = messageScheduleConfig.getDispatchBatchSize();
+        while (running) {
+            try {
+                MessageScheduleTask first = readyQueue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                long start = System.currentTimeMillis();
+                List<MessageScheduleTask> tasks = new ArrayList<>(batchSize);
+                tasks.add(first);
+                readyQueue.drainTo(tasks, batchSize - 1);
+                dispatch(tasks);
+                // 按投递速率补足本批次应占用的时间，到期消息再多也只按固定速率进入发送通道
+                long pauseMillis = tasks.size() * 1000L / messageScheduleConfig.getDispatchRatePerSecond() - (System.currentTimeMillis() - start);
+                if (pauseMillis > 0) {
+                    Thread.sleep(pauseMillis);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Throwable ex) {
+                log.error("投递定时消息失败", ex);
+            }
+        }
+    }
+    
+    /**
+     * 投递一批到期消息，已取消或已被其它实例重新加载的消息不再投递；
+     * 投递失败的消息保持已加载状态，租约超时后重新加载
+     */
+    private void dispatch(List<MessageScheduleTask> tasks) {
+        List<Long> ids = tasks.stream().map(MessageScheduleTask::getId).collect(Collectors.toList());
+        List<MessageScheduleDO> messageSchedules = messageScheduleMapper.selectList(Wrappers.lambdaQuery(MessageScheduleDO.class)
+                .in(MessageScheduleDO::getId, ids)
+                .eq(MessageScheduleDO::getStatus, MessageScheduleStatusEnum.LOADED.getCode())
+                .eq(MessageScheduleDO::getLoadOwner, instanceId));
+        List<Long> dispatchedIds = new ArrayList<>(messageSchedules.size());
+        for (MessageScheduleDO each : messageSchedules) {
+            MessageSendEvent messageSendEvent = JSON.parseObject(each.getPayload(), MessageSendEvent.class);
+            if (messageCommonSendProduce.send(messageSendEvent, MESSAGE_COMMON_TOPIC, each.getMsgId(), each.getTag(), 0)) {
+                dispatchedIds.add(each.getId());
+            }
+        }
+        if (dispatchedIds.isEmpty()) {
+            return;
+        }
+        messageScheduleMapper.update(null, Wrappers.lambdaUpdate(MessageScheduleDO.class)
+                .set(MessageScheduleDO::getStatus, MessageScheduleStatusEnum.DISPATCHED.getCode())
+                .in(MessageScheduleDO::getId, dispatchedIds)
+                .eq(MessageScheduleDO::getStatus, MessageScheduleStatusEnum.LOADED.getCode()));
+        dispatchedCounter.increment(dispatchedIds.size());
+    }
+}
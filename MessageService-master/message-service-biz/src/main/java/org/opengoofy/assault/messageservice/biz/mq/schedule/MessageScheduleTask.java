@@ -0,0 +1,27 @@
+package org.opengoofy.assault.messageservice.biz.mq.schedule;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 时间轮中的定时消息任务，只保留定位记录所需的字段，消息内容在投递时再从数据库读取
+ */
+@Getter
+@AllArgsConstructor
+public class MessageScheduleTask {
+    
+    /**
+     * 定时消息记录 id
+     */
+    private final Long id;
+    
+    /**
+     * 消息ID
+     */
+    private final String msgId;
+    
+    /**
+     * 定时发送时间戳，单位毫秒
+     */
+    private final long sendAt;
+}
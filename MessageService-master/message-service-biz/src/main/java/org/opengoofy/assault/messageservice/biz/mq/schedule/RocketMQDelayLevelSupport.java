@@ -0,0 +1,42 @@
+package org.opengoofy.assault.messageservice.biz.mq.schedule;
+
+/**
+ * RocketMQ 延时级别工具
+ * <p>
+ * 对应 Broker 默认配置 messageDelayLevel = 1s 5s 10s 30s 1m 2m 3m 4m 5m 6m 7m 8m 9m 10m 20m 30m 1h 2h，
+ * 只支持固定级别，所以总是选择不超过剩余时间的最大级别，消息提前到达时由消费者按剩余时间再次延时
+ */
+public final class RocketMQDelayLevelSupport {
+    
+    /**
+     * 各延时级别对应的延时时间，下标加一即为延时级别，单位毫秒
+     */
+    private static final long[] DELAY_LEVEL_MILLIS = {
+            1000L, 5000L, 10000L, 30000L,
+            60000L, 120000L, 180000L, 240000L, 300000L, 360000L, 420000L, 480000L, 540000L, 600000L,
+            1200000L, 1800000L, 3600000L, 7200000L
+    };
+    
+    /**
+     * 最大延时级别对应的延时时间，单位毫秒
+     */
+    public static final long MAX_DELAY_MILLIS = DELAY_LEVEL_MILLIS[DELAY_LEVEL_MILLIS.length - 1];
+    
+    private RocketMQDelayLevelSupport() {
+    }
+    
+    /**
+     * 获取不超过延时时间的最大延时级别
+     *
+     * @param delayMillis 延时时间，单位毫秒
+     * @return 延时级别，0 代表不足最小延时级别，无需延时
+     */
+    public static int floorLevel(long delayMillis) {
+        for (int i = DELAY_LEVEL_MILLIS.length - 1; i >= 0; i--) {
+            if (DELAY_LEVEL_MILLIS[i] <= delayMillis) {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+}
@@ -1,5 +1,6 @@
 package org.opengoofy.assault.messageservice.biz.remote;
 
+import org.opengoofy.assault.messageservice.biz.remote.config.WeChatFeignConfiguration;
 import org.opengoofy.assault.messageservice.biz.remote.dto.WeChatTemplateMessageRemoteReqDTO;
 import org.opengoofy.assault.messageservice.biz.remote.dto.WeChatTemplateMessageRemoteRespDTO;
 import org.springframework.cloud.openfeign.FeignClient;
@@ -10,7 +11,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 /**
  * 微信模板消息发送远程调用服务
  */
-@FeignClient(value = "weChatTemplateMessageSendRemoteService", url = "https://api.weixin.qq.com")
+@FeignClient(value = "weChatTemplateMessageSendRemoteService", url = "https://api.weixin.qq.com", configuration = WeChatFeignConfiguration.class)
 public interface WeChatTemplateMessageSendRemoteService {
     
     /**
@@ -0,0 +1,21 @@
+package org.opengoofy.assault.messageservice.biz.remote.config;
+
+import feign.Client;
+import feign.okhttp.OkHttpClient;
+import org.opengoofy.assault.messageservice.biz.handler.send.bulkhead.VendorBulkheadRegistry;
+import org.springframework.context.annotation.Bean;
+
+import static org.opengoofy.assault.messageservice.biz.common.MessageConstants.WECHAT_VENDOR;
+
+/**
+ * 微信远程调用 Feign 配置，使用微信渠道商舱壁独享的 HTTP 连接池
+ * <p>
+ * 注意：该类不能添加 @Configuration 注解，否则会被扫描为全局 Feign 配置
+ */
+public class WeChatFeignConfiguration {
+    
+    @Bean
+    public Client weChatFeignClient(VendorBulkheadRegistry vendorBulkheadRegistry) {
+        return new OkHttpClient(vendorBulkheadRegistry.get(WECHAT_VENDOR).getHttpClient());
+    }
+}
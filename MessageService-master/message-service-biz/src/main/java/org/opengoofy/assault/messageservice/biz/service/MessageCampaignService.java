@@ -0,0 +1,50 @@
+package org.opengoofy.assault.messageservice.biz.service;
+
+import org.opengoofy.assault.messageservice.api.dto.MessageCampaignCreateRequestDTO;
+import org.opengoofy.assault.messageservice.api.dto.MessageCampaignProgressResponseDTO;
+import org.opengoofy.assault.messageservice.biz.mq.event.MessageSendEvent;
+
+/**
+ * 批量发送活动接口
+ */
+public interface MessageCampaignService {
+    
+    /**
+     * 创建或更新批量发送活动，声明批次的目标每秒投递数或投递窗口
+     *
+     * @param requestParam 批量发送活动创建入参
+     */
+    void createCampaign(MessageCampaignCreateRequestDTO requestParam);
+    
+    /**
+     * 查询批量发送活动进度
+     *
+     * @param msgBatchId 消息批量发送ID
+     * @return 批量发送活动进度
+     */
+    MessageCampaignProgressResponseDTO queryProgress(String msgBatchId);
+    
+    /**
+     * 获取批量发送活动配置，优先读取本地缓存
+     *
+     * @param msgBatchId 消息批量发送ID
+     * @return 批量发送活动配置，活动不存在时返回 null
+     */
+    MessageCampaignCreateRequestDTO getCampaign(String msgBatchId);
+    
+    /**
+     * 消息所属批次已声明批量发送活动时写入暂存队列
+     *
+     * @param messageSendEvent 消息发送事件
+     * @return 是否已写入暂存队列
+     */
+    boolean stage(MessageSendEvent messageSendEvent);
+    
+    /**
+     * 记录批量发送活动消息的发送结果
+     *
+     * @param messageSendEvent 消息发送事件
+     * @param success          是否发送成功
+     */
+    void recordResult(MessageSendEvent messageSendEvent, boolean success);
+}
@@ -0,0 +1,197 @@
+package org.opengoofy.assault.messageservice.biz.service;
+
+import cn.hutool.core.util.StrUtil;
+import com.alibaba.fastjson2.JSON;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.opengoofy.assault.framework.starter.cache.DistributedCache;
+import org.opengoofy.assault.framework.starter.convention.exception.ClientException;
+import org.opengoofy.assault.messageservice.api.dto.MessageCampaignCreateRequestDTO;
+import org.opengoofy.assault.messageservice.api.dto.MessageCampaignProgressResponseDTO;
+import org.opengoofy.assault.messageservice.biz.config.MessageCampaignConfig;
+import org.opengoofy.assault.messageservice.biz.mq.event.MessageSendEvent;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.opengoofy.assault.messageservice.biz.common.MessageCacheConstants.MESSAGE_CAMPAIGN_ACTIVE_KEY;
+import static org.opengoofy.assault.messageservice.biz.common.MessageCacheConstants.MESSAGE_CAMPAIGN_INFLIGHT_PREFIX_KEY;
+import static org.opengoofy.assault.messageservice.biz.common.MessageCacheConstants.MESSAGE_CAMPAIGN_PREFIX_KEY;
+import static org.opengoofy.assault.messageservice.biz.common.MessageCacheConstants.MESSAGE_CAMPAIGN_PROGRESS_PREFIX_KEY;
+import static org.opengoofy.assault.messageservice.biz.common.MessageCacheConstants.MESSAGE_CAMPAIGN_STAGING_PREFIX_KEY;
+
+/**
+ * 批量发送活动接口实现
+ * <p>
+ * 活动配置、暂存队列以及进度计数均保存在 Redis 中，所有实例共享；暂存队列不设置过期时间，超过活动保留时间仍未投递的消息由投递器按已过期处理，
+ * 不会随 Key 过期静默丢失。暂存队列由 {@link org.opengoofy.assault.messageservice.biz.mq.campaign.MessageCampaignDispatcher} 按活动速率投递到发送通道
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MessageCampaignServiceImpl implements MessageCampaignService, InitializingBean {
+    
+    /**
+     * 进度计数字段：已接收
+     */
+    public static final String PROGRESS_ACCEPTED = "accepted";
+    
+    /**
+     * 进度计数字段：已投递
+     */
+    public static final String PROGRESS_RELEASED = "released";
+    
+    /**
+     * 进度计数字段：发送成功
+     */
+    public static final String PROGRESS_SUCCESS = "success";
+    
+    /**
+     * 进度计数字段：发送失败
+     */
+    public static final String PROGRESS_FAIL = "fail";
+    
+    /**
+     * 本地缓存的活动配置数上限
+     */
+    private static final long DEFINITION_CACHE_MAXIMUM_SIZE = 10000L;
+    
+    private final DistributedCache distributedCache;
+    private final MessageCampaignConfig messageCampaignConfig;
+    
+    /**
+     * 消息批量发送ID与活动配置的本地缓存，未声明活动的批次同样缓存，避免每条消息都查询 Redis
+     */
+    private Cache<String, Optional<MessageCampaignCreateRequestDTO>> definitionCache;
+    
+    @Override
+    public void afterPropertiesSet() {
+        definitionCache = CacheBuilder.newBuilder()
+                .expireAfterWrite(messageCampaignConfig.getDefinitionCacheMillis(), TimeUnit.MILLISECONDS)
+                .maximumSize(DEFINITION_CACHE_MAXIMUM_SIZE)
+                .build();
+    }
+    
+    @Override
+    public void createCampaign(MessageCampaignCreateRequestDTO requestParam) {
+        if (StrUtil.isBlank(requestParam.getMsgBatchId())) {
+            throw new ClientException("消息批量发送ID不能为空");
+        }
+        if (requestParam.getTargetTps() == null && requestParam.getWindowEndTime() == null) {
+            throw new ClientException("目标每秒投递数与投递窗口结束时间不能同时为空");
+        }
+        if (requestParam.getTargetTps() != null && requestParam.getTargetTps() <= 0) {
+            throw new ClientException("目标每秒投递数必须大于0");
+        }
+        if (requestParam.getWindowStartTime() != null && requestParam.getWindowEndTime() != null
+                && !requestParam.getWindowEndTime().after(requestParam.getWindowStartTime())) {
+            throw new ClientException("投递窗口结束时间必须晚于开始时间");
+        }
+        StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+        stringRedisTemplate.opsForValue().set(
+                MESSAGE_CAMPAIGN_PREFIX_KEY + requestParam.getMsgBatchId(),
+                JSON.toJSONString(requestParam),
+                messageCampaignConfig.getCampaignTimeoutMillis(),
+                TimeUnit.MILLISECONDS
+        );
+        definitionCache.invalidate(requestParam.getMsgBatchId());
+        log.info("批量发送活动已保存，活动配置：{}", JSON.toJSONString(requestParam));
+    }
+    
+    @Override
+    public MessageCampaignProgressResponseDTO queryProgress(String msgBatchId) {
+        StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+        String campaignJson = stringRedisTemplate.opsForValue().get(MESSAGE_CAMPAIGN_PREFIX_KEY + msgBatchId);
+        if (campaignJson == null) {
+            throw new ClientException("批量发送活动不存在或已过期");
+        }
+        MessageCampaignCreateRequestDTO campaign = JSON.parseObject(campaignJson, MessageCampaignCreateRequestDTO.class);
+        Map<Object, Object> progress = stringRedisTemplate.opsForHash().entries(MESSAGE_CAMPAIGN_PROGRESS_PREFIX_KEY + msgBatchId);
+        Long stagedCount = stringRedisTemplate.opsForList().size(MESSAGE_CAMPAIGN_STAGING_PREFIX_KEY + msgBatchId);
+        Long inflightCount = stringRedisTemplate.opsForZSet().zCard(MESSAGE_CAMPAIGN_INFLIGHT_PREFIX_KEY + msgBatchId);
+        return MessageCampaignProgressResponseDTO.builder()
+                .msgBatchId(msgBatchId)
+                .targetTps(campaign.getTargetTps())
+                .windowStartTime(campaign.getWindowStartTime())
+                .windowEndTime(campaign.getWindowEndTime())
+                .acceptedCount(progressCount(progress, PROGRESS_ACCEPTED))
+                .stagedCount((stagedCount == null ? 0L : stagedCount) + (inflightCount == null ? 0L : inflightCount))
+                .releasedCount(progressCount(progress, PROGRESS_RELEASED))
+                .successCount(progressCount(progress, PROGRESS_SUCCESS))
+                .failCount(progressCount(progress, PROGRESS_FAIL))
+                .build();
+    }
+    
+    private static long progressCount(Map<Object, Object> progress, String field) {
+        Object value = progress.get(field);
+        return value == null ? 0L : Long.parseLong(value.toString());
+    }
+    
+    @Override
+    public MessageCampaignCreateRequestDTO getCampaign(String msgBatchId) {
+        try {
+            return definitionCache.get(msgBatchId, () -> {
+                StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+                String campaignJson = stringRedisTemplate.opsForValue().get(MESSAGE_CAMPAIGN_PREFIX_KEY + msgBatchId);
+                return Optional.ofNullable(campaignJson).map(each -> JSON.parseObject(each, MessageCampaignCreateRequestDTO.class));
+            }).orElse(null);
+        } catch (ExecutionException ex) {
+            log.error("加载批量发送活动配置失败，消息批量发送ID：{}", msgBatchId, ex.getCause());
+            return null;
+        }
+    }
+    
+    @Override
+    public boolean stage(MessageSendEvent messageSendEvent) {
+        String msgBatchId = messageSendEvent.getMessageSendRequest().getMsgBatchId();
+        if (StrUtil.isBlank(msgBatchId) || getCampaign(msgBatchId) == null) {
+            return false;
+        }
+        String stagingKey = MESSAGE_CAMPAIGN_STAGING_PREFIX_KEY + msgBatchId;
+        String progressKey = MESSAGE_CAMPAIGN_PROGRESS_PREFIX_KEY + msgBatchId;
+        String payload = JSON.toJSONString(messageSendEvent);
+        long timeoutMillis = messageCampaignConfig.getCampaignTimeoutMillis();
+        StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+        // 先写入暂存队列再加入活跃集合，与投递线程移出活跃集合的脚本配合，保证有暂存消息的活动一定处于活跃状态
+        stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> redisOperations = (RedisOperations<String, String>) operations;
+                redisOperations.opsForList().rightPush(stagingKey, payload);
+                redisOperations.opsForSet().add(MESSAGE_CAMPAIGN_ACTIVE_KEY, msgBatchId);
+                redisOperations.opsForHash().increment(progressKey, PROGRESS_ACCEPTED, 1L);
+                redisOperations.expire(progressKey, timeoutMillis, TimeUnit.MILLISECONDS);
+                return null;
+            }
+        });
+        return true;
+    }
+    
+    @Override
+    public void recordResult(MessageSendEvent messageSendEvent, boolean success) {
+        String msgBatchId = messageSendEvent.getMessageSendRequest().getMsgBatchId();
+        if (StrUtil.isBlank(msgBatchId)) {
+            return;
+        }
+        try {
+            if (getCampaign(msgBatchId) == null) {
+                return;
+            }
+            StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+            stringRedisTemplate.opsForHash().increment(MESSAGE_CAMPAIGN_PROGRESS_PREFIX_KEY + msgBatchId, success ? PROGRESS_SUCCESS : PROGRESS_FAIL, 1L);
+        } catch (Throwable ex) {
+            log.error("记录批量发送活动发送结果失败，消息ID：{}", messageSendEvent.getMsgId(), ex);
+        }
+    }
+}
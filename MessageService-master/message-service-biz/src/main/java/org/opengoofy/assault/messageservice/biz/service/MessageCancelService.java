@@ -0,0 +1,17 @@
+package org.opengoofy.assault.messageservice.biz.service;
+
+import org.opengoofy.assault.messageservice.api.dto.MessageCancelRequestDTO;
+
+/**
+ * 消息撤回接口
+ */
+public interface MessageCancelService {
+    
+    /**
+     * 撤回尚未发送的消息，按消息ID撤回单条消息或按消息批量发送ID撤回整个批次；
+     * 已调用三方平台的消息无法撤回，撤回的消息保存为已撤回状态并触发失败回调
+     *
+     * @param requestParam 消息撤回入参
+     */
+    void cancel(MessageCancelRequestDTO requestParam);
+}
@@ -0,0 +1,44 @@
+package org.opengoofy.assault.messageservice.biz.service;
+
+import cn.hutool.core.util.StrUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.opengoofy.assault.framework.starter.convention.exception.ClientException;
+import org.opengoofy.assault.messageservice.api.dto.MessageCancelRequestDTO;
+import org.opengoofy.assault.messageservice.biz.config.MessageCancelConfig;
+import org.opengoofy.assault.messageservice.biz.mq.cancel.MessageCancelTombstoneStore;
+import org.springframework.stereotype.Service;
+
+/**
+ * 消息撤回接口实现
+ * <p>
+ * 撤回只写入撤回标识，不删除已投递到 RocketMQ 或批量发送活动暂存队列中的消息，消费者发送前检查撤回标识后丢弃
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MessageCancelServiceImpl implements MessageCancelService {
+    
+    private final MessageCancelTombstoneStore messageCancelTombstoneStore;
+    private final MessageScheduleService messageScheduleService;
+    private final MessageCancelConfig messageCancelConfig;
+    
+    @Override
+    public void cancel(MessageCancelRequestDTO requestParam) {
+        String msgId = requestParam.getMsgId();
+        String msgBatchId = requestParam.getMsgBatchId();
+        if (StrUtil.isBlank(msgId) && StrUtil.isBlank(msgBatchId)) {
+            throw new ClientException("消息ID与消息批量发送ID不能同时为空");
+        }
+        if (StrUtil.isBlank(msgId)) {
+            messageCancelTombstoneStore.cancelBatch(msgBatchId);
+            log.info("消息批次已撤回，消息批量发送ID：{}", msgBatchId);
+            return;
+        }
+        // 尚未到期的定时消息由定时消息取消流程写入保留到定时发送时间之后的撤回标识
+        if (!messageScheduleService.cancel(msgId, msgBatchId)) {
+            messageCancelTombstoneStore.cancelMessage(msgId, msgBatchId, messageCancelConfig.getTombstoneTimeoutMillis());
+        }
+        log.info("消息已撤回，消息ID：{}", msgId);
+    }
+}
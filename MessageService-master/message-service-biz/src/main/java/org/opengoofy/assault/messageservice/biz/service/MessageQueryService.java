@@ -1,8 +1,13 @@
 package org.opengoofy.assault.messageservice.biz.service;
 
+import org.opengoofy.assault.messageservice.api.dto.MessagePageQueryRequestDTO;
+import org.opengoofy.assault.messageservice.api.dto.MessagePageQueryResponseDTO;
 import org.opengoofy.assault.messageservice.api.dto.MessageQueryRequestDTO;
 import org.opengoofy.assault.messageservice.api.dto.MessageQueryResponseDTO;
+import org.opengoofy.assault.messageservice.biz.common.MessageExportFormatEnum;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 /**
@@ -17,4 +22,22 @@ public interface MessageQueryService {
      * @return 消息查询返回结果
      */
     List<MessageQueryResponseDTO> messageQuery(MessageQueryRequestDTO requestParam);
+    
+    /**
+     * 消息分页查询，按创建时间、消息ID升序通过游标翻页
+     *
+     * @param requestParam 消息分页查询入参实体
+     * @return 当前页消息与下一页游标
+     */
+    MessagePageQueryResponseDTO messagePageQuery(MessagePageQueryRequestDTO requestParam);
+    
+    /**
+     * 消息流式导出，按创建时间、消息ID升序逐条写入输出流
+     *
+     * @param requestParam 消息查询入参实体
+     * @param format       导出格式
+     * @param outputStream 输出流
+     * @return 导出记录数
+     */
+    long messageExport(MessageQueryRequestDTO requestParam, MessageExportFormatEnum format, OutputStream outputStream) throws IOException;
 }
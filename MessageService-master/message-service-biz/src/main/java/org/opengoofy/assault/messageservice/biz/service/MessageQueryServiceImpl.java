@@ -1,32 +1,83 @@
 package org.opengoofy.assault.messageservice.biz.service;
 
+import cn.hutool.core.date.DateUtil;
 import cn.hutool.core.util.ObjectUtil;
 import cn.hutool.core.util.StrUtil;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.google.common.collect.Lists;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.opengoofy.assault.framework.starter.common.toolkit.BeanUtil;
+import org.opengoofy.assault.framework.starter.convention.exception.ClientException;
+import org.opengoofy.assault.framework.starter.distributedid.SnowflakeIdUtil;
+import org.opengoofy.assault.messageservice.api.dto.MessagePageQueryRequestDTO;
+import org.opengoofy.assault.messageservice.api.dto.MessagePageQueryResponseDTO;
 import org.opengoofy.assault.messageservice.api.dto.MessageQueryRequestDTO;
 import org.opengoofy.assault.messageservice.api.dto.MessageQueryResponseDTO;
+import org.opengoofy.assault.messageservice.biz.algorithm.ShardModel;
+import org.opengoofy.assault.messageservice.biz.algorithm.SnowflakeIdRange;
+import org.opengoofy.assault.messageservice.biz.common.MessageExportFormatEnum;
+import org.opengoofy.assault.messageservice.biz.common.MessageScheduleStatusEnum;
+import org.opengoofy.assault.messageservice.biz.config.MessageQueryConfig;
+import org.opengoofy.assault.messageservice.biz.dao.entity.MessageScheduleDO;
 import org.opengoofy.assault.messageservice.biz.dao.entity.SendRecordDO;
+import org.opengoofy.assault.messageservice.biz.dao.mapper.MessageScheduleMapper;
 import org.opengoofy.assault.messageservice.biz.dao.mapper.SendRecordMapper;
+import org.opengoofy.assault.messageservice.biz.dto.SendRecordScanDTO;
+import org.opengoofy.assault.messageservice.biz.index.MessageReceiverIndex;
+import org.opengoofy.assault.messageservice.biz.index.MessageReceiverIndexLookup;
+import org.opengoofy.assault.messageservice.biz.service.export.MessageExportWriter;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * 消息查询接口
  *该类负责根据查询请求参数进行消息查询，并返回查询结果。
+ * <p>
+ * 只按接收者查询时没有分片键，通过 {@link MessageReceiverIndex} 将查询裁剪到索引中的消息ID所在分片表，
+ * 索引覆盖之前创建的消息按创建时间上限扫描更早的分片表
+ * <p>
+ * 发送时间不是分片键，按发送时间范围查询时根据发送时间晚于创建时间的最大间隔推导创建时间与消息ID范围，使分片算法只路由到范围内的分片表；
+ * 超过该间隔发送的长期定时消息从定时消息表查出消息ID后按分片表精确补充查询
+ * <p>
+ * 分页查询与导出按创建时间、消息ID升序逐张扫描分片表：分片表按创建时间月份划分、区间互不重叠，按月份顺序拼接即为各分片结果的有序归并，
+ * 分页取满一页即停止，导出通过流式结果集逐行写出
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class MessageQueryServiceImpl implements MessageQueryService {
     
+    private static final String SEND_RECORD_TABLE = "send_record";
+    
+    /**
+     * 单条查询语句包含的最大消息ID数
+     */
+    private static final int QUERY_CHUNK_SIZE = 500;
+    
+    /**
+     * 分页游标中创建时间与消息ID的分隔符
+     */
+    private static final char CURSOR_SEPARATOR = '_';
+    
     private final SendRecordMapper sendRecordMapper;
-
-
+    private final MessageScheduleMapper messageScheduleMapper;
+    private final MessageReceiverIndex messageReceiverIndex;
+    private final MessageQueryConfig messageQueryConfig;
+    
     /**
      * 根据查询请求参数进行消息查询
      *
@@ -35,14 +86,265 @@ public class MessageQueryServiceImpl implements MessageQueryService {
      */
     @Override
     public List<MessageQueryResponseDTO> messageQuery(MessageQueryRequestDTO requestParam) {
+        boolean hasSendTimeRange = ObjectUtil.isAllNotEmpty(requestParam.getSendStartTime(), requestParam.getSendEndTime());
+        if (hasSendTimeRange && requestParam.getSendStartTime().after(requestParam.getSendEndTime())) {
+            return Collections.emptyList();
+        }
+        if (messageReceiverIndex.isQueryable() && StrUtil.isNotBlank(requestParam.getReceiver()) && StrUtil.isBlank(requestParam.getMsgId())) {
+            return BeanUtil.convert(queryByReceiverIndex(requestParam), MessageQueryResponseDTO.class);
+        }
         //构件查询条件
         LambdaQueryWrapper<SendRecordDO> queryWrapper = Wrappers.lambdaQuery(SendRecordDO.class)
                 .eq(StrUtil.isNotBlank(requestParam.getReceiver()), SendRecordDO::getReceiver, requestParam.getReceiver())
                 .eq(StrUtil.isNotBlank(requestParam.getMsgId()), SendRecordDO::getMsgId, requestParam.getMsgId())
-                .between(ObjectUtil.isAllNotEmpty(requestParam.getSendStartTime(), requestParam.getSendEndTime()), SendRecordDO::getSendTime, requestParam.getSendStartTime(), requestParam.getSendEndTime());
-
-        //执行消息查询并将结果转换为消息响应DTO列表
-        List<MessageQueryResponseDTO> result = BeanUtil.convert(sendRecordMapper.selectList(queryWrapper), MessageQueryResponseDTO.class);
+                .between(hasSendTimeRange, SendRecordDO::getSendTime, requestParam.getSendStartTime(), requestParam.getSendEndTime());
+        if (!hasSendTimeRange || StrUtil.isNotBlank(requestParam.getMsgId())) {
+            //执行消息查询并将结果转换为消息响应DTO列表
+            return BeanUtil.convert(sendRecordMapper.selectList(queryWrapper), MessageQueryResponseDTO.class);
+        }
+        // 按发送时间范围推导创建时间范围，分片算法按创建时间范围只路由到对应月份的分片表
+        Date createTimeMin = createTimeMin(requestParam.getSendStartTime());
+        limitCreateTime(queryWrapper, createTimeMin, requestParam.getSendEndTime());
+        Map<String, SendRecordDO> records = new LinkedHashMap<>();
+        putAll(records, sendRecordMapper.selectList(queryWrapper));
+        putAll(records, queryLongScheduled(requestParam.getReceiver(), requestParam.getSendStartTime(), requestParam.getSendEndTime(), createTimeMin));
+        return BeanUtil.convert(new ArrayList<>(records.values()), MessageQueryResponseDTO.class);
+    }
+    
+    @Override
+    public MessagePageQueryResponseDTO messagePageQuery(MessagePageQueryRequestDTO requestParam) {
+        int pageSize = requestParam.getPageSize() == null ? messageQueryConfig.getDefaultPageSize()
+                : Math.max(1, Math.min(requestParam.getPageSize(), messageQueryConfig.getMaxPageSize()));
+        Date cursorCreateTime = null;
+        String cursorMsgId = null;
+        if (StrUtil.isNotBlank(requestParam.getCursor())) {
+            String cursor = requestParam.getCursor();
+            int index = cursor.indexOf(CURSOR_SEPARATOR);
+            try {
+                cursorCreateTime = new Date(Long.parseLong(cursor.substring(0, index)));
+                cursorMsgId = cursor.substring(index + 1);
+            } catch (RuntimeException ex) {
+                throw new ClientException("分页游标格式错误：" + cursor);
+            }
+        }
+        List<SendRecordDO> records = new ArrayList<>(pageSize + 1);
+        for (SendRecordScanDTO each : planScans(requestParam.getReceiver(), requestParam.getSendStartTime(), requestParam.getSendEndTime(), cursorCreateTime)) {
+            each.setCursorCreateTime(cursorCreateTime);
+            each.setCursorMsgId(cursorMsgId);
+            records.addAll(sendRecordMapper.selectScanPage(each, pageSize + 1 - records.size()));
+            if (records.size() > pageSize) {
+                break;
+            }
+        }
+        String nextCursor = null;
+        if (records.size() > pageSize) {
+            records = records.subList(0, pageSize);
+            SendRecordDO last = records.get(pageSize - 1);
+            nextCursor = last.getCreateTime().getTime() + String.valueOf(CURSOR_SEPARATOR) + last.getMsgId();
+        }
+        return new MessagePageQueryResponseDTO(records.stream().map(MessageQueryServiceImpl::toResponse).collect(Collectors.toList()), nextCursor);
+    }
+    
+    @Override
+    public long messageExport(MessageQueryRequestDTO requestParam, MessageExportFormatEnum format, OutputStream outputStream) throws IOException {
+        try (MessageExportWriter writer = new MessageExportWriter(format, outputStream)) {
+            if (StrUtil.isNotBlank(requestParam.getMsgId())) {
+                for (SendRecordDO each : sendRecordMapper.selectList(Wrappers.lambdaQuery(SendRecordDO.class)
+                        .eq(SendRecordDO::getMsgId, requestParam.getMsgId())
+                        .eq(StrUtil.isNotBlank(requestParam.getReceiver()), SendRecordDO::getReceiver, requestParam.getReceiver()))) {
+                    writer.write(each);
+                }
+                return writer.getCount();
+            }
+            for (SendRecordScanDTO each : planScans(requestParam.getReceiver(), requestParam.getSendStartTime(), requestParam.getSendEndTime(), null)) {
+                sendRecordMapper.scan(each, context -> {
+                    try {
+                        writer.write(context.getResultObject());
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+            }
+            return writer.getCount();
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+    
+    /**
+     * 生成按创建时间升序排列的分片表扫描条件：指定发送时间范围时按推导的创建时间范围确定分片表，并带上所在分片表的长期定时消息ID；
+     * 未指定时从最早分片表扫描到当前时间所在分片表。游标不为空时跳过游标所在月份之前的分片表
+     */
+    private List<SendRecordScanDTO> planScans(String receiver, Date sendStartTime, Date sendEndTime, Date cursorCreateTime) {
+        boolean hasSendTimeRange = ObjectUtil.isAllNotEmpty(sendStartTime, sendEndTime);
+        if (hasSendTimeRange && sendStartTime.after(sendEndTime)) {
+            return Collections.emptyList();
+        }
+        Date createTimeMin;
+        Date createTimeMax;
+        Date tableStart;
+        Map<String, List<String>> tableMsgIds = Collections.emptyMap();
+        if (hasSendTimeRange) {
+            createTimeMin = createTimeMin(sendStartTime);
+            createTimeMax = sendEndTime;
+            tableStart = createTimeMin;
+            List<String> longScheduledMsgIds = longScheduledMsgIds(sendStartTime, sendEndTime, createTimeMin);
+            for (String each : longScheduledMsgIds) {
+                Date createTime = createTime(each);
+                tableStart = createTime.before(tableStart) ? createTime : tableStart;
+            }
+            tableMsgIds = groupByTable(longScheduledMsgIds);
+        } else {
+            createTimeMin = DateUtil.parse(messageQueryConfig.getEarliestCreateTime());
+            createTimeMax = new Date();
+            tableStart = createTimeMin;
+        }
+        if (cursorCreateTime != null && cursorCreateTime.after(tableStart)) {
+            tableStart = cursorCreateTime;
+        }
+        List<SendRecordScanDTO> result = new ArrayList<>();
+        for (String each : ShardModel.calculateRange(SEND_RECORD_TABLE, tableStart, createTimeMax)) {
+            SendRecordScanDTO scan = new SendRecordScanDTO();
+            scan.setTable(each);
+            scan.setReceiver(StrUtil.isBlank(receiver) ? null : receiver);
+            scan.setSendStartTime(hasSendTimeRange ? sendStartTime : null);
+            scan.setSendEndTime(hasSendTimeRange ? sendEndTime : null);
+            scan.setCreateTimeMin(createTimeMin);
+            scan.setCreateTimeMax(createTimeMax);
+            scan.setMsgIds(tableMsgIds.get(each));
+            result.add(scan);
+        }
+        return result;
+    }
+    
+    /**
+     * 按接收者索引查询：索引中的消息ID按分片表分组精确查询；消息ID已被淘汰的月份按接收者扫描对应分片表；
+     * 索引覆盖时间之前创建的消息按创建时间上限扫描更早的分片表。消息发送时间不早于创建时间，发送结束时间同时作为创建时间上限，
+     * 发送开始时间减去最大发送间隔作为创建时间下限
+     */
+    private List<SendRecordDO> queryByReceiverIndex(MessageQueryRequestDTO requestParam) {
+        String receiver = requestParam.getReceiver();
+        boolean hasSendTimeRange = ObjectUtil.isAllNotEmpty(requestParam.getSendStartTime(), requestParam.getSendEndTime());
+        Date sendStartTime = hasSendTimeRange ? requestParam.getSendStartTime() : null;
+        Date sendEndTime = hasSendTimeRange ? requestParam.getSendEndTime() : null;
+        Date createTimeMin = hasSendTimeRange ? createTimeMin(sendStartTime) : null;
+        MessageReceiverIndexLookup lookup = messageReceiverIndex.lookup(receiver, sendEndTime);
+        Map<String, SendRecordDO> records = new LinkedHashMap<>();
+        putAll(records, selectByMsgIds(receiver, lookup.getMsgIds(), sendStartTime, sendEndTime));
+        int coverageStartMonth = MessageReceiverIndex.month(lookup.getCoverageStart());
+        int createStartMonth = createTimeMin == null ? Integer.MIN_VALUE : MessageReceiverIndex.month(createTimeMin);
+        int sendEndMonth = sendEndTime == null ? Integer.MAX_VALUE : MessageReceiverIndex.month(sendEndTime);
+        for (Integer each : lookup.getScanMonths()) {
+            if (each < coverageStartMonth || each < createStartMonth || each > sendEndMonth) {
+                continue;
+            }
+            String table = String.format(ShardModel.SEND_MSG_SHARD_TABLE, SEND_RECORD_TABLE, each / 100, each % 100);
+            putAll(records, sendRecordMapper.selectByReceiver(table, receiver, null, sendStartTime, sendEndTime));
+        }
+        // 索引覆盖之前创建的消息不在索引中，按创建时间上限扫描更早的分片表
+        Date createTimeMax = sendEndTime != null && sendEndTime.before(lookup.getCoverageStart()) ? sendEndTime : lookup.getCoverageStart();
+        if (createTimeMin == null) {
+            putAll(records, sendRecordMapper.selectList(Wrappers.lambdaQuery(SendRecordDO.class)
+                    .eq(SendRecordDO::getReceiver, receiver)
+                    .le(SendRecordDO::getCreateTime, createTimeMax)));
+        } else {
+            if (!createTimeMin.after(createTimeMax)) {
+                LambdaQueryWrapper<SendRecordDO> queryWrapper = Wrappers.lambdaQuery(SendRecordDO.class)
+                        .eq(SendRecordDO::getReceiver, receiver)
+                        .between(SendRecordDO::getSendTime, sendStartTime, sendEndTime);
+                limitCreateTime(queryWrapper, createTimeMin, createTimeMax);
+                putAll(records, sendRecordMapper.selectList(queryWrapper));
+            }
+            putAll(records, queryLongScheduled(receiver, sendStartTime, sendEndTime, createTimeMin));
+        }
+        List<SendRecordDO> result = new ArrayList<>(records.values());
+        result.sort(Comparator.comparing((SendRecordDO each) -> Long.parseLong(each.getMsgId())).reversed());
+        return result;
+    }
+    
+    /**
+     * 发送时间范围对应的创建时间下限
+     */
+    private Date createTimeMin(Date sendStartTime) {
+        return new Date(sendStartTime.getTime() - messageQueryConfig.getSendDelayMaxMillis());
+    }
+    
+    /**
+     * 追加创建时间与消息ID范围条件，创建时间范围使分片算法走范围路由，消息ID范围用于命中消息ID索引
+     */
+    private static void limitCreateTime(LambdaQueryWrapper<SendRecordDO> queryWrapper, Date createTimeMin, Date createTimeMax) {
+        String minMsgId = String.valueOf(SnowflakeIdRange.minId(createTimeMin));
+        String maxMsgId = String.valueOf(SnowflakeIdRange.maxId(createTimeMax));
+        // 消息ID为字符串列，位数相同时字典序与数值大小一致，才能按范围比较
+        queryWrapper.between(SendRecordDO::getCreateTime, createTimeMin, createTimeMax)
+                .between(minMsgId.length() == maxMsgId.length(), SendRecordDO::getMsgId, minMsgId, maxMsgId);
+    }
+    
+    /**
+     * 补充查询创建时间早于下限、在发送时间范围内投递的长期定时消息
+     */
+    private List<SendRecordDO> queryLongScheduled(String receiver, Date sendStartTime, Date sendEndTime, Date createTimeMin) {
+        return selectByMsgIds(StrUtil.isBlank(receiver) ? null : receiver, longScheduledMsgIds(sendStartTime, sendEndTime, createTimeMin), sendStartTime, sendEndTime);
+    }
+    
+    /**
+     * 在发送时间范围内投递、创建时间早于下限的长期定时消息ID
+     */
+    private List<String> longScheduledMsgIds(Date sendStartTime, Date sendEndTime, Date createTimeMin) {
+        List<MessageScheduleDO> schedules = messageScheduleMapper.selectList(Wrappers.lambdaQuery(MessageScheduleDO.class)
+                .select(MessageScheduleDO::getMsgId)
+                .eq(MessageScheduleDO::getStatus, MessageScheduleStatusEnum.DISPATCHED.getCode())
+                .between(MessageScheduleDO::getSendAt, createTimeMin(sendStartTime), sendEndTime));
+        List<String> msgIds = new ArrayList<>();
+        for (MessageScheduleDO each : schedules) {
+            if (createTime(each.getMsgId()).before(createTimeMin)) {
+                msgIds.add(each.getMsgId());
+            }
+        }
+        return msgIds;
+    }
+    
+    /**
+     * 消息ID按所在分片表分组后分批精确查询
+     */
+    private List<SendRecordDO> selectByMsgIds(String receiver, Collection<String> msgIds, Date sendStartTime, Date sendEndTime) {
+        List<SendRecordDO> result = new ArrayList<>();
+        groupByTable(msgIds).forEach((table, each) -> Lists.partition(each, QUERY_CHUNK_SIZE)
+                .forEach(chunk -> result.addAll(sendRecordMapper.selectByReceiver(table, receiver, chunk, sendStartTime, sendEndTime))));
+        return result;
+    }
+    
+    private static Map<String, List<String>> groupByTable(Collection<String> msgIds) {
+        Map<String, List<String>> tableMsgIds = new LinkedHashMap<>();
+        for (String each : msgIds) {
+            tableMsgIds.computeIfAbsent(ShardModel.quarterlyModel(SEND_RECORD_TABLE, createTime(each)), key -> new ArrayList<>()).add(each);
+        }
+        return tableMsgIds;
+    }
+    
+    private static MessageQueryResponseDTO toResponse(SendRecordDO record) {
+        MessageQueryResponseDTO result = new MessageQueryResponseDTO();
+        result.setMsgId(record.getMsgId());
+        result.setMsgBatchId(record.getMsgBatchId());
+        result.setTemplateId(record.getTemplateId());
+        result.setMsgType(record.getMsgType());
+        result.setSourceId(record.getSourceId());
+        result.setSender(record.getSender());
+        result.setReceiver(record.getReceiver());
+        result.setCc(record.getCc());
+        result.setBillingCount(record.getBillingCount());
+        result.setStatus(record.getStatus());
+        result.setFailInfo(record.getFailInfo());
+        result.setSendTime(record.getSendTime());
+        result.setReceiptTime(record.getReceiptTime());
         return result;
     }
+    
+    private static Date createTime(String msgId) {
+        return new Date(SnowflakeIdUtil.parseSnowflakeId(Long.parseLong(msgId)).getTimestamp());
+    }
+    
+    private static void putAll(Map<String, SendRecordDO> records, List<SendRecordDO> sendRecords) {
+        sendRecords.forEach(each -> records.putIfAbsent(each.getMsgId(), each));
+    }
 }
@@ -0,0 +1,38 @@
+package org.opengoofy.assault.messageservice.biz.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 短信回执推送接口
+ */
+public interface MessageReceiptPushService {
+    
+    /**
+     * 校验渠道商推送请求的令牌与来源 IP
+     *
+     * @param vendor     渠道商标识
+     * @param token      请求携带的令牌，可为空
+     * @param remoteAddr 请求来源 IP
+     * @return 校验是否通过
+     */
+    boolean verify(String vendor, String token, String remoteAddr);
+    
+    /**
+     * 接收阿里云短信状态报告推送，解析后投递到回执消费者异步更新
+     *
+     * @param inputStream 推送请求体
+     * @return 接收的回执数
+     * @throws IOException 请求体读取失败
+     */
+    int receiveAliReceipts(InputStream inputStream) throws IOException;
+    
+    /**
+     * 接收腾讯云短信下发状态推送，解析后投递到回执消费者异步更新
+     *
+     * @param inputStream 推送请求体
+     * @return 接收的回执数
+     * @throws IOException 请求体读取失败
+     */
+    int receiveTencentReceipts(InputStream inputStream) throws IOException;
+}
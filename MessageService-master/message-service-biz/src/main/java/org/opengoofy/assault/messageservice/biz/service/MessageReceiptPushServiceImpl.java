@@ -0,0 +1,235 @@
+package org.opengoofy.assault.messageservice.biz.service;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.date.DateUtil;
+import cn.hutool.core.net.NetUtil;
+import cn.hutool.core.util.StrUtil;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.google.common.collect.Lists;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.opengoofy.assault.framework.starter.convention.exception.ClientException;
+import org.opengoofy.assault.framework.starter.convention.exception.ServiceException;
+import org.opengoofy.assault.messageservice.biz.common.MessageSendStatusEnum;
+import org.opengoofy.assault.messageservice.biz.config.MessageReceiptPushConfig;
+import org.opengoofy.assault.messageservice.biz.handler.send.tencent.TencentSmsSerialNoStore;
+import org.opengoofy.assault.messageservice.biz.job.receipt.MessageReceiptDTO;
+import org.opengoofy.assault.messageservice.biz.mq.event.MessageReceiptEvent;
+import org.opengoofy.assault.messageservice.biz.mq.produce.MessageCommonSendProduce;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.opengoofy.assault.messageservice.biz.common.MessageConstants.ALI_VENDOR;
+import static org.opengoofy.assault.messageservice.biz.common.MessageConstants.TENCENT_VENDOR;
+import static org.opengoofy.assault.messageservice.biz.common.MessageRocketMQConstants.MESSAGE_COMMON_TOPIC;
+import static org.opengoofy.assault.messageservice.biz.common.MessageRocketMQConstants.SMS_MESSAGE_RECEIPT_TAG;
+
+/**
+ * 短信回执推送接口实现
+ * <p>
+ * 推送请求体为状态报告数组，流式逐条解析为标准回执，只读取需要的字段；解析后按批次投递到回执 Topic 后再应答渠道商，
+ * 投递失败时应答失败由渠道商重新推送，回执更新本身是幂等的
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MessageReceiptPushServiceImpl implements MessageReceiptPushService {
+    
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    
+    private final MessageCommonSendProduce messageCommonSendProduce;
+    private final MessageReceiptPushConfig messageReceiptPushConfig;
+    private final TencentSmsSerialNoStore tencentSmsSerialNoStore;
+    
+    @Override
+    public boolean verify(String vendor, String token, String remoteAddr) {
+        MessageReceiptPushConfig.Verification verification = messageReceiptPushConfig.getVerifications().get(vendor);
+        if (verification == null || (StrUtil.isBlank(verification.getToken()) && CollUtil.isEmpty(verification.getAllowedIps()))) {
+            log.warn("{} 短信回执推送未配置校验令牌与来源 IP 白名单，已拒绝，来源 IP：{}", vendor, remoteAddr);
+            return false;
+        }
+        if (CollUtil.isNotEmpty(verification.getAllowedIps())
+                && verification.getAllowedIps().stream().noneMatch(each -> ipMatches(each, remoteAddr))) {
+            log.warn("{} 短信回执推送来源 IP 不在白名单中，已拒绝，来源 IP：{}", vendor, remoteAddr);
+            return false;
+        }
+        // 定长比较，避免通过响应耗时逐位猜测令牌
+        if (StrUtil.isNotBlank(verification.getToken()) && (token == null
+                || !MessageDigest.isEqual(verification.getToken().getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8)))) {
+            log.warn("{} 短信回执推送令牌校验失败，已拒绝，来源 IP：{}", vendor, remoteAddr);
+            return false;
+        }
+        return true;
+    }
+    
+    private static boolean ipMatches(String allowedIp, String remoteAddr) {
+        if (!allowedIp.contains("/")) {
+            return allowedIp.equals(remoteAddr);
+        }
+        try {
+            return NetUtil.isInRange(remoteAddr, allowedIp);
+        } catch (RuntimeException ex) {
+            // 非 IPv4 地址无法按网段匹配
+            return false;
+        }
+    }
+    
+    /**
+     * 阿里云状态报告字段：out_id 为发送时传入的消息ID，success 为是否送达，report_time 为运营商回执时间
+     * <p>
+     * 引用自阿里云官方网址 https://help.aliyun.com/document_detail/101867.html
+     */
+    @Override
+    public int receiveAliReceipts(InputStream inputStream) throws IOException {
+        List<MessageReceiptDTO> receipts = new ArrayList<>();
+        try (JsonParser parser = JSON_FACTORY.createParser(inputStream)) {
+            startArray(parser);
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                MessageReceiptDTO receipt = new MessageReceiptDTO();
+                boolean success = false;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String fieldName = parser.getCurrentName();
+                    JsonToken valueToken = parser.nextToken();
+                    switch (fieldName) {
+                        case "out_id":
+                            receipt.setMsgId(parser.getValueAsString());
+                            break;
+                        case "phone_number":
+                            receipt.setReceiver(parser.getValueAsString());
+                            break;
+                        case "success":
+                            success = parser.getValueAsBoolean();
+                            break;
+                        case "report_time":
+                            receipt.setReceiptTime(parseTime(parser.getValueAsString()));
+                            break;
+                        default:
+                            skipValue(parser, valueToken);
+                    }
+                }
+                receipt.setStatus(success ? MessageSendStatusEnum.SEND_SUCCESS.getCode() : MessageSendStatusEnum.SEND_FAIL.getCode());
+                if (StrUtil.isBlank(receipt.getMsgId())) {
+                    log.warn("阿里云短信状态报告缺少消息ID，已忽略：{}", receipt);
+                    continue;
+                }
+                receipts.add(receipt);
+            }
+        }
+        publish(ALI_VENDOR, receipts);
+        return receipts.size();
+    }
+    
+    /**
+     * 腾讯云状态报告字段：ext 为发送时传入的 SessionContext，即单号码请求的消息ID；多号码请求通过 sid 流水号映射消息ID
+     * <p>
+     * 引用自腾讯云官方网址 https://cloud.tencent.com/document/product/382/52077
+     */
+    @Override
+    public int receiveTencentReceipts(InputStream inputStream) throws IOException {
+        List<MessageReceiptDTO> receipts = new ArrayList<>();
+        Map<String, MessageReceiptDTO> serialReceipts = new LinkedHashMap<>();
+        try (JsonParser parser = JSON_FACTORY.createParser(inputStream)) {
+            startArray(parser);
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                MessageReceiptDTO receipt = new MessageReceiptDTO();
+                String serialNo = null;
+                boolean success = false;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String fieldName = parser.getCurrentName();
+                    JsonToken valueToken = parser.nextToken();
+                    switch (fieldName) {
+                        case "ext":
+                            if (valueToken == JsonToken.VALUE_STRING) {
+                                receipt.setMsgId(parser.getValueAsString());
+                            } else {
+                                skipValue(parser, valueToken);
+                            }
+                            break;
+                        case "sid":
+                            serialNo = parser.getValueAsString();
+                            break;
+                        case "mobile":
+                            receipt.setReceiver(parser.getValueAsString());
+                            break;
+                        case "report_status":
+                            success = "SUCCESS".equals(parser.getValueAsString());
+                            break;
+                        case "user_receive_time":
+                            receipt.setReceiptTime(parseTime(parser.getValueAsString()));
+                            break;
+                        default:
+                            skipValue(parser, valueToken);
+                    }
+                }
+                receipt.setStatus(success ? MessageSendStatusEnum.SEND_SUCCESS.getCode() : MessageSendStatusEnum.SEND_FAIL.getCode());
+                if (StrUtil.isNotBlank(receipt.getMsgId())) {
+                    receipts.add(receipt);
+                } else if (StrUtil.isNotBlank(serialNo)) {
+                    serialReceipts.put(serialNo, receipt);
+                } else {
+                    log.warn("腾讯云短信状态报告缺少消息ID与流水号，已忽略：{}", receipt);
+                }
+            }
+        }
+        receipts.addAll(resolveSerialNo(serialReceipts));
+        publish(TENCENT_VENDOR, receipts);
+        return receipts.size();
+    }
+    
+    /**
+     * 通过发送时缓存的流水号映射一次性查询消息ID，映射已过期的回执无法关联发送记录
+     */
+    private List<MessageReceiptDTO> resolveSerialNo(Map<String, MessageReceiptDTO> serialReceipts) {
+        List<MessageReceiptDTO> result = new ArrayList<>(serialReceipts.size());
+        Map<String, String> serialNoMsgIds = tencentSmsSerialNoStore.resolve(serialReceipts.keySet());
+        serialReceipts.forEach((serialNo, receipt) -> {
+            String msgId = serialNoMsgIds.get(serialNo);
+            if (msgId == null) {
+                log.warn("腾讯云短信流水号未找到对应消息ID，已忽略，流水号：{}", serialNo);
+                return;
+            }
+            receipt.setMsgId(msgId);
+            result.add(receipt);
+        });
+        return result;
+    }
+    
+    private void publish(String vendor, List<MessageReceiptDTO> receipts) {
+        for (List<MessageReceiptDTO> each : Lists.partition(receipts, messageReceiptPushConfig.getEventBatchSize())) {
+            MessageReceiptEvent messageReceiptEvent = MessageReceiptEvent.builder()
+                    .vendor(vendor)
+                    .receipts(new ArrayList<>(each))
+                    .build();
+            if (!messageCommonSendProduce.send(messageReceiptEvent, MESSAGE_COMMON_TOPIC, each.get(0).getMsgId(), SMS_MESSAGE_RECEIPT_TAG, 0)) {
+                throw new ServiceException(String.format("[%s] 短信回执投递失败", vendor));
+            }
+        }
+    }
+    
+    private static void startArray(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            throw new ClientException("短信状态报告格式错误，请求体应为数组");
+        }
+    }
+    
+    private static void skipValue(JsonParser parser, JsonToken valueToken) throws IOException {
+        if (valueToken == JsonToken.START_OBJECT || valueToken == JsonToken.START_ARRAY) {
+            parser.skipChildren();
+        }
+    }
+    
+    private static Date parseTime(String value) {
+        return StrUtil.isBlank(value) ? null : DateUtil.parse(value);
+    }
+}
@@ -0,0 +1,26 @@
+package org.opengoofy.assault.messageservice.biz.service;
+
+import org.opengoofy.assault.messageservice.biz.mq.event.MessageSendEvent;
+
+/**
+ * 定时消息接口
+ */
+public interface MessageScheduleService {
+    
+    /**
+     * 保存定时消息，近期到期的消息直接投递为 RocketMQ 延时消息，其余消息由时间轮调度
+     *
+     * @param messageSendEvent 消息发送事件
+     * @param tag              消息发送通道 Tag
+     */
+    void schedule(MessageSendEvent messageSendEvent, String tag);
+    
+    /**
+     * 取消尚未到期的定时消息，并写入保留到定时发送时间之后的撤回标识
+     *
+     * @param msgId      消息ID
+     * @param msgBatchId 消息批量发送ID，可以为空
+     * @return 是否取消成功，消息不存在或已到期时返回 false
+     */
+    boolean cancel(String msgId, String msgBatchId);
+}
@@ -0,0 +1,93 @@
+package org.opengoofy.assault.messageservice.biz.service;
+
+import com.alibaba.fastjson2.JSON;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.opengoofy.assault.messageservice.biz.common.MessageScheduleStatusEnum;
+import org.opengoofy.assault.messageservice.biz.config.MessageCancelConfig;
+import org.opengoofy.assault.messageservice.biz.config.MessageScheduleConfig;
+import org.opengoofy.assault.messageservice.biz.dao.entity.MessageScheduleDO;
+import org.opengoofy.assault.messageservice.biz.dao.mapper.MessageScheduleMapper;
+import org.opengoofy.assault.messageservice.biz.mq.cancel.MessageCancelTombstoneStore;
+import org.opengoofy.assault.messageservice.biz.mq.event.MessageSendEvent;
+import org.opengoofy.assault.messageservice.biz.mq.produce.MessageCommonSendProduce;
+import org.opengoofy.assault.messageservice.biz.mq.schedule.RocketMQDelayLevelSupport;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import static org.opengoofy.assault.messageservice.biz.common.MessageRocketMQConstants.MESSAGE_COMMON_TOPIC;
+
+/**
+ * 定时消息接口实现
+ * <p>
+ * 所有定时消息都会持久化，近期到期的消息投递为 RocketMQ 延时消息，由 Broker 保存直到到期；
+ * 远期消息等待 {@link org.opengoofy.assault.messageservice.biz.mq.schedule.MessageScheduleDispatcher} 临近到期时加载到时间轮
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MessageScheduleServiceImpl implements MessageScheduleService {
+    
+    private final MessageScheduleMapper messageScheduleMapper;
+    private final MessageScheduleConfig messageScheduleConfig;
+    private final MessageCommonSendProduce messageCommonSendProduce;
+    private final MessageCancelTombstoneStore messageCancelTombstoneStore;
+    private final MessageCancelConfig messageCancelConfig;
+    
+    @Override
+    public void schedule(MessageSendEvent messageSendEvent, String tag) {
+        long sendAt = messageSendEvent.getMessageSendRequest().getSendAt().getTime();
+        long delayMillis = sendAt - System.currentTimeMillis();
+        boolean nearTerm = delayMillis <= Math.min(messageScheduleConfig.getNearTermMaxMillis(), RocketMQDelayLevelSupport.MAX_DELAY_MILLIS);
+        MessageScheduleDO messageSchedule = new MessageScheduleDO();
+        messageSchedule.setMsgId(messageSendEvent.getMsgId());
+        messageSchedule.setMsgType(messageSendEvent.getMessageSendRequest().getMsgType());
+        messageSchedule.setTag(tag);
+        messageSchedule.setSendAt(new Date(sendAt));
+        messageSchedule.setPayload(JSON.toJSONString(messageSendEvent));
+        // 先以等待加载状态持久化，延时消息投递成功后再标记为已投递，投递失败或进程在投递后退出时由时间轮调度兜底，重复投递由消费幂等去重
+        messageSchedule.setStatus(MessageScheduleStatusEnum.WAITING.getCode());
+        messageScheduleMapper.insert(messageSchedule);
+        if (!nearTerm) {
+            return;
+        }
+        // 延时级别向下取整，消息提前到达时由消费者按剩余时间再次延时
+        int delayLevel = RocketMQDelayLevelSupport.floorLevel(delayMillis);
+        if (messageCommonSendProduce.send(messageSendEvent, MESSAGE_COMMON_TOPIC, messageSendEvent.getMsgId(), tag, delayLevel)) {
+            // 只更新仍在等待加载的记录，不覆盖期间已撤回或已被时间轮加载的状态
+            messageScheduleMapper.update(null, Wrappers.lambdaUpdate(MessageScheduleDO.class)
+                    .set(MessageScheduleDO::getStatus, MessageScheduleStatusEnum.DISPATCHED.getCode())
+                    .eq(MessageScheduleDO::getId, messageSchedule.getId())
+                    .eq(MessageScheduleDO::getStatus, MessageScheduleStatusEnum.WAITING.getCode()));
+        }
+    }
+    
+    @Override
+    public boolean cancel(String msgId, String msgBatchId) {
+        MessageScheduleDO messageSchedule = messageScheduleMapper.selectOne(
+                Wrappers.lambdaQuery(MessageScheduleDO.class).eq(MessageScheduleDO::getMsgId, msgId)
+        );
+        if (messageSchedule == null) {
+            return false;
+        }
+        int updated = messageScheduleMapper.update(null, Wrappers.lambdaUpdate(MessageScheduleDO.class)
+                .set(MessageScheduleDO::getStatus, MessageScheduleStatusEnum.CANCELED.getCode())
+                .eq(MessageScheduleDO::getId, messageSchedule.getId())
+                .in(MessageScheduleDO::getStatus, Arrays.asList(
+                        MessageScheduleStatusEnum.WAITING.getCode(),
+                        MessageScheduleStatusEnum.LOADED.getCode(),
+                        MessageScheduleStatusEnum.DISPATCHED.getCode()))
+                .gt(MessageScheduleDO::getSendAt, new Date()));
+        if (updated == 0) {
+            return false;
+        }
+        // 已投递的延时消息无法从 Broker 撤回，写入撤回标识由消费者丢弃，标识保留到定时发送时间之后
+        long timeoutMillis = messageSchedule.getSendAt().getTime() - System.currentTimeMillis() + messageCancelConfig.getTombstoneTimeoutMillis();
+        messageCancelTombstoneStore.cancelMessage(msgId, msgBatchId, timeoutMillis);
+        log.info("定时消息已取消，消息ID：{}，定时发送时间：{}", msgId, messageSchedule.getSendAt());
+        return true;
+    }
+}
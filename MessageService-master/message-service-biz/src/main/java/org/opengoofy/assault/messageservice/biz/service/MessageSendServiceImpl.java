@@ -2,20 +2,22 @@ package org.opengoofy.assault.messageservice.biz.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.opengoofy.assault.framework.starter.convention.exception.ClientException;
+import org.opengoofy.assault.framework.starter.convention.exception.ServiceException;
 import org.opengoofy.assault.framework.starter.distributedid.SnowflakeIdUtil;
 import org.opengoofy.assault.messageservice.api.dto.MessageSendRequestDTO;
 import org.opengoofy.assault.messageservice.api.dto.MessageSendResponseDTO;
 import org.opengoofy.assault.messageservice.biz.common.MessageChainMarkEnum;
-import org.opengoofy.assault.messageservice.biz.common.MessageRocketMQConstants;
-import org.opengoofy.assault.messageservice.biz.common.MessageTypeEnum;
+import org.opengoofy.assault.messageservice.biz.common.MessageSendLaneEnum;
+import org.opengoofy.assault.messageservice.biz.config.MessageScheduleConfig;
 import org.opengoofy.assault.messageservice.biz.handler.filter.base.AbstractChainContext;
-import org.opengoofy.assault.messageservice.biz.mq.consumer.OtherMessageSendConsumer;
-import org.opengoofy.assault.messageservice.biz.mq.consumer.SmsVerificationMessageSendConsumer;
+import org.opengoofy.assault.messageservice.biz.mq.consumer.AbstractMessageSendConsumer;
 import org.opengoofy.assault.messageservice.biz.mq.event.MessageSendEvent;
 import org.opengoofy.assault.messageservice.biz.mq.produce.MessageCommonSendProduce;
 import org.springframework.stereotype.Service;
 
-import java.util.Objects;
+import java.util.Date;
+import java.util.List;
 
 /**
  * 消息发送接口实现
@@ -28,8 +30,10 @@ public class MessageSendServiceImpl implements MessageSendService {
     
     private final AbstractChainContext abstractChainContext;
     private final MessageCommonSendProduce messageCommonSendProduce;
-    private final OtherMessageSendConsumer otherMessageSendConsumer;
-    private final SmsVerificationMessageSendConsumer smsVerificationMessageSendConsumer;
+    private final List<AbstractMessageSendConsumer> messageSendConsumers;
+    private final MessageScheduleService messageScheduleService;
+    private final MessageCampaignService messageCampaignService;
+    private final MessageScheduleConfig messageScheduleConfig;
 
 
     /**
@@ -46,6 +50,17 @@ public class MessageSendServiceImpl implements MessageSendService {
         // 构建消息发送事件
         MessageSendEvent messageSendEvent = buildMessageSendEvent(requestParam);
 
+        // 已声明投递速率的批量发送活动消息进入暂存队列，由令牌桶按活动速率匀速投递，活动的投递窗口同时决定发送时间
+        if (messageCampaignService.stage(messageSendEvent)) {
+            return new MessageSendResponseDTO(messageSendEvent.getMsgId());
+        }
+
+        // 定时消息持久化后按发送时间投递，不再由客户端在发送时刻集中调用
+        if (isScheduled(requestParam)) {
+            messageScheduleService.schedule(messageSendEvent, getTagByMsgType(requestParam));
+            return new MessageSendResponseDTO(messageSendEvent.getMsgId());
+        }
+
         // 通过 RocketMQ 削峰消息发送流程，避免应用负载过大
         messageCommonSendProduce.send(messageSendEvent, messageSendEvent.getMsgId(), getTagByMsgType(requestParam));
         // 返回消息发送响应DTO，包含消息ID
@@ -65,16 +80,18 @@ public class MessageSendServiceImpl implements MessageSendService {
     public MessageSendResponseDTO syncMessageSend(MessageSendRequestDTO requestParam) {
         // 责任链模式验证消息发送入参是否合理
         abstractChainContext.handler(MessageChainMarkEnum.MESSAGE_SEND_FILTER.name(), requestParam);
+        if (isScheduled(requestParam)) {
+            throw new ClientException("同步发送不支持定时发送");
+        }
         // 构建消息发送事件
         MessageSendEvent messageSendEvent = buildMessageSendEvent(requestParam);
-        // 判断是验证码消息还是其它消息
-        if (Objects.equals(requestParam.getMsgType(), MessageTypeEnum.SMS_VERIFICATION_MESSAGE.getType())) {
-            // 发送验证码消息
-            smsVerificationMessageSendConsumer.onMessage(messageSendEvent);
-        } else {
-            // 发送其它消息
-            otherMessageSendConsumer.onMessage(messageSendEvent);
-        }
+        // 根据消息类型找到对应发送通道的消费者，直接在该通道的线程池内发送
+        MessageSendLaneEnum lane = MessageSendLaneEnum.getByMsgType(requestParam.getMsgType());
+        AbstractMessageSendConsumer messageSendConsumer = messageSendConsumers.stream()
+                .filter(each -> each.lane() == lane)
+                .findFirst()
+                .orElseThrow(() -> new ServiceException(String.format("[%s] 消息发送通道不存在", lane.name())));
+        messageSendConsumer.onMessage(messageSendEvent);
         // 返回消息发送响应DTO，包含消息ID
         return new MessageSendResponseDTO(messageSendEvent.getMsgId());
     }
@@ -89,7 +106,20 @@ public class MessageSendServiceImpl implements MessageSendService {
         // 通过雪花算法生成唯一的分布式消息ID
         String msgId = SnowflakeIdUtil.nextIdStr();
         // 创建消息发送事件对象，包含了消息发送请求DTO和生成的消息ID
-        return MessageSendEvent.builder().messageSendRequest(requestParam).msgId(msgId).build();
+        // 记录消息接收时间，消费时据此丢弃堆积过久的消息；定时消息从定时发送时间开始计算有效期
+        long acceptTime = isScheduled(requestParam) ? requestParam.getSendAt().getTime() : System.currentTimeMillis();
+        return MessageSendEvent.builder().messageSendRequest(requestParam).msgId(msgId).acceptTime(acceptTime).build();
+    }
+
+    /**
+     * 是否为定时消息，发送时间与当前时间间隔不超过容忍时间时立即发送
+     *
+     * @param requestParam 消息发送请求DTO
+     * @return 是否为定时消息
+     */
+    private boolean isScheduled(MessageSendRequestDTO requestParam) {
+        Date sendAt = requestParam.getSendAt();
+        return sendAt != null && sendAt.getTime() - System.currentTimeMillis() > messageScheduleConfig.getToleranceMillis();
     }
 
     /**
@@ -99,14 +129,7 @@ public class MessageSendServiceImpl implements MessageSendService {
      * @return 消息的Tag
      */
     private String getTagByMsgType(MessageSendRequestDTO requestParam) {
-        // 获取消息类型
-        Integer msgType = requestParam.getMsgType();
-        // 判断消息类型并返回对应的Tag
-        if (msgType == MessageTypeEnum.SMS_VERIFICATION_MESSAGE.getType()) {
-            // 短信验证码消息的Tag
-            return MessageRocketMQConstants.SMS_MESSAGE_VERIFICATION_SEND_TAG;
-        }
-        // 其它消息的Tag
-        return MessageRocketMQConstants.OTHER_MESSAGE_SEND_TAG;
+        // 每种消息类型投递到独立的发送通道，避免营销等大批量消息阻塞验证码、通知消息
+        return MessageSendLaneEnum.getByMsgType(requestParam.getMsgType()).getTag();
     }
 }
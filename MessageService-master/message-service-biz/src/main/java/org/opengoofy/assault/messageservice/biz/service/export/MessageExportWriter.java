@@ -0,0 +1,126 @@
+package org.opengoofy.assault.messageservice.biz.service.export;
+
+import cn.hutool.core.date.DateUtil;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.opengoofy.assault.messageservice.biz.common.MessageExportFormatEnum;
+import org.opengoofy.assault.messageservice.biz.dao.entity.SendRecordDO;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+/**
+ * 消息导出写入器
+ * <p>
+ * 逐条将发送记录写入输出流，字段与 {@link org.opengoofy.assault.messageservice.api.dto.MessageQueryResponseDTO} 一致，
+ * 只缓冲一个写缓冲区的数据，不持有已写出的记录
+ */
+public final class MessageExportWriter implements Closeable {
+    
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    
+    private static final String[] COLUMNS = {"msgId", "msgBatchId", "templateId", "msgType", "sourceId", "sender", "receiver",
+            "cc", "billingCount", "status", "failInfo", "sendTime", "receiptTime"};
+    
+    private final MessageExportFormatEnum format;
+    
+    private final Writer writer;
+    
+    private final JsonGenerator jsonGenerator;
+    
+    private long count;
+    
+    public MessageExportWriter(MessageExportFormatEnum format, OutputStream outputStream) throws IOException {
+        this.format = format;
+        this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        if (format == MessageExportFormatEnum.NDJSON) {
+            jsonGenerator = JSON_FACTORY.createGenerator(writer);
+            jsonGenerator.setRootValueSeparator(null);
+        } else {
+            jsonGenerator = null;
+            writeCsvRow(COLUMNS);
+        }
+    }
+    
+    /**
+     * 写入一条发送记录
+     */
+    public void write(SendRecordDO record) throws IOException {
+        Object[] values = {record.getMsgId(), record.getMsgBatchId(), record.getTemplateId(), record.getMsgType(), record.getSourceId(),
+                record.getSender(), record.getReceiver(), record.getCc(), record.getBillingCount(), record.getStatus(), record.getFailInfo(),
+                record.getSendTime(), record.getReceiptTime()};
+        if (format == MessageExportFormatEnum.NDJSON) {
+            writeJsonRow(values);
+        } else {
+            writeCsvRow(values);
+        }
+        count++;
+    }
+    
+    /**
+     * 已写入的记录数
+     */
+    public long getCount() {
+        return count;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        if (jsonGenerator != null) {
+            jsonGenerator.close();
+        } else {
+            writer.close();
+        }
+    }
+    
+    private void writeJsonRow(Object[] values) throws IOException {
+        jsonGenerator.writeStartObject();
+        for (int i = 0; i < COLUMNS.length; i++) {
+            Object value = values[i];
+            if (value == null) {
+                jsonGenerator.writeNullField(COLUMNS[i]);
+            } else if (value instanceof Integer) {
+                jsonGenerator.writeNumberField(COLUMNS[i], (Integer) value);
+            } else {
+                jsonGenerator.writeStringField(COLUMNS[i], format(value));
+            }
+        }
+        jsonGenerator.writeEndObject();
+        jsonGenerator.writeRaw('\n');
+    }
+    
+    private void writeCsvRow(Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            if (values[i] != null) {
+                writeCsvField(format(values[i]));
+            }
+        }
+        writer.write("\r\n");
+    }
+    
+    /**
+     * 包含逗号、引号或换行的字段用双引号包裹，字段内的双引号转义为两个双引号
+     */
+    private void writeCsvField(String value) throws IOException {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+    
+    private static String format(Object value) {
+        return value instanceof Date ? DateUtil.formatDateTime((Date) value) : value.toString();
+    }
+}
@@ -0,0 +1,30 @@
+package org.opengoofy.assault.messageservice.biz.algorithm;
+
+import cn.hutool.core.date.DateUtil;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 分片表地址计算测试
+ */
+class ShardModelTest {
+    
+    private static final String TABLE_NAME = "send_record";
+    
+    @Test
+    void calculateRangeAcrossYear() {
+        assertEquals(Arrays.asList("send_record_2023_m12", "send_record_2024_m1"),
+                new ArrayList<>(ShardModel.calculateRange(TABLE_NAME, DateUtil.parse("2023-12-15 08:00:00"), DateUtil.parse("2024-01-10 20:00:00"))));
+    }
+    
+    @Test
+    void calculateRangeWithinSameMonth() {
+        assertEquals(Collections.singletonList("send_record_2024_m3"),
+                new ArrayList<>(ShardModel.calculateRange(TABLE_NAME, DateUtil.parse("2024-03-01 00:00:00"), DateUtil.parse("2024-03-31 23:59:59"))));
+    }
+}
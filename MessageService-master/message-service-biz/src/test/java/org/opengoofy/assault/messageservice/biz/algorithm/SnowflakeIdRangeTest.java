@@ -0,0 +1,45 @@
+package org.opengoofy.assault.messageservice.biz.algorithm;
+
+import cn.hutool.core.date.DateUtil;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.opengoofy.assault.framework.starter.distributedid.SnowflakeIdUtil;
+import org.opengoofy.assault.framework.starter.distributedid.core.snowflake.Snowflake;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 按时间计算雪花ID边界测试
+ */
+class SnowflakeIdRangeTest {
+    
+    @BeforeAll
+    static void initSnowflake() {
+        // 雪花ID边界在类加载时通过 SnowflakeIdUtil 推导，需在首次访问前完成初始化
+        SnowflakeIdUtil.initSnowflake(new Snowflake(1L, 1L));
+    }
+    
+    @Test
+    void boundsParseToSameTimestamp() {
+        Date date = DateUtil.parse("2024-01-01 00:00:00");
+        long minId = SnowflakeIdRange.minId(date);
+        long maxId = SnowflakeIdRange.maxId(date);
+        assertTrue(minId < maxId);
+        assertEquals(date.getTime(), SnowflakeIdUtil.parseSnowflakeId(minId).getTimestamp());
+        assertEquals(date.getTime(), SnowflakeIdUtil.parseSnowflakeId(maxId).getTimestamp());
+    }
+    
+    @Test
+    void adjacentMillisecondsDoNotOverlap() {
+        Date date = DateUtil.parse("2024-01-01 00:00:00");
+        assertEquals(SnowflakeIdRange.maxId(date) + 1, SnowflakeIdRange.minId(new Date(date.getTime() + 1)));
+    }
+    
+    @Test
+    void dateBeforeEpochStartsFromZero() {
+        assertEquals(0L, SnowflakeIdRange.minId(new Date(0L)));
+    }
+}
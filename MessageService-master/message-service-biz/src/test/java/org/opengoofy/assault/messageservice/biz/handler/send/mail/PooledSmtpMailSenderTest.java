@@ -0,0 +1,126 @@
+package org.opengoofy.assault.messageservice.biz.handler.send.mail;
+
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetup;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.opengoofy.assault.messageservice.biz.config.MailChannelConfig;
+
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.MimeMessage;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 已认证 SMTP 连接池邮件发送器测试，使用内嵌 SMTP 服务
+ */
+class PooledSmtpMailSenderTest {
+    
+    private static final String USERNAME = "sender@localhost";
+    
+    private static final String PASSWORD = "secret";
+    
+    private static final long SEND_TIMEOUT_SECONDS = 10L;
+    
+    private final ServerSetup serverSetup = ServerSetupTest.SMTP;
+    
+    private GreenMail greenMail;
+    
+    private PooledSmtpMailSender pooledSmtpMailSender;
+    
+    @BeforeEach
+    void setUp() {
+        greenMail = startGreenMail(serverSetup);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        if (pooledSmtpMailSender != null) {
+            pooledSmtpMailSender.destroy();
+        }
+        greenMail.stop();
+    }
+    
+    @Test
+    void pooledSend() throws Exception {
+        pooledSmtpMailSender = startSender(serverSetup.getPort(), 2);
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(pooledSmtpMailSender.submit(buildMessage("user" + i + "@localhost")));
+        }
+        for (CompletableFuture<Void> each : futures) {
+            each.get(SEND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+        assertEquals(10, greenMail.getReceivedMessages().length);
+    }
+    
+    @Test
+    void sendFailedWhenServerUnavailable() throws Exception {
+        int closedPort;
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            closedPort = serverSocket.getLocalPort();
+        }
+        pooledSmtpMailSender = startSender(closedPort, 1);
+        CompletableFuture<Void> future = pooledSmtpMailSender.submit(buildMessage("user@localhost"));
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> future.get(SEND_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertTrue(ex.getCause() instanceof MessagingException);
+    }
+    
+    @Test
+    void reconnectAfterServerRestart() throws Exception {
+        pooledSmtpMailSender = startSender(serverSetup.getPort(), 1);
+        pooledSmtpMailSender.submit(buildMessage("before@localhost")).get(SEND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        assertEquals(1, greenMail.getReceivedMessages().length);
+        
+        // 重启 SMTP 服务，连接池中已认证的连接被服务端关闭
+        greenMail.stop();
+        greenMail = startGreenMail(serverSetup);
+        
+        pooledSmtpMailSender.submit(buildMessage("after@localhost")).get(SEND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        assertEquals(1, greenMail.getReceivedMessages().length);
+        assertEquals("after@localhost", greenMail.getReceivedMessages()[0].getAllRecipients()[0].toString());
+    }
+    
+    private GreenMail startGreenMail(ServerSetup setup) {
+        GreenMail result = new GreenMail(setup);
+        result.setUser(USERNAME, USERNAME, PASSWORD);
+        result.start();
+        return result;
+    }
+    
+    private PooledSmtpMailSender startSender(int port, int poolSize) {
+        MailChannelConfig mailChannelConfig = new MailChannelConfig();
+        mailChannelConfig.setHost(serverSetup.getBindAddress());
+        mailChannelConfig.setPort(port);
+        mailChannelConfig.setUsername(USERNAME);
+        mailChannelConfig.setPassword(PASSWORD);
+        mailChannelConfig.setSslEnabled(false);
+        mailChannelConfig.setPoolSize(poolSize);
+        mailChannelConfig.setConnectTimeoutMillis(1000);
+        mailChannelConfig.setReadTimeoutMillis(2000);
+        PooledSmtpMailSender sender = new PooledSmtpMailSender(mailChannelConfig);
+        sender.afterPropertiesSet();
+        return sender;
+    }
+    
+    private MimeMessage buildMessage(String receiver) throws MessagingException {
+        MimeMessage message = new MimeMessage(pooledSmtpMailSender.getSession());
+        message.setFrom(new InternetAddress(USERNAME));
+        message.setRecipient(Message.RecipientType.TO, new InternetAddress(receiver));
+        message.setSubject("pooled smtp test");
+        message.setText("hello");
+        return message;
+    }
+}
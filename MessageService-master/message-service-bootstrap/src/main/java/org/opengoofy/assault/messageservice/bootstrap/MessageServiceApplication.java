@@ -5,7 +5,9 @@ import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
+@EnableScheduling
 @EnableDynamicThreadPool
 @SpringBootApplication(scanBasePackages = "org.opengoofy.assault.messageservice")
 @MapperScan("org.opengoofy.assault.messageservice.biz.dao.mapper")
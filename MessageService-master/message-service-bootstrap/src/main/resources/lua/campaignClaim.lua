@@ -0,0 +1,13 @@
+-- 从暂存队列队首弹出至多 ARGV[1] 条消息并登记到在途有序集合，分值为租约到期时间；弹出与登记在同一脚本内完成，投递实例宕机时消息仍保留在在途集合中
+-- KEYS[1] 暂存队列 Key KEYS[2] 在途有序集合 Key
+-- ARGV[1] 弹出条数 ARGV[2] 租约到期时间戳
+local payloads = {};
+for i = 1, tonumber(ARGV[1]) do
+    local payload = redis.call('lpop', KEYS[1]);
+    if not payload then
+        break;
+    end
+    redis.call('zadd', KEYS[2], ARGV[2], payload);
+    payloads[#payloads + 1] = payload;
+end
+return payloads;
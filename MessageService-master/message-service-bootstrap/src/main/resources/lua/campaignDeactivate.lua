@@ -0,0 +1,8 @@
+-- 暂存队列与在途集合均为空时将活动移出活跃集合，与暂存消息的 RPUSH、SADD 互斥执行，避免移除刚写入消息或仍有在途消息的活动
+-- KEYS[1] 暂存队列 Key KEYS[2] 活跃活动集合 Key KEYS[3] 在途有序集合 Key
+-- ARGV[1] 消息批量发送ID
+if redis.call('llen', KEYS[1]) == 0 and redis.call('zcard', KEYS[3]) == 0 then
+    redis.call('srem', KEYS[2], ARGV[1]);
+    return 1;
+end
+return 0;
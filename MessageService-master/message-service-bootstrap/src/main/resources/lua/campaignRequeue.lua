@@ -0,0 +1,11 @@
+-- 将在途消息放回暂存队列队首并保持原有顺序，只有仍登记在在途集合中的消息会被放回，多个实例同时放回时不会重复
+-- KEYS[1] 暂存队列 Key KEYS[2] 在途有序集合 Key
+-- ARGV 待放回的消息，按弹出顺序排列
+local requeued = 0;
+for i = #ARGV, 1, -1 do
+    if redis.call('zrem', KEYS[2], ARGV[i]) == 1 then
+        redis.call('lpush', KEYS[1], ARGV[i]);
+        requeued = requeued + 1;
+    end
+end
+return requeued;
@@ -0,0 +1,26 @@
+-- 批量发送活动令牌桶，按每秒投递数补充令牌，返回本次获得的令牌数
+-- KEYS[1] 令牌桶 Key
+-- ARGV[1] 每秒补充令牌数 ARGV[2] 令牌桶容量 ARGV[3] 当前时间戳（毫秒） ARGV[4] 申请令牌数 ARGV[5] 过期时间（毫秒）
+local rate = tonumber(ARGV[1]);
+local capacity = tonumber(ARGV[2]);
+local now = tonumber(ARGV[3]);
+local requested = tonumber(ARGV[4]);
+
+local bucket = redis.call('hmget', KEYS[1], 'tokens', 'timestamp');
+local tokens = tonumber(bucket[1]);
+local timestamp = tonumber(bucket[2]);
+if tokens == nil or timestamp == nil then
+    tokens = 0;
+    timestamp = now;
+end
+
+if now > timestamp then
+    tokens = math.min(capacity, tokens + (now - timestamp) * rate / 1000);
+    timestamp = now;
+end
+
+local granted = math.min(requested, math.floor(tokens));
+tokens = tokens - granted;
+redis.call('hmset', KEYS[1], 'tokens', tokens, 'timestamp', timestamp);
+redis.call('pexpire', KEYS[1], ARGV[5]);
+return granted;
@@ -0,0 +1,22 @@
+-- 裁剪撤回日志并按绝对偏移量读取，日志只保留最近 ARGV[2] 条，裁剪掉的条数累加到日志基准偏移量
+-- KEYS[1] 撤回日志列表 Key KEYS[2] 撤回日志基准偏移量 Key
+-- ARGV[1] 实例已同步的绝对偏移量，小于 0 时只返回日志位置 ARGV[2] 日志保留条数 ARGV[3] 单次读取条数
+-- 返回值：基准偏移量、日志条数，以及从 ARGV[1] 开始读取的日志
+local size = redis.call('llen', KEYS[1]);
+local maxSize = tonumber(ARGV[2]);
+if size > maxSize then
+    redis.call('ltrim', KEYS[1], size - maxSize, -1);
+    redis.call('incrby', KEYS[2], size - maxSize);
+    size = maxSize;
+end
+local base = tonumber(redis.call('get', KEYS[2]) or '0');
+local result = { tostring(base), tostring(size) };
+local offset = tonumber(ARGV[1]);
+if offset < base or offset >= base + size then
+    return result;
+end
+local entries = redis.call('lrange', KEYS[1], offset - base, offset - base + tonumber(ARGV[3]) - 1);
+for i = 1, #entries do
+    result[#result + 1] = entries[i];
+end
+return result;
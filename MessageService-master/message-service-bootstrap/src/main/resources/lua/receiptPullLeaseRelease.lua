@@ -0,0 +1,7 @@
+-- 释放回执拉取租约：只删除当前持有者持有的租约，避免误删租约过期后被其它实例取得的租约
+-- KEYS[1] 租约 Key
+-- ARGV[1] 持有者标识
+if redis.call('get', KEYS[1]) == ARGV[1] then
+    return redis.call('del', KEYS[1]);
+end
+return 0;
@@ -0,0 +1,8 @@
+-- 续期回执拉取租约：租约仍由当前持有者持有时延长过期时间，已过期或被其它实例取得时续期失败
+-- KEYS[1] 租约 Key
+-- ARGV[1] 持有者标识 ARGV[2] 租约时间，单位毫秒
+if redis.call('get', KEYS[1]) == ARGV[1] then
+    redis.call('pexpire', KEYS[1], ARGV[2]);
+    return 1;
+end
+return 0;
@@ -0,0 +1,21 @@
+-- 抢占到期的待重试回执：将到期回执的下次重试时间推迟一个租约时间，多个实例同时抢占时每条回执只会被一个实例取到，
+-- 抢占实例异常退出时租约到期后回执重新可见；回执内容已不存在的成员无法重试，直接从两个有序集合中移除
+-- KEYS[1] 重试时间有序集合 Key KEYS[2] 回执内容哈希 Key KEYS[3] 暂存时间有序集合 Key
+-- ARGV[1] 当前时间 ARGV[2] 租约到期时间 ARGV[3] 单次抢占数量
+-- 返回首个元素为抢占数量（包含已移除的成员），其后为回执内容
+local msgIds = redis.call('zrangebyscore', KEYS[1], '-inf', ARGV[1], 'limit', 0, tonumber(ARGV[3]));
+if #msgIds == 0 then
+    return {0};
+end
+local payloads = redis.call('hmget', KEYS[2], unpack(msgIds));
+local result = {#msgIds};
+for i, msgId in ipairs(msgIds) do
+    if payloads[i] then
+        redis.call('zadd', KEYS[1], ARGV[2], msgId);
+        result[#result + 1] = payloads[i];
+    else
+        redis.call('zrem', KEYS[1], msgId);
+        redis.call('zrem', KEYS[3], msgId);
+    end
+end
+return result;
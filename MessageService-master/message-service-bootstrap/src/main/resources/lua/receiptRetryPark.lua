@@ -0,0 +1,21 @@
+-- 批量暂存待重试的短信回执：已在队列中的回执覆盖回执内容并从头计算重试次数，保留原有下次重试时间；新回执在队列未满时加入
+-- KEYS[1] 重试时间有序集合 Key KEYS[2] 暂存时间有序集合 Key KEYS[3] 回执内容哈希 Key
+-- ARGV[1] 下次重试时间 ARGV[2] 当前时间 ARGV[3] 队列容量 ARGV[4..] 依次为消息ID、回执内容
+-- 返回每条回执是否暂存成功，1 为成功，0 为队列已满
+local capacity = tonumber(ARGV[3]);
+local results = {};
+for i = 4, #ARGV, 2 do
+    local msgId = ARGV[i];
+    if redis.call('zscore', KEYS[1], msgId) then
+        redis.call('hset', KEYS[3], msgId, ARGV[i + 1]);
+        results[#results + 1] = 1;
+    elseif redis.call('zcard', KEYS[1]) >= capacity then
+        results[#results + 1] = 0;
+    else
+        redis.call('zadd', KEYS[1], ARGV[1], msgId);
+        redis.call('zadd', KEYS[2], ARGV[2], msgId);
+        redis.call('hset', KEYS[3], msgId, ARGV[i + 1]);
+        results[#results + 1] = 1;
+    end
+end
+return results;
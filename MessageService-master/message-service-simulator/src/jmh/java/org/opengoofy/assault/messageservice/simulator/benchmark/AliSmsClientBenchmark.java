@@ -0,0 +1,154 @@
+package org.opengoofy.assault.messageservice.simulator.benchmark;
+
+import com.aliyun.dysmsapi20170525.Client;
+import com.aliyun.dysmsapi20170525.models.SendSmsRequest;
+import com.aliyun.dysmsapi20170525.models.SendSmsResponse;
+import com.aliyun.teaopenapi.models.Config;
+import com.aliyun.teautil.models.RuntimeOptions;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.OkHttpClient;
+import org.opengoofy.assault.messageservice.biz.handler.send.ali.AliSmsClient;
+import org.opengoofy.assault.messageservice.biz.handler.send.ali.AliSmsSendResult;
+import org.opengoofy.assault.messageservice.simulator.config.VendorSimulatorConfig;
+import org.opengoofy.assault.messageservice.simulator.core.LatencyDistributionEnum;
+import org.opengoofy.assault.messageservice.simulator.core.SimulatedReceiptStore;
+import org.opengoofy.assault.messageservice.simulator.core.VendorBehaviorSimulatorRegistry;
+import org.opengoofy.assault.messageservice.simulator.http.VendorSimulatorHttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 轻量阿里云短信客户端与 Tea SDK 基准测试
+ * <p>
+ * 在进程内启动零延迟的本地渠道商模拟服务，对比两者单次发送的吞吐与内存分配，同时单独测量签名与响应解析的开销；
+ * 启动时分别用两种客户端各发送一次并校验返回结果，确保轻量客户端的签名报文能被模拟服务正确处理
+ * <p>
+ * 运行方式：在 message-service-simulator 模块启用 benchmark 配置（-Pbenchmark）编译后执行 main 方法，GC 分配数据见 gc.alloc.rate.norm 指标
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@Threads(8)
+public class AliSmsClientBenchmark {
+    
+    private static final int SIMULATOR_PORT = 18090;
+    
+    private static final String ACCESS_KEY_ID = "benchmark-access-key";
+    
+    private static final String ACCESS_KEY_SECRET = "benchmark-access-key-secret";
+    
+    private static final String PHONE_NUMBER = "15700000000";
+    
+    private static final String SIGN_NAME = "消息平台";
+    
+    private static final String TEMPLATE_CODE = "SMS_000000001";
+    
+    private static final String TEMPLATE_PARAM = "{\"code\":\"123456\"}";
+    
+    private static final byte[] SAMPLE_RESPONSE = ("{\"Message\":\"OK\",\"RequestId\":\"F655A8D5-B967-440B-8683-DAD6FF8DE990\","
+            + "\"Code\":\"OK\",\"BizId\":\"900619746936498440^0\"}").getBytes(StandardCharsets.UTF_8);
+    
+    private VendorSimulatorHttpServer simulatorHttpServer;
+    
+    private AliSmsClient aliSmsClient;
+    
+    private Client teaClient;
+    
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        VendorSimulatorConfig.VendorProfile aliProfile = new VendorSimulatorConfig.VendorProfile();
+        aliProfile.setLatencyDistribution(LatencyDistributionEnum.FIXED);
+        aliProfile.setLatencyMillis(0L);
+        VendorSimulatorConfig simulatorConfig = new VendorSimulatorConfig();
+        simulatorConfig.setEnabled(true);
+        simulatorConfig.setHttpPort(SIMULATOR_PORT);
+        // 模拟服务按同一密钥校验签名，签名错误时返回 SignatureDoesNotMatch
+        simulatorConfig.setAliAccessKeySecret(ACCESS_KEY_SECRET);
+        // 基准测试不需要回执，全部丢弃
+        simulatorConfig.setMaxPendingReceipts(0);
+        simulatorConfig.getVendors().put("ALI", aliProfile);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        simulatorHttpServer = new VendorSimulatorHttpServer(
+                simulatorConfig,
+                new VendorBehaviorSimulatorRegistry(simulatorConfig, meterRegistry),
+                new SimulatedReceiptStore(simulatorConfig, meterRegistry));
+        simulatorHttpServer.afterPropertiesSet();
+        
+        aliSmsClient = new AliSmsClient(ACCESS_KEY_ID, ACCESS_KEY_SECRET, "cn-hangzhou", "http://127.0.0.1:" + SIMULATOR_PORT + "/ali", new OkHttpClient());
+        teaClient = new Client(new Config()
+                .setAccessKeyId(ACCESS_KEY_ID)
+                .setAccessKeySecret(ACCESS_KEY_SECRET)
+                .setProtocol("HTTP")
+                .setEndpoint("127.0.0.1:" + SIMULATOR_PORT));
+        
+        AliSmsSendResult liteResult = liteSend();
+        if (!liteResult.isSuccess() || liteResult.getBizId() == null) {
+            throw new IllegalStateException("轻量阿里云短信客户端校验失败：" + liteResult);
+        }
+        SendSmsResponse teaResponse = teaSend();
+        if (!"OK".equals(teaResponse.getBody().getCode())) {
+            throw new IllegalStateException("Tea SDK 校验失败：" + teaResponse.getBody().getCode());
+        }
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        simulatorHttpServer.destroy();
+    }
+    
+    @Benchmark
+    public AliSmsSendResult liteSend() throws Exception {
+        return aliSmsClient.sendSms(PHONE_NUMBER, SIGN_NAME, TEMPLATE_CODE, TEMPLATE_PARAM, "1626845741432373248");
+    }
+    
+    @Benchmark
+    public SendSmsResponse teaSend() throws Exception {
+        SendSmsRequest sendSmsRequest = new SendSmsRequest()
+                .setOutId("1626845741432373248")
+                .setPhoneNumbers(PHONE_NUMBER)
+                .setTemplateCode(TEMPLATE_CODE)
+                .setTemplateParam(TEMPLATE_PARAM)
+                .setSignName(SIGN_NAME);
+        return teaClient.sendSmsWithOptions(sendSmsRequest, new RuntimeOptions());
+    }
+    
+    @Benchmark
+    public String liteSignRequest() {
+        return aliSmsClient.buildSignedRequestBody(PHONE_NUMBER, SIGN_NAME, TEMPLATE_CODE, TEMPLATE_PARAM, "1626845741432373248", Instant.now());
+    }
+    
+    @Benchmark
+    public AliSmsSendResult liteParseResponse() throws Exception {
+        return AliSmsClient.parseResponse(new ByteArrayInputStream(SAMPLE_RESPONSE));
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AliSmsClientBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
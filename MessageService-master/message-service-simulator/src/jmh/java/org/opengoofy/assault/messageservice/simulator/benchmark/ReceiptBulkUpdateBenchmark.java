@@ -0,0 +1,270 @@
+package org.opengoofy.assault.messageservice.simulator.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 短信回执批量更新基准测试
+ * <p>
+ * 对比三种回执状态批量更新方式更新一批回执的耗时：原先每条回执一条 UPDATE 的多语句脚本、按消息ID CASE 取值的单条 UPDATE（每 1000 条一条语句，与 SendRecordMapper#batchUpdate 一致）、
+ * JDBC 批量预编译语句；每次调用交替写入两种状态，保证每条记录都实际发生变更
+ * <p>
+ * 运行方式：先启动本地 MySQL 容器 {@code docker run -d -p 3306:3306 -e MYSQL_ROOT_PASSWORD=root -e MYSQL_DATABASE=message_benchmark mysql:8.0}，
+ * 再在 message-service-simulator 模块启用 benchmark 配置（-Pbenchmark）编译后执行 main 方法；连接地址可通过 -Dbenchmark.jdbc.url、-Dbenchmark.jdbc.username、-Dbenchmark.jdbc.password 覆盖
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class ReceiptBulkUpdateBenchmark {
+    
+    private static final String JDBC_URL = System.getProperty("benchmark.jdbc.url",
+            "jdbc:mysql://127.0.0.1:3306/message_benchmark?characterEncoding=utf-8&serverTimezone=GMT%2B8&useSSL=false"
+                    + "&allowMultiQueries=true&rewriteBatchedStatements=true&useServerPrepStmts=false");
+    
+    private static final String JDBC_USERNAME = System.getProperty("benchmark.jdbc.username", "root");
+    
+    private static final String JDBC_PASSWORD = System.getProperty("benchmark.jdbc.password", "root");
+    
+    private static final String TABLE_NAME = "send_record_benchmark";
+    
+    private static final int CASE_CHUNK_SIZE = 1000;
+    
+    private static final long BASE_MSG_ID = 1626845741432373248L;
+    
+    @Param({"10000"})
+    private int batchSize;
+    
+    private Connection connection;
+    
+    private List<Receipt> receipts;
+    
+    private int round;
+    
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        connection = DriverManager.getConnection(JDBC_URL, JDBC_USERNAME, JDBC_PASSWORD);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop table if exists " + TABLE_NAME);
+            statement.execute("create table " + TABLE_NAME + " ("
+                    + "id bigint not null auto_increment primary key,"
+                    + "msg_id varchar(64) not null,"
+                    + "receiver varchar(128) not null,"
+                    + "sender varchar(64) default null,"
+                    + "status tinyint default null,"
+                    + "receipt_time datetime default null,"
+                    + "update_time datetime default null,"
+                    + "del_flag tinyint not null default 0,"
+                    + "key idx_msg_id (msg_id)"
+                    + ") engine = InnoDB");
+        }
+        receipts = new ArrayList<>(batchSize);
+        connection.setAutoCommit(false);
+        try (PreparedStatement statement = connection.prepareStatement(
+                "insert into " + TABLE_NAME + " (msg_id, receiver, sender, status, update_time) values (?, ?, ?, 2, now())")) {
+            for (int i = 0; i < batchSize; i++) {
+                Receipt receipt = new Receipt(String.valueOf(BASE_MSG_ID + i), String.format("157%08d", i));
+                receipts.add(receipt);
+                statement.setString(1, receipt.msgId);
+                statement.setString(2, receipt.receiver);
+                statement.setString(3, "ALI_YZM_001");
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+        connection.commit();
+        verify(caseUpdate());
+        verify(jdbcBatchUpdate());
+        verify(multiStatementUpdate());
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop table if exists " + TABLE_NAME);
+        }
+        connection.commit();
+        connection.close();
+    }
+    
+    /**
+     * 原先的更新方式：每条回执一条 UPDATE，分号拼接为一个多语句脚本，依赖 allowMultiQueries
+     */
+    @Benchmark
+    public int multiStatementUpdate() throws SQLException {
+        int status = nextStatus();
+        Timestamp receiptTime = new Timestamp(System.currentTimeMillis());
+        StringBuilder sql = new StringBuilder(batchSize * 160);
+        for (int i = 0; i < receipts.size(); i++) {
+            if (i > 0) {
+                sql.append(';');
+            }
+            sql.append("update ").append(TABLE_NAME).append(" set status = ?, sender = ?, receipt_time = ?, update_time = now()")
+                    .append(" where del_flag = '0' and receiver = ? and msg_id = ?");
+        }
+        int updated = 0;
+        try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+            int index = 1;
+            for (Receipt each : receipts) {
+                statement.setInt(index++, status);
+                statement.setString(index++, "ALI_YZM_001");
+                statement.setTimestamp(index++, receiptTime);
+                statement.setString(index++, each.receiver);
+                statement.setString(index++, each.msgId);
+            }
+            boolean hasResultSet = statement.execute();
+            while (hasResultSet || statement.getUpdateCount() != -1) {
+                if (!hasResultSet) {
+                    updated += statement.getUpdateCount();
+                }
+                hasResultSet = statement.getMoreResults();
+            }
+        }
+        connection.commit();
+        return updated;
+    }
+    
+    /**
+     * 按消息ID CASE 取值的单条 UPDATE，与 SendRecordMapper#batchUpdate 生成的语句一致
+     */
+    @Benchmark
+    public int caseUpdate() throws SQLException {
+        int status = nextStatus();
+        Timestamp receiptTime = new Timestamp(System.currentTimeMillis());
+        int updated = 0;
+        for (int from = 0; from < receipts.size(); from += CASE_CHUNK_SIZE) {
+            List<Receipt> chunk = receipts.subList(from, Math.min(from + CASE_CHUNK_SIZE, receipts.size()));
+            try (PreparedStatement statement = connection.prepareStatement(caseUpdateSql(chunk.size()))) {
+                int index = 1;
+                for (Receipt each : chunk) {
+                    statement.setString(index++, each.msgId);
+                    statement.setInt(index++, status);
+                }
+                for (Receipt each : chunk) {
+                    statement.setString(index++, each.msgId);
+                    statement.setString(index++, "ALI_YZM_001");
+                }
+                for (Receipt each : chunk) {
+                    statement.setString(index++, each.msgId);
+                    statement.setTimestamp(index++, receiptTime);
+                }
+                for (Receipt each : chunk) {
+                    statement.setString(index++, each.msgId);
+                }
+                for (Receipt each : chunk) {
+                    statement.setString(index++, each.msgId);
+                    statement.setString(index++, each.receiver);
+                }
+                updated += statement.executeUpdate();
+            }
+        }
+        connection.commit();
+        return updated;
+    }
+    
+    /**
+     * JDBC 批量预编译语句，由驱动按 rewriteBatchedStatements 合并发送
+     */
+    @Benchmark
+    public int jdbcBatchUpdate() throws SQLException {
+        int status = nextStatus();
+        Timestamp receiptTime = new Timestamp(System.currentTimeMillis());
+        int updated = 0;
+        try (PreparedStatement statement = connection.prepareStatement("update " + TABLE_NAME
+                + " set status = ?, sender = ?, receipt_time = ?, update_time = now() where msg_id = ? and del_flag = '0' and receiver = ?")) {
+            for (Receipt each : receipts) {
+                statement.setInt(1, status);
+                statement.setString(2, "ALI_YZM_001");
+                statement.setTimestamp(3, receiptTime);
+                statement.setString(4, each.msgId);
+                statement.setString(5, each.receiver);
+                statement.addBatch();
+            }
+            for (int each : statement.executeBatch()) {
+                updated += Math.max(each, 0);
+            }
+        }
+        connection.commit();
+        return updated;
+    }
+    
+    private static String caseUpdateSql(int size) {
+        StringBuilder sql = new StringBuilder(size * 100);
+        sql.append("update ").append(TABLE_NAME).append(" set status = case msg_id");
+        appendWhenThen(sql, size);
+        sql.append(" end, sender = case msg_id");
+        appendWhenThen(sql, size);
+        sql.append(" end, receipt_time = case msg_id");
+        appendWhenThen(sql, size);
+        sql.append(" end, update_time = now() where msg_id in (");
+        for (int i = 0; i < size; i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(") and del_flag = '0' and receiver = case msg_id");
+        appendWhenThen(sql, size);
+        return sql.append(" end").toString();
+    }
+    
+    private static void appendWhenThen(StringBuilder sql, int size) {
+        for (int i = 0; i < size; i++) {
+            sql.append(" when ? then ?");
+        }
+    }
+    
+    /**
+     * 交替写入发送成功、发送失败两种状态，保证每次更新都实际修改记录
+     */
+    private int nextStatus() {
+        return (round++ & 1) == 0 ? 0 : 1;
+    }
+    
+    private void verify(int updated) {
+        if (updated != batchSize) {
+            throw new IllegalStateException(String.format("回执更新条数不符，预期：%d，实际：%d", batchSize, updated));
+        }
+    }
+    
+    private static final class Receipt {
+        
+        private final String msgId;
+        
+        private final String receiver;
+        
+        private Receipt(String msgId, String receiver) {
+            this.msgId = msgId;
+            this.receiver = receiver;
+        }
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ReceiptBulkUpdateBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
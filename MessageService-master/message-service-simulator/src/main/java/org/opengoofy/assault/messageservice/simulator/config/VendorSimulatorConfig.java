@@ -0,0 +1,145 @@
+package org.opengoofy.assault.messageservice.simulator.config;
+
+import lombok.Data;
+import org.opengoofy.assault.messageservice.simulator.core.LatencyDistributionEnum;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 三方渠道商模拟器配置
+ * <p>
+ * 用于在本地压测发送链路，模拟渠道商的响应耗时、错误、限流、宕机以及短信回执
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "message.simulator")
+public class VendorSimulatorConfig {
+    
+    /**
+     * 是否开启模拟器，开启后真实渠道商发送组件不再注册
+     */
+    private Boolean enabled = false;
+    
+    /**
+     * 本地 HTTP 模拟服务端口
+     */
+    private Integer httpPort = 18080;
+    
+    /**
+     * 本地 HTTP 模拟服务处理线程数
+     */
+    private Integer httpThreads = 64;
+    
+    /**
+     * 待拉取模拟回执最大数量，超过后丢弃新回执，避免长时间压测撑爆内存
+     */
+    private Integer maxPendingReceipts = 1000000;
+    
+    /**
+     * 单次拉取模拟回执数量
+     */
+    private Integer receiptPullSize = 500;
+    
+    /**
+     * 阿里云请求签名校验密钥，配置后校验 RPC 请求签名，用于验证客户端签名实现，为空不校验
+     */
+    private String aliAccessKeySecret;
+    
+    /**
+     * 渠道商行为配置集合，Key 为渠道商标识，比如：ALI、TENCENT、WECHAT、MAIL
+     */
+    private Map<String, VendorProfile> vendors = new HashMap<>();
+    
+    @Data
+    public static class VendorProfile {
+        
+        /**
+         * 响应耗时分布
+         */
+        private LatencyDistributionEnum latencyDistribution = LatencyDistributionEnum.LOG_NORMAL;
+        
+        /**
+         * 响应耗时，固定分布为固定值，正态以及指数分布为均值，对数正态分布为中位数，单位毫秒
+         */
+        private Long latencyMillis = 50L;
+        
+        /**
+         * 响应耗时标准差，仅正态分布使用，单位毫秒
+         */
+        private Long latencyStddevMillis = 20L;
+        
+        /**
+         * 响应耗时 P99，仅对数正态分布使用，用于刻画长尾，单位毫秒
+         */
+        private Long latencyP99Millis = 300L;
+        
+        /**
+         * 响应耗时下限，均匀分布为区间下界，单位毫秒
+         */
+        private Long latencyMinMillis = 0L;
+        
+        /**
+         * 响应耗时上限，均匀分布为区间上界，单位毫秒
+         */
+        private Long latencyMaxMillis = 10000L;
+        
+        /**
+         * 渠道商内部错误比例，0 - 1
+         */
+        private Double errorRate = 0D;
+        
+        /**
+         * 随机限流比例，0 - 1
+         */
+        private Double throttleRate = 0D;
+        
+        /**
+         * 渠道商 QPS 上限，超过后返回限流响应，小于等于 0 表示不限制
+         */
+        private Integer maxQps = 0;
+        
+        /**
+         * 宕机期间响应耗时，模拟连接挂起直至客户端超时，0 表示立即断开连接，单位毫秒
+         */
+        private Long outageLatencyMillis = 5000L;
+        
+        /**
+         * 宕机窗口集合
+         */
+        private List<OutageWindow> outageWindows = new ArrayList<>();
+        
+        /**
+         * 回执延迟均值，实际延迟在均值的 0.5 - 1.5 倍之间，单位毫秒
+         */
+        private Long receiptDelayMillis = 3000L;
+        
+        /**
+         * 回执成功比例，0 - 1
+         */
+        private Double receiptSuccessRate = 0.98D;
+    }
+    
+    @Data
+    public static class OutageWindow {
+        
+        /**
+         * 模拟器启动后多久开始宕机，单位秒
+         */
+        private Long startSeconds = 0L;
+        
+        /**
+         * 宕机持续时间，单位秒
+         */
+        private Long durationSeconds = 0L;
+        
+        /**
+         * 宕机周期，大于 0 时每隔该时间重复一次宕机，单位秒
+         */
+        private Long periodSeconds = 0L;
+    }
+}
@@ -0,0 +1,55 @@
+package org.opengoofy.assault.messageservice.simulator.config;
+
+import org.opengoofy.assault.messageservice.biz.handler.send.bulkhead.VendorBulkheadRegistry;
+import org.opengoofy.assault.messageservice.simulator.core.SimulatedReceiptStore;
+import org.opengoofy.assault.messageservice.simulator.core.VendorBehaviorSimulatorRegistry;
+import org.opengoofy.assault.messageservice.simulator.handler.SimulatedMessageSendHandler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import static org.opengoofy.assault.messageservice.biz.common.MessageConstants.ALI_VENDOR;
+import static org.opengoofy.assault.messageservice.biz.common.MessageConstants.SMS_MESSAGE_KEY;
+import static org.opengoofy.assault.messageservice.biz.common.MessageConstants.TENCENT_VENDOR;
+import static org.opengoofy.assault.messageservice.biz.common.MessageConstants.WECHAT_VENDOR;
+import static org.opengoofy.assault.messageservice.biz.common.MessageTypeEnum.MAIL_MESSAGE;
+import static org.opengoofy.assault.messageservice.biz.common.MessageTypeEnum.WE_CHART_MESSAGE;
+
+/**
+ * 模拟消息发送组件配置，以真实发送组件相同的 mark 注册
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "message.simulator", name = "enabled", havingValue = "true")
+public class VendorSimulatorConfiguration {
+    
+    /**
+     * 邮件渠道商标识
+     */
+    public static final String MAIL_VENDOR = "MAIL";
+    
+    @Bean
+    public SimulatedMessageSendHandler aliSmsSimulatedMessageSendHandler(VendorBehaviorSimulatorRegistry simulatorRegistry,
+                                                                         VendorBulkheadRegistry vendorBulkheadRegistry,
+                                                                         SimulatedReceiptStore simulatedReceiptStore) {
+        return new SimulatedMessageSendHandler(SMS_MESSAGE_KEY + ALI_VENDOR, simulatorRegistry.get(ALI_VENDOR), vendorBulkheadRegistry, simulatedReceiptStore);
+    }
+    
+    @Bean
+    public SimulatedMessageSendHandler tencentSmsSimulatedMessageSendHandler(VendorBehaviorSimulatorRegistry simulatorRegistry,
+                                                                             VendorBulkheadRegistry vendorBulkheadRegistry,
+                                                                             SimulatedReceiptStore simulatedReceiptStore) {
+        return new SimulatedMessageSendHandler(SMS_MESSAGE_KEY + TENCENT_VENDOR, simulatorRegistry.get(TENCENT_VENDOR), vendorBulkheadRegistry, simulatedReceiptStore);
+    }
+    
+    @Bean
+    public SimulatedMessageSendHandler weChatTemplateSimulatedMessageSendHandler(VendorBehaviorSimulatorRegistry simulatorRegistry,
+                                                                                 VendorBulkheadRegistry vendorBulkheadRegistry) {
+        return new SimulatedMessageSendHandler(WE_CHART_MESSAGE.getPlatform(), simulatorRegistry.get(WECHAT_VENDOR), vendorBulkheadRegistry, null);
+    }
+    
+    @Bean
+    public SimulatedMessageSendHandler mailSimulatedMessageSendHandler(VendorBehaviorSimulatorRegistry simulatorRegistry,
+                                                                       VendorBulkheadRegistry vendorBulkheadRegistry) {
+        return new SimulatedMessageSendHandler(MAIL_MESSAGE.getPlatform(), simulatorRegistry.get(MAIL_VENDOR), vendorBulkheadRegistry, null);
+    }
+}
@@ -0,0 +1,32 @@
+package org.opengoofy.assault.messageservice.simulator.core;
+
+/**
+ * 模拟响应耗时分布枚举
+ */
+public enum LatencyDistributionEnum {
+    
+    /**
+     * 固定耗时
+     */
+    FIXED,
+    
+    /**
+     * 均匀分布
+     */
+    UNIFORM,
+    
+    /**
+     * 正态分布
+     */
+    NORMAL,
+    
+    /**
+     * 指数分布
+     */
+    EXPONENTIAL,
+    
+    /**
+     * 对数正态分布，三方接口耗时通常呈现该分布的长尾特征
+     */
+    LOG_NORMAL
+}
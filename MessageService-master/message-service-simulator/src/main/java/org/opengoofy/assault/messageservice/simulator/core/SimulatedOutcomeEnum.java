@@ -0,0 +1,27 @@
+package org.opengoofy.assault.messageservice.simulator.core;
+
+/**
+ * 模拟调用结果枚举
+ */
+public enum SimulatedOutcomeEnum {
+    
+    /**
+     * 调用成功
+     */
+    SUCCESS,
+    
+    /**
+     * 渠道商内部错误
+     */
+    ERROR,
+    
+    /**
+     * 触发渠道商限流
+     */
+    THROTTLED,
+    
+    /**
+     * 渠道商宕机
+     */
+    OUTAGE
+}
@@ -0,0 +1,116 @@
+package org.opengoofy.assault.messageservice.simulator.core;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import org.opengoofy.assault.messageservice.biz.common.MessageSendStatusEnum;
+import org.opengoofy.assault.messageservice.biz.job.receipt.MessageReceiptDTO;
+import org.opengoofy.assault.messageservice.simulator.config.VendorSimulatorConfig;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 模拟短信回执存储
+ * <p>
+ * 模拟发送成功后按渠道商回执延迟放入延迟队列，回执拉取任务只能拉取到已到期的回执
+ */
+@Component
+@ConditionalOnProperty(prefix = "message.simulator", name = "enabled", havingValue = "true")
+public class SimulatedReceiptStore {
+    
+    private final VendorSimulatorConfig vendorSimulatorConfig;
+    
+    private final DelayQueue<SimulatedReceipt> receiptQueue = new DelayQueue<>();
+    
+    private final Counter droppedCounter;
+    
+    public SimulatedReceiptStore(VendorSimulatorConfig vendorSimulatorConfig, MeterRegistry meterRegistry) {
+        this.vendorSimulatorConfig = vendorSimulatorConfig;
+        Gauge.builder("message.simulator.receipt.pending", receiptQueue, DelayQueue::size).register(meterRegistry);
+        this.droppedCounter = Counter.builder("message.simulator.receipt.dropped").register(meterRegistry);
+    }
+    
+    /**
+     * 登记一条待回执短信
+     *
+     * @param simulator 渠道商行为模拟器
+     * @param msgId     消息ID
+     * @param receiver  接收者
+     * @param channel   发送渠道
+     */
+    public void schedule(VendorBehaviorSimulator simulator, String msgId, String receiver, String channel) {
+        offer(simulator, msgId, null, receiver, channel);
+    }
+    
+    /**
+     * 登记一条只有渠道商流水号的待回执短信，对应腾讯云多号码请求，拉取时按流水号映射消息ID
+     *
+     * @param simulator 渠道商行为模拟器
+     * @param serialNo  渠道商流水号
+     * @param receiver  接收者
+     * @param channel   发送渠道
+     */
+    public void scheduleBySerialNo(VendorBehaviorSimulator simulator, String serialNo, String receiver, String channel) {
+        offer(simulator, null, serialNo, receiver, channel);
+    }
+    
+    private void offer(VendorBehaviorSimulator simulator, String msgId, String serialNo, String receiver, String channel) {
+        if (receiptQueue.size() >= vendorSimulatorConfig.getMaxPendingReceipts()) {
+            droppedCounter.increment();
+            return;
+        }
+        int status = simulator.sampleReceiptSuccess() ? MessageSendStatusEnum.SEND_SUCCESS.getCode() : MessageSendStatusEnum.SEND_FAIL.getCode();
+        long dueTime = System.currentTimeMillis() + simulator.sampleReceiptDelayMillis();
+        receiptQueue.offer(new SimulatedReceipt(new MessageReceiptDTO(msgId, receiver, channel, status, new Date(dueTime)), serialNo, dueTime));
+    }
+    
+    /**
+     * 拉取已到期回执
+     *
+     * @param maxSize 单次拉取最大数量
+     * @return 已到期回执集合
+     */
+    public List<SimulatedReceipt> drain(int maxSize) {
+        List<SimulatedReceipt> result = new ArrayList<>(Math.min(maxSize, 64));
+        receiptQueue.drainTo(result, maxSize);
+        return result;
+    }
+    
+    public static class SimulatedReceipt implements Delayed {
+        
+        @Getter
+        private final MessageReceiptDTO messageReceipt;
+        
+        /**
+         * 渠道商流水号，回执消息ID为空时按流水号关联
+         */
+        @Getter
+        private final String serialNo;
+        
+        private final long dueTime;
+        
+        SimulatedReceipt(MessageReceiptDTO messageReceipt, String serialNo, long dueTime) {
+            this.messageReceipt = messageReceipt;
+            this.serialNo = serialNo;
+            this.dueTime = dueTime;
+        }
+        
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueTime - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+        
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueTime, ((SimulatedReceipt) other).dueTime);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package org.opengoofy.assault.messageservice.simulator.core;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import org.opengoofy.assault.messageservice.simulator.config.VendorSimulatorConfig;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单个渠道商行为模拟器
+ * <p>
+ * 按照配置依次判定宕机、限流、错误，并按耗时分布阻塞调用线程，模拟真实的三方接口调用
+ */
+public class VendorBehaviorSimulator {
+    
+    /**
+     * 标准正态分布 99 分位点
+     */
+    private static final double Z_P99 = 2.326D;
+    
+    @Getter
+    private final String vendor;
+    
+    @Getter
+    private final VendorSimulatorConfig.VendorProfile profile;
+    
+    private final MeterRegistry meterRegistry;
+    
+    private final Timer latencyTimer;
+    
+    /**
+     * 模拟器启动时间，宕机窗口以此为起点计算
+     */
+    private final long startTimeMillis;
+    
+    /**
+     * QPS 限流当前秒
+     */
+    private long currentSecond;
+    
+    /**
+     * QPS 限流当前秒已放行请求数
+     */
+    private int currentSecondPermits;
+    
+    public VendorBehaviorSimulator(String vendor, VendorSimulatorConfig.VendorProfile profile, MeterRegistry meterRegistry, long startTimeMillis) {
+        this.vendor = vendor;
+        this.profile = profile;
+        this.meterRegistry = meterRegistry;
+        this.startTimeMillis = startTimeMillis;
+        this.latencyTimer = Timer.builder("message.simulator.latency").tag("vendor", vendor).register(meterRegistry);
+    }
+    
+    /**
+     * 模拟一次三方调用，阻塞至模拟耗时结束后返回调用结果
+     */
+    public SimulatedOutcomeEnum simulate() throws InterruptedException {
+        SimulatedOutcomeEnum outcome;
+        long latency;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (inOutage(System.currentTimeMillis())) {
+            outcome = SimulatedOutcomeEnum.OUTAGE;
+            latency = profile.getOutageLatencyMillis();
+        } else if (!tryAcquireQps() || random.nextDouble() < profile.getThrottleRate()) {
+            // 限流响应由渠道商网关直接返回，耗时远小于正常调用
+            outcome = SimulatedOutcomeEnum.THROTTLED;
+            latency = Math.min(sampleLatency(random), profile.getLatencyMinMillis() + 5);
+        } else if (random.nextDouble() < profile.getErrorRate()) {
+            outcome = SimulatedOutcomeEnum.ERROR;
+            latency = sampleLatency(random);
+        } else {
+            outcome = SimulatedOutcomeEnum.SUCCESS;
+            latency = sampleLatency(random);
+        }
+        if (latency > 0) {
+            TimeUnit.MILLISECONDS.sleep(latency);
+        }
+        latencyTimer.record(latency, TimeUnit.MILLISECONDS);
+        meterRegistry.counter("message.simulator.requests", "vendor", vendor, "outcome", outcome.name()).increment();
+        return outcome;
+    }
+    
+    /**
+     * 按回执成功比例判定本次短信是否投递成功
+     */
+    public boolean sampleReceiptSuccess() {
+        return ThreadLocalRandom.current().nextDouble() < profile.getReceiptSuccessRate();
+    }
+    
+    /**
+     * 回执延迟，均值的 0.5 - 1.5 倍之间
+     */
+    public long sampleReceiptDelayMillis() {
+        long receiptDelay = profile.getReceiptDelayMillis();
+        return receiptDelay <= 0 ? 0 : receiptDelay / 2 + ThreadLocalRandom.current().nextLong(receiptDelay + 1);
+    }
+    
+    /**
+     * 当前是否处于宕机窗口内
+     */
+    public boolean inOutage(long nowMillis) {
+        long elapsedSeconds = (nowMillis - startTimeMillis) / 1000;
+        for (VendorSimulatorConfig.OutageWindow each : profile.getOutageWindows()) {
+            if (elapsedSeconds < each.getStartSeconds()) {
+                continue;
+            }
+            long offset = elapsedSeconds - each.getStartSeconds();
+            if (each.getPeriodSeconds() > 0) {
+                offset = offset % each.getPeriodSeconds();
+            }
+            if (offset < each.getDurationSeconds()) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private synchronized boolean tryAcquireQps() {
+        if (profile.getMaxQps() <= 0) {
+            return true;
+        }
+        long nowSecond = System.currentTimeMillis() / 1000;
+        if (nowSecond != currentSecond) {
+            currentSecond = nowSecond;
+            currentSecondPermits = 0;
+        }
+        return ++currentSecondPermits <= profile.getMaxQps();
+    }
+    
+    private long sampleLatency(ThreadLocalRandom random) {
+        double latency;
+        long base = profile.getLatencyMillis();
+        switch (profile.getLatencyDistribution()) {
+            case FIXED:
+                latency = base;
+                break;
+            case UNIFORM:
+                latency = profile.getLatencyMinMillis() + random.nextDouble() * Math.max(0, profile.getLatencyMaxMillis() - profile.getLatencyMinMillis());
+                break;
+            case NORMAL:
+                latency = base + random.nextGaussian() * profile.getLatencyStddevMillis();
+                break;
+            case EXPONENTIAL:
+                latency = -base * Math.log(1 - random.nextDouble());
+                break;
+            case LOG_NORMAL:
+            default:
+                // 以中位数和 P99 反推对数正态分布参数
+                double sigma = base <= 0 || profile.getLatencyP99Millis() <= base ? 0 : Math.log((double) profile.getLatencyP99Millis() / base) / Z_P99;
+                latency = base * Math.exp(sigma * random.nextGaussian());
+                break;
+        }
+        return Math.max(profile.getLatencyMinMillis(), Math.min(profile.getLatencyMaxMillis(), Math.round(latency)));
+    }
+}
@@ -0,0 +1,40 @@
+package org.opengoofy.assault.messageservice.simulator.core;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.opengoofy.assault.messageservice.simulator.config.VendorSimulatorConfig;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 渠道商行为模拟器注册器，进程内模拟发送组件与本地 HTTP 模拟服务共用同一份渠道商行为
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "message.simulator", name = "enabled", havingValue = "true")
+public class VendorBehaviorSimulatorRegistry {
+    
+    private final VendorSimulatorConfig vendorSimulatorConfig;
+    private final MeterRegistry meterRegistry;
+    
+    private final long startTimeMillis = System.currentTimeMillis();
+    
+    private final Map<String, VendorBehaviorSimulator> simulatorMap = new ConcurrentHashMap<>();
+    
+    /**
+     * 根据渠道商标识获取行为模拟器，未配置的渠道商使用默认行为
+     *
+     * @param vendor 渠道商标识
+     * @return 渠道商行为模拟器
+     */
+    public VendorBehaviorSimulator get(String vendor) {
+        return simulatorMap.computeIfAbsent(vendor, each -> new VendorBehaviorSimulator(
+                each,
+                vendorSimulatorConfig.getVendors().getOrDefault(each, new VendorSimulatorConfig.VendorProfile()),
+                meterRegistry,
+                startTimeMillis));
+    }
+}
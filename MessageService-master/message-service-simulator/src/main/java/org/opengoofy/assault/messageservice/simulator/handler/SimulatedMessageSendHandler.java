@@ -0,0 +1,60 @@
+package org.opengoofy.assault.messageservice.simulator.handler;
+
+import cn.hutool.core.util.IdUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.opengoofy.assault.messageservice.biz.dto.MessagePlatformSendResponseDTO;
+import org.opengoofy.assault.messageservice.biz.handler.send.base.AbstractMessageSendService;
+import org.opengoofy.assault.messageservice.biz.handler.send.base.MessageSendService;
+import org.opengoofy.assault.messageservice.biz.handler.send.bulkhead.VendorBulkheadRegistry;
+import org.opengoofy.assault.messageservice.biz.mq.event.MessageSendEvent;
+import org.opengoofy.assault.messageservice.simulator.core.SimulatedOutcomeEnum;
+import org.opengoofy.assault.messageservice.simulator.core.SimulatedReceiptStore;
+import org.opengoofy.assault.messageservice.simulator.core.VendorBehaviorSimulator;
+
+/**
+ * 进程内模拟消息发送组件
+ * <p>
+ * 以真实发送组件相同的 mark 注册，调用同样经过渠道商舱壁，用于压测吞吐、渠道切换以及舱壁熔断表现
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class SimulatedMessageSendHandler extends AbstractMessageSendService implements MessageSendService {
+    
+    private final String mark;
+    
+    private final VendorBehaviorSimulator vendorBehaviorSimulator;
+    
+    private final VendorBulkheadRegistry vendorBulkheadRegistry;
+    
+    /**
+     * 模拟回执存储，非短信渠道为空
+     */
+    private final SimulatedReceiptStore simulatedReceiptStore;
+    
+    @Override
+    public String mark() {
+        return mark;
+    }
+    
+    @Override
+    public MessagePlatformSendResponseDTO executeResp(MessageSendEvent messageSendEvent) {
+        try {
+            SimulatedOutcomeEnum outcome = vendorBulkheadRegistry.get(vendorBehaviorSimulator.getVendor()).execute(vendorBehaviorSimulator::simulate);
+            if (outcome != SimulatedOutcomeEnum.SUCCESS) {
+                return MessagePlatformSendResponseDTO.builder().code(outcome.name()).errMsg("模拟渠道商调用失败").success(false).build();
+            }
+            if (simulatedReceiptStore != null) {
+                simulatedReceiptStore.schedule(vendorBehaviorSimulator, messageSendEvent.getMsgId(), messageSendEvent.getMessageSendRequest().getReceiver(), messageSendEvent.getCurrentSendChannel());
+            }
+            return MessagePlatformSendResponseDTO.builder()
+                    .success(true)
+                    .bizId(IdUtil.fastSimpleUUID())
+                    .billingCount(1)
+                    .build();
+        } catch (Throwable ex) {
+            log.error("[{}] 模拟渠道商调用失败：{}", mark, ex.getMessage());
+            return MessagePlatformSendResponseDTO.builder().code("-1").errMsg(ex.getMessage()).success(false).build();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.opengoofy.assault.messageservice.simulator.handler;
+
+import lombok.RequiredArgsConstructor;
+import org.opengoofy.assault.messageservice.biz.handler.send.tencent.TencentSmsSerialNoStore;
+import org.opengoofy.assault.messageservice.biz.job.receipt.AbstractSmsMessageReceiptTemplate;
+import org.opengoofy.assault.messageservice.biz.job.receipt.MessageReceiptDTO;
+import org.opengoofy.assault.messageservice.simulator.config.VendorSimulatorConfig;
+import org.opengoofy.assault.messageservice.simulator.core.SimulatedReceiptStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 模拟短信回执拉取执行器，走与真实渠道商相同的回执拉取、入库以及重试流程
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "message.simulator", name = "enabled", havingValue = "true")
+public class SimulatedSmsMessageReceiptExecutor extends AbstractSmsMessageReceiptTemplate {
+    
+    /**
+     * 模拟渠道商标识，所有模拟渠道的回执共用一个拉取租约
+     */
+    private static final String SIMULATOR_VENDOR = "SIMULATOR";
+    
+    private final VendorSimulatorConfig vendorSimulatorConfig;
+    private final SimulatedReceiptStore simulatedReceiptStore;
+    private final TencentSmsSerialNoStore tencentSmsSerialNoStore;
+    
+    @Override
+    protected String vendor() {
+        return SIMULATOR_VENDOR;
+    }
+    
+    /**
+     * 模拟回执存储不区分渠道商账号，只按默认分区拉取，不能为模拟渠道商配置拉取分区
+     */
+    @Override
+    protected List<MessageReceiptDTO> listReceipt(String partition) {
+        return convert(simulatedReceiptStore.drain(vendorSimulatorConfig.getReceiptPullSize()));
+    }
+    
+    /**
+     * 只有流水号的回执与真实腾讯云回执推送一致，按发送时缓存的流水号映射一次性查询消息ID，映射不存在的回执丢弃
+     */
+    @Override
+    protected List<MessageReceiptDTO> convert(List<?> originalList) {
+        List<SimulatedReceiptStore.SimulatedReceipt> simulatedReceipts = originalList.stream()
+                .map(each -> (SimulatedReceiptStore.SimulatedReceipt) each)
+                .collect(Collectors.toList());
+        Map<String, String> serialNoMsgIds = tencentSmsSerialNoStore.resolve(simulatedReceipts.stream()
+                .filter(each -> each.getMessageReceipt().getMsgId() == null)
+                .map(SimulatedReceiptStore.SimulatedReceipt::getSerialNo)
+                .collect(Collectors.toList()));
+        List<MessageReceiptDTO> result = new ArrayList<>(simulatedReceipts.size());
+        for (SimulatedReceiptStore.SimulatedReceipt each : simulatedReceipts) {
+            MessageReceiptDTO messageReceipt = each.getMessageReceipt();
+            if (messageReceipt.getMsgId() == null) {
+                messageReceipt.setMsgId(serialNoMsgIds.get(each.getSerialNo()));
+            }
+            if (messageReceipt.getMsgId() != null) {
+                result.add(messageReceipt);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,284 @@
+package org.opengoofy.assault.messageservice.simulator.http;
+
+import cn.hutool.core.codec.Base64;
+import cn.hutool.core.io.IoUtil;
+import cn.hutool.core.net.url.UrlQuery;
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.crypto.digest.HMac;
+import cn.hutool.crypto.digest.HmacAlgorithm;
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.opengoofy.assault.messageservice.simulator.config.VendorSimulatorConfig;
+import org.opengoofy.assault.messageservice.simulator.core.SimulatedOutcomeEnum;
+import org.opengoofy.assault.messageservice.simulator.core.SimulatedReceiptStore;
+import org.opengoofy.assault.messageservice.simulator.core.VendorBehaviorSimulator;
+import org.opengoofy.assault.messageservice.simulator.core.VendorBehaviorSimulatorRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import static org.opengoofy.assault.messageservice.biz.common.MessageConstants.ALI_VENDOR;
+import static org.opengoofy.assault.messageservice.biz.common.MessageConstants.TENCENT_VENDOR;
+import static org.opengoofy.assault.messageservice.biz.common.MessageConstants.WECHAT_VENDOR;
+
+/**
+ * 本地三方渠道商 HTTP 模拟服务
+ * <p>
+ * 按阿里云、腾讯云、微信公众号的接口响应格式返回成功、错误、限流报文，宕机期间挂起连接后直接断开，
+ * 用于验证真实 HTTP 客户端在连接池、超时、重试上的表现，访问路径分别为：/ali、/tencent、/wechat，
+ * 阿里云 Tea SDK 固定请求根路径，因此根路径同样按阿里云处理
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "message.simulator", name = "enabled", havingValue = "true")
+public class VendorSimulatorHttpServer implements InitializingBean, DisposableBean {
+    
+    private final VendorSimulatorConfig vendorSimulatorConfig;
+    private final VendorBehaviorSimulatorRegistry simulatorRegistry;
+    private final SimulatedReceiptStore simulatedReceiptStore;
+    
+    private HttpServer httpServer;
+    
+    private ExecutorService httpExecutor;
+    
+    @Override
+    public void afterPropertiesSet() throws IOException {
+        httpServer = HttpServer.create(new InetSocketAddress(vendorSimulatorConfig.getHttpPort()), 1024);
+        httpServer.createContext("/", new SimulatedVendorHandler(ALI_VENDOR, this::aliResponse));
+        httpServer.createContext("/ali", new SimulatedVendorHandler(ALI_VENDOR, this::aliResponse));
+        httpServer.createContext("/tencent", new SimulatedVendorHandler(TENCENT_VENDOR, this::tencentResponse));
+        httpServer.createContext("/wechat", new SimulatedVendorHandler(WECHAT_VENDOR, this::weChatResponse));
+        httpExecutor = Executors.newFixedThreadPool(vendorSimulatorConfig.getHttpThreads(), ThreadFactoryBuilder.create().setNamePrefix("vendor-simulator-http-").setDaemon(true).build());
+        httpServer.setExecutor(httpExecutor);
+        httpServer.start();
+        log.info("三方渠道商 HTTP 模拟服务已启动，端口：{}", vendorSimulatorConfig.getHttpPort());
+    }
+    
+    @Override
+    public void destroy() {
+        if (httpServer != null) {
+            httpServer.stop(0);
+        }
+        if (httpExecutor != null) {
+            httpExecutor.shutdownNow();
+        }
+    }
+    
+    /**
+     * 阿里云 RPC 风格响应，请求参数位于 URL 或表单中，OutId 为业务方消息ID
+     */
+    private SimulatedResponse aliResponse(VendorBehaviorSimulator simulator, SimulatedOutcomeEnum outcome, String requestBody, Map<String, String> params) {
+        JSONObject response = new JSONObject();
+        response.put("RequestId", IdUtil.fastUUID());
+        switch (outcome) {
+            case THROTTLED:
+                response.put("Code", "isv.BUSINESS_LIMIT_CONTROL");
+                response.put("Message", "触发流控");
+                return new SimulatedResponse(200, response.toJSONString());
+            case ERROR:
+                response.put("Code", "ServiceUnavailable");
+                response.put("Message", "The request has failed due to a temporary failure of the server.");
+                return new SimulatedResponse(503, response.toJSONString());
+            default:
+                response.put("Code", "OK");
+                response.put("Message", "OK");
+                response.put("BizId", IdUtil.getSnowflakeNextIdStr());
+                String outId = params.get("OutId");
+                if (StrUtil.isNotBlank(outId)) {
+                    StrUtil.split(params.get("PhoneNumbers"), ',').forEach(each -> simulatedReceiptStore.schedule(simulator, outId, each, ALI_VENDOR));
+                }
+                return new SimulatedResponse(200, response.toJSONString());
+        }
+    }
+    
+    /**
+     * 腾讯云 API 3.0 风格响应，请求体为 JSON，SessionContext 为业务方消息ID
+     */
+    private SimulatedResponse tencentResponse(VendorBehaviorSimulator simulator, SimulatedOutcomeEnum outcome, String requestBody, Map<String, String> params) {
+        JSONObject response = new JSONObject();
+        response.put("RequestId", IdUtil.fastUUID());
+        if (outcome == SimulatedOutcomeEnum.THROTTLED || outcome == SimulatedOutcomeEnum.ERROR) {
+            JSONObject error = new JSONObject();
+            error.put("Code", outcome == SimulatedOutcomeEnum.THROTTLED ? "LimitExceeded" : "InternalError");
+            error.put("Message", outcome == SimulatedOutcomeEnum.THROTTLED ? "请求频率超过限制" : "内部错误");
+            response.put("Error", error);
+            return new SimulatedResponse(200, JSON.toJSONString(JSONObject.of("Response", response)));
+        }
+        JSONObject request = StrUtil.isBlank(requestBody) ? new JSONObject() : JSON.parseObject(requestBody);
+        String sessionContext = request.getString("SessionContext");
+        JSONArray phoneNumberSet = request.getJSONArray("PhoneNumberSet");
+        JSONArray sendStatusSet = new JSONArray();
+        for (int i = 0; phoneNumberSet != null && i < phoneNumberSet.size(); i++) {
+            String phoneNumber = phoneNumberSet.getString(i);
+            String serialNo = IdUtil.fastSimpleUUID();
+            JSONObject sendStatus = new JSONObject();
+            sendStatus.put("SerialNo", serialNo);
+            sendStatus.put("PhoneNumber", phoneNumber);
+            sendStatus.put("Fee", 1);
+            sendStatus.put("SessionContext", sessionContext);
+            sendStatus.put("Code", "Ok");
+            sendStatus.put("Message", "send success");
+            sendStatus.put("IsoCode", "CN");
+            sendStatusSet.add(sendStatus);
+            // 单号码请求 SessionContext 即消息ID；多号码请求不携带 SessionContext，回执按流水号关联发送时缓存的消息ID
+            String receiver = StrUtil.removePrefix(phoneNumber, "+86");
+            if (StrUtil.isNotBlank(sessionContext)) {
+                simulatedReceiptStore.schedule(simulator, sessionContext, receiver, TENCENT_VENDOR);
+            } else {
+                simulatedReceiptStore.scheduleBySerialNo(simulator, serialNo, receiver, TENCENT_VENDOR);
+            }
+        }
+        response.put("SendStatusSet", sendStatusSet);
+        return new SimulatedResponse(200, JSON.toJSONString(JSONObject.of("Response", response)));
+    }
+    
+    /**
+     * 微信公众号模板消息响应
+     */
+    private SimulatedResponse weChatResponse(VendorBehaviorSimulator simulator, SimulatedOutcomeEnum outcome, String requestBody, Map<String, String> params) {
+        JSONObject response = new JSONObject();
+        switch (outcome) {
+            case THROTTLED:
+                response.put("errcode", 45009);
+                response.put("errmsg", "reach max api daily quota limit");
+                break;
+            case ERROR:
+                response.put("errcode", -1);
+                response.put("errmsg", "system error");
+                break;
+            default:
+                response.put("errcode", 0);
+                response.put("errmsg", "ok");
+                response.put("msgid", IdUtil.getSnowflakeNextId());
+        }
+        return new SimulatedResponse(200, response.toJSONString());
+    }
+    
+    /**
+     * 按阿里云 RPC 签名机制独立计算签名并与请求中的签名比对，未配置校验密钥时不校验
+     */
+    private boolean verifyAliSignature(String method, Map<String, String> params) {
+        String accessKeySecret = vendorSimulatorConfig.getAliAccessKeySecret();
+        if (StrUtil.isBlank(accessKeySecret)) {
+            return true;
+        }
+        String signature = params.get("Signature");
+        if (StrUtil.isBlank(signature)) {
+            return false;
+        }
+        String canonicalized = new TreeMap<>(params).entrySet().stream()
+                .filter(each -> !"Signature".equals(each.getKey()))
+                .map(each -> aliPercentEncode(each.getKey()) + "=" + aliPercentEncode(each.getValue()))
+                .collect(Collectors.joining("&"));
+        String stringToSign = method.toUpperCase() + "&" + aliPercentEncode("/") + "&" + aliPercentEncode(canonicalized);
+        HMac hmac = new HMac(HmacAlgorithm.HmacSHA1, (accessKeySecret + "&").getBytes(StandardCharsets.UTF_8));
+        return Base64.encode(hmac.digest(stringToSign)).equals(signature);
+    }
+    
+    private static String aliPercentEncode(String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8").replace("+", "%20").replace("*", "%2A").replace("%7E", "~");
+        } catch (UnsupportedEncodingException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+    
+    @FunctionalInterface
+    private interface SimulatedResponseBuilder {
+        
+        SimulatedResponse build(VendorBehaviorSimulator simulator, SimulatedOutcomeEnum outcome, String requestBody, Map<String, String> params);
+    }
+    
+    @RequiredArgsConstructor
+    private static class SimulatedResponse {
+        
+        private final int status;
+        
+        private final String body;
+    }
+    
+    /**
+     * 通用模拟处理器：预热请求直接返回，其余请求先模拟渠道商行为再按渠道商格式响应
+     */
+    @RequiredArgsConstructor
+    private class SimulatedVendorHandler implements HttpHandler {
+        
+        private final String vendor;
+        
+        private final SimulatedResponseBuilder responseBuilder;
+        
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            try {
+                if ("HEAD".equalsIgnoreCase(exchange.getRequestMethod())) {
+                    exchange.sendResponseHeaders(200, -1);
+                    return;
+                }
+                String requestBody = IoUtil.read(exchange.getRequestBody(), StandardCharsets.UTF_8);
+                Map<String, String> params = parseParams(exchange, requestBody);
+                // 签名校验由渠道商网关完成，不计入渠道商行为模拟
+                if (ALI_VENDOR.equals(vendor) && !verifyAliSignature(exchange.getRequestMethod(), params)) {
+                    writeResponse(exchange, new SimulatedResponse(400, "{\"Code\":\"SignatureDoesNotMatch\",\"Message\":\"Specified signature is not matched with our calculation.\"}"));
+                    return;
+                }
+                VendorBehaviorSimulator simulator = simulatorRegistry.get(vendor);
+                SimulatedOutcomeEnum outcome = simulator.simulate();
+                if (outcome == SimulatedOutcomeEnum.OUTAGE) {
+                    // 不返回任何响应直接断开，客户端表现为连接被重置或读取超时
+                    return;
+                }
+                writeResponse(exchange, responseBuilder.build(simulator, outcome, requestBody, params));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (Throwable ex) {
+                log.error("[{}] 渠道商模拟请求处理失败", vendor, ex);
+            } finally {
+                exchange.close();
+            }
+        }
+        
+        private void writeResponse(HttpExchange exchange, SimulatedResponse response) throws IOException {
+            byte[] body = response.body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json;charset=UTF-8");
+            exchange.sendResponseHeaders(response.status, body.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(body);
+            }
+        }
+        
+        private Map<String, String> parseParams(HttpExchange exchange, String requestBody) {
+            Map<String, String> params = new HashMap<>();
+            String contentType = StrUtil.nullToEmpty(exchange.getRequestHeaders().getFirst("Content-Type"));
+            UrlQuery.of(exchange.getRequestURI().getRawQuery(), StandardCharsets.UTF_8).getQueryMap()
+                    .forEach((key, value) -> params.put(String.valueOf(key), String.valueOf(value)));
+            if (contentType.startsWith("application/x-www-form-urlencoded")) {
+                UrlQuery.of(requestBody, StandardCharsets.UTF_8).getQueryMap()
+                        .forEach((key, value) -> params.put(String.valueOf(key), String.valueOf(value)));
+            }
+            return params;
+        }
+    }
+}
@@ -2,29 +2,63 @@ package org.opengoofy.assault.messageservice.config;
 
 import cn.hippo4j.core.executor.DynamicThreadPool;
 import cn.hippo4j.core.executor.support.ThreadPoolBuilder;
+import lombok.RequiredArgsConstructor;
+import org.opengoofy.assault.messageservice.biz.common.MessageSendLaneEnum;
+import org.opengoofy.assault.messageservice.biz.config.MessageSendLaneConfig;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
+@RequiredArgsConstructor
 public class ThreadPoolConfiguration {
     
+    private final MessageSendLaneConfig messageSendLaneConfig;
+    
     @Bean
     @DynamicThreadPool
     public ThreadPoolExecutor otherMessageConsumeDynamicExecutor() {
-        String threadPoolId = "other-message-consume";
-        return ThreadPoolBuilder.builder()
-                .threadFactory(threadPoolId)
-                .threadPoolId(threadPoolId)
-                .dynamicPool()
-                .build();
+        return buildLaneExecutor("other-message-consume", MessageSendLaneEnum.OTHER);
     }
     
     @Bean
     @DynamicThreadPool
     public ThreadPoolExecutor smsVerificationMessageConsumeDynamicExecutor() {
-        String threadPoolId = "sms-verification-message-consume";
+        return buildLaneExecutor("sms-verification-message-consume", MessageSendLaneEnum.VERIFICATION);
+    }
+    
+    @Bean
+    @DynamicThreadPool
+    public ThreadPoolExecutor smsInformMessageConsumeDynamicExecutor() {
+        return buildLaneExecutor("sms-inform-message-consume", MessageSendLaneEnum.INFORM);
+    }
+    
+    @Bean
+    @DynamicThreadPool
+    public ThreadPoolExecutor smsMarketingMessageConsumeDynamicExecutor() {
+        return buildLaneExecutor("sms-marketing-message-consume", MessageSendLaneEnum.MARKETING);
+    }
+    
+    @Bean
+    @DynamicThreadPool
+    public ThreadPoolExecutor weChatMessageConsumeDynamicExecutor() {
+        return buildLaneExecutor("wechat-message-consume", MessageSendLaneEnum.WECHAT);
+    }
+    
+    @Bean
+    @DynamicThreadPool
+    public ThreadPoolExecutor mailMessageConsumeDynamicExecutor() {
+        return buildLaneExecutor("mail-message-consume", MessageSendLaneEnum.MAIL);
+    }
+    
+    /**
+     * 回执拉取线程池，由 Hippo4j 动态管理并参与自动扩缩容
+     */
+    @Bean
+    @DynamicThreadPool
+    public ThreadPoolExecutor messageReceiptExecutor() {
+        String threadPoolId = "message-receipt";
         return ThreadPoolBuilder.builder()
                 .threadFactory(threadPoolId)
                 .threadPoolId(threadPoolId)
@@ -33,11 +67,16 @@ public class ThreadPoolConfiguration {
     }
     
     /**
-     * 非动态线程池，留下一道思考题，自己改造为 Hippo4j 动态线程池
+     * 构建消息发送通道线程池，初始线程数按通道并发权重分配
      */
-    @Bean
-    @DynamicThreadPool
-    public ThreadPoolExecutor messageReceiptExecutor() {
-        return ThreadPoolBuilder.builder().threadFactory("message-receipt").build();
+    private ThreadPoolExecutor buildLaneExecutor(String threadPoolId, MessageSendLaneEnum lane) {
+        int concurrency = messageSendLaneConfig.concurrencyOf(lane);
+        return ThreadPoolBuilder.builder()
+                .threadFactory(threadPoolId)
+                .threadPoolId(threadPoolId)
+                .corePoolSize(concurrency)
+                .maxPoolNum(concurrency)
+                .dynamicPool()
+                .build();
     }
 }
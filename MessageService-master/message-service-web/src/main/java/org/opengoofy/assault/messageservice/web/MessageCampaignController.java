@@ -0,0 +1,40 @@
+package org.opengoofy.assault.messageservice.web;
+
+import lombok.RequiredArgsConstructor;
+import org.opengoofy.assault.framework.starter.convention.result.Result;
+import org.opengoofy.assault.framework.starter.web.Results;
+import org.opengoofy.assault.messageservice.api.dto.MessageCampaignCreateRequestDTO;
+import org.opengoofy.assault.messageservice.api.dto.MessageCampaignProgressResponseDTO;
+import org.opengoofy.assault.messageservice.biz.service.MessageCampaignService;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 批量发送活动控制层
+ */
+@RestController
+@RequiredArgsConstructor
+public class MessageCampaignController {
+    
+    private final MessageCampaignService messageCampaignService;
+    
+    /**
+     * 创建批量发送活动，需在发送该批次消息前调用
+     */
+    @PostMapping("/api/message-service/v1/campaign/create")
+    public Result<Void> createCampaign(@RequestBody MessageCampaignCreateRequestDTO requestParam) {
+        messageCampaignService.createCampaign(requestParam);
+        return Results.success();
+    }
+    
+    /**
+     * 查询批量发送活动进度
+     */
+    @GetMapping("/api/message-service/v1/campaign/progress")
+    public Result<MessageCampaignProgressResponseDTO> queryProgress(@RequestParam("msgBatchId") String msgBatchId) {
+        return Results.success(messageCampaignService.queryProgress(msgBatchId));
+    }
+}
@@ -0,0 +1,86 @@
+package org.opengoofy.assault.messageservice.web;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.opengoofy.assault.messageservice.biz.service.MessageReceiptPushService;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.opengoofy.assault.messageservice.biz.common.MessageConstants.ALI_VENDOR;
+import static org.opengoofy.assault.messageservice.biz.common.MessageConstants.TENCENT_VENDOR;
+
+/**
+ * 短信回执推送控制层，应答格式按各渠道商推送协议返回
+ * <p>
+ * 推送请求需通过渠道商对应的令牌与来源 IP 白名单校验，校验失败返回 403；应答只返回固定文案，不回显内部异常信息
+ */
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+public class MessageReceiptController {
+    
+    /**
+     * 令牌请求头，未携带时读取回调地址参数 token
+     */
+    private static final String TOKEN_HEADER = "X-Receipt-Token";
+    
+    private final MessageReceiptPushService messageReceiptPushService;
+    
+    /**
+     * 阿里云短信状态报告推送，code 为 0 时阿里云不再重推
+     */
+    @PostMapping("/api/message-service/v1/receipt/ali")
+    public Map<String, Object> aliReceipt(HttpServletRequest request, HttpServletResponse response) {
+        if (!verify(ALI_VENDOR, request, response)) {
+            return response("code", -1, "msg", "校验失败");
+        }
+        try {
+            messageReceiptPushService.receiveAliReceipts(request.getInputStream());
+            return response("code", 0, "msg", "成功");
+        } catch (Throwable ex) {
+            log.error("阿里云短信状态报告接收失败", ex);
+            return response("code", -1, "msg", "接收失败");
+        }
+    }
+    
+    /**
+     * 腾讯云短信下发状态推送，result 为 0 时腾讯云不再重推
+     */
+    @PostMapping("/api/message-service/v1/receipt/tencent")
+    public Map<String, Object> tencentReceipt(HttpServletRequest request, HttpServletResponse response) {
+        if (!verify(TENCENT_VENDOR, request, response)) {
+            return response("result", -1, "errmsg", "校验失败");
+        }
+        try {
+            messageReceiptPushService.receiveTencentReceipts(request.getInputStream());
+            return response("result", 0, "errmsg", "OK");
+        } catch (Throwable ex) {
+            log.error("腾讯云短信下发状态接收失败", ex);
+            return response("result", -1, "errmsg", "接收失败");
+        }
+    }
+    
+    private boolean verify(String vendor, HttpServletRequest request, HttpServletResponse response) {
+        String token = request.getHeader(TOKEN_HEADER);
+        if (token == null) {
+            token = request.getParameter("token");
+        }
+        if (messageReceiptPushService.verify(vendor, token, request.getRemoteAddr())) {
+            return true;
+        }
+        response.setStatus(HttpServletResponse.SC_FORBIDDEN);
+        return false;
+    }
+    
+    private static Map<String, Object> response(String codeField, int code, String msgField, String msg) {
+        Map<String, Object> result = new LinkedHashMap<>(2);
+        result.put(codeField, code);
+        result.put(msgField, msg);
+        return result;
+    }
+}
@@ -1,30 +1,41 @@
 package org.opengoofy.assault.messageservice.web;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.opengoofy.assault.framework.starter.convention.result.Result;
 import org.opengoofy.assault.framework.starter.web.Results;
+import org.opengoofy.assault.messageservice.api.dto.MessageCancelRequestDTO;
+import org.opengoofy.assault.messageservice.api.dto.MessagePageQueryRequestDTO;
+import org.opengoofy.assault.messageservice.api.dto.MessagePageQueryResponseDTO;
 import org.opengoofy.assault.messageservice.api.dto.MessageQueryRequestDTO;
 import org.opengoofy.assault.messageservice.api.dto.MessageQueryResponseDTO;
 import org.opengoofy.assault.messageservice.api.dto.MessageSendRequestDTO;
 import org.opengoofy.assault.messageservice.api.dto.MessageSendResponseDTO;
+import org.opengoofy.assault.messageservice.biz.common.MessageExportFormatEnum;
+import org.opengoofy.assault.messageservice.biz.service.MessageCancelService;
 import org.opengoofy.assault.messageservice.biz.service.MessageQueryService;
 import org.opengoofy.assault.messageservice.biz.service.MessageSendService;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.List;
 
 /**
  * 消息发送控制层
  */
+@Slf4j
 @RestController
 @RequiredArgsConstructor
 public class MessageSendController {
     
     private final MessageSendService messageSendService;
     private final MessageQueryService messageQueryService;
+    private final MessageCancelService messageCancelService;
     
     /**
      * 消息异步发送
@@ -44,6 +55,15 @@ public class MessageSendController {
         return Results.success(result);
     }
     
+    /**
+     * 撤回尚未发送的消息，支持按消息ID或消息批量发送ID撤回
+     */
+    @PostMapping("/api/message-service/v1/message/cancel")
+    public Result<Void> messageCancel(@RequestBody MessageCancelRequestDTO requestParam) {
+        messageCancelService.cancel(requestParam);
+        return Results.success();
+    }
+    
     /**
      * 消息查询
      */
@@ -51,4 +71,26 @@ public class MessageSendController {
     public Result<List<MessageQueryResponseDTO>> messageQuery(MessageQueryRequestDTO requestParam) {
         return Results.success(messageQueryService.messageQuery(requestParam));
     }
+    
+    /**
+     * 消息分页查询，按创建时间、消息ID升序，通过上一页返回的游标翻页
+     */
+    @GetMapping("/api/message-service/v1/message/page")
+    public Result<MessagePageQueryResponseDTO> messagePageQuery(MessagePageQueryRequestDTO requestParam) {
+        return Results.success(messageQueryService.messagePageQuery(requestParam));
+    }
+    
+    /**
+     * 消息流式导出，支持 ndjson、csv 格式
+     */
+    @GetMapping("/api/message-service/v1/message/export")
+    public void messageExport(MessageQueryRequestDTO requestParam,
+                              @RequestParam(defaultValue = "ndjson") String format,
+                              HttpServletResponse response) throws IOException {
+        MessageExportFormatEnum exportFormat = MessageExportFormatEnum.of(format);
+        response.setContentType(exportFormat.getContentType() + ";charset=UTF-8");
+        response.setHeader("Content-Disposition", "attachment; filename=message-export." + exportFormat.getExtension());
+        long count = messageQueryService.messageExport(requestParam, exportFormat, response.getOutputStream());
+        log.info("消息导出完成，格式：{}，记录数：{}", exportFormat.getExtension(), count);
+    }
 }